@@ -1,13 +1,18 @@
 package com.example.designpattern;
 
+import com.example.designpattern.startup.StartupTimingReport;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class DesignPatternApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(DesignPatternApplication.class, args);
+        SpringApplication application = new SpringApplication(DesignPatternApplication.class);
+        // 记录启动各阶段的耗时，就绪时由 StartupTimingReport 汇总输出
+        application.setApplicationStartup(new BufferingApplicationStartup(StartupTimingReport.TIMELINE_CAPACITY));
+        application.run(args);
     }
 
 }
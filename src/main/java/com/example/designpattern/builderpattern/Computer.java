@@ -1,9 +1,16 @@
 // 文件路径: src/main/java/com/example/designpattern/builderpattern/Computer.java
 package com.example.designpattern.builderpattern;
 
+import java.util.Objects;
+
 /**
  * 产品类：电脑 (Computer)
  * 这是一个不可变类，其属性在构建完成后不能被修改。
+ * <p>
+ * 配置相同的两个实例 equals 相等，可以通过 {@link ComputerInterner} 合并为同一个共享实例 (享元)。
+ * 大批量构建 (例如为整个 SKU 目录生成配置) 时使用 {@link #builder()} 或 {@link #builder(ComputerInterner)}：
+ * 不打印日志，同一个建造者可以反复 build()。
+ * </p>
  */
 public class Computer {
 
@@ -16,6 +23,7 @@ public class Computer {
     private final String graphicsCard; // 显卡型号 (如 "NVIDIA RTX 4090")
     private final String operatingSystem; // 操作系统 (如 "Windows 11 Pro")
     private final boolean bluetoothEnabled; // 是否启用蓝牙
+    private final int hash; // 不可变，构造时计算一次；对象头之后的对齐空间放得下，不增加实例大小
 
     // 构造函数设为私有，强制通过Builder创建
     private Computer(Builder builder) {
@@ -25,6 +33,26 @@ public class Computer {
         this.graphicsCard = builder.graphicsCard;
         this.operatingSystem = builder.operatingSystem;
         this.bluetoothEnabled = builder.bluetoothEnabled;
+        int h = cpu.hashCode();
+        h = 31 * h + ram.hashCode();
+        h = 31 * h + Objects.hashCode(storage);
+        h = 31 * h + Objects.hashCode(graphicsCard);
+        h = 31 * h + Objects.hashCode(operatingSystem);
+        this.hash = 31 * h + Boolean.hashCode(bluetoothEnabled);
+    }
+
+    /**
+     * 大批量构建用的建造者：不打印日志，可以重复使用
+     */
+    public static Builder builder() {
+        return new Builder(null);
+    }
+
+    /**
+     * 大批量构建用的建造者，build() 返回 interner 中配置相同的共享实例
+     */
+    public static Builder builder(ComputerInterner interner) {
+        return new Builder(Objects.requireNonNull(interner, "interner"));
     }
 
     // 只提供getter方法，不提供setter，确保不可变性
@@ -35,6 +63,29 @@ public class Computer {
     public String getOperatingSystem() { return operatingSystem; }
     public boolean isBluetoothEnabled() { return bluetoothEnabled; }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Computer)) {
+            return false;
+        }
+        Computer other = (Computer) o;
+        return hash == other.hash
+                && bluetoothEnabled == other.bluetoothEnabled
+                && cpu.equals(other.cpu)
+                && ram.equals(other.ram)
+                && Objects.equals(storage, other.storage)
+                && Objects.equals(graphicsCard, other.graphicsCard)
+                && Objects.equals(operatingSystem, other.operatingSystem);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         return "Computer Specs: \n" +
@@ -48,15 +99,20 @@ public class Computer {
 
     // --- 静态内部建造者类 (Builder) ---
     public static class Builder {
+        private static final String DEFAULT_OPERATING_SYSTEM = "Linux (Default)";
+
         // 与外部类 Computer 相同的字段，但它们是可变的
-        private final String cpu;       // 必需
-        private final String ram;       // 必需
+        private String cpu;             // 必需
+        private String ram;             // 必需
 
         private String storage;         // 可选
         private String graphicsCard;    // 可选
-        private String operatingSystem = "Linux (Default)"; // 可选，带默认值
+        private String operatingSystem = DEFAULT_OPERATING_SYSTEM; // 可选，带默认值
         private boolean bluetoothEnabled = false; // 可选，带默认值
 
+        private final boolean verbose;            // 是否打印每一步 (演示用)
+        private final ComputerInterner interner;  // 不为 null 时 build() 返回共享实例
+
         /**
          * Builder的构造函数，只接收必需参数
          * @param cpu CPU型号
@@ -68,31 +124,81 @@ public class Computer {
             }
             this.cpu = cpu;
             this.ram = ram;
+            this.verbose = true;
+            this.interner = null;
             System.out.println("建造者初始化：CPU='" + cpu + "', RAM='" + ram + "'");
         }
 
+        /**
+         * 大批量构建用的建造者 (见 {@link Computer#builder()})，必需参数通过 cpu()、ram() 设置
+         */
+        private Builder(ComputerInterner interner) {
+            this.verbose = false;
+            this.interner = interner;
+        }
+
+        public Builder cpu(String cpu) {
+            this.cpu = cpu;
+            if (verbose) {
+                System.out.println("建造者：设置 CPU='" + cpu + "'");
+            }
+            return this;
+        }
+
+        public Builder ram(String ram) {
+            this.ram = ram;
+            if (verbose) {
+                System.out.println("建造者：设置 RAM='" + ram + "'");
+            }
+            return this;
+        }
+
+        /**
+         * 把所有参数恢复为初始状态 (必需参数清空，可选参数恢复默认值)，以便构建下一台不相关的电脑
+         * <p>
+         * build() 之后参数保持不变，只构建差别不大的配置时可以不调用 reset()，只修改不同的参数。
+         * </p>
+         */
+        public Builder reset() {
+            cpu = null;
+            ram = null;
+            storage = null;
+            graphicsCard = null;
+            operatingSystem = DEFAULT_OPERATING_SYSTEM;
+            bluetoothEnabled = false;
+            return this;
+        }
+
         // 为可选参数提供setter方法 (返回Builder自身，实现链式调用)
         public Builder storage(String storage) {
             this.storage = storage;
-            System.out.println("建造者：设置 Storage='" + storage + "'");
+            if (verbose) {
+                System.out.println("建造者：设置 Storage='" + storage + "'");
+            }
             return this; // 返回this以支持链式调用
         }
 
         public Builder graphicsCard(String graphicsCard) {
             this.graphicsCard = graphicsCard;
-            System.out.println("建造者：设置 GraphicsCard='" + graphicsCard + "'");
+            if (verbose) {
+                System.out.println("建造者：设置 GraphicsCard='" + graphicsCard + "'");
+            }
             return this;
         }
 
         public Builder operatingSystem(String operatingSystem) {
             this.operatingSystem = operatingSystem;
-            System.out.println("建造者：设置 OS='" + operatingSystem + "'");
+            if (verbose) {
+                System.out.println("建造者：设置 OS='" + operatingSystem + "'");
+            }
             return this;
         }
 
         public Builder bluetoothEnabled(boolean bluetoothEnabled) {
             this.bluetoothEnabled = bluetoothEnabled;
-            System.out.println("建造者：设置 BluetoothEnabled=" + bluetoothEnabled);
+            if (verbose) {
+                System.out.println("建造者：设置 BluetoothEnabled=" + bluetoothEnabled);
+            }
             return this;
         }
 
@@ -103,6 +209,14 @@ public class Computer {
         public Computer build() {
             // 在这里可以添加一些构建前的校验逻辑，例如检查必需参数是否已设置（虽然我们放构造函数了）
             // 或者检查某些参数组合是否合法等。
+            if (cpu == null || ram == null) {
+                throw new IllegalArgumentException("CPU 和 RAM 是必填项！");
+            }
+            if (!verbose) {
+                // Computer 复制了所有参数，建造者之后可以继续修改、再次 build()
+                Computer computer = new Computer(this);
+                return interner != null ? interner.intern(computer) : computer;
+            }
             System.out.println("建造者：调用 build() 方法，正在创建 Computer 实例...");
             Computer computer = new Computer(this); // 将Builder自身传递给Computer的私有构造函数
             System.out.println("建造者：Computer 实例创建完毕！");
@@ -0,0 +1,104 @@
+// 文件路径: src/main/java/com/example/designpattern/builderpattern/ComputerInterner.java
+package com.example.designpattern.builderpattern;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computer 享元缓存 (有界、弱引用、分段加锁)
+ * <p>
+ * 把配置相同的 {@link Computer} 合并为同一个共享实例：{@link #intern(Computer)} 返回缓存中与之相等的实例，
+ * 没有时把它放入缓存。海量 SKU 中大量重复的配置因此只在堆中保留一份。
+ * </p>
+ * <p>
+ * 键和值都是弱引用 (WeakHashMap 的值用 WeakReference 包装，否则值会让键一直可达)：
+ * 缓存本身不会让实例存活，所有使用方都不再引用某个配置后，它会被 GC 回收并从缓存中移除。
+ * 缓存被切分为若干段，每段一把锁，每段最多 maxEntries / stripes 个条目；段满时不再缓存新配置，
+ * 直接返回传入的实例 (结果仍然正确，只是不共享)，等已有条目被回收后再继续缓存。
+ * </p>
+ */
+public class ComputerInterner {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeCapacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder(); // 段已满，没有缓存
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param stripes    分段数量 (会向上取整为 2 的幂)
+     */
+    public ComputerInterner(int maxEntries, int stripes) {
+        if (maxEntries <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("maxEntries 和 stripes 必须大于 0");
+        }
+        int stripeCount = Integer.highestOneBit(stripes - 1) << 1;
+        if (stripeCount <= 0) {
+            stripeCount = 1;
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.stripeCapacity = Math.max(1, maxEntries / stripeCount);
+    }
+
+    /**
+     * 返回与 computer 配置相同的共享实例
+     */
+    public Computer intern(Computer computer) {
+        int h = computer.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & stripeMask];
+        stripe.lock.lock();
+        try {
+            WeakReference<Computer> reference = stripe.entries.get(computer);
+            Computer shared = reference != null ? reference.get() : null;
+            if (shared != null) {
+                hits.increment();
+                return shared;
+            }
+            misses.increment();
+            // size() 会先清理已被回收的条目
+            if (stripe.entries.size() >= stripeCapacity) {
+                rejected.increment();
+                return computer;
+            }
+            stripe.entries.put(computer, new WeakReference<>(computer));
+            return computer;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前缓存中 (尚未被回收) 的条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Computer, WeakReference<Computer>> entries = new WeakHashMap<>();
+    }
+}
@@ -1,31 +1,100 @@
 // 文件路径: src/main/java/com/example/designpattern/controller/PaymentController.java
 package com.example.designpattern.controller;
 
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentExecutorConfig;
 import com.example.designpattern.paymentsystem.PaymentService;
 import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl; // 确保导入我们创建的工厂实现
 import com.example.designpattern.paymentsystem.PaymentType; // 确保导入支付类型枚举
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyCache;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyKeyMismatchException;
+import com.example.designpattern.paymentsystem.journal.JournalRecord;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.journal.RecoveryReport;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentRejectedException;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 支付控制器，用于演示支付服务工厂的使用
+ * <p>
+ * 运行在 Tomcat + Spring MVC 上；启用 reactive profile 时由 {@link ReactivePaymentController} 代替。
+ * </p>
  */
 @RestController
+@Profile("!" + ReactivePaymentController.PROFILE)
 @RequestMapping("/api/payments") // 所有此控制器下的API都以 /api/payments 开头
 public class PaymentController {
 
+    /**
+     * 商户编号请求头，用于按商户限流
+     */
+    static final String MERCHANT_ID_HEADER = "X-Merchant-Id";
+
     private final PaymentServiceFactoryImpl paymentServiceFactory;
+    private final Executor paymentExecutor; // 批量支付时按渠道并发派发所用的线程池
+    private final int maxBatchSize; // 单次批量请求允许的最大条数
+    private final IdempotencyCache<ResponseEntity<String>> idempotencyCache; // 按 Idempotency-Key 缓存支付响应
+    private final PaymentMetrics paymentMetrics; // 按支付类型划分的支付指标
+    private final PaymentResilience paymentResilience; // 按支付类型划分的舱壁和熔断器
+    private final PaymentRateLimiter paymentRateLimiter; // 按商户和支付类型划分的限流器
+    private final PaymentJournal paymentJournal; // 支付日志，未启用时为 null
 
     /**
      * 通过构造函数注入 PaymentServiceFactoryImpl
      * @param paymentServiceFactory 支付服务工厂实例
+     * @param paymentExecutor 支付执行线程池
+     * @param maxBatchSize 单次批量请求允许的最大条数
+     * @param idempotencyCache 支付接口的幂等缓存
+     * @param paymentMetrics 支付指标
+     * @param paymentResilience 舱壁和熔断器
+     * @param paymentRateLimiter 支付限流器
+     * @param paymentJournal 支付日志 (可选)
      */
     @Autowired
-    public PaymentController(PaymentServiceFactoryImpl paymentServiceFactory) {
+    public PaymentController(PaymentServiceFactoryImpl paymentServiceFactory,
+                             @Qualifier(PaymentExecutorConfig.PAYMENT_EXECUTOR) Executor paymentExecutor,
+                             @Value("${payment.batch.max-size:10000}") int maxBatchSize,
+                             IdempotencyCache<ResponseEntity<String>> idempotencyCache,
+                             PaymentMetrics paymentMetrics,
+                             PaymentResilience paymentResilience,
+                             PaymentRateLimiter paymentRateLimiter,
+                             ObjectProvider<PaymentJournal> paymentJournal) {
         this.paymentServiceFactory = paymentServiceFactory;
+        this.paymentExecutor = paymentExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.idempotencyCache = idempotencyCache;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentResilience = paymentResilience;
+        this.paymentRateLimiter = paymentRateLimiter;
+        this.paymentJournal = paymentJournal.getIfAvailable();
     }
 
     /**
@@ -36,19 +105,167 @@ public class PaymentController {
      * 请求体 (JSON):
      * {
      * "paymentType": "alipay", // 或者 "wechat_pay", "card_pay"
-     * "amount": 100.50
+     * "amount": 100.50,
+     * "currency": "CNY" // 可选，默认人民币
      * }
      *
+     * 金额在这里转换为定点数 {@link Money}，小数位超出币种最小单位 (例如 1.005 元) 时返回 400。
+     * 支付通过 {@link PaymentService#payAsync(Money)} 在支付执行器上异步完成，
+     * 控制器立即返回 CompletableFuture 并释放 Tomcat 请求线程，支付结束后再写回响应。
+     *
+     * 客户端超时重试时应携带相同的 Idempotency-Key 请求头：
+     * 与进行中的请求重复时等待第一次的结果，之后的重复请求直接返回缓存的响应，不会再次调用支付渠道。
+     * 幂等键绑定第一次请求的支付类型、金额和币种，用同一个键提交不同的请求时返回 422。
+     *
+     * 每个商户 (X-Merchant-Id 请求头) 在每个支付类型上有各自的令牌桶，
+     * 超出限额时返回 429，Retry-After 响应头给出建议的重试等待秒数。
+     *
      * @param request 包含支付类型和金额的请求体
+     * @param idempotencyKey 可选的幂等键
+     * @param merchantId 可选的商户编号，用于限流
      * @return 支付结果信息
      */
     @PostMapping("/pay")
-    public ResponseEntity<String> processPayment(@RequestBody PaymentRequest request) {
+    public CompletableFuture<ResponseEntity<String>> processPayment(
+            @RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = MERCHANT_ID_HEADER, required = false) String merchantId) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return doProcessPayment(request, merchantId);
+        }
+        // 幂等缓存位于工厂查找和限流之前：重复请求不会再查找、消耗令牌或调用支付服务
+        try {
+            return idempotencyCache.getOrCompute(idempotencyKey, request.fingerprint(),
+                    () -> doProcessPayment(request, merchantId));
+        } catch (IdempotencyKeyMismatchException e) {
+            return CompletableFuture.completedFuture(idempotencyKeyMismatch(e));
+        }
+    }
+
+    static ResponseEntity<String> idempotencyKeyMismatch(IdempotencyKeyMismatchException e) {
+        return ResponseEntity.unprocessableEntity().body("支付失败: " + e.getMessage() + "，请为新的支付使用新的 Idempotency-Key。");
+    }
+
+    /**
+     * 查询幂等缓存的命中、淘汰等统计信息
+     *
+     * 示例URL:
+     * - GET /api/payments/idempotency/stats
+     */
+    @GetMapping("/idempotency/stats")
+    public IdempotencyCache.Stats idempotencyStats() {
+        return idempotencyCache.stats();
+    }
+
+    /**
+     * 查询按支付类型划分的支付指标 (耗时单位为纳秒)
+     *
+     * 示例URL:
+     * - GET /api/payments/metrics
+     */
+    @GetMapping("/metrics")
+    public Map<String, Object> paymentMetrics() {
+        return paymentMetrics.snapshot();
+    }
+
+    /**
+     * 查询每个支付渠道的熔断器状态和舱壁占用情况 (包括拒绝次数)，用于在压测中调整阈值
+     *
+     * 示例URL:
+     * - GET /api/payments/resilience
+     */
+    @GetMapping("/resilience")
+    public Map<String, Object> resilience() {
+        return paymentResilience.snapshot();
+    }
+
+    /**
+     * 查询每个支付类型下各支付渠道的权重、健康状态、EWMA 耗时 (微秒)、在途数和被选中次数
+     *
+     * 示例URL:
+     * - GET /api/payments/providers
+     */
+    @GetMapping("/providers")
+    public Map<String, Object> providers() {
+        return paymentServiceFactory.providerSnapshot();
+    }
+
+    /**
+     * 查询各支付类型的限流参数、令牌桶数量和放行/拒绝次数
+     *
+     * 示例URL:
+     * - GET /api/payments/rate-limits
+     */
+    @GetMapping("/rate-limits")
+    public Map<String, Object> rateLimits() {
+        return paymentRateLimiter.snapshot();
+    }
+
+    /**
+     * 运行时修改某个支付类型的限流参数 (不需要重启)
+     *
+     * 示例URL:
+     * - PUT /api/payments/rate-limits/alipay
+     * 请求体 (JSON): { "permitsPerSecond": 50, "burst": 100 }
+     */
+    @PutMapping("/rate-limits/{paymentType}")
+    public ResponseEntity<?> updateRateLimit(@PathVariable String paymentType, @RequestBody RateLimitRequest request) {
+        try {
+            PaymentType type = PaymentType.fromCode(paymentType);
+            paymentRateLimiter.setLimit(type, new RateLimit(request.getPermitsPerSecond(), request.getBurst()));
+            return ResponseEntity.ok(paymentRateLimiter.snapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("修改限流参数失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询支付日志的启动恢复报告：使用的检查点、重放的记录数和耗时，以及上次停止时仍在进行中的支付 (需要与渠道对账)
+     *
+     * 示例URL:
+     * - GET /api/payments/journal/recovery
+     */
+    @GetMapping("/journal/recovery")
+    public ResponseEntity<RecoveryReport> journalRecovery() {
+        if (paymentJournal == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(paymentJournal.getRecoveryReport());
+    }
+
+    /**
+     * 按支付编号查询一笔支付在日志中的最新状态 (STARTED 表示仍在进行中)，通过支付索引直接定位
+     *
+     * 示例URL:
+     * - GET /api/payments/journal/42
+     */
+    @GetMapping("/journal/{paymentId}")
+    public ResponseEntity<Map<String, Object>> journalLookup(@PathVariable long paymentId) {
+        JournalRecord record = paymentJournal != null ? paymentJournal.lookup(paymentId) : null;
+        return record != null ? ResponseEntity.ok(journalView(record)) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 支付日志记录的 JSON 视图
+     */
+    static Map<String, Object> journalView(JournalRecord record) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("paymentId", record.getPaymentId());
+        result.put("status", record.getStatus());
+        result.put("paymentType", record.getPaymentType().getCode());
+        result.put("amount", record.getAmount().toBigDecimal());
+        result.put("currency", record.getAmount().getCurrencyCode());
+        result.put("sequence", record.getSequence());
+        result.put("timestamp", record.getTimestamp());
+        return result;
+    }
+
+    private CompletableFuture<ResponseEntity<String>> doProcessPayment(PaymentRequest request, String merchantId) {
         try {
             // 1. 从请求中获取支付类型的字符串代码
             String paymentTypeCode = request.getPaymentType();
             if (paymentTypeCode == null || paymentTypeCode.trim().isEmpty()) {
-                return ResponseEntity.badRequest().body("支付类型 (paymentType) 不能为空");
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("支付类型 (paymentType) 不能为空"));
             }
 
             // 2. (可选，但推荐) 将字符串代码转换为 PaymentType 枚举，这样更安全
@@ -58,48 +275,401 @@ public class PaymentController {
 
 
             // 3. 使用工厂获取对应的支付服务实例
-            //    我们直接使用接收字符串类型的工厂方法，它内部会处理枚举转换和错误校验
-            PaymentService service = paymentServiceFactory.getPaymentService(paymentTypeCode);
+            //    PaymentRequestHttpMessageConverter 解码时已把编码解析为枚举的，直接按枚举查找；
+            //    否则使用接收字符串类型的工厂方法，它内部会处理枚举转换和错误校验
+            PaymentType resolvedType = request.resolvedPaymentType();
+            PaymentService service = resolvedType != null
+                    ? paymentServiceFactory.getPaymentService(resolvedType)
+                    : paymentServiceFactory.getPaymentService(paymentTypeCode);
 
-            // 4. 执行支付
-            service.pay(request.getAmount());
+            // 4. 按商户和支付类型限流，超出限额时不调用支付渠道
+            long waitNanos = paymentRateLimiter.tryAcquire(merchantId, service.getServiceType());
+            if (waitNanos > 0) {
+                return CompletableFuture.completedFuture(tooManyRequests(service.getServiceType(), waitNanos));
+            }
 
-            // 5. 返回成功响应
-            String successMessage = service.getServiceType().getDescription() + " 支付 " + request.getAmount() + " 元成功！";
-            return ResponseEntity.ok(successMessage);
+            // 5. 异步执行支付，完成后返回成功响应或错误响应
+            Money amount = request.toMoney();
+            return service.payAsync(amount).handle((ignored, error) -> error == null
+                    ? ResponseEntity.ok(successMessage(service.getServiceType(), amount))
+                    : toErrorResponse(error));
 
-        } catch (IllegalArgumentException e) {
-            // 如果支付类型无效或找不到对应的服务，工厂会抛出 IllegalArgumentException
-            return ResponseEntity.badRequest().body("支付失败: " + e.getMessage());
         } catch (Exception e) {
-            // 其他通用异常处理
-            e.printStackTrace(); // 在生产环境中应使用更完善的日志记录
-            return ResponseEntity.internalServerError().body("支付失败: 系统内部错误，请稍后再试。");
+            // 工厂查找失败、金额不合法，或支付执行器已满拒绝了任务
+            return CompletableFuture.completedFuture(toErrorResponse(e));
+        }
+    }
+
+    /**
+     * 限流响应：429，Retry-After 为向上取整的秒数
+     */
+    static ResponseEntity<String> tooManyRequests(PaymentType type, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body("支付失败: " + type.getDescription() + " 请求过于频繁，请 " + retryAfterSeconds + " 秒后再试。");
+    }
+
+    /**
+     * 批量支付的限流：每个支付类型的组按条目数取令牌，取不到令牌的条目 (组内靠后的) 标记为 429 并移出该组，
+     * 没有剩余条目的组被删除
+     */
+    static void acquireBatchPermits(PaymentRateLimiter limiter, String merchantId,
+                                    Map<PaymentType, List<Integer>> groups, PaymentResult[] results) {
+        Iterator<Map.Entry<PaymentType, List<Integer>>> it = groups.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PaymentType, List<Integer>> group = it.next();
+            List<Integer> indexes = group.getValue();
+            int granted = limiter.acquireUpTo(merchantId, group.getKey(), indexes.size());
+            List<Integer> throttled = indexes.subList(granted, indexes.size());
+            for (int index : throttled) {
+                results[index] = PaymentResult.rateLimited(index, group.getKey().getCode());
+            }
+            throttled.clear();
+            if (indexes.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 将支付过程中的异常转换为错误响应
+     */
+    static ResponseEntity<String> toErrorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalArgumentException) {
+            // 如果支付类型无效或找不到对应的服务，工厂会抛出 IllegalArgumentException
+            return ResponseEntity.badRequest().body("支付失败: " + cause.getMessage());
+        }
+        if (cause instanceof PaymentRejectedException) {
+            // 熔断或舱壁已满：支付渠道没有被调用，客户端可以稍后重试 (5xx 响应不会被幂等缓存)
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("支付失败: " + cause.getMessage() + "，请稍后再试。");
         }
+        // 其他通用异常处理
+        cause.printStackTrace(); // 在生产环境中应使用更完善的日志记录
+        return ResponseEntity.internalServerError().body("支付失败: 系统内部错误，请稍后再试。");
+    }
+
+    /**
+     * 批量支付的API端点
+     *
+     * 示例URL:
+     * - POST /api/payments/batch
+     * 请求体 (JSON 数组):
+     * [
+     * { "paymentType": "alipay", "amount": 100.50 },
+     * { "paymentType": "card_pay", "amount": 20 }
+     * ]
+     *
+     * 请求会先通过工厂按支付类型分组，每个支付渠道一组，各组在支付线程池中并发执行，
+     * 组内按提交顺序依次支付。每一条的成功或失败互不影响，结果按请求中的顺序返回。
+     * 每一条都消耗该商户在对应支付类型上的一个令牌 (与 /pay、/stream 相同)；令牌不够时，
+     * 同一支付类型中靠后的条目不执行，结果标记为失败并带有 "status": 429。
+     *
+     * @param requests 支付请求列表
+     * @param merchantId 可选的商户编号，用于限流
+     * @return 与请求一一对应的支付结果列表
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> processBatchPayment(@RequestBody List<PaymentRequest> requests,
+                                                 @RequestHeader(value = MERCHANT_ID_HEADER, required = false) String merchantId) {
+        if (requests.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("批量支付失败: 单次最多支持 " + maxBatchSize + " 笔支付");
+        }
+
+        PaymentResult[] results = new PaymentResult[requests.size()];
+
+        // 1. 通过工厂解析每一条请求的支付服务，并按支付类型分组 (组内保存请求下标)
+        Map<PaymentType, List<Integer>> groups = new EnumMap<>(PaymentType.class);
+        Map<PaymentType, PaymentService> services = new EnumMap<>(PaymentType.class);
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            if (request == null || request.getPaymentType() == null || request.getPaymentType().trim().isEmpty()) {
+                results[i] = PaymentResult.failure(i, null, "支付类型 (paymentType) 不能为空");
+                continue;
+            }
+            try {
+                PaymentService service = paymentServiceFactory.getPaymentService(request.getPaymentType());
+                services.putIfAbsent(service.getServiceType(), service);
+                groups.computeIfAbsent(service.getServiceType(), type -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = PaymentResult.failure(i, request.getPaymentType(), e.getMessage());
+            }
+        }
+
+        // 每一条都消耗一个令牌，令牌不够的条目返回 429
+        acquireBatchPermits(paymentRateLimiter, merchantId, groups, results);
+
+        // 2. 每个支付渠道一个任务，并发派发
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        for (Map.Entry<PaymentType, List<Integer>> group : groups.entrySet()) {
+            PaymentService service = services.get(group.getKey());
+            List<Integer> indexes = group.getValue();
+            try {
+                futures.add(CompletableFuture.runAsync(
+                        () -> payGroup(service, indexes, requests, results), paymentExecutor));
+            } catch (RuntimeException e) {
+                // 线程池已满等情况：该渠道整组失败，不影响其他渠道
+                for (int index : indexes) {
+                    results[index] = PaymentResult.failure(index, group.getKey().getCode(), "系统繁忙，请稍后再试。");
+                }
+            }
+        }
+
+        // 3. 等待所有渠道完成后按原顺序返回
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * 在同一个支付渠道上依次执行一组支付，每一笔单独捕获异常
+     */
+    private void payGroup(PaymentService service, List<Integer> indexes,
+                          List<PaymentRequest> requests, PaymentResult[] results) {
+        String typeCode = service.getServiceType().getCode();
+        for (int index : indexes) {
+            try {
+                String message = executePayment(service, requests.get(index).toMoney());
+                results[index] = PaymentResult.success(index, typeCode, message);
+            } catch (Exception e) {
+                results[index] = failureResult(index, typeCode, e);
+            }
+        }
+    }
+
+    /**
+     * 批量支付中单笔支付失败时的结果
+     */
+    static PaymentResult failureResult(int index, String typeCode, Throwable error) {
+        if (error instanceof IllegalArgumentException) {
+            return PaymentResult.failure(index, typeCode, error.getMessage());
+        }
+        if (error instanceof PaymentRejectedException) {
+            return PaymentResult.failure(index, typeCode, error.getMessage() + "，请稍后再试。");
+        }
+        error.printStackTrace(); // 在生产环境中应使用更完善的日志记录
+        return PaymentResult.failure(index, typeCode, "系统内部错误，请稍后再试。");
+    }
+
+    /**
+     * 执行一笔支付并生成成功提示信息
+     */
+    private String executePayment(PaymentService service, Money amount) {
+        service.pay(amount);
+        return successMessage(service.getServiceType(), amount);
+    }
+
+    /**
+     * 例如 "支付宝 支付 100.50 元成功！"，非人民币时以币种代码代替"元"
+     */
+    static String successMessage(PaymentType type, Money amount) {
+        String unit = Money.CNY.equals(amount.getCurrency()) ? " 元" : " " + amount.getCurrencyCode() + " ";
+        return type.getDescription() + " 支付 " + amount.toPlainString() + unit + "成功！";
     }
 
     /**
      * 内部类，用于封装支付请求的数据
+     * <p>
+     * 批量接口等由 Jackson 通过 setter 绑定；/pay 由 {@link PaymentRequestHttpMessageConverter} 直接解码：
+     * 支付类型直接解析为枚举，金额解析为定点数 (去掉小数点的整数值 + 小数位数)，
+     * 之后直接转换为 {@link Money}，只有在真正需要 BigDecimal 时才创建。
+     * </p>
      */
     static class PaymentRequest {
         private String paymentType; // 支付类型的字符串代码，例如 "alipay", "wechat_pay"
-        private BigDecimal amount;
+        private BigDecimal amount; // JSON 中的金额，保留 BigDecimal 以兼容原有接口
+        private String currency; // 币种代码 (ISO 4217)，为空时默认人民币
+
+        // 由 PaymentRequestHttpMessageConverter 填充的解码结果
+        private PaymentType resolvedPaymentType;
+        private boolean fixedPointAmount; // 金额是否以定点数形式保存
+        private long amountUnscaled;
+        private int amountScale;
+        private Currency resolvedCurrency;
 
         // Getters and Setters (Lombok @Data 也可以)
         public String getPaymentType() {
-            return paymentType;
+            return resolvedPaymentType != null ? resolvedPaymentType.getCode() : paymentType;
         }
 
         public void setPaymentType(String paymentType) {
             this.paymentType = paymentType;
+            this.resolvedPaymentType = null;
         }
 
         public BigDecimal getAmount() {
+            if (amount == null && fixedPointAmount) {
+                return BigDecimal.valueOf(amountUnscaled, amountScale);
+            }
             return amount;
         }
 
         public void setAmount(BigDecimal amount) {
             this.amount = amount;
+            this.fixedPointAmount = false;
+        }
+
+        public String getCurrency() {
+            return resolvedCurrency != null ? resolvedCurrency.getCurrencyCode() : currency;
+        }
+
+        public void setCurrency(String currency) {
+            this.currency = currency;
+            this.resolvedCurrency = null;
+        }
+
+        /**
+         * 把 JSON 中的金额和币种转换为 {@link Money} (API 边界上的适配)
+         *
+         * @throws IllegalArgumentException 金额为空、币种代码无效，或金额超出币种精度时
+         */
+        Money toMoney() {
+            Currency moneyCurrency = resolvedCurrency;
+            if (moneyCurrency == null) {
+                moneyCurrency = currency == null ? Money.CNY : currencyOf(currency);
+            }
+            if (fixedPointAmount && amount == null) {
+                return Money.fromFixedPoint(amountUnscaled, amountScale, moneyCurrency);
+            }
+            if (amount == null) {
+                throw new IllegalArgumentException("支付金额 (amount) 不能为空");
+            }
+            return Money.of(amount, moneyCurrency);
+        }
+
+        private static Currency currencyOf(String code) {
+            try {
+                return Currency.getInstance(code);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的币种 (currency): " + code, e);
+            }
+        }
+
+        /**
+         * 请求指纹：规范化后的支付类型、金额和币种，幂等键据此判断重复请求的内容是否相同
+         */
+        String fingerprint() {
+            String type = getPaymentType();
+            BigDecimal value = getAmount();
+            String currencyCode = getCurrency();
+            return (type == null ? "" : type.trim().toLowerCase(Locale.ROOT)) + '|'
+                    + (value == null ? "" : value.stripTrailingZeros().toPlainString()) + '|'
+                    + (currencyCode == null ? Money.CNY.getCurrencyCode() : currencyCode.trim().toUpperCase(Locale.ROOT));
+        }
+
+        /**
+         * 解码时已解析出的支付类型，未解析 (Jackson 绑定或编码无法识别) 时为 null
+         */
+        PaymentType resolvedPaymentType() {
+            return resolvedPaymentType;
+        }
+
+        void setResolvedPaymentType(PaymentType resolvedPaymentType) {
+            this.paymentType = null;
+            this.resolvedPaymentType = resolvedPaymentType;
+        }
+
+        void setResolvedCurrency(Currency resolvedCurrency) {
+            this.currency = null;
+            this.resolvedCurrency = resolvedCurrency;
+        }
+
+        void setFixedPointAmount(long unscaled, int scale) {
+            this.amount = null;
+            this.fixedPointAmount = true;
+            this.amountUnscaled = unscaled;
+            this.amountScale = scale;
+        }
+
+        /**
+         * 清空所有字段，以便同一个线程复用该对象
+         */
+        void reset() {
+            paymentType = null;
+            amount = null;
+            resolvedPaymentType = null;
+            fixedPointAmount = false;
+            amountUnscaled = 0;
+            amountScale = 0;
+            currency = null;
+            resolvedCurrency = null;
+        }
+    }
+
+    /**
+     * 内部类，用于封装修改限流参数的请求
+     */
+    static class RateLimitRequest {
+        private double permitsPerSecond; // 每秒补充的令牌数
+        private int burst; // 桶容量 (允许的突发请求数)
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * 内部类，用于封装批量支付中单笔支付的结果
+     */
+    static class PaymentResult {
+        private final int index; // 对应请求在批量请求中的下标
+        private final String paymentType;
+        private final boolean success;
+        private final String message;
+        private final Integer status; // 只有被限流的条目为 429，其余不输出
+
+        private PaymentResult(int index, String paymentType, boolean success, String message, Integer status) {
+            this.index = index;
+            this.paymentType = paymentType;
+            this.success = success;
+            this.message = message;
+            this.status = status;
+        }
+
+        static PaymentResult success(int index, String paymentType, String message) {
+            return new PaymentResult(index, paymentType, true, message, null);
+        }
+
+        static PaymentResult failure(int index, String paymentType, String reason) {
+            return new PaymentResult(index, paymentType, false, "支付失败: " + reason, null);
+        }
+
+        static PaymentResult rateLimited(int index, String paymentType) {
+            return new PaymentResult(index, paymentType, false, "支付失败: 请求过于频繁，请稍后再试。",
+                    HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getPaymentType() {
+            return paymentType;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Integer getStatus() {
+            return status;
         }
     }
 }
\ No newline at end of file
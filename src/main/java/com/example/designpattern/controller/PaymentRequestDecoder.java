@@ -0,0 +1,53 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/PaymentRequestDecoder.java
+package com.example.designpattern.controller;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/**
+ * WebFlux 下 /api/payments/pay 请求体的专用解码器，解码逻辑与 {@link PaymentRequestHttpMessageConverter} 共用
+ * <p>
+ * 请求体聚合成一个 DataBuffer 后复制到当前事件循环线程的缓冲区再扫描。
+ * 与 Servlet 版本不同，这里每个请求都创建新的 PaymentRequest：
+ * 控制器可能在其他线程上 (支付完成之后) 才读取它，不能按线程复用。
+ * </p>
+ */
+public class PaymentRequestDecoder extends AbstractDataBufferDecoder<PaymentController.PaymentRequest> {
+
+    private static final ThreadLocal<byte[]> BUFFER =
+            ThreadLocal.withInitial(() -> new byte[PaymentRequestHttpMessageConverter.MAX_BODY_SIZE]);
+
+    public PaymentRequestDecoder() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        setMaxInMemorySize(PaymentRequestHttpMessageConverter.MAX_BODY_SIZE);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return PaymentController.PaymentRequest.class == elementType.toClass() && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public PaymentController.PaymentRequest decode(DataBuffer dataBuffer, ResolvableType targetType,
+                                                   MimeType mimeType, Map<String, Object> hints) {
+        try {
+            byte[] buffer = BUFFER.get();
+            int length = dataBuffer.readableByteCount(); // 不超过 maxInMemorySize，聚合时已检查
+            dataBuffer.read(buffer, 0, length);
+            PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+            PaymentRequestHttpMessageConverter.decode(buffer, length, request);
+            return request;
+        } catch (IllegalArgumentException e) {
+            throw new DecodingException("支付请求 JSON 格式错误: " + e.getMessage(), e);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+}
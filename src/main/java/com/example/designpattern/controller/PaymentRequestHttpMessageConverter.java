@@ -0,0 +1,482 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/PaymentRequestHttpMessageConverter.java
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * /api/payments/pay 请求体的专用解码器
+ * <p>
+ * 通用的 Jackson 绑定每个请求都会创建解析器、支付类型编码的 String 和金额的 BigDecimal。
+ * 这里直接扫描请求体字节：
+ * <ul>
+ *     <li>paymentType 与各 {@link PaymentType} 编码的字节逐个比较 (忽略大小写)，直接得到枚举，不创建 String；</li>
+ *     <li>amount 解析为定点数 (去掉小数点的整数值 + 小数位数)，之后直接转换为 {@link Money}；</li>
+ *     <li>currency 为 "CNY" (或省略) 时直接使用 {@link Money#CNY}，其他币种才创建 String；</li>
+ *     <li>读取缓冲区和 PaymentRequest 对象按线程复用。</li>
+ * </ul>
+ * 只有出错或少见的写法 (转义字符、科学计数法、超长数字、无法识别的支付类型) 才会走创建对象的慢路径。
+ * </p>
+ * <p>
+ * 注意：返回的 PaymentRequest 属于当前线程，只在控制器方法同步执行期间有效，
+ * 控制器必须在切换线程 (异步支付) 之前读出需要的字段。
+ * 在虚拟线程上每个请求都是新线程，复用不会生效，但也不会比普通绑定更差。
+ * </p>
+ * <p>
+ * 该转换器只处理 PaymentRequest 类型 (批量接口的 List 仍由 Jackson 绑定)，
+ * 作为 Spring Bean 声明后 Spring Boot 会把它放在默认转换器之前。
+ * </p>
+ */
+@Component
+public class PaymentRequestHttpMessageConverter extends AbstractHttpMessageConverter<PaymentController.PaymentRequest> {
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    static final int MAX_BODY_SIZE = 16 * 1024; // 单笔支付请求体不可能超过这个大小
+    private static final int MAX_FIXED_POINT_DIGITS = 18; // long 能安全容纳的十进制位数
+
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+    private static final byte[][] PAYMENT_TYPE_CODES = new byte[PAYMENT_TYPES.length][];
+    private static final byte[] KEY_PAYMENT_TYPE = "paymentType".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_AMOUNT = "amount".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_CURRENCY = "currency".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DEFAULT_CURRENCY_CODE = Money.CNY.getCurrencyCode().getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (int i = 0; i < PAYMENT_TYPES.length; i++) {
+            PAYMENT_TYPE_CODES[i] = PAYMENT_TYPES[i].getCode().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final ThreadLocal<DecodeState> decodeState = ThreadLocal.withInitial(DecodeState::new);
+
+    public PaymentRequestHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PaymentController.PaymentRequest.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false; // 只负责读取请求
+    }
+
+    @Override
+    protected PaymentController.PaymentRequest readInternal(Class<? extends PaymentController.PaymentRequest> clazz,
+                                                            HttpInputMessage inputMessage) throws IOException {
+        DecodeState state = decodeState.get();
+        int length = readBody(inputMessage, state);
+        PaymentController.PaymentRequest request = state.request;
+        try {
+            decode(state.buffer, length, request);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException("支付请求 JSON 格式错误: " + e.getMessage(), e, inputMessage);
+        }
+        return request;
+    }
+
+    @Override
+    protected void writeInternal(PaymentController.PaymentRequest request, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("PaymentRequestHttpMessageConverter 不支持写出");
+    }
+
+    /**
+     * 把请求体读入当前线程的缓冲区，返回读取的字节数
+     */
+    private static int readBody(HttpInputMessage inputMessage, DecodeState state) throws IOException {
+        InputStream body = inputMessage.getBody();
+        byte[] buffer = state.buffer;
+        int length = 0;
+        int n;
+        while ((n = body.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+            if (length == buffer.length) {
+                if (buffer.length >= MAX_BODY_SIZE) {
+                    if (body.read() == -1) {
+                        return length; // 恰好 MAX_BODY_SIZE 字节
+                    }
+                    throw new HttpMessageNotReadableException("支付请求体过大", inputMessage);
+                }
+                byte[] larger = new byte[Math.min(buffer.length * 2, MAX_BODY_SIZE)];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
+                state.buffer = larger;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 解码一个扁平的 JSON 对象到 target (会先清空 target)
+     *
+     * @throws IllegalArgumentException JSON 格式错误时
+     */
+    static void decode(byte[] b, int length, PaymentController.PaymentRequest target) {
+        target.reset();
+        int i = skipWhitespace(b, 0, length);
+        i = expect(b, i, length, '{');
+        i = skipWhitespace(b, i, length);
+        if (i < length && b[i] == '}') {
+            ensureEnd(b, i + 1, length);
+            return;
+        }
+        while (true) {
+            // 键：只需判断是否是我们关心的几个键，因此直接在字节上比较
+            i = expect(b, i, length, '"');
+            int keyStart = i;
+            i = skipStringBody(b, i, length);
+            int keyEnd = i - 1; // 指向结束引号
+            i = skipWhitespace(b, i, length);
+            i = expect(b, i, length, ':');
+            i = skipWhitespace(b, i, length);
+
+            if (regionEquals(b, keyStart, keyEnd, KEY_PAYMENT_TYPE)) {
+                i = decodePaymentType(b, i, length, target);
+            } else if (regionEquals(b, keyStart, keyEnd, KEY_AMOUNT)) {
+                i = decodeAmount(b, i, length, target);
+            } else if (regionEquals(b, keyStart, keyEnd, KEY_CURRENCY)) {
+                i = decodeCurrency(b, i, length, target);
+            } else {
+                i = skipValue(b, i, length); // 与 Jackson 的默认配置一致，忽略未知字段
+            }
+
+            i = skipWhitespace(b, i, length);
+            if (i < length && b[i] == ',') {
+                i = skipWhitespace(b, i + 1, length);
+            } else if (i < length && b[i] == '}') {
+                ensureEnd(b, i + 1, length);
+                return;
+            } else {
+                throw new IllegalArgumentException("位置 " + i + " 处缺少 ',' 或 '}'");
+            }
+        }
+    }
+
+    private static int decodePaymentType(byte[] b, int i, int length, PaymentController.PaymentRequest target) {
+        if (isLiteral(b, i, length, "null")) {
+            target.setPaymentType(null);
+            return i + 4;
+        }
+        i = expect(b, i, length, '"');
+        int start = i;
+        int end = indexOfQuoteOrEscape(b, i, length);
+        if (b[end] == '"') {
+            for (int t = 0; t < PAYMENT_TYPE_CODES.length; t++) {
+                if (equalsIgnoreAsciiCase(b, start, end, PAYMENT_TYPE_CODES[t])) {
+                    target.setResolvedPaymentType(PAYMENT_TYPES[t]);
+                    return end + 1;
+                }
+            }
+        }
+        // 慢路径：无法识别的编码 (或包含转义字符)，创建 String 交给工厂给出错误信息
+        int next = skipStringBody(b, start, length);
+        target.setPaymentType(unescape(b, start, next - 1));
+        return next;
+    }
+
+    private static int decodeCurrency(byte[] b, int i, int length, PaymentController.PaymentRequest target) {
+        if (isLiteral(b, i, length, "null")) {
+            target.setCurrency(null);
+            return i + 4;
+        }
+        i = expect(b, i, length, '"');
+        int start = i;
+        int end = indexOfQuoteOrEscape(b, i, length);
+        if (b[end] == '"' && regionEquals(b, start, end, DEFAULT_CURRENCY_CODE)) {
+            target.setResolvedCurrency(Money.CNY);
+            return end + 1;
+        }
+        // 慢路径：其他币种，创建 String，由 PaymentRequest#toMoney 校验币种代码
+        int next = skipStringBody(b, start, length);
+        target.setCurrency(unescape(b, start, next - 1));
+        return next;
+    }
+
+    private static int decodeAmount(byte[] b, int i, int length, PaymentController.PaymentRequest target) {
+        if (isLiteral(b, i, length, "null")) {
+            target.setAmount(null);
+            return i + 4;
+        }
+        // 与 Jackson 一致，金额也可以写成字符串 "100.50" (字符串按 BigDecimal 的规则解析，可以写成 "+1"、".5")
+        boolean quoted = i < length && b[i] == '"';
+        int start = quoted ? i + 1 : i;
+        int p = start;
+        boolean negative = false;
+        if (p < length && (b[p] == '-' || (quoted && b[p] == '+'))) {
+            negative = b[p] == '-';
+            p++;
+        }
+        int digitStart = p;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        int pendingZeros = 0; // 小数部分尚未计入 unscaled 的连续 0
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        boolean exponent = false;
+        boolean fixedPoint = true;
+        for (; p < length; p++) {
+            byte c = b[p];
+            if (c >= '0' && c <= '9') {
+                if (exponent) {
+                    continue; // 指数部分交给 BigDecimal
+                }
+                if (!fraction) {
+                    integerDigits++;
+                } else if (c == '0') {
+                    fractionDigits++;
+                    pendingZeros++;
+                    continue;
+                } else {
+                    fractionDigits++;
+                }
+                for (; pendingZeros > 0; pendingZeros--) {
+                    unscaled *= 10;
+                    scale++;
+                    if (unscaled != 0) {
+                        digits++;
+                    }
+                }
+                if (unscaled != 0 || c != '0') {
+                    digits++;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction && !exponent) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E' || c == '-' || c == '+') {
+                exponent = true;
+                fixedPoint = false; // 科学计数法走慢路径
+            } else {
+                break;
+            }
+            if (digits > MAX_FIXED_POINT_DIGITS) {
+                fixedPoint = false;
+            }
+        }
+        // 末尾的 0 在放得下时照常计入 (保留 100.50 的精度)，超出 long 的部分直接去掉，数值不变
+        for (; pendingZeros > 0 && (unscaled == 0 || digits < MAX_FIXED_POINT_DIGITS); pendingZeros--) {
+            unscaled *= 10;
+            scale++;
+            if (unscaled != 0) {
+                digits++;
+            }
+        }
+        int end = p;
+        if (quoted) {
+            p = expect(b, p, length, '"');
+        }
+        if (integerDigits + fractionDigits == 0) {
+            throw new IllegalArgumentException("amount 不是合法的数字");
+        }
+        // JSON 数字的小数点两边都必须有数字 (Jackson 拒绝 .5 和 1.)，整数部分也不能有前导 0 (Jackson 拒绝 007)
+        if (!quoted && fraction && (integerDigits == 0 || fractionDigits == 0)) {
+            throw new IllegalArgumentException("amount 不是合法的 JSON 数字");
+        }
+        if (!quoted && integerDigits > 1 && b[digitStart] == '0') {
+            throw new IllegalArgumentException("amount 不是合法的 JSON 数字");
+        }
+        if (fixedPoint) {
+            target.setFixedPointAmount(negative ? -unscaled : unscaled, scale);
+        } else {
+            try {
+                target.setAmount(new BigDecimal(new String(b, start, end - start, StandardCharsets.US_ASCII)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("amount 不是合法的数字", e);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * 跳过任意 JSON 值 (字符串、数字、字面量、对象或数组)
+     */
+    private static int skipValue(byte[] b, int i, int length) {
+        if (i >= length) {
+            throw new IllegalArgumentException("JSON 意外结束");
+        }
+        byte c = b[i];
+        if (c == '"') {
+            return skipStringBody(b, i + 1, length);
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (i < length) {
+                c = b[i];
+                if (c == '"') {
+                    i = skipStringBody(b, i + 1, length);
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+            throw new IllegalArgumentException("JSON 意外结束");
+        }
+        // 数字或 true/false/null
+        int start = i;
+        while (i < length && b[i] != ',' && b[i] != '}' && b[i] != ']' && !isWhitespace(b[i])) {
+            i++;
+        }
+        if (i == start) {
+            throw new IllegalArgumentException("位置 " + start + " 处缺少值");
+        }
+        return i;
+    }
+
+    /**
+     * 从字符串内容的第一个字节开始，跳到结束引号之后
+     */
+    private static int skipStringBody(byte[] b, int i, int length) {
+        while (i < length) {
+            byte c = b[i];
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("字符串缺少结束引号");
+    }
+
+    private static int indexOfQuoteOrEscape(byte[] b, int i, int length) {
+        while (i < length) {
+            if (b[i] == '"' || b[i] == '\\') {
+                return i;
+            }
+            i++;
+        }
+        throw new IllegalArgumentException("字符串缺少结束引号");
+    }
+
+    /**
+     * 把 [start, end) 的字符串内容 (可能包含转义) 解码为 String，仅在慢路径使用
+     */
+    private static String unescape(byte[] b, int start, int end) {
+        String raw = new String(b, start, end - start, StandardCharsets.UTF_8);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                sb.append(c);
+                continue;
+            }
+            char e = raw.charAt(++i);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= raw.length()) {
+                        throw new IllegalArgumentException("非法的 unicode 转义");
+                    }
+                    sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default: sb.append(e); // \" \\ \/
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean regionEquals(byte[] b, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (b[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreAsciiCase(byte[] b, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            byte c = b[start + i];
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(byte[] b, int i, int length, String literal) {
+        if (i + literal.length() > length) {
+            return false;
+        }
+        for (int k = 0; k < literal.length(); k++) {
+            if (b[i + k] != literal.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int expect(byte[] b, int i, int length, char expected) {
+        if (i >= length || b[i] != expected) {
+            throw new IllegalArgumentException("位置 " + i + " 处应为 '" + expected + "'");
+        }
+        return i + 1;
+    }
+
+    private static void ensureEnd(byte[] b, int i, int length) {
+        if (skipWhitespace(b, i, length) != length) {
+            throw new IllegalArgumentException("JSON 对象之后存在多余内容");
+        }
+    }
+
+    private static int skipWhitespace(byte[] b, int i, int length) {
+        while (i < length && isWhitespace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * 每个线程复用的读取缓冲区和请求对象
+     */
+    private static final class DecodeState {
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private final PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+    }
+}
@@ -0,0 +1,72 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/PaymentStreamController.java
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * 流式批量支付控制器 (Servlet 版本)
+ * <p>
+ * 上游系统一次推送的支付指令可能有上百万条，拼成一个 JSON 数组交给 /batch 会把整个请求体读进内存。
+ * /stream 接收 NDJSON (每行一条支付指令)，边读边支付，并以 NDJSON 逐行返回结果，
+ * 具体的背压方式见 {@link PaymentStreamProcessor}。
+ * 每个流在整个处理期间占用一个 Tomcat 请求线程 (读请求体是阻塞 I/O)。
+ * </p>
+ */
+@RestController
+@Profile("!" + ReactivePaymentController.PROFILE)
+@RequestMapping("/api/payments")
+public class PaymentStreamController {
+
+    private final PaymentStreamProcessor streamProcessor;
+
+    /**
+     * @param paymentServiceFactory 支付服务工厂
+     * @param paymentRateLimiter 支付限流器 (每一行消耗一个令牌，超出限额时等待而不是失败)
+     * @param objectMapper 用于写出每一行的结果
+     * @param maxInFlight 单个流同时在途的支付数上限
+     */
+    @Autowired
+    public PaymentStreamController(PaymentServiceFactoryImpl paymentServiceFactory,
+                                   PaymentRateLimiter paymentRateLimiter,
+                                   ObjectMapper objectMapper,
+                                   @Value("${payment.stream.max-in-flight:16}") int maxInFlight) {
+        this.streamProcessor = new PaymentStreamProcessor(paymentServiceFactory, paymentRateLimiter, objectMapper, maxInFlight);
+    }
+
+    /**
+     * 流式批量支付的API端点
+     *
+     * 示例:
+     * curl -XPOST localhost:8080/api/payments/stream -H 'Content-Type: application/x-ndjson' --data-binary @payments.ndjson
+     * 请求体 (每行一个 JSON 对象):
+     * {"paymentType":"alipay","amount":100.50}
+     * {"paymentType":"card_pay","amount":20,"currency":"USD"}
+     * 响应体 (每行一个结果，按完成顺序，index 为请求中的行号，从 0 开始):
+     * {"index":1,"paymentType":"card_pay","success":true,"message":"银行卡支付 支付 20.00 USD 成功！"}
+     *
+     * @param merchantId 可选的商户编号，用于限流
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void processStream(HttpServletRequest request, HttpServletResponse response,
+                              @RequestHeader(value = PaymentController.MERCHANT_ID_HEADER, required = false) String merchantId)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        streamProcessor.process(request.getInputStream(), response.getOutputStream(), merchantId);
+    }
+}
@@ -0,0 +1,247 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/PaymentStreamProcessor.java
+package com.example.designpattern.controller;
+
+import com.example.designpattern.controller.PaymentController.PaymentRequest;
+import com.example.designpattern.controller.PaymentController.PaymentResult;
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐行处理 NDJSON 支付指令流 (每行一个与 /pay 相同格式的 JSON 对象)，每行的结果也以一行 JSON 写回
+ * <p>
+ * 同一个线程交替完成三件事：读一行、发起该行的异步支付、写出已经完成的结果。
+ * 在途支付 (已发起但结果还没有写出) 不超过 maxInFlight 条，达到上限时停止读取请求体，
+ * 等待下一个结果完成并写出后才继续读取；因此渠道变慢 (或客户端读结果变慢) 时，
+ * 压力通过 TCP 传回上游，而不是在服务端堆积。
+ * 内存占用只与 maxInFlight 和最大行长有关，与输入的总行数无关。
+ * </p>
+ * <p>
+ * 结果按完成顺序写出，index 是该行在输入中的行号 (从 0 开始，空行也计数)。
+ * 单行的错误 (JSON 格式、未知支付类型、金额不合法、熔断) 只影响该行。
+ * 超出商户限额的行不会失败：线程等到令牌补充后再发起支付，期间同样不读取请求体，
+ * 限流也以背压的形式传回上游。
+ * </p>
+ */
+final class PaymentStreamProcessor {
+
+    private static final byte NEWLINE = '\n';
+
+    private final PaymentServiceFactoryImpl paymentServiceFactory;
+    private final PaymentRateLimiter paymentRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final int maxInFlight;
+
+    PaymentStreamProcessor(PaymentServiceFactoryImpl paymentServiceFactory, PaymentRateLimiter paymentRateLimiter,
+                           ObjectMapper objectMapper, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须为正数: " + maxInFlight);
+        }
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.paymentRateLimiter = paymentRateLimiter;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * 读完整个输入流并写出每一行的结果，返回处理的非空行数
+     */
+    long process(InputStream input, OutputStream output, String merchantId) throws IOException {
+        // 容量等于在途上限：结果在写出之前一直计入在途数，入队永远不会失败
+        BlockingQueue<PaymentResult> completed = new ArrayBlockingQueue<>(maxInFlight);
+        LineReader reader = new LineReader(input);
+        int inFlight = 0;
+        long lines = 0;
+        try {
+            for (int index = 0; reader.next(); index++) {
+                if (reader.isBlank()) {
+                    continue;
+                }
+                lines++;
+                // 先写出已经完成的结果；窗口已满时等待下一个结果，期间不再读取请求体
+                inFlight -= drain(completed, output);
+                if (inFlight >= maxInFlight) {
+                    output.flush();
+                    write(completed.take(), output);
+                    inFlight--;
+                }
+                PaymentResult rejected = submit(index, reader, merchantId, completed, output);
+                if (rejected != null) {
+                    write(rejected, output);
+                } else {
+                    inFlight++;
+                }
+            }
+            while (inFlight > 0) {
+                inFlight -= drain(completed, output);
+                if (inFlight > 0) {
+                    output.flush();
+                    write(completed.take(), output);
+                    inFlight--;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待支付结果时被中断");
+        }
+        output.flush();
+        return lines;
+    }
+
+    /**
+     * 解析一行并发起支付 (超出限额时先等待令牌)；该行无法发起支付时直接返回失败结果，否则结果完成后放入 completed
+     */
+    private PaymentResult submit(int index, LineReader line, String merchantId, BlockingQueue<PaymentResult> completed,
+                                 OutputStream output) throws IOException, InterruptedException {
+        if (line.isTooLong()) {
+            return PaymentResult.failure(index, null, "单行长度超过 " + PaymentRequestHttpMessageConverter.MAX_BODY_SIZE + " 字节");
+        }
+        PaymentRequest request = new PaymentRequest();
+        PaymentResult invalid = decodeLine(index, line.buffer(), line.length(), request);
+        if (invalid != null) {
+            return invalid;
+        }
+        String paymentTypeCode = request.getPaymentType();
+
+        PaymentService service;
+        Money amount;
+        try {
+            PaymentType resolvedType = request.resolvedPaymentType();
+            service = resolvedType != null
+                    ? paymentServiceFactory.getPaymentService(resolvedType)
+                    : paymentServiceFactory.getPaymentService(paymentTypeCode);
+            amount = request.toMoney();
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.failure(index, paymentTypeCode, e.getMessage());
+        }
+        String typeCode = service.getServiceType().getCode();
+        long waitNanos;
+        while ((waitNanos = paymentRateLimiter.tryAcquire(merchantId, service.getServiceType())) > 0) {
+            // 在途窗口保持占用，先把已写出的结果发给客户端再等待
+            output.flush();
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+
+        CompletableFuture<Void> payment;
+        try {
+            payment = service.payAsync(amount);
+        } catch (RuntimeException e) {
+            // 熔断、舱壁已满或支付执行器拒绝了任务
+            return PaymentController.failureResult(index, typeCode, e);
+        }
+        payment.whenComplete((ignored, error) -> completed.add(error == null
+                ? PaymentResult.success(index, typeCode, PaymentController.successMessage(service.getServiceType(), amount))
+                : PaymentController.failureResult(index, typeCode, unwrap(error))));
+        return null;
+    }
+
+    /**
+     * 把一行解码到 target，JSON 格式错误或缺少支付类型时返回该行的失败结果，否则返回 null
+     */
+    static PaymentResult decodeLine(int index, byte[] line, int length, PaymentRequest target) {
+        try {
+            PaymentRequestHttpMessageConverter.decode(line, length, target);
+        } catch (IllegalArgumentException e) {
+            return PaymentResult.failure(index, null, "JSON 格式错误: " + e.getMessage());
+        }
+        String paymentTypeCode = target.getPaymentType();
+        if (paymentTypeCode == null || paymentTypeCode.trim().isEmpty()) {
+            return PaymentResult.failure(index, null, "支付类型 (paymentType) 不能为空");
+        }
+        return null;
+    }
+
+    private int drain(BlockingQueue<PaymentResult> completed, OutputStream output) throws IOException {
+        int written = 0;
+        PaymentResult result;
+        while ((result = completed.poll()) != null) {
+            write(result, output);
+            written++;
+        }
+        return written;
+    }
+
+    private void write(PaymentResult result, OutputStream output) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write(NEWLINE);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 按行读取字节流，行缓冲区大小固定；超长的行只记录为过长，其余内容被跳过
+     */
+    static final class LineReader {
+        private final InputStream input;
+        private final byte[] chunk = new byte[8192];
+        private int chunkPosition;
+        private int chunkLimit;
+        private final byte[] line = new byte[PaymentRequestHttpMessageConverter.MAX_BODY_SIZE];
+        private int lineLength;
+        private boolean tooLong;
+
+        LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * 读取下一行 (不含换行符和行尾的 \r)，输入结束且没有剩余内容时返回 false
+         */
+        boolean next() throws IOException {
+            lineLength = 0;
+            tooLong = false;
+            boolean readAny = false;
+            while (true) {
+                if (chunkPosition == chunkLimit) {
+                    chunkLimit = input.read(chunk);
+                    chunkPosition = 0;
+                    if (chunkLimit <= 0) {
+                        chunkLimit = 0;
+                        return readAny;
+                    }
+                }
+                readAny = true;
+                byte b = chunk[chunkPosition++];
+                if (b == NEWLINE) {
+                    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    return true;
+                }
+                if (lineLength < line.length) {
+                    line[lineLength++] = b;
+                } else {
+                    tooLong = true;
+                }
+            }
+        }
+
+        boolean isBlank() {
+            for (int i = 0; i < lineLength; i++) {
+                if (line[i] > ' ') {
+                    return false;
+                }
+            }
+            return !tooLong;
+        }
+
+        boolean isTooLong() { return tooLong; }
+        byte[] buffer() { return line; }
+        int length() { return lineLength; }
+    }
+}
@@ -0,0 +1,323 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/ReactivePaymentController.java
+package com.example.designpattern.controller;
+
+import com.example.designpattern.controller.PaymentController.PaymentRequest;
+import com.example.designpattern.controller.PaymentController.PaymentResult;
+import com.example.designpattern.controller.PaymentController.RateLimitRequest;
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyCache;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyKeyMismatchException;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.journal.RecoveryReport;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.reactive.ReactivePaymentService;
+import com.example.designpattern.paymentsystem.reactive.ReactivePaymentServiceFactory;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 响应式支付控制器 (WebFlux + Reactor Netty)，与 {@link PaymentController} 提供相同的 /api/payments 接口
+ * <p>
+ * 只在 reactive profile 下启用 (spring.profiles.active=reactive)。请求在 Netty 事件循环线程上处理：
+ * 工厂查找、限流、幂等缓存都是内存操作，支付通过 {@link ReactivePaymentService} 交给支付执行器，
+ * 事件循环线程不等待支付结果，支付完成后再写回响应。
+ * 成功/失败响应的内容与 Servlet 版本完全相同。
+ * </p>
+ */
+@RestController
+@Profile(ReactivePaymentController.PROFILE)
+@RequestMapping("/api/payments")
+public class ReactivePaymentController {
+
+    /**
+     * 启用响应式 Web 栈的 profile 名称
+     */
+    static final String PROFILE = "reactive";
+
+    private final ReactivePaymentServiceFactory reactivePaymentServiceFactory;
+    private final PaymentServiceFactoryImpl paymentServiceFactory; // 只用于查询渠道状态
+    private final int maxBatchSize; // 单次批量请求允许的最大条数
+    private final int streamMaxInFlight; // 单个 NDJSON 流同时在途的支付数上限
+    private final IdempotencyCache<ResponseEntity<String>> idempotencyCache; // 按 Idempotency-Key 缓存支付响应
+    private final PaymentMetrics paymentMetrics; // 按支付类型划分的支付指标
+    private final PaymentResilience paymentResilience; // 按支付类型划分的舱壁和熔断器
+    private final PaymentRateLimiter paymentRateLimiter; // 按商户和支付类型划分的限流器
+    private final PaymentJournal paymentJournal; // 支付日志，未启用时为 null
+
+    @Autowired
+    public ReactivePaymentController(ReactivePaymentServiceFactory reactivePaymentServiceFactory,
+                                     PaymentServiceFactoryImpl paymentServiceFactory,
+                                     @Value("${payment.batch.max-size:10000}") int maxBatchSize,
+                                     @Value("${payment.stream.max-in-flight:16}") int streamMaxInFlight,
+                                     IdempotencyCache<ResponseEntity<String>> idempotencyCache,
+                                     PaymentMetrics paymentMetrics,
+                                     PaymentResilience paymentResilience,
+                                     PaymentRateLimiter paymentRateLimiter,
+                                     ObjectProvider<PaymentJournal> paymentJournal) {
+        this.reactivePaymentServiceFactory = reactivePaymentServiceFactory;
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.maxBatchSize = maxBatchSize;
+        this.streamMaxInFlight = streamMaxInFlight;
+        this.idempotencyCache = idempotencyCache;
+        this.paymentMetrics = paymentMetrics;
+        this.paymentResilience = paymentResilience;
+        this.paymentRateLimiter = paymentRateLimiter;
+        this.paymentJournal = paymentJournal.getIfAvailable();
+    }
+
+    /**
+     * 执行支付的API端点，请求/响应格式与 {@link PaymentController#processPayment} 相同
+     * <p>
+     * 重复的 Idempotency-Key 共享第一次请求的结果 (请求内容不同时返回 422)；客户端断开时不会取消已经发出的支付。
+     * </p>
+     */
+    @PostMapping("/pay")
+    public Mono<ResponseEntity<String>> processPayment(
+            @RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = PaymentController.MERCHANT_ID_HEADER, required = false) String merchantId) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return doProcessPayment(request, merchantId);
+        }
+        return Mono.fromFuture(() -> idempotencyCache.getOrCompute(idempotencyKey, request.fingerprint(),
+                        () -> doProcessPayment(request, merchantId).toFuture()), true)
+                .onErrorResume(IdempotencyKeyMismatchException.class,
+                        e -> Mono.just(PaymentController.idempotencyKeyMismatch(e)));
+    }
+
+    private Mono<ResponseEntity<String>> doProcessPayment(PaymentRequest request, String merchantId) {
+        try {
+            String paymentTypeCode = request.getPaymentType();
+            if (paymentTypeCode == null || paymentTypeCode.trim().isEmpty()) {
+                return Mono.just(ResponseEntity.badRequest().body("支付类型 (paymentType) 不能为空"));
+            }
+            PaymentType resolvedType = request.resolvedPaymentType();
+            ReactivePaymentService service = resolvedType != null
+                    ? reactivePaymentServiceFactory.getPaymentService(resolvedType)
+                    : reactivePaymentServiceFactory.getPaymentService(paymentTypeCode);
+
+            long waitNanos = paymentRateLimiter.tryAcquire(merchantId, service.getServiceType());
+            if (waitNanos > 0) {
+                return Mono.just(PaymentController.tooManyRequests(service.getServiceType(), waitNanos));
+            }
+
+            Money amount = request.toMoney();
+            return service.pay(amount)
+                    .then(Mono.fromSupplier(() -> ResponseEntity.ok(PaymentController.successMessage(service.getServiceType(), amount))))
+                    .onErrorResume(error -> Mono.just(PaymentController.toErrorResponse(error)));
+        } catch (Exception e) {
+            // 工厂查找失败或金额不合法
+            return Mono.just(PaymentController.toErrorResponse(e));
+        }
+    }
+
+    /**
+     * 批量支付的API端点，请求/响应格式与 {@link PaymentController#processBatchPayment} 相同
+     * <p>
+     * 按支付类型分组后，组内用 concatMap 依次支付，各组之间并发；
+     * 等待期间不占用任何线程，全部完成后按请求中的顺序返回结果。
+     * </p>
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<?>> processBatchPayment(
+            @RequestBody List<PaymentRequest> requests,
+            @RequestHeader(value = PaymentController.MERCHANT_ID_HEADER, required = false) String merchantId) {
+        if (requests.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.badRequest().body("批量支付失败: 单次最多支持 " + maxBatchSize + " 笔支付"));
+        }
+
+        PaymentResult[] results = new PaymentResult[requests.size()];
+
+        // 1. 通过工厂解析每一条请求的支付服务，并按支付类型分组 (组内保存请求下标)
+        Map<PaymentType, List<Integer>> groups = new EnumMap<>(PaymentType.class);
+        Map<PaymentType, ReactivePaymentService> services = new EnumMap<>(PaymentType.class);
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            if (request == null || request.getPaymentType() == null || request.getPaymentType().trim().isEmpty()) {
+                results[i] = PaymentResult.failure(i, null, "支付类型 (paymentType) 不能为空");
+                continue;
+            }
+            try {
+                ReactivePaymentService service = reactivePaymentServiceFactory.getPaymentService(request.getPaymentType());
+                services.putIfAbsent(service.getServiceType(), service);
+                groups.computeIfAbsent(service.getServiceType(), type -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = PaymentResult.failure(i, request.getPaymentType(), e.getMessage());
+            }
+        }
+
+        // 每一条都消耗一个令牌，令牌不够的条目返回 429
+        PaymentController.acquireBatchPermits(paymentRateLimiter, merchantId, groups, results);
+
+        // 2. 每个支付渠道一条流，组内依次支付，各组并发
+        List<Mono<Void>> payments = new ArrayList<>(groups.size());
+        for (Map.Entry<PaymentType, List<Integer>> group : groups.entrySet()) {
+            ReactivePaymentService service = services.get(group.getKey());
+            payments.add(Flux.fromIterable(group.getValue())
+                    .concatMap(index -> payOne(service, index, requests.get(index), results))
+                    .then());
+        }
+
+        // 3. 所有渠道完成后按原顺序返回
+        return Mono.when(payments).then(Mono.fromSupplier(() -> ResponseEntity.ok(Arrays.asList(results))));
+    }
+
+    /**
+     * 批量支付中的一笔，结果写入 results，失败不会中断所在的组
+     */
+    private static Mono<Void> payOne(ReactivePaymentService service, int index, PaymentRequest request, PaymentResult[] results) {
+        String typeCode = service.getServiceType().getCode();
+        Money amount;
+        try {
+            amount = request.toMoney();
+        } catch (IllegalArgumentException e) {
+            results[index] = PaymentResult.failure(index, typeCode, e.getMessage());
+            return Mono.empty();
+        }
+        return service.pay(amount)
+                .doOnSuccess(ignored -> results[index] = PaymentResult.success(index, typeCode,
+                        PaymentController.successMessage(service.getServiceType(), amount)))
+                .onErrorResume(error -> {
+                    results[index] = PaymentController.failureResult(index, typeCode, error);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 流式批量支付的API端点，请求/响应格式与 {@link PaymentStreamController#processStream} 相同
+     * <p>
+     * 请求体按行解码为 Flux；flatMap 最多同时订阅 streamMaxInFlight 笔支付，
+     * 只有一笔完成后才向上游再请求一行，Reactor Netty 据此暂停读取请求体，
+     * 因此渠道变慢时压力传回上游，内存占用与输入行数无关。结果按完成顺序逐行写出。
+     * 超出商户限额的行等待令牌补充后再支付 (期间继续占用 flatMap 的名额)，限流同样表现为背压。
+     * </p>
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentResult> processStream(
+            @RequestBody Flux<String> lines,
+            @RequestHeader(value = PaymentController.MERCHANT_ID_HEADER, required = false) String merchantId) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .flatMap(line -> payLine(line.getT1().intValue(), line.getT2(), merchantId), streamMaxInFlight);
+    }
+
+    /**
+     * 流式批量支付中的一行，失败时返回失败结果而不是错误信号，不会中断整个流
+     */
+    private Mono<PaymentResult> payLine(int index, String line, String merchantId) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        PaymentRequest request = new PaymentRequest();
+        PaymentResult invalid = PaymentStreamProcessor.decodeLine(index, bytes, bytes.length, request);
+        if (invalid != null) {
+            return Mono.just(invalid);
+        }
+        ReactivePaymentService service;
+        Money amount;
+        try {
+            PaymentType resolvedType = request.resolvedPaymentType();
+            service = resolvedType != null
+                    ? reactivePaymentServiceFactory.getPaymentService(resolvedType)
+                    : reactivePaymentServiceFactory.getPaymentService(request.getPaymentType());
+            amount = request.toMoney();
+        } catch (IllegalArgumentException e) {
+            return Mono.just(PaymentResult.failure(index, request.getPaymentType(), e.getMessage()));
+        }
+        String typeCode = service.getServiceType().getCode();
+        return awaitPermit(merchantId, service.getServiceType())
+                .then(Mono.defer(() -> service.pay(amount)))
+                .then(Mono.fromSupplier(() -> PaymentResult.success(index, typeCode,
+                        PaymentController.successMessage(service.getServiceType(), amount))))
+                .onErrorResume(error -> Mono.just(PaymentController.failureResult(index, typeCode, error)));
+    }
+
+    /**
+     * 取得一个令牌后完成；被限流时按建议的等待时间延迟后重试 (不占用线程)
+     */
+    private Mono<Void> awaitPermit(String merchantId, PaymentType type) {
+        return Mono.defer(() -> {
+            long waitNanos = paymentRateLimiter.tryAcquire(merchantId, type);
+            return waitNanos == 0
+                    ? Mono.<Void>empty()
+                    : Mono.delay(Duration.ofNanos(waitNanos)).then(awaitPermit(merchantId, type));
+        });
+    }
+
+    @GetMapping("/idempotency/stats")
+    public IdempotencyCache.Stats idempotencyStats() {
+        return idempotencyCache.stats();
+    }
+
+    @GetMapping("/metrics")
+    public Map<String, Object> paymentMetrics() {
+        return paymentMetrics.snapshot();
+    }
+
+    @GetMapping("/resilience")
+    public Map<String, Object> resilience() {
+        return paymentResilience.snapshot();
+    }
+
+    @GetMapping("/providers")
+    public Map<String, Object> providers() {
+        return paymentServiceFactory.providerSnapshot();
+    }
+
+    @GetMapping("/rate-limits")
+    public Map<String, Object> rateLimits() {
+        return paymentRateLimiter.snapshot();
+    }
+
+    @PutMapping("/rate-limits/{paymentType}")
+    public ResponseEntity<?> updateRateLimit(@PathVariable String paymentType, @RequestBody RateLimitRequest request) {
+        try {
+            PaymentType type = PaymentType.fromCode(paymentType);
+            paymentRateLimiter.setLimit(type, new RateLimit(request.getPermitsPerSecond(), request.getBurst()));
+            return ResponseEntity.ok(paymentRateLimiter.snapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("修改限流参数失败: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/journal/recovery")
+    public ResponseEntity<RecoveryReport> journalRecovery() {
+        if (paymentJournal == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(paymentJournal.getRecoveryReport());
+    }
+
+    /**
+     * 按支付编号查询日志记录；需要读取日志段文件，放到 boundedElastic 调度器上执行
+     */
+    @GetMapping("/journal/{paymentId}")
+    public Mono<ResponseEntity<Map<String, Object>>> journalLookup(@PathVariable long paymentId) {
+        if (paymentJournal == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.fromCallable(() -> paymentJournal.lookup(paymentId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(record -> ResponseEntity.ok(PaymentController.journalView(record)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
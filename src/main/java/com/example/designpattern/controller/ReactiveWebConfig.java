@@ -0,0 +1,41 @@
+// 文件路径: src/main/java/com/example/designpattern/controller/ReactiveWebConfig.java
+package com.example.designpattern.controller;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyRouteProvider;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.ReactorResourceFactory;
+
+/**
+ * reactive profile 下的 Web 栈配置
+ * <p>
+ * Tomcat 和 Reactor Netty 同时在类路径上时，Spring Boot 的响应式 Web 服务器会优先选择 Tomcat，
+ * 这里显式声明 Netty 的服务器工厂，让请求在 Netty 事件循环线程上处理。
+ * 同时注册 {@link PaymentRequestDecoder}，/pay 的请求体不经过 Jackson。
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile(ReactivePaymentController.PROFILE)
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ReactorResourceFactory resourceFactory,
+                                                                       ObjectProvider<NettyRouteProvider> routes,
+                                                                       ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.setResourceFactory(resourceFactory);
+        routes.orderedStream().forEach(factory::addRouteProviders);
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+
+    @Bean
+    public CodecCustomizer paymentRequestCodecCustomizer() {
+        return configurer -> configurer.customCodecs().register(new PaymentRequestDecoder());
+    }
+}
@@ -1,5 +1,12 @@
 package com.example.designpattern.factorypattern;
 
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 // -------------------- 1. 抽象产品接口 --------------------
 interface Chair {
     void sitOn();
@@ -12,8 +19,10 @@ interface Sofa {
 }
 
 // -------------------- 2. 具体产品实现 --------------------
-// 现代风格产品
+// 现代风格产品 (具体产品都没有实例状态，工厂返回共享的 INSTANCE)
 class ModernChair implements Chair {
+    static final ModernChair INSTANCE = new ModernChair();
+
     @Override
     public void sitOn() {
         System.out.println("坐在现代风格的椅子上。");
@@ -25,6 +34,8 @@ class ModernChair implements Chair {
 }
 
 class ModernSofa implements Sofa {
+    static final ModernSofa INSTANCE = new ModernSofa();
+
     @Override
     public void lieOn() {
         System.out.println("躺在现代风格的沙发上。");
@@ -37,6 +48,8 @@ class ModernSofa implements Sofa {
 
 // 维多利亚风格产品
 class VictorianChair implements Chair {
+    static final VictorianChair INSTANCE = new VictorianChair();
+
     @Override
     public void sitOn() {
         System.out.println("坐在维多利亚风格的椅子上。");
@@ -48,6 +61,8 @@ class VictorianChair implements Chair {
 }
 
 class VictorianSofa implements Sofa {
+    static final VictorianSofa INSTANCE = new VictorianSofa();
+
     @Override
     public void lieOn() {
         System.out.println("躺在维多利亚风格的沙发上。");
@@ -62,6 +77,84 @@ class VictorianSofa implements Sofa {
 interface FurnitureFactory {
     Chair createChair();
     Sofa createSofa();
+
+    // 批量创建 (例如渲染商品目录时每种风格需要几十万件)，parallel 为 true 时在 fork/join 公共池上并行调用工厂方法
+    default Chair[] createChairs(int count, boolean parallel) {
+        return fill(new Chair[count], this::createChair, parallel);
+    }
+
+    default Sofa[] createSofas(int count, boolean parallel) {
+        return fill(new Sofa[count], this::createSofa, parallel);
+    }
+
+    // 按需创建 count 把椅子的流，调用 parallel() 后由 FurnitureSpliterator 按区间拆分给 fork/join 任务
+    default Stream<Chair> chairs(long count) {
+        return StreamSupport.stream(new FurnitureSpliterator<>(this::createChair, 0, count), false);
+    }
+
+    default Stream<Sofa> sofas(long count) {
+        return StreamSupport.stream(new FurnitureSpliterator<>(this::createSofa, 0, count), false);
+    }
+
+    private static <T> T[] fill(T[] products, Supplier<T> factoryMethod, boolean parallel) {
+        if (parallel) {
+            Arrays.parallelSetAll(products, i -> factoryMethod.get());
+        } else {
+            Arrays.setAll(products, i -> factoryMethod.get());
+        }
+        return products;
+    }
+}
+
+// 生成 [origin, fence) 区间内每个位置一个产品的 Spliterator，大小已知，对半拆分
+class FurnitureSpliterator<T> implements Spliterator<T> {
+    private final Supplier<T> factoryMethod;
+    private long origin;
+    private final long fence;
+
+    FurnitureSpliterator(Supplier<T> factoryMethod, long origin, long fence) {
+        this.factoryMethod = factoryMethod;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (origin >= fence) {
+            return false;
+        }
+        origin++;
+        action.accept(factoryMethod.get());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (; origin < fence; origin++) {
+            action.accept(factoryMethod.get());
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long mid = (origin + fence) >>> 1;
+        if (mid <= origin) {
+            return null;
+        }
+        Spliterator<T> prefix = new FurnitureSpliterator<>(factoryMethod, origin, mid);
+        origin = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
 }
 
 // -------------------- 4. 具体工厂实现 --------------------
@@ -69,12 +162,12 @@ interface FurnitureFactory {
 class ModernFurnitureFactory implements FurnitureFactory {
     @Override
     public Chair createChair() {
-        return new ModernChair();
+        return ModernChair.INSTANCE;
     }
 
     @Override
     public Sofa createSofa() {
-        return new ModernSofa();
+        return ModernSofa.INSTANCE;
     }
 }
 
@@ -82,12 +175,12 @@ class ModernFurnitureFactory implements FurnitureFactory {
 class VictorianFurnitureFactory implements FurnitureFactory {
     @Override
     public Chair createChair() {
-        return new VictorianChair();
+        return VictorianChair.INSTANCE;
     }
 
     @Override
     public Sofa createSofa() {
-        return new VictorianSofa();
+        return VictorianSofa.INSTANCE;
     }
 }
 
@@ -132,5 +225,13 @@ public class AbstractFactoryDemo {
         factory = new VictorianFurnitureFactory();
         app = new Application(factory); // 只需要更换工厂实例
         app.describeFurnitureStyle();
+
+        System.out.println("\n========================================\n");
+
+        // 场景3: 渲染商品目录，每种风格批量创建大量家具
+        Chair[] chairs = factory.createChairs(100_000, true);
+        Sofa[] sofas = factory.sofas(100_000).parallel().toArray(Sofa[]::new);
+        System.out.println("批量创建 " + chairs.length + " 把椅子和 " + sofas.length + " 个沙发，椅子共享同一个实例: "
+                + (chairs[0] == chairs[chairs.length - 1]));
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 // 文件路径: src/main/java/com/example/designpattern/paymentsystem/AlipayServiceImpl.java
 package com.example.designpattern.paymentsystem;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 支付宝支付服务实现
@@ -10,13 +12,25 @@ import java.math.BigDecimal;
 @Service("alipayService") // 将其声明为Spring Bean，并指定一个名称
 public class AlipayServiceImpl implements PaymentService {
 
+    private final Executor paymentExecutor; // 执行异步支付的执行器
+
+    public AlipayServiceImpl(@Qualifier(PaymentExecutorConfig.PAYMENT_EXECUTOR) Executor paymentExecutor) {
+        this.paymentExecutor = paymentExecutor;
+    }
+
     @Override
-    public void pay(BigDecimal amount) {
+    public void pay(Money amount) {
         // 在实际项目中，这里会是对接支付宝SDK的复杂逻辑
-        System.out.println("正在通过支付宝支付 " + amount + " 元... 💸");
+        System.out.println("正在通过支付宝支付 " + amount + "... 💸");
         System.out.println("支付宝支付成功！");
     }
 
+    @Override
+    public CompletableFuture<Void> payAsync(Money amount) {
+        // 支付宝 SDK 调用是阻塞的，放到支付执行器中运行，调用方线程立即返回
+        return CompletableFuture.runAsync(() -> pay(amount), paymentExecutor);
+    }
+
     @Override
     public PaymentType getServiceType() {
         return PaymentType.ALIPAY; // 返回当前服务的类型
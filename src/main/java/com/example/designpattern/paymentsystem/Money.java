@@ -0,0 +1,234 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/Money.java
+package com.example.designpattern.paymentsystem;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * 金额值对象 (不可变)
+ * <p>
+ * 以币种最小单位 (例如人民币的"分") 的 long 值加上币种保存金额，
+ * 加减乘运算都是精确的整数运算，溢出时抛出 ArithmeticException，不会悄悄回绕。
+ * 与 BigDecimal 相比不需要为每次运算创建大整数对象，格式化也只是整数拼接。
+ * </p>
+ * <p>
+ * 对外接口 (JSON 请求等) 仍然可以使用 BigDecimal，通过 {@link #of(BigDecimal, Currency)}
+ * 和 {@link #toBigDecimal()} 在边界上转换。
+ * </p>
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * 默认币种：人民币
+     */
+    public static final Currency CNY = Currency.getInstance("CNY");
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L,
+            100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private static final int MAX_AMOUNT_CHARS = 24; // 符号 + 19 位数字 + 小数点，留有余量
+
+    private final long minorUnits; // 以币种最小单位计的金额
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    /**
+     * 以最小单位创建金额，例如 Money.ofMinor(10050, CNY) 表示 100.50 元
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        Objects.requireNonNull(currency, "币种不能为空");
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * 由 BigDecimal 创建金额 (API 边界上的适配)
+     *
+     * @throws IllegalArgumentException 小数位超出币种最小单位 (例如 1.005 元) 或超出 long 范围时
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        Objects.requireNonNull(amount, "金额不能为空");
+        Objects.requireNonNull(currency, "币种不能为空");
+        try {
+            return new Money(amount.movePointRight(fractionDigits(currency)).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("金额 " + amount.toPlainString() + " 超出 " + currency.getCurrencyCode() + " 的精度或范围", e);
+        }
+    }
+
+    /**
+     * 由定点数 (去掉小数点后的整数值 + 小数位数) 创建金额，不经过 BigDecimal，
+     * 例如 fromFixedPoint(1005, 1, CNY) 表示 100.5 元
+     *
+     * @throws IllegalArgumentException 小数位超出币种最小单位或超出 long 范围时
+     */
+    public static Money fromFixedPoint(long unscaled, int scale, Currency currency) {
+        Objects.requireNonNull(currency, "币种不能为空");
+        int digits = fractionDigits(currency);
+        // 去掉多出的末尾 0，例如 "1.0000000000000000000" 的 scale 超出了 POWERS_OF_TEN 的范围
+        while (scale > digits && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        try {
+            if (scale <= digits) {
+                int shift = digits - scale;
+                if (shift >= POWERS_OF_TEN.length) {
+                    throw new ArithmeticException("overflow");
+                }
+                return new Money(Math.multiplyExact(unscaled, POWERS_OF_TEN[shift]), currency);
+            }
+            // 多出的小数位只允许是 0，例如 "1.500"
+            int shift = scale - digits;
+            long divisor = shift < POWERS_OF_TEN.length ? POWERS_OF_TEN[shift] : 0;
+            if (divisor == 0 || unscaled % divisor != 0) {
+                throw new ArithmeticException("rounding necessary");
+            }
+            return new Money(unscaled / divisor, currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("金额超出 " + currency.getCurrencyCode() + " 的精度或范围", e);
+        }
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getCurrencyCode() {
+        return currency.getCurrencyCode();
+    }
+
+    public Money plus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money multiply(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    /**
+     * 转换为 BigDecimal (API 边界上的适配)，小数位数等于币种的最小单位位数
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    /**
+     * 把金额数值 (不含币种) 追加到 sb，例如 "100.50"，只做整数运算
+     */
+    public StringBuilder appendAmount(StringBuilder sb) {
+        char[] buf = new char[MAX_AMOUNT_CHARS];
+        int start = formatAmount(buf);
+        return sb.append(buf, start, MAX_AMOUNT_CHARS - start);
+    }
+
+    /**
+     * 金额数值 (不含币种)，例如 "100.50"
+     */
+    public String toPlainString() {
+        char[] buf = new char[MAX_AMOUNT_CHARS];
+        int start = formatAmount(buf);
+        return new String(buf, start, MAX_AMOUNT_CHARS - start);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    /**
+     * 例如 "100.50 CNY"
+     */
+    @Override
+    public String toString() {
+        return appendAmount(new StringBuilder(MAX_AMOUNT_CHARS + 4)).append(' ').append(currency.getCurrencyCode()).toString();
+    }
+
+    private void checkSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("币种不一致: " + currency.getCurrencyCode() + " 与 " + other.currency.getCurrencyCode());
+        }
+    }
+
+    /**
+     * 从 buf 末尾向前写入金额数值，返回起始下标
+     */
+    private int formatAmount(char[] buf) {
+        int digits = fractionDigits(currency);
+        int pos = buf.length;
+        // 以负数运算，Long.MIN_VALUE 也不会溢出
+        long value = minorUnits < 0 ? minorUnits : -minorUnits;
+        for (int i = 0; i < digits; i++) {
+            buf[--pos] = (char) ('0' - value % 10);
+            value /= 10;
+        }
+        if (digits > 0) {
+            buf[--pos] = '.';
+        }
+        do {
+            buf[--pos] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (minorUnits < 0) {
+            buf[--pos] = '-';
+        }
+        return pos;
+    }
+
+    private static int fractionDigits(Currency currency) {
+        // 没有最小单位概念的币种 (例如黄金 XAU) 返回 -1，按 0 位小数处理
+        return Math.max(0, currency.getDefaultFractionDigits());
+    }
+}
@@ -0,0 +1,56 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/PaymentExecutorConfig.java
+package com.example.designpattern.paymentsystem;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 支付执行线程池配置
+ * <p>
+ * 批量支付、异步支付 (payAsync) 等需要调用各支付渠道的场景统一使用这里声明的 "paymentExecutor"，
+ * 避免占用 Tomcat 的请求处理线程，也避免每个调用方各自创建线程池。
+ * </p>
+ * <p>
+ * 当开启 spring.threads.virtual.enabled 且运行在 JDK 21 及以上时，使用虚拟线程执行器，
+ * 每笔支付一个虚拟线程，渠道变慢时不再受限于平台线程数量；
+ * 否则 (例如 JDK 17) 退回到有界的平台线程池。
+ * </p>
+ */
+@Configuration
+public class PaymentExecutorConfig {
+
+    public static final String PAYMENT_EXECUTOR = "paymentExecutor";
+
+    @Bean(name = PAYMENT_EXECUTOR)
+    public AsyncTaskExecutor paymentExecutor(
+            Environment environment,
+            @Value("${payment.executor.core-size:8}") int coreSize,
+            @Value("${payment.executor.max-size:32}") int maxSize,
+            @Value("${payment.executor.queue-capacity:1000}") int queueCapacity,
+            @Value("${payment.executor.virtual-concurrency-limit:-1}") int virtualConcurrencyLimit) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("payment-");
+            executor.setVirtualThreads(true);
+            // 虚拟线程本身很廉价，默认不限并发；需要保护下游时可以设置上限 (-1 表示不限)
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            // 关闭时等待在途支付完成，与平台线程池的行为保持一致
+            executor.setTaskTerminationTimeout(30_000L);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("payment-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        // 有界队列：渠道整体变慢时尽快暴露问题，而不是无限堆积任务
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -1,7 +1,7 @@
 // 文件路径: src/main/java/com/example/designpattern/paymentsystem/PaymentService.java
 package com.example.designpattern.paymentsystem;
 
-import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 支付服务接口
@@ -10,9 +10,20 @@ public interface PaymentService {
 
     /**
      * 执行支付操作
+     * @param amount 支付金额 (定点数金额，含币种)
+     */
+    void pay(Money amount);
+
+    /**
+     * 异步执行支付操作 (非阻塞版本)
+     * <p>
+     * 调用方线程立即返回，真正的渠道调用在支付执行器 (paymentExecutor) 中完成；
+     * 支付失败时返回的 CompletableFuture 以异常结束。
+     * </p>
      * @param amount 支付金额
+     * @return 支付完成时结束的 CompletableFuture
      */
-    void pay(BigDecimal amount);
+    CompletableFuture<Void> payAsync(Money amount);
 
     /**
      * 获取当前支付服务的类型
@@ -1,11 +1,23 @@
 // 文件路径: src/main/java/com/example/designpattern/paymentsystem/PaymentServiceFactoryImpl.java
 package com.example.designpattern.paymentsystem;
 
+import com.example.designpattern.paymentsystem.journal.JournalingPaymentService;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.loadbalance.LoadBalancedPaymentService;
+import com.example.designpattern.paymentsystem.loadbalance.PaymentProvider;
+import com.example.designpattern.paymentsystem.metrics.InstrumentedPaymentService;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import com.example.designpattern.paymentsystem.resilience.ResilientPaymentService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct; // 注意：对于 Spring Boot 3.x, PostConstruct 在 jakarta.annotation 包下
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,24 +28,48 @@ import java.util.Optional;
  * 该工厂负责根据支付类型查找并提供相应的支付服务实例。
  * 它会自动注入所有实现了 PaymentService 接口的 Spring Bean。
  * </p>
+ * <p>
+ * 同一支付类型可以有多个实现 (支付渠道，例如多条银行卡收单通道)，全部保留，
+ * 由 {@link LoadBalancedPaymentService} 按实时耗时和权重 (payment.providers.&lt;Bean 名称&gt;.weight) 分摊流量。
+ * </p>
+ * <p>
+ * 每个渠道依次被装饰为：{@link JournalingPaymentService} (启用支付日志时，每一次支付都会被记录)，
+ * {@link ResilientPaymentService} (每个渠道自己的舱壁和熔断器，某个渠道变慢或出错时快速失败，
+ * 负载均衡会跳过熔断中的渠道)。最外层是 {@link InstrumentedPaymentService}，
+ * 按支付类型记录耗时、成功/失败次数和在途数；工厂查找本身的耗时也会被记录。
+ * </p>
  */
 @Component // 将其声明为Spring组件，使其能够被依赖注入和扫描
 public class PaymentServiceFactoryImpl {
 
-    private final List<PaymentService> paymentServices; // Spring会自动注入所有PaymentService的实现类
+    private final Map<String, PaymentService> paymentServices; // Spring会自动注入所有PaymentService的实现类 (Bean 名称 -> 实例)
+    private final PaymentJournal paymentJournal; // 支付日志，未启用时为 null
+    private final PaymentMetrics paymentMetrics; // 按支付类型划分的指标
+    private final PaymentResilience paymentResilience; // 按支付渠道划分的舱壁和熔断器
+    private final Environment env; // 读取渠道权重等负载均衡参数
 
-    // 使用EnumMap可以获得更好的性能和类型安全
+    // 使用EnumMap可以获得更好的性能和类型安全 (启动后只读，查找不加锁)
     private final Map<PaymentType, PaymentService> serviceCache = new EnumMap<>(PaymentType.class);
+    private final Map<PaymentType, LoadBalancedPaymentService> balancers = new EnumMap<>(PaymentType.class);
 
     /**
-     * 通过构造函数注入所有 PaymentService 的实现列表。
-     * 当有多个 PaymentService 类型的 bean 时，Spring 会将它们全部收集到一个 List 中。
+     * 通过构造函数注入所有 PaymentService 的实现。
+     * 当有多个 PaymentService 类型的 bean 时，Spring 会将它们全部收集到一个以 Bean 名称为键的 Map 中。
      *
-     * @param paymentServices 所有实现了 PaymentService 接口的 Spring Bean 列表
+     * @param paymentServices 所有实现了 PaymentService 接口的 Spring Bean (Bean 名称 -> 实例)
+     * @param paymentJournal 支付日志 (可选)
+     * @param paymentMetrics 支付指标
+     * @param paymentResilience 舱壁和熔断器
+     * @param env 配置环境
      */
     @Autowired
-    public PaymentServiceFactoryImpl(List<PaymentService> paymentServices) {
+    public PaymentServiceFactoryImpl(Map<String, PaymentService> paymentServices, ObjectProvider<PaymentJournal> paymentJournal,
+                                     PaymentMetrics paymentMetrics, PaymentResilience paymentResilience, Environment env) {
         this.paymentServices = paymentServices;
+        this.paymentJournal = paymentJournal.getIfAvailable();
+        this.paymentMetrics = paymentMetrics;
+        this.paymentResilience = paymentResilience;
+        this.env = env;
     }
 
     /**
@@ -47,21 +83,52 @@ public class PaymentServiceFactoryImpl {
             System.err.println("警告: 没有找到任何支付服务实现!");
             return;
         }
-        for (PaymentService service : paymentServices) {
+        // 按支付类型分组，同一类型的多个实现都保留 (Bean 名称 -> 实例)
+        Map<PaymentType, Map<String, PaymentService>> byType = new EnumMap<>(PaymentType.class);
+        for (Map.Entry<String, PaymentService> entry : paymentServices.entrySet()) {
+            PaymentService service = entry.getValue();
             if (service.getServiceType() == null) {
                 System.err.println("警告: 支付服务 " + service.getClass().getSimpleName() + " 的 getServiceType() 返回 null。");
                 continue;
             }
-            // 如果有多个相同类型的服务，这里会以后者覆盖前者，可以根据业务需求调整
-            if (serviceCache.containsKey(service.getServiceType())) {
-                 System.err.println("警告: 发现重复的支付服务类型 " + service.getServiceType() +
-                                   " 由 " + service.getClass().getSimpleName() +
-                                   " 和 " + serviceCache.get(service.getServiceType()).getClass().getSimpleName() +
-                                   " 同时实现。后者将覆盖前者。");
-            }
-            serviceCache.put(service.getServiceType(), service);
+            byType.computeIfAbsent(service.getServiceType(), type -> new LinkedHashMap<>()).put(entry.getKey(), service);
             System.out.println("支付服务工厂: 注册服务 " + service.getClass().getSimpleName() + " 类型为 " + service.getServiceType());
         }
+        long decayMillis = env.getProperty("payment.load-balancer.decay-ms", Long.class, 10_000L);
+        for (Map.Entry<PaymentType, Map<String, PaymentService>> group : byType.entrySet()) {
+            PaymentType type = group.getKey();
+            List<PaymentProvider> providers = new ArrayList<>();
+            group.getValue().forEach((name, service) -> providers.add(new PaymentProvider(name, decorateProvider(name, service),
+                    env.getProperty("payment.providers." + name + ".weight", Integer.class, 1), decayMillis)));
+            if (providers.size() > 1) {
+                System.out.println("支付服务工厂: 类型 " + type + " 有 " + providers.size() + " 个支付渠道 " + group.getValue().keySet() + "，按负载均衡分配");
+            }
+            LoadBalancedPaymentService balancer = new LoadBalancedPaymentService(type, providers);
+            balancers.put(type, balancer);
+            // 指标在最外层，统计的是调用方实际感受到的耗时 (包括等待支付日志落盘)
+            serviceCache.put(type, new InstrumentedPaymentService(balancer, paymentMetrics));
+        }
+    }
+
+    /**
+     * 为单个支付渠道加上支付日志、舱壁和熔断器
+     */
+    private PaymentService decorateProvider(String name, PaymentService service) {
+        PaymentService decorated = service;
+        if (paymentJournal != null) {
+            decorated = new JournalingPaymentService(decorated, paymentJournal);
+        }
+        // 被舱壁或熔断器拒绝的支付没有调用渠道，也就不写支付日志
+        return paymentResilience.decorate(name, decorated);
+    }
+
+    /**
+     * 各支付类型下每个支付渠道的权重、健康状态、EWMA 耗时、在途数和被选中次数
+     */
+    public Map<String, Object> providerSnapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        balancers.forEach((type, balancer) -> result.put(type.getCode(), balancer.snapshot()));
+        return result;
     }
 
     /**
@@ -72,10 +139,13 @@ public class PaymentServiceFactoryImpl {
      * @throws IllegalArgumentException 如果找不到对应类型的支付服务
      */
     public PaymentService getPaymentService(PaymentType paymentType) {
+        long start = System.nanoTime();
         PaymentService service = serviceCache.get(paymentType);
         if (service == null) {
+            paymentMetrics.recordUnknownTypeLookup();
             throw new IllegalArgumentException("不支持的支付类型或未找到对应的支付服务: " + paymentType);
         }
+        paymentMetrics.recordLookup(paymentType, System.nanoTime() - start);
         return service;
     }
 
@@ -87,7 +157,13 @@ public class PaymentServiceFactoryImpl {
      * @throws IllegalArgumentException 如果找不到对应类型的支付服务或类型代码无效
      */
     public PaymentService getPaymentService(String paymentTypeCode) {
-        PaymentType paymentType = PaymentType.fromCode(paymentTypeCode); // 使用枚举中的fromCode方法
+        PaymentType paymentType;
+        try {
+            paymentType = PaymentType.fromCode(paymentTypeCode); // 使用枚举中的fromCode方法
+        } catch (IllegalArgumentException e) {
+            paymentMetrics.recordUnknownTypeLookup();
+            throw e;
+        }
         return getPaymentService(paymentType);
     }
 }
\ No newline at end of file
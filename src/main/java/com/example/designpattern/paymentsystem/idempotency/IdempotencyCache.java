@@ -0,0 +1,257 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/idempotency/IdempotencyCache.java
+package com.example.designpattern.paymentsystem.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键缓存 (有界、分段加锁、带过期时间)
+ * <p>
+ * 以客户端传入的幂等键 (Idempotency-Key) 为键，缓存一次操作的结果 (CompletableFuture)：
+ * <ul>
+ *     <li>第一次出现的键：执行操作，并把"进行中"的 future 放入缓存；</li>
+ *     <li>并发到达的重复请求：直接拿到同一个进行中的 future，等待第一次执行的结果；</li>
+ *     <li>之后到达的重复请求：直接返回已缓存的结果，不再执行操作。</li>
+ * </ul>
+ * 执行失败 (future 异常结束) 或结果不满足 cacheable 条件时会移除该键，以便客户端重试。
+ * 每个键绑定第一次请求的指纹，指纹不同的重复请求抛出 {@link IdempotencyKeyMismatchException}。
+ * </p>
+ * <p>
+ * 缓存被切分为若干段 (stripe)，每段一把锁和一个按插入顺序排列的 LinkedHashMap，
+ * 不同键的请求大多落在不同段上，互不竞争。每段容量为 maxEntries / stripes，
+ * 超出容量时淘汰最早插入的已完成条目 (进行中的条目不淘汰，否则重复请求会再执行一次，
+ * 因此一段的条目数可能暂时超出容量，超出部分不会多于进行中的请求数)；
+ * 过期条目在访问和插入时顺带清理，不需要后台线程。
+ * </p>
+ *
+ * @param <V> 缓存的结果类型
+ */
+public class IdempotencyCache<V> {
+
+    private final Stripe<V>[] stripes;
+    private final int stripeMask;
+    private final int stripeCapacity;
+    private final long ttlNanos;
+    private final Predicate<V> cacheable; // 结果是否可以被缓存 (例如 5xx 响应不缓存，允许重试)
+
+    // 统计计数器 (LongAdder 在高并发下比 AtomicLong 竞争更小)
+    private final LongAdder hits = new LongAdder();          // 命中已完成的结果
+    private final LongAdder inFlightJoins = new LongAdder(); // 命中进行中的请求并等待其结果
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();     // 因容量不足被淘汰
+    private final LongAdder expirations = new LongAdder();   // 因过期被清理
+    private final LongAdder mismatches = new LongAdder();    // 幂等键被用于内容不同的请求
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param stripes    分段数量 (会向上取整为 2 的幂)
+     * @param ttlMillis  条目存活时间 (毫秒)，从第一次请求开始计算
+     * @param cacheable  结果是否可以被缓存
+     */
+    @SuppressWarnings("unchecked")
+    public IdempotencyCache(int maxEntries, int stripes, long ttlMillis, Predicate<V> cacheable) {
+        if (maxEntries <= 0 || stripes <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries、stripes 和 ttlMillis 必须大于 0");
+        }
+        int stripeCount = Integer.highestOneBit(stripes - 1) << 1;
+        if (stripeCount <= 0) {
+            stripeCount = 1;
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.stripeCapacity = Math.max(1, maxEntries / stripeCount);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * 获取幂等键对应的结果；键第一次出现时才执行 action (不校验请求内容)
+     */
+    public CompletableFuture<V> getOrCompute(String key, Supplier<CompletableFuture<V>> action) {
+        return getOrCompute(key, null, action);
+    }
+
+    /**
+     * 获取幂等键对应的结果；键第一次出现时才执行 action。
+     *
+     * @param key         幂等键
+     * @param fingerprint 请求指纹 (需实现 equals)，与该键第一次请求的指纹不同时拒绝
+     * @param action      真正执行操作的逻辑
+     * @return 操作结果 (已缓存的、进行中的或新执行的)
+     * @throws IdempotencyKeyMismatchException 该键已用于指纹不同的请求时
+     */
+    public CompletableFuture<V> getOrCompute(String key, Object fingerprint, Supplier<CompletableFuture<V>> action) {
+        Stripe<V> stripe = stripeFor(key);
+        long now = System.nanoTime();
+        Entry<V> entry;
+
+        stripe.lock.lock();
+        try {
+            Entry<V> existing = stripe.entries.get(key);
+            if (existing != null && now - existing.createdNanos < ttlNanos) {
+                if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                    mismatches.increment();
+                    throw new IdempotencyKeyMismatchException(key);
+                }
+                if (existing.result.isDone()) {
+                    hits.increment();
+                } else {
+                    inFlightJoins.increment();
+                }
+                // 返回副本，避免调用方取消或完成共享的 future 影响其他请求
+                return existing.result.copy();
+            }
+            if (existing != null) {
+                stripe.entries.remove(key);
+                expirations.increment();
+            }
+            misses.increment();
+            entry = new Entry<>(new CompletableFuture<>(), fingerprint, now);
+            stripe.entries.put(key, entry);
+            purge(stripe, now);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // 在锁外执行真正的操作，避免慢请求阻塞同一段上的其他键
+        CompletableFuture<V> source;
+        try {
+            source = action.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            if (error != null || !cacheable.test(value)) {
+                remove(stripe, key, entry);
+            }
+            if (error != null) {
+                entry.result.completeExceptionally(error);
+            } else {
+                entry.result.complete(value);
+            }
+        });
+        return entry.result.copy();
+    }
+
+    /**
+     * 当前缓存中的条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 获取统计信息快照
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), inFlightJoins.sum(), misses.sum(), evictions.sum(), expirations.sum(),
+                mismatches.sum(), size());
+    }
+
+    private Stripe<V> stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16); // 打散高位，避免相近的键落在同一段
+        return stripes[h & stripeMask];
+    }
+
+    /**
+     * 清理段头部的过期条目，并在超出容量时淘汰最早插入的已完成条目 (调用方需持有段锁)
+     */
+    private void purge(Stripe<V> stripe, long now) {
+        Iterator<Entry<V>> it = stripe.entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> eldest = it.next();
+            if (now - eldest.createdNanos >= ttlNanos) {
+                it.remove();
+                expirations.increment();
+            } else if (stripe.entries.size() > stripeCapacity) {
+                if (eldest.result.isDone()) {
+                    it.remove();
+                    evictions.increment();
+                }
+                // 进行中的条目跳过，继续找更晚插入的已完成条目
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void remove(Stripe<V> stripe, String key, Entry<V> entry) {
+        stripe.lock.lock();
+        try {
+            // 只移除自己放入的条目，键可能已经被淘汰后重新放入
+            stripe.entries.remove(key, entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private static final class Stripe<V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry<V>> entries = new LinkedHashMap<>(); // 按插入顺序，头部即最早的条目
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> result;
+        private final Object fingerprint;
+        private final long createdNanos;
+
+        private Entry(CompletableFuture<V> result, Object fingerprint, long createdNanos) {
+            this.result = result;
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    /**
+     * 幂等缓存统计信息
+     */
+    public static class Stats {
+        private final long hits;
+        private final long inFlightJoins;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long mismatches;
+        private final int size;
+
+        public Stats(long hits, long inFlightJoins, long misses, long evictions, long expirations, long mismatches,
+                     int size) {
+            this.hits = hits;
+            this.inFlightJoins = inFlightJoins;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.mismatches = mismatches;
+            this.size = size;
+        }
+
+        public long getHits() { return hits; }
+        public long getInFlightJoins() { return inFlightJoins; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getMismatches() { return mismatches; }
+        public int getSize() { return size; }
+    }
+}
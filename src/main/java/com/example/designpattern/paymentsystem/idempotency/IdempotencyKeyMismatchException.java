@@ -0,0 +1,19 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/idempotency/IdempotencyKeyMismatchException.java
+package com.example.designpattern.paymentsystem.idempotency;
+
+/**
+ * 同一个幂等键被用于内容不同的请求 (例如金额被改了)：不能返回第一次的结果，也不能再执行一次
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    private final String key;
+
+    public IdempotencyKeyMismatchException(String key) {
+        super("幂等键 " + key + " 已用于内容不同的请求", null, false, false);
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
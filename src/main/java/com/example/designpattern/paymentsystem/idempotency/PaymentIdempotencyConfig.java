@@ -0,0 +1,29 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/idempotency/PaymentIdempotencyConfig.java
+package com.example.designpattern.paymentsystem.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 支付接口幂等缓存配置
+ */
+@Configuration
+public class PaymentIdempotencyConfig {
+
+    /**
+     * /api/payments/pay 的幂等缓存：缓存的是最终写回客户端的响应。
+     * 5xx 和 429 (限流) 响应不缓存，客户端带同一个幂等键重试时会重新执行支付。
+     */
+    @Bean
+    public IdempotencyCache<ResponseEntity<String>> paymentIdempotencyCache(
+            @Value("${payment.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${payment.idempotency.stripes:16}") int stripes,
+            @Value("${payment.idempotency.ttl-seconds:600}") long ttlSeconds) {
+        return new IdempotencyCache<>(maxEntries, stripes, ttlSeconds * 1000L,
+                response -> !response.getStatusCode().is5xxServerError()
+                        && response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
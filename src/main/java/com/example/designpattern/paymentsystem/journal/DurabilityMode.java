@@ -0,0 +1,21 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/DurabilityMode.java
+package com.example.designpattern.paymentsystem.journal;
+
+/**
+ * 支付日志的持久化级别
+ */
+public enum DurabilityMode {
+    /**
+     * 每条记录写入后立即 fsync，最安全也最慢
+     */
+    FSYNC_PER_WRITE,
+    /**
+     * 组提交：后台刷盘线程把一段时间内的多条记录合并为一次 fsync，
+     * 记录落盘后才通知调用方，兼顾安全与吞吐
+     */
+    GROUP_COMMIT,
+    /**
+     * 只写入内存映射 (操作系统页缓存) 即返回：进程崩溃不丢数据，但操作系统崩溃或断电可能丢失最近的记录
+     */
+    OS_BUFFERED
+}
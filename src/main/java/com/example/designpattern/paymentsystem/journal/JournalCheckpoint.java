@@ -0,0 +1,146 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/JournalCheckpoint.java
+package com.example.designpattern.paymentsystem.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 支付日志的恢复状态 (检查点)
+ * <p>
+ * 记录截至 lastSequence 的日志重放结果：最大支付编号、成功/失败的支付数，以及仍在进行中
+ * (只有 STARTED、还没有结果记录) 的支付。进行中的支付数量受并发度限制，通常很少，
+ * 因此检查点文件很小，启动时读取检查点后只需重放 lastSequence 之后的记录。
+ * </p>
+ * <p>
+ * 文件格式 (大端序)：
+ * <pre>
+ *  int   magic
+ *  byte  version
+ *  long  lastSequence
+ *  long  maxPaymentId
+ *  long  succeededPayments
+ *  long  failedPayments
+ *  int   inFlightCount
+ *  (long paymentId, long startedSequence) * inFlightCount
+ *  int   crc          以上内容的 CRC32C
+ * </pre>
+ * 先写入临时文件并 force，再原子地重命名为 checkpoint，崩溃时要么是旧检查点，要么是新检查点。
+ * </p>
+ */
+final class JournalCheckpoint {
+
+    static final String FILE_NAME = "checkpoint";
+    private static final String TEMP_FILE_NAME = "checkpoint.tmp";
+    private static final int MAGIC = 0x504A4350; // "PJCP"
+    private static final byte VERSION = 1;
+    private static final int FIXED_SIZE = 4 + 1 + 8 * 4 + 4 + 4; // 不含进行中的支付
+
+    private long lastSequence;
+    private long maxPaymentId;
+    private long succeededPayments;
+    private long failedPayments;
+    private final Map<Long, Long> inFlight = new HashMap<>(); // 支付编号 -> STARTED 记录的序号
+    private long appliedRecords; // 本次启动以来重放的记录数 (不写入文件)
+
+    /**
+     * 重放一条记录
+     */
+    void apply(long sequence, long paymentId, JournalRecord.Status status) {
+        lastSequence = sequence;
+        if (paymentId > maxPaymentId) {
+            maxPaymentId = paymentId;
+        }
+        if (status == JournalRecord.Status.STARTED) {
+            inFlight.put(paymentId, sequence);
+        } else {
+            inFlight.remove(paymentId);
+            if (status == JournalRecord.Status.SUCCEEDED) {
+                succeededPayments++;
+            } else {
+                failedPayments++;
+            }
+        }
+        appliedRecords++;
+    }
+
+    long getLastSequence() { return lastSequence; }
+    long getMaxPaymentId() { return maxPaymentId; }
+    long getSucceededPayments() { return succeededPayments; }
+    long getFailedPayments() { return failedPayments; }
+    Map<Long, Long> getInFlight() { return inFlight; }
+    long getAppliedRecords() { return appliedRecords; }
+
+    /**
+     * 写入 directory/checkpoint (调用方需保证 lastSequence 及之前的记录和支付索引都已落盘)
+     */
+    void write(Path directory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + inFlight.size() * 16);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(lastSequence);
+        buffer.putLong(maxPaymentId);
+        buffer.putLong(succeededPayments);
+        buffer.putLong(failedPayments);
+        buffer.putInt(inFlight.size());
+        for (Map.Entry<Long, Long> entry : inFlight.entrySet()) {
+            buffer.putLong(entry.getKey());
+            buffer.putLong(entry.getValue());
+        }
+        buffer.putInt(crc(buffer.array(), buffer.position()));
+        buffer.flip();
+
+        Path temp = directory.resolve(TEMP_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读取 directory/checkpoint；不存在或已损坏时返回 null (此时需要从头重放日志)
+     */
+    static JournalCheckpoint read(Path directory) throws IOException {
+        Path path = directory.resolve(FILE_NAME);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < FIXED_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            System.err.println("支付日志: 检查点文件格式不正确，将从头重放日志: " + path);
+            return null;
+        }
+        JournalCheckpoint checkpoint = new JournalCheckpoint();
+        checkpoint.lastSequence = buffer.getLong();
+        checkpoint.maxPaymentId = buffer.getLong();
+        checkpoint.succeededPayments = buffer.getLong();
+        checkpoint.failedPayments = buffer.getLong();
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != count * 16L + 4
+                || buffer.getInt(buffer.limit() - 4) != crc(buffer.array(), buffer.limit() - 4)) {
+            System.err.println("支付日志: 检查点文件已损坏，将从头重放日志: " + path);
+            return null;
+        }
+        for (int i = 0; i < count; i++) {
+            checkpoint.inFlight.put(buffer.getLong(), buffer.getLong());
+        }
+        return checkpoint;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+}
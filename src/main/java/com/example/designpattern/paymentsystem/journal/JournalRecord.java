@@ -0,0 +1,167 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/JournalRecord.java
+package com.example.designpattern.paymentsystem.journal;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.nio.ByteBuffer;
+import java.util.Currency;
+import java.util.zip.CRC32C;
+
+/**
+ * 支付日志中的一条记录
+ * <p>
+ * 磁盘格式 (大端序)：
+ * <pre>
+ *  0  int   length      负载长度 (不含 8 字节头)；0 表示日志结束，-1 表示本段结束
+ *  4  int   crc         负载的 CRC32C，用于识别写了一半的尾部记录
+ *  8  byte  version     格式版本
+ *  9  long  sequence    全局递增序号
+ * 17  long  paymentId   支付编号，同一笔支付的 STARTED 与结果记录编号相同
+ * 25  long  timestamp   写入时间 (毫秒)
+ * 33  byte  status      记录状态
+ * 34  byte  paymentType 支付类型 (枚举序号)
+ * 35  byte[3] currency  币种代码 (ISO 4217，ASCII)
+ * 38  long  minorUnits  金额，以币种最小单位计 (例如"分")
+ * </pre>
+ * 版本 1 的记录以 scale + unscaled 保存 BigDecimal 金额，版本 2 改为与 {@link Money} 一致的定点数。
+ * </p>
+ */
+public final class JournalRecord {
+
+    static final int HEADER_SIZE = 8;
+    static final int PAYLOAD_SIZE = 38;
+    static final int RECORD_SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+    static final int END_OF_SEGMENT = -1;
+    private static final byte VERSION = 2;
+    private static final Status[] STATUSES = Status.values();
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    /**
+     * 记录状态
+     */
+    public enum Status {
+        STARTED,   // 已开始调用支付渠道
+        SUCCEEDED, // 支付成功
+        FAILED     // 支付失败
+    }
+
+    private final long sequence;
+    private final long paymentId;
+    private final long timestamp;
+    private final Status status;
+    private final PaymentType paymentType;
+    private final Money amount;
+
+    JournalRecord(long sequence, long paymentId, long timestamp, Status status, PaymentType paymentType, Money amount) {
+        this.sequence = sequence;
+        this.paymentId = paymentId;
+        this.timestamp = timestamp;
+        this.status = status;
+        this.paymentType = paymentType;
+        this.amount = amount;
+    }
+
+    public long getSequence() { return sequence; }
+    public long getPaymentId() { return paymentId; }
+    public long getTimestamp() { return timestamp; }
+    public Status getStatus() { return status; }
+    public PaymentType getPaymentType() { return paymentType; }
+    public Money getAmount() { return amount; }
+
+    /**
+     * 把记录编码到 scratch 的 [0, RECORD_SIZE) 区间
+     */
+    static void encode(ByteBuffer scratch, long sequence, long paymentId, long timestamp,
+                       Status status, PaymentType paymentType, Money amount) {
+        String currencyCode = amount.getCurrencyCode();
+        scratch.clear();
+        scratch.putInt(PAYLOAD_SIZE);
+        scratch.putInt(0); // CRC 占位
+        scratch.put(VERSION);
+        scratch.putLong(sequence);
+        scratch.putLong(paymentId);
+        scratch.putLong(timestamp);
+        scratch.put((byte) status.ordinal());
+        scratch.put((byte) paymentType.ordinal());
+        for (int i = 0; i < 3; i++) {
+            scratch.put((byte) currencyCode.charAt(i));
+        }
+        scratch.putLong(amount.getMinorUnits());
+        scratch.putInt(4, crc(scratch, HEADER_SIZE));
+    }
+
+    /**
+     * 从 buffer 的 position 处解码一条记录；长度或 CRC 不合法 (写了一半) 时返回 null
+     */
+    static JournalRecord decode(ByteBuffer buffer, int position) {
+        if (!isValid(buffer, position, new CRC32C())) {
+            return null;
+        }
+        int p = position + HEADER_SIZE + 1; // 跳过 version
+        long sequence = buffer.getLong(p);
+        long paymentId = buffer.getLong(p + 8);
+        long timestamp = buffer.getLong(p + 16);
+        Status status = STATUSES[buffer.get(p + 24)];
+        PaymentType paymentType = PAYMENT_TYPES[buffer.get(p + 25)];
+        Money amount = Money.ofMinor(buffer.getLong(p + 29), currencyAt(buffer, p + 26));
+        return new JournalRecord(sequence, paymentId, timestamp, status, paymentType, amount);
+    }
+
+    /**
+     * position 处是否是一条完整的记录 (长度和 CRC 都正确)。
+     * 重放日志时逐条调用，复用传入的 crc，堆内 buffer 不产生任何分配。
+     */
+    static boolean isValid(ByteBuffer buffer, int position, CRC32C crc) {
+        if (position + RECORD_SIZE > buffer.limit() || buffer.getInt(position) != PAYLOAD_SIZE) {
+            return false;
+        }
+        crc.reset();
+        if (buffer.hasArray()) {
+            crc.update(buffer.array(), buffer.arrayOffset() + position + HEADER_SIZE, PAYLOAD_SIZE);
+        } else {
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(position + RECORD_SIZE).position(position + HEADER_SIZE);
+            crc.update(payload);
+        }
+        return buffer.getInt(position + 4) == (int) crc.getValue();
+    }
+
+    // 以下读取单个字段，不创建 JournalRecord，调用前需先用 isValid 校验
+
+    static long sequenceAt(ByteBuffer buffer, int position) {
+        return buffer.getLong(position + HEADER_SIZE + 1);
+    }
+
+    static long paymentIdAt(ByteBuffer buffer, int position) {
+        return buffer.getLong(position + HEADER_SIZE + 9);
+    }
+
+    static Status statusAt(ByteBuffer buffer, int position) {
+        return STATUSES[buffer.get(position + HEADER_SIZE + 25)];
+    }
+
+    private static Currency currencyAt(ByteBuffer buffer, int position) {
+        byte c0 = buffer.get(position);
+        byte c1 = buffer.get(position + 1);
+        byte c2 = buffer.get(position + 2);
+        if (c0 == 'C' && c1 == 'N' && c2 == 'Y') {
+            return Money.CNY; // 绝大多数记录是人民币，不必每次查表
+        }
+        return Currency.getInstance(new String(new char[]{(char) c0, (char) c1, (char) c2}));
+    }
+
+    private static int crc(ByteBuffer buffer, int payloadStart) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(payloadStart + PAYLOAD_SIZE).position(payloadStart);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{sequence=" + sequence + ", paymentId=" + paymentId + ", status=" + status +
+                ", paymentType=" + paymentType + ", amount=" + amount + "}";
+    }
+}
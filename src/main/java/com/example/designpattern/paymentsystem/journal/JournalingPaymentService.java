@@ -0,0 +1,79 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/JournalingPaymentService.java
+package com.example.designpattern.paymentsystem.journal;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 记录支付日志的 PaymentService 装饰器
+ * <p>
+ * 调用支付渠道前写入 STARTED 记录 (不等待落盘)，结束后写入 SUCCEEDED / FAILED 记录，
+ * 并且只有在结果记录达到日志的持久化级别后才返回，调用方据此回复客户端。
+ * </p>
+ */
+public class JournalingPaymentService implements PaymentService {
+
+    private final PaymentService delegate;
+    private final PaymentJournal journal;
+
+    public JournalingPaymentService(PaymentService delegate, PaymentJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public void pay(Money amount) {
+        PaymentType type = delegate.getServiceType();
+        long paymentId = begin(type, amount);
+        try {
+            delegate.pay(amount);
+        } catch (Throwable e) {
+            // Error 也要写 FAILED，否则这笔支付会一直留在进行中的记录里
+            journal.append(paymentId, JournalRecord.Status.FAILED, type, amount).join();
+            throw e;
+        }
+        journal.append(paymentId, JournalRecord.Status.SUCCEEDED, type, amount).join();
+    }
+
+    @Override
+    public CompletableFuture<Void> payAsync(Money amount) {
+        PaymentType type = delegate.getServiceType();
+        long paymentId = begin(type, amount);
+        CompletableFuture<Void> payment;
+        try {
+            payment = delegate.payAsync(amount);
+        } catch (Throwable e) {
+            // 同步抛出 (例如线程池拒绝任务 TaskRejectedException)：支付没有开始，补写 FAILED 后原样抛出
+            journal.append(paymentId, JournalRecord.Status.FAILED, type, amount);
+            throw e;
+        }
+        return payment
+                .handle((ignored, error) -> error)
+                .thenCompose(error -> journal.append(paymentId,
+                                error == null ? JournalRecord.Status.SUCCEEDED : JournalRecord.Status.FAILED, type, amount)
+                        .thenApply(sequence -> {
+                            if (error != null) {
+                                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                            }
+                            return null;
+                        }));
+    }
+
+    @Override
+    public PaymentType getServiceType() {
+        return delegate.getServiceType();
+    }
+
+    private long begin(PaymentType type, Money amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("支付金额 (amount) 不能为空");
+        }
+        long paymentId = journal.nextPaymentId();
+        journal.append(paymentId, JournalRecord.Status.STARTED, type, amount); // 只需写入，不等待落盘
+        return paymentId;
+    }
+}
@@ -0,0 +1,116 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/PaymentIndex.java
+package com.example.designpattern.paymentsystem.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 支付编号 -> 最新记录序号的偏移索引 (基于内存映射文件)
+ * <p>
+ * 支付编号从 1 开始连续分配，因此索引就是一个以支付编号为下标的 long 数组：第 i 个槽位保存
+ * 支付 i 最新一条记录的序号，0 表示没有记录。日志记录定长，段文件名中带起始序号，
+ * 由序号即可算出记录在哪个段、哪个位置，查询任意一笔支付的状态只需读一条记录，不必扫描日志。
+ * </p>
+ * <p>
+ * 文件按 {@link #CHUNK_ENTRIES} 个槽位分块映射，按需扩展 (未写入的部分是文件空洞，不占磁盘)。
+ * 写入由支付日志在追加锁内完成，读取不加锁。索引在写检查点前 force，
+ * 检查点之后的槽位在启动重放日志时重新写入，因此索引本身不需要每次写入都落盘。
+ * </p>
+ */
+final class PaymentIndex implements Closeable {
+
+    static final int CHUNK_ENTRIES = 1 << 20; // 每块 100 万个槽位 (8MB)
+    private static final int CHUNK_SHIFT = 20;
+    private static final long CHUNK_BYTES = (long) CHUNK_ENTRIES * Long.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0]; // 只在持有追加锁 (或启动恢复) 时扩展
+
+    private PaymentIndex(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    static PaymentIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        PaymentIndex index = new PaymentIndex(path, channel);
+        try {
+            int existing = (int) ((channel.size() + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            if (existing > 0) {
+                index.ensureChunk(existing - 1);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return index;
+    }
+
+    /**
+     * 记录支付 paymentId 的最新记录序号 (调用方需串行化写入)
+     */
+    void put(long paymentId, long sequence) {
+        int chunk = (int) (paymentId >>> CHUNK_SHIFT);
+        MappedByteBuffer[] current = chunks;
+        MappedByteBuffer buffer = chunk < current.length ? current[chunk] : ensureChunk(chunk);
+        buffer.putLong((int) (paymentId & (CHUNK_ENTRIES - 1)) * Long.BYTES, sequence);
+    }
+
+    /**
+     * 支付 paymentId 最新记录的序号，没有记录时返回 0
+     */
+    long get(long paymentId) {
+        if (paymentId <= 0) {
+            return 0;
+        }
+        MappedByteBuffer[] current = chunks;
+        int chunk = (int) (paymentId >>> CHUNK_SHIFT);
+        if (chunk >= current.length) {
+            return 0;
+        }
+        return current[chunk].getLong((int) (paymentId & (CHUNK_ENTRIES - 1)) * Long.BYTES);
+    }
+
+    /**
+     * 把索引刷到磁盘 (写检查点前调用)
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close(); // 映射在 buffer 被回收前仍然有效
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer ensureChunk(int chunk) {
+        MappedByteBuffer[] current = chunks;
+        if (chunk < current.length) {
+            return current[chunk];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, chunk + 1);
+        try {
+            for (int i = current.length; i <= chunk; i++) {
+                // 映射超出文件长度的区域时文件会被扩展，未写入的部分为 0
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_BYTES, CHUNK_BYTES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法扩展支付索引文件: " + path, e);
+        }
+        chunks = grown;
+        return grown[chunk];
+    }
+}
@@ -0,0 +1,690 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/PaymentJournal.java
+package com.example.designpattern.paymentsystem.journal;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 只追加的支付日志 (基于内存映射文件)
+ * <p>
+ * 日志由若干固定大小的段文件 (segment-&lt;起始序号&gt;.journal) 组成，每个段通过 FileChannel 映射为
+ * MappedByteBuffer，追加记录只是一次内存拷贝；写满后滚动到新段。
+ * 何时把记录刷到磁盘由 {@link DurabilityMode} 决定：
+ * <ul>
+ *     <li>FSYNC_PER_WRITE：每条记录写入后立即 force；</li>
+ *     <li>GROUP_COMMIT：后台刷盘线程在一个很短的窗口内收集多条记录，一次 force 后统一通知调用方；</li>
+ *     <li>OS_BUFFERED：写入页缓存即返回，由操作系统择机写回。</li>
+ * </ul>
+ * {@link #append} 返回的 CompletableFuture 在记录达到所选持久化级别时完成。
+ * </p>
+ * <p>
+ * 崩溃恢复：后台检查点线程定期把日志重放到恢复状态 ({@link JournalCheckpoint}：最大支付编号、
+ * 成功/失败数、仍在进行中的支付)，刷盘后写入检查点文件；同时维护一个内存映射的支付索引
+ * ({@link PaymentIndex}：支付编号 -> 最新记录序号)。启动时读取检查点，只重放检查点之后的记录，
+ * 恢复时间取决于最近一个检查点间隔内写入的记录数，而不是日志总大小。恢复结果见 {@link #getRecoveryReport()}，
+ * 任意一笔支付的最新状态可通过 {@link #lookup(long)} 直接定位。
+ * </p>
+ * <p>
+ * 同一个目录同一时间只能被一个进程打开 (通过 journal.lock 文件锁保证)。
+ * </p>
+ */
+public class PaymentJournal implements Closeable {
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final String INDEX_FILE = "payment.index";
+    private static final int REPLAY_BUFFER_RECORDS = 4096; // 重放时每次从段文件读取的记录数
+    private static final int MAX_REPORTED_IN_FLIGHT = 1000; // 恢复报告中最多列出的进行中支付
+
+    private final Path directory;
+    private final int segmentSize;
+    private final DurabilityMode mode;
+    private final long groupCommitWindowNanos;
+    private final FileChannel lockChannel;
+    private final FileLock fileLock;
+    private final ConcurrentSkipListMap<Long, Path> segmentPaths = new ConcurrentSkipListMap<>(); // 起始序号 -> 段文件
+    private final PaymentIndex index;
+
+    // 以下字段由 appendLock 保护：追加本身只是几十字节的内存拷贝，串行化的代价很小
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.RECORD_SIZE);
+    private long nextSequence;
+    private volatile Segment current;
+    private volatile long writtenSequence; // 已写入内存映射的最大序号
+
+    private final AtomicLong paymentIds;
+    private final BlockingQueue<PendingCommit> pendingCommits = new LinkedBlockingQueue<>();
+    private final Queue<Segment> rolledSegments = new ConcurrentLinkedQueue<>(); // 已写满、等待下一次刷盘 (刷盘线程、检查点或关闭) 刷盘并关闭的段
+    private final Thread flusher;
+    private final Object flushLock = new Object(); // 刷盘线程、检查点线程和关闭流程都会刷盘
+    private volatile boolean closed;
+
+    // 恢复状态只由启动恢复和写检查点访问 (checkpointLock 保护)，追加路径不需要维护它
+    private final Object checkpointLock = new Object();
+    private final JournalCheckpoint state;
+    private long checkpointedSequence;
+    private final ScheduledExecutorService checkpointer;
+    private final RecoveryReport recoveryReport;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+
+    private PaymentJournal(Path directory, int segmentSize, DurabilityMode mode, long groupCommitWindowMicros,
+                           long checkpointIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.mode = mode;
+        this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros);
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.fileLock = lockChannel.tryLock();
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("支付日志目录已被其他进程占用: " + directory);
+        }
+
+        long recoveryStart = System.nanoTime();
+        List<Path> segments = listSegments(directory);
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (segments.isEmpty()) {
+            // 全新的日志：残留的索引和检查点都不再有效
+            Files.deleteIfExists(indexPath);
+            Files.deleteIfExists(directory.resolve(JournalCheckpoint.FILE_NAME));
+        }
+        // 检查点之前的索引槽位不会重新写入，索引文件不存在 (例如被删除) 时检查点也不能用
+        JournalCheckpoint checkpoint = Files.exists(indexPath) ? JournalCheckpoint.read(directory) : null;
+        this.index = PaymentIndex.open(indexPath);
+        this.state = checkpoint != null ? checkpoint : new JournalCheckpoint();
+        this.checkpointedSequence = state.getLastSequence();
+        recover(segments);
+        this.paymentIds = new AtomicLong(state.getMaxPaymentId());
+        this.recoveryReport = buildRecoveryReport(checkpoint == null, checkpointedSequence,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoveryStart));
+        System.out.println("支付日志恢复: 检查点序号 " + recoveryReport.getCheckpointSequence()
+                + (recoveryReport.isFullScan() ? " (无可用检查点，从头重放)" : "")
+                + "，重放 " + recoveryReport.getReplayedRecords() + " 条记录，耗时 " + recoveryReport.getRecoveryMillis()
+                + " ms，进行中的支付 " + recoveryReport.getInFlightCount() + " 笔");
+
+        if (mode == DurabilityMode.GROUP_COMMIT) {
+            this.flusher = new Thread(this::runFlusher, "payment-journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+        if (checkpointIntervalMillis > 0) {
+            this.checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "payment-journal-checkpointer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpointer.scheduleWithFixedDelay(this::runCheckpoint, checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.checkpointer = null;
+        }
+    }
+
+    /**
+     * 打开 (或创建) 指定目录下的支付日志，并定位到已有日志的末尾
+     *
+     * @param directory               日志目录
+     * @param segmentSize             单个段文件的大小 (字节)
+     * @param mode                    持久化级别
+     * @param groupCommitWindowMicros 组提交时收集记录的窗口 (微秒)，仅 GROUP_COMMIT 模式使用
+     * @param checkpointIntervalMillis 写检查点的间隔 (毫秒)，0 表示只在关闭时写检查点
+     */
+    public static PaymentJournal open(Path directory, int segmentSize, DurabilityMode mode, long groupCommitWindowMicros,
+                                      long checkpointIntervalMillis) throws IOException {
+        if (segmentSize < JournalRecord.RECORD_SIZE * 2) {
+            throw new IllegalArgumentException("段文件过小: " + segmentSize);
+        }
+        return new PaymentJournal(directory, segmentSize, mode, groupCommitWindowMicros, checkpointIntervalMillis);
+    }
+
+    /**
+     * 分配一个新的支付编号
+     */
+    public long nextPaymentId() {
+        return paymentIds.incrementAndGet();
+    }
+
+    /**
+     * 追加一条支付记录
+     *
+     * @return 记录达到所选持久化级别时完成的 future，结果为记录的序号
+     * @throws IllegalArgumentException 金额为空时
+     */
+    public CompletableFuture<Long> append(long paymentId, JournalRecord.Status status, PaymentType paymentType, Money amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("支付金额不能为空");
+        }
+        Segment segment;
+        int position;
+        long sequence;
+        PendingCommit pending = null;
+
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("支付日志已关闭");
+            }
+            if (current.writePosition + JournalRecord.RECORD_SIZE + 4 > segmentSize) {
+                roll();
+            }
+            sequence = nextSequence;
+            JournalRecord.encode(scratch, sequence, paymentId, System.currentTimeMillis(), status, paymentType, amount);
+            segment = current;
+            position = segment.writePosition;
+            segment.buffer.put(position, scratch.array(), 0, JournalRecord.RECORD_SIZE);
+            segment.writePosition = position + JournalRecord.RECORD_SIZE;
+            index.put(paymentId, sequence);
+            nextSequence = sequence + 1;
+            writtenSequence = sequence;
+            if (mode == DurabilityMode.GROUP_COMMIT) {
+                // 在锁内入队，保证队列按序号有序
+                pending = new PendingCommit(sequence);
+                pendingCommits.add(pending);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        appends.increment();
+
+        switch (mode) {
+            case FSYNC_PER_WRITE:
+                segment.buffer.force(position, JournalRecord.RECORD_SIZE);
+                fsyncs.increment();
+                return CompletableFuture.completedFuture(sequence);
+            case GROUP_COMMIT:
+                return pending.future;
+            default:
+                return CompletableFuture.completedFuture(sequence);
+        }
+    }
+
+    /**
+     * 查询一笔支付的最新记录 (通过支付索引直接定位，不扫描日志)
+     *
+     * @return 最新一条记录 (STARTED 表示仍在进行中)；日志中没有该支付时返回 null
+     */
+    public JournalRecord lookup(long paymentId) {
+        long sequence = index.get(paymentId);
+        if (sequence == 0) {
+            return null;
+        }
+        JournalRecord record = readRecord(sequence);
+        return record != null && record.getPaymentId() == paymentId ? record : null;
+    }
+
+    /**
+     * 本次启动的恢复报告 (包括上次停止时仍在进行中的支付)
+     */
+    public RecoveryReport getRecoveryReport() {
+        return recoveryReport;
+    }
+
+    /**
+     * 写入检查点：把上一个检查点之后的记录重放到恢复状态，日志和支付索引刷盘后写入检查点文件。
+     * 由检查点线程定期调用，关闭时也会调用一次。
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long target = writtenSequence;
+            if (target <= checkpointedSequence) {
+                return;
+            }
+            flushDirty(); // 检查点覆盖的记录必须先落盘
+            replay(state.getLastSequence() + 1, target, null); // 索引已在追加时写入
+            index.force();
+            state.write(directory);
+            checkpointedSequence = target;
+            checkpoints.increment();
+        }
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 已追加的记录数 (本次启动以来)
+     */
+    public long getAppendCount() {
+        return appends.sum();
+    }
+
+    /**
+     * 已执行的 fsync 次数 (本次启动以来)；组提交模式下远小于追加次数
+     */
+    public long getFsyncCount() {
+        return fsyncs.sum();
+    }
+
+    /**
+     * 已写入的检查点数 (本次启动以来)
+     */
+    public long getCheckpointCount() {
+        return checkpoints.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            if (checkpointer != null) {
+                checkpointer.shutdown();
+                checkpointer.awaitTermination(10, TimeUnit.SECONDS);
+            }
+            if (flusher != null) {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            // 关闭前把剩余内容全部刷盘，并通知仍在等待的调用方
+            flushDirty();
+            PendingCommit pending;
+            while ((pending = pendingCommits.poll()) != null) {
+                pending.future.complete(pending.sequence);
+            }
+            checkpoint(); // 正常关闭后再启动不需要重放任何记录
+        } finally {
+            current.close();
+            index.close();
+            fileLock.release();
+            lockChannel.close();
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // 写检查点失败不影响追加，下次启动从上一个检查点开始多重放一些记录
+            System.err.println("支付日志: 写检查点失败: " + e);
+        }
+    }
+
+    /**
+     * 组提交刷盘线程：取到第一条待提交记录后等待一个窗口期，让更多记录进入同一次 fsync
+     */
+    private void runFlusher() {
+        while (!closed || !pendingCommits.isEmpty()) {
+            PendingCommit first;
+            try {
+                first = pendingCommits.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+            long target = writtenSequence;
+            try {
+                flushDirty();
+            } catch (RuntimeException e) {
+                failPending(first, target, e);
+                continue;
+            }
+            first.future.complete(first.sequence);
+            PendingCommit next;
+            while ((next = pendingCommits.peek()) != null && next.sequence <= target) {
+                pendingCommits.poll();
+                next.future.complete(next.sequence);
+            }
+        }
+    }
+
+    private void failPending(PendingCommit first, long target, RuntimeException error) {
+        first.future.completeExceptionally(error);
+        PendingCommit next;
+        while ((next = pendingCommits.peek()) != null && next.sequence <= target) {
+            pendingCommits.poll();
+            next.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 刷盘所有尚未落盘的内容：先读取当前段，再处理已滚动的段，
+     * 保证在此之前写入的记录无论位于哪个段都会被刷到。
+     */
+    private void flushDirty() {
+        synchronized (flushLock) {
+            Segment segment = current;
+            Segment rolled;
+            while ((rolled = rolledSegments.poll()) != null) {
+                if (rolled.flush()) {
+                    fsyncs.increment();
+                }
+                rolled.close();
+            }
+            if (segment.flush()) {
+                fsyncs.increment();
+            }
+        }
+    }
+
+    /**
+     * 当前段写满时写入段结束标记并切换到新段 (调用方需持有 appendLock)
+     */
+    private void roll() {
+        Segment full = current;
+        full.buffer.putInt(full.writePosition, JournalRecord.END_OF_SEGMENT);
+        Segment next = createSegment(nextSequence);
+        if (mode == DurabilityMode.FSYNC_PER_WRITE) {
+            full.buffer.force();
+            full.close();
+        } else {
+            // 先入队再切换 current，刷盘线程和检查点都不会漏掉旧段；
+            // OS_BUFFERED 模式下旧段要等到下一个检查点 (或关闭) 才刷盘，检查点不会覆盖未落盘的记录
+            rolledSegments.add(full);
+        }
+        current = next;
+    }
+
+    /**
+     * 启动恢复：从检查点 (没有时从头) 开始重放日志到恢复状态并重建支付索引，然后定位到日志末尾。
+     * 最后一个段尾部写了一半的记录会被清零。
+     */
+    private void recover(List<Path> segments) throws IOException {
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            current = createSegment(1);
+            return;
+        }
+        for (Path segment : segments) {
+            segmentPaths.put(baseSequenceOf(segment), segment);
+        }
+        int tail = replay(state.getLastSequence() + 1, Long.MAX_VALUE, index); // 最后一个段中有效记录的末尾
+
+        Path lastPath = segments.get(segments.size() - 1);
+        long lastBase = baseSequenceOf(lastPath);
+        // 旧段尾部未落盘的记录可能已丢失，新段的起始序号才是下一个可用序号的下限
+        long lastSequence = Math.max(state.getLastSequence(), lastBase - 1);
+        nextSequence = lastSequence + 1;
+        writtenSequence = lastSequence;
+
+        Segment last = Segment.map(lastPath, segmentSize);
+        boolean full = tail + 4 > segmentSize || last.buffer.getInt(tail) == JournalRecord.END_OF_SEGMENT;
+        if (full || lastBase + tail / JournalRecord.RECORD_SIZE != nextSequence) {
+            // 上次运行时该段已写满，或者段内记录与序号对不上 (部分记录丢失)：从新段开始写，保证段内序号连续
+            last.close();
+            current = createSegment(nextSequence);
+            return;
+        }
+        last.writePosition = tail;
+        last.flushedPosition = tail;
+        current = last;
+        if (last.buffer.getInt(tail) != 0) {
+            // 崩溃时写了一半的尾部记录：清零剩余区域，避免旧数据被误认为记录
+            for (int p = tail; p < segmentSize; p++) {
+                last.buffer.put(p, (byte) 0);
+            }
+            last.buffer.force();
+        }
+    }
+
+    /**
+     * 把序号在 [fromSequence, toSequence] 内的记录重放到恢复状态 (target 不为 null 时同时写入支付索引)
+     *
+     * @return 最后一个被扫描的段中有效记录的末尾位置
+     */
+    private int replay(long fromSequence, long toSequence, PaymentIndex target) throws IOException {
+        Long startBase = segmentPaths.floorKey(fromSequence);
+        int tail = 0;
+        for (Map.Entry<Long, Path> segment : segmentPaths.tailMap(startBase == null ? 0L : startBase, true).entrySet()) {
+            if (segment.getKey() > toSequence) {
+                break;
+            }
+            tail = replaySegment(segment.getValue(), segment.getKey(), fromSequence, toSequence, target);
+        }
+        return tail;
+    }
+
+    /**
+     * 顺序读取一个段文件并重放其中的记录，遇到空白或校验失败的记录时停止
+     * <p>
+     * 段内记录定长且序号连续，fromSequence 位于段中间时直接定位过去 (先确认前一条记录的序号对得上，
+     * 对不上说明段内有记录丢失，退回到从段首扫描)。每次读取一批记录到堆内缓冲区，逐条校验 CRC，
+     * 只读出序号、支付编号和状态，不为每条记录创建对象。
+     * </p>
+     *
+     * @return 有效记录的末尾位置
+     */
+    private int replaySegment(Path path, long baseSequence, long fromSequence, long toSequence, PaymentIndex target) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(REPLAY_BUFFER_RECORDS * JournalRecord.RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long limit = Math.min(channel.size(), segmentSize);
+            long position = 0;
+            if (fromSequence > baseSequence) {
+                long previous = (fromSequence - 1 - baseSequence) * JournalRecord.RECORD_SIZE;
+                if (previous + JournalRecord.RECORD_SIZE <= limit) {
+                    buffer.limit(JournalRecord.RECORD_SIZE);
+                    readFully(channel, buffer, previous);
+                    if (JournalRecord.isValid(buffer, 0, crc) && JournalRecord.sequenceAt(buffer, 0) == fromSequence - 1) {
+                        position = previous + JournalRecord.RECORD_SIZE;
+                    }
+                }
+            }
+            while (position + JournalRecord.RECORD_SIZE <= limit) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (limit - position) / JournalRecord.RECORD_SIZE * JournalRecord.RECORD_SIZE));
+                readFully(channel, buffer, position);
+                if (!buffer.hasRemaining()) {
+                    return (int) position; // 文件比预期短
+                }
+                for (int p = 0; p < buffer.limit(); p += JournalRecord.RECORD_SIZE, position += JournalRecord.RECORD_SIZE) {
+                    if (!JournalRecord.isValid(buffer, p, crc)) {
+                        return (int) position;
+                    }
+                    long sequence = JournalRecord.sequenceAt(buffer, p);
+                    if (sequence > toSequence) {
+                        return (int) position;
+                    }
+                    if (sequence >= fromSequence) {
+                        long paymentId = JournalRecord.paymentIdAt(buffer, p);
+                        state.apply(sequence, paymentId, JournalRecord.statusAt(buffer, p));
+                        if (target != null) {
+                            target.put(paymentId, sequence);
+                        }
+                    }
+                }
+            }
+            return (int) position;
+        }
+    }
+
+    /**
+     * 按序号读取一条记录 (由段的起始序号和定长记录算出位置)，不存在或已损坏时返回 null
+     */
+    JournalRecord readRecord(long sequence) {
+        Map.Entry<Long, Path> segment = segmentPaths.floorEntry(sequence);
+        if (segment == null) {
+            return null;
+        }
+        long offset = (sequence - segment.getKey()) * JournalRecord.RECORD_SIZE;
+        if (offset + JournalRecord.RECORD_SIZE > segmentSize) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(JournalRecord.RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+            readFully(channel, buffer, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法读取支付日志段文件: " + segment.getValue(), e);
+        }
+        JournalRecord record = JournalRecord.decode(buffer, 0);
+        return record != null && record.getSequence() == sequence ? record : null;
+    }
+
+    private RecoveryReport buildRecoveryReport(boolean fullScan, long checkpointSequence, long recoveryMillis) {
+        List<Long> inFlightIds = new ArrayList<>(state.getInFlight().keySet());
+        inFlightIds.sort(null);
+        List<RecoveryReport.InFlightPayment> inFlight = new ArrayList<>();
+        for (Long paymentId : inFlightIds.subList(0, Math.min(inFlightIds.size(), MAX_REPORTED_IN_FLIGHT))) {
+            JournalRecord started = readRecord(state.getInFlight().get(paymentId));
+            if (started != null) {
+                inFlight.add(RecoveryReport.InFlightPayment.of(started));
+            }
+        }
+        return new RecoveryReport(checkpointSequence, writtenSequence, state.getAppliedRecords(), fullScan, recoveryMillis,
+                state.getSucceededPayments(), state.getFailedPayments(), inFlightIds.size(), inFlight);
+    }
+
+    /**
+     * 从 position 开始读满 buffer 的剩余空间；读到文件末尾时把 limit 缩短到已读取的长度
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                break;
+            }
+        }
+        buffer.limit(buffer.position());
+        buffer.position(start);
+    }
+
+    private Segment createSegment(long baseSequence) {
+        Path path = directory.resolve(segmentFileName(baseSequence));
+        try {
+            Segment segment = Segment.map(path, segmentSize);
+            segmentPaths.put(baseSequence, path);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建支付日志段文件: " + path, e);
+        }
+    }
+
+    static String segmentFileName(long baseSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, baseSequence, SEGMENT_SUFFIX);
+    }
+
+    static long baseSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 按起始序号排序列出目录中的所有段文件
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+            segments.sort(null); // 文件名中的序号是定长补零的，字典序即序号顺序
+            return segments;
+        }
+    }
+
+    /**
+     * 一个段文件及其内存映射
+     */
+    static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        volatile int writePosition;
+        int flushedPosition; // 仅由刷盘线程 (或关闭流程) 访问
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                // 映射超出文件长度的区域时文件会被扩展到 size，未写入的部分为 0
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                return new Segment(path, channel, buffer);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return 是否执行了 force (没有新内容时不刷盘)
+         */
+        boolean flush() {
+            int to = writePosition;
+            if (to <= flushedPosition) {
+                return false;
+            }
+            buffer.force(flushedPosition, to - flushedPosition);
+            flushedPosition = to;
+            return true;
+        }
+
+        void close() {
+            try {
+                channel.close(); // 映射在 buffer 被回收前仍然有效
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class PendingCommit {
+        private final long sequence;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private PendingCommit(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/PaymentJournalConfig.java
+package com.example.designpattern.paymentsystem.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 支付日志配置 (payment.journal.enabled=false 时不记录支付日志)
+ */
+@Configuration
+@ConditionalOnProperty(name = "payment.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentJournalConfig {
+
+    /**
+     * 开启延迟初始化 (fast-start profile) 时仍在启动阶段打开：崩溃恢复要在接收请求之前完成，日志损坏时启动失败
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy(false)
+    public PaymentJournal paymentJournal(
+            @Value("${payment.journal.dir:./data/payment-journal}") String directory,
+            @Value("${payment.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${payment.journal.durability:GROUP_COMMIT}") DurabilityMode durability,
+            @Value("${payment.journal.group-commit-window-micros:100}") long groupCommitWindowMicros,
+            @Value("${payment.journal.checkpoint-interval-ms:10000}") long checkpointIntervalMillis) throws IOException {
+        return PaymentJournal.open(Paths.get(directory), segmentSizeMb * 1024 * 1024, durability, groupCommitWindowMicros,
+                checkpointIntervalMillis);
+    }
+}
@@ -0,0 +1,87 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/journal/RecoveryReport.java
+package com.example.designpattern.paymentsystem.journal;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 启动恢复报告：从哪个检查点开始重放、重放了多少条记录、耗时多少，
+ * 以及哪些支付在上次停止 (或崩溃) 时仍在进行中 —— 这些支付已经调用了支付渠道但没有结果记录，
+ * 需要与渠道对账后才能确定是否扣款。
+ */
+public class RecoveryReport {
+
+    private final long checkpointSequence;
+    private final long lastSequence;
+    private final long replayedRecords;
+    private final boolean fullScan;
+    private final long recoveryMillis;
+    private final long succeededPayments;
+    private final long failedPayments;
+    private final int inFlightCount;
+    private final List<InFlightPayment> inFlightPayments;
+
+    public RecoveryReport(long checkpointSequence, long lastSequence, long replayedRecords, boolean fullScan, long recoveryMillis,
+                          long succeededPayments, long failedPayments, int inFlightCount, List<InFlightPayment> inFlightPayments) {
+        this.checkpointSequence = checkpointSequence;
+        this.lastSequence = lastSequence;
+        this.replayedRecords = replayedRecords;
+        this.fullScan = fullScan;
+        this.recoveryMillis = recoveryMillis;
+        this.succeededPayments = succeededPayments;
+        this.failedPayments = failedPayments;
+        this.inFlightCount = inFlightCount;
+        this.inFlightPayments = inFlightPayments;
+    }
+
+    /** 启动时使用的检查点序号，0 表示没有可用的检查点 */
+    public long getCheckpointSequence() { return checkpointSequence; }
+    /** 日志中最后一条有效记录的序号 */
+    public long getLastSequence() { return lastSequence; }
+    /** 本次启动重放的记录数 (检查点之后的部分) */
+    public long getReplayedRecords() { return replayedRecords; }
+    /** 是否因为没有可用的检查点而从头重放了整个日志 */
+    public boolean isFullScan() { return fullScan; }
+    public long getRecoveryMillis() { return recoveryMillis; }
+    /** 日志中已成功的支付数 */
+    public long getSucceededPayments() { return succeededPayments; }
+    /** 日志中已失败的支付数 */
+    public long getFailedPayments() { return failedPayments; }
+    /** 仍在进行中的支付数 */
+    public int getInFlightCount() { return inFlightCount; }
+    /** 仍在进行中的支付 (按支付编号排序，最多列出前若干笔) */
+    public List<InFlightPayment> getInFlightPayments() { return inFlightPayments; }
+
+    /**
+     * 一笔只有 STARTED 记录、没有结果记录的支付
+     */
+    public static class InFlightPayment {
+        private final long paymentId;
+        private final long sequence;
+        private final String paymentType;
+        private final BigDecimal amount;
+        private final String currency;
+        private final long startedAtMillis;
+
+        public InFlightPayment(long paymentId, long sequence, String paymentType, BigDecimal amount, String currency, long startedAtMillis) {
+            this.paymentId = paymentId;
+            this.sequence = sequence;
+            this.paymentType = paymentType;
+            this.amount = amount;
+            this.currency = currency;
+            this.startedAtMillis = startedAtMillis;
+        }
+
+        static InFlightPayment of(JournalRecord started) {
+            return new InFlightPayment(started.getPaymentId(), started.getSequence(), started.getPaymentType().getCode(),
+                    started.getAmount().toBigDecimal(), started.getAmount().getCurrencyCode(), started.getTimestamp());
+        }
+
+        public long getPaymentId() { return paymentId; }
+        public long getSequence() { return sequence; }
+        public String getPaymentType() { return paymentType; }
+        public BigDecimal getAmount() { return amount; }
+        public String getCurrency() { return currency; }
+        public long getStartedAtMillis() { return startedAtMillis; }
+    }
+}
@@ -0,0 +1,117 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/loadbalance/LoadBalancedPaymentService.java
+package com.example.designpattern.paymentsystem.loadbalance;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 在同一支付类型的多个支付渠道之间做负载均衡的 PaymentService
+ * <p>
+ * 每次支付随机挑选两个渠道 (power of two choices)，选择负载较低的一个，
+ * 负载 = peak-EWMA 耗时 × (在途数 + 1) ÷ 权重，见 {@link PaymentProvider}。
+ * 熔断中的渠道不参与挑选；所有渠道都不健康时仍交给其中一个，由它的熔断器快速失败。
+ * </p>
+ * <p>
+ * 渠道列表在构造后不再变化 (不可变数组)，挑选过程只读 volatile 字段和原子变量，不加锁。
+ * </p>
+ */
+public class LoadBalancedPaymentService implements PaymentService {
+
+    private final PaymentType type;
+    private final PaymentProvider[] providers;
+
+    public LoadBalancedPaymentService(PaymentType type, List<PaymentProvider> providers) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("支付类型 " + type + " 没有可用的支付渠道");
+        }
+        this.type = type;
+        this.providers = providers.toArray(new PaymentProvider[0]);
+    }
+
+    @Override
+    public void pay(Money amount) {
+        PaymentProvider provider = choose();
+        long start = provider.onStart();
+        boolean success = false;
+        try {
+            provider.getService().pay(amount);
+            success = true;
+        } finally {
+            provider.onComplete(start, success);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> payAsync(Money amount) {
+        PaymentProvider provider = choose();
+        long start = provider.onStart();
+        CompletableFuture<Void> result;
+        try {
+            result = provider.getService().payAsync(amount);
+        } catch (RuntimeException e) {
+            provider.onComplete(start, false);
+            throw e;
+        }
+        return result.whenComplete((ignored, error) -> provider.onComplete(start, error == null));
+    }
+
+    @Override
+    public PaymentType getServiceType() {
+        return type;
+    }
+
+    /**
+     * 挑选本次支付使用的渠道
+     */
+    PaymentProvider choose() {
+        PaymentProvider[] candidates = providers;
+        int n = candidates.length;
+        if (n == 1) {
+            return candidates[0];
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if (j >= i) {
+            j++; // 保证两个下标不同
+        }
+        PaymentProvider a = candidates[i];
+        PaymentProvider b = candidates[j];
+        boolean aAvailable = a.isAvailable();
+        boolean bAvailable = b.isAvailable();
+        if (aAvailable && bAvailable) {
+            long now = System.nanoTime();
+            return a.cost(now) <= b.cost(now) ? a : b;
+        }
+        if (aAvailable) {
+            return a;
+        }
+        if (bAvailable) {
+            return b;
+        }
+        // 随机挑中的两个都不健康，依次查找其余渠道
+        for (PaymentProvider candidate : candidates) {
+            if (candidate.isAvailable()) {
+                return candidate;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * 各渠道的状态快照
+     */
+    public List<PaymentProvider.Snapshot> snapshot() {
+        List<PaymentProvider.Snapshot> result = new ArrayList<>(providers.length);
+        for (PaymentProvider provider : providers) {
+            result.add(provider.snapshot());
+        }
+        return result;
+    }
+}
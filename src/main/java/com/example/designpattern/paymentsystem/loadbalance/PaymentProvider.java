@@ -0,0 +1,140 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/loadbalance/PaymentProvider.java
+package com.example.designpattern.paymentsystem.loadbalance;
+
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.resilience.ResilientPaymentService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 负载均衡中的一个支付渠道：渠道的支付服务、权重和实时负载 (peak-EWMA 耗时 + 在途数)
+ * <p>
+ * peak-EWMA：耗时高于当前平均值时立即取新值 (对变慢反应快)，否则按指数衰减逐渐靠近新值 (对恢复反应慢)；
+ * 计算负载时再按空闲时间衰减，长时间没有被选中的渠道负载会逐渐降低，从而重新获得流量。
+ * 所有字段都是 volatile / 原子变量，并发更新时"后写者胜"，不加锁。
+ * </p>
+ */
+public class PaymentProvider {
+
+    private final String name;
+    private final PaymentService service;
+    private final ResilientPaymentService health; // 带熔断器时用于判断渠道是否健康，否则为 null
+    private final int weight;
+    private final double decayNanos;
+
+    private volatile double ewmaNanos;
+    private volatile long stampNanos = System.nanoTime();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder picks = new LongAdder();
+
+    /**
+     * @param name        渠道名称 (支付服务的 Bean 名称)
+     * @param service     渠道的支付服务
+     * @param weight      权重，越大分到的流量越多
+     * @param decayMillis EWMA 的衰减时间常数 (毫秒)
+     */
+    public PaymentProvider(String name, PaymentService service, int weight, long decayMillis) {
+        if (weight <= 0 || decayMillis <= 0) {
+            throw new IllegalArgumentException("支付渠道 " + name + " 的权重和衰减时间必须大于 0");
+        }
+        this.name = name;
+        this.service = service;
+        this.health = service instanceof ResilientPaymentService ? (ResilientPaymentService) service : null;
+        this.weight = weight;
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PaymentService getService() {
+        return service;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * 渠道是否健康 (熔断器会放行调用)
+     */
+    public boolean isAvailable() {
+        return health == null || health.isAvailable();
+    }
+
+    /**
+     * 当前负载：衰减后的 EWMA 耗时 × (在途数 + 1) ÷ 权重
+     */
+    double cost(long now) {
+        double ewma = ewmaNanos * Math.exp(-Math.max(0, now - stampNanos) / decayNanos);
+        return (ewma + 1) * (inFlight.get() + 1) / weight;
+    }
+
+    /**
+     * 渠道被选中、开始调用时调用，返回开始时间
+     */
+    long onStart() {
+        picks.increment();
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 调用结束时调用。失败的调用按当前 EWMA 的两倍计入，
+     * 避免快速失败 (例如舱壁已满) 的渠道因为"耗时短"反而被优先选中
+     */
+    void onComplete(long start, boolean success) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        double rtt = now - start;
+        double ewma = ewmaNanos;
+        if (!success) {
+            rtt = Math.max(rtt, ewma * 2);
+        }
+        if (rtt > ewma) {
+            ewmaNanos = rtt; // peak：立即反映变慢
+        } else {
+            double w = Math.exp(-Math.max(0, now - stampNanos) / decayNanos);
+            ewmaNanos = ewma * w + rtt * (1 - w);
+        }
+        stampNanos = now;
+    }
+
+    /**
+     * 渠道状态快照 (耗时单位为微秒)
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, weight, isAvailable(), ewmaNanos / 1000, inFlight.get(), picks.sum());
+    }
+
+    /**
+     * 支付渠道状态快照
+     */
+    public static class Snapshot {
+        private final String name;
+        private final int weight;
+        private final boolean available;
+        private final double ewmaMicros;
+        private final int inFlight;
+        private final long picks;
+
+        public Snapshot(String name, int weight, boolean available, double ewmaMicros, int inFlight, long picks) {
+            this.name = name;
+            this.weight = weight;
+            this.available = available;
+            this.ewmaMicros = ewmaMicros;
+            this.inFlight = inFlight;
+            this.picks = picks;
+        }
+
+        public String getName() { return name; }
+        public int getWeight() { return weight; }
+        public boolean isAvailable() { return available; }
+        public double getEwmaMicros() { return ewmaMicros; }
+        public int getInFlight() { return inFlight; }
+        public long getPicks() { return picks; }
+    }
+}
@@ -0,0 +1,52 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/metrics/InstrumentedPaymentService.java
+package com.example.designpattern.paymentsystem.metrics;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 记录支付指标的 PaymentService 装饰器 (耗时、成功/失败次数、在途数)
+ */
+public class InstrumentedPaymentService implements PaymentService {
+
+    private final PaymentService delegate;
+    private final PaymentMetrics.TypeMetrics metrics;
+
+    public InstrumentedPaymentService(PaymentService delegate, PaymentMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics.of(delegate.getServiceType());
+    }
+
+    @Override
+    public void pay(Money amount) {
+        long start = metrics.onStart();
+        boolean success = false;
+        try {
+            delegate.pay(amount);
+            success = true;
+        } finally {
+            metrics.onComplete(start, success);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> payAsync(Money amount) {
+        long start = metrics.onStart();
+        CompletableFuture<Void> result;
+        try {
+            result = delegate.payAsync(amount);
+        } catch (RuntimeException e) {
+            metrics.onComplete(start, false);
+            throw e;
+        }
+        return result.whenComplete((ignored, error) -> metrics.onComplete(start, error == null));
+    }
+
+    @Override
+    public PaymentType getServiceType() {
+        return delegate.getServiceType();
+    }
+}
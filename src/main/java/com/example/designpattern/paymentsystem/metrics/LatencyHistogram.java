@@ -0,0 +1,147 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/metrics/LatencyHistogram.java
+package com.example.designpattern.paymentsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图 (HdrHistogram 风格的对数-线性分桶)
+ * <p>
+ * 小于 128 的值每个值一个桶；更大的值按最高位所在的 2 的幂区间划分，
+ * 每个区间再线性切成 64 个子桶，因此任意值的相对误差都在 1/64 (约 1.6%) 以内，
+ * 覆盖从 1 纳秒到 long 最大值的整个范围，总共只需 3712 个计数器。
+ * </p>
+ * <p>
+ * 记录一个值只需要计算桶下标 (几次位运算) 和一次原子自增，不加锁、不分配对象，
+ * 适合在每个请求的热路径上常开。
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;          // 128
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;    // 64
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时 (纳秒)，负值按 0 处理
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        // 只有出现更大的值时才需要 CAS，稳定状态下几乎不会进入循环
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+            // 重试
+        }
+    }
+
+    /**
+     * 生成当前的统计快照 (各分位值为桶内可表示的最大值，单位纳秒)
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long sum = totalNanos.sum();
+        long max = maxValue.get();
+        // 分位值取桶的上界，可能略大于真实最大值，因此用 max 截断
+        return new Snapshot(count,
+                count == 0 ? 0 : sum / count,
+                Math.min(max, valueAtPercentile(copy, count, 50.0)),
+                Math.min(max, valueAtPercentile(copy, count, 90.0)),
+                Math.min(max, valueAtPercentile(copy, count, 99.0)),
+                Math.min(max, valueAtPercentile(copy, count, 99.9)),
+                max);
+    }
+
+    /**
+     * 已记录的次数
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - (SUB_BUCKET_BITS - 1);                 // 使 value >> shift 落在 [64, 128)
+        int mantissa = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (mantissa - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * 桶内可表示的最大值
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long mantissa = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        long upper = (mantissa + 1) << shift;
+        return upper <= 0 ? Long.MAX_VALUE : upper - 1;
+    }
+
+    private static long valueAtPercentile(long[] counts, long totalCount, double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(counts.length - 1);
+    }
+
+    /**
+     * 直方图快照 (单位纳秒)
+     */
+    public static class Snapshot {
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        public Snapshot(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMean() { return mean; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+        public long getMax() { return max; }
+    }
+}
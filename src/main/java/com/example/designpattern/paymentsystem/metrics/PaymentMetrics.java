@@ -0,0 +1,164 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/metrics/PaymentMetrics.java
+package com.example.designpattern.paymentsystem.metrics;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按支付类型划分的支付指标
+ * <p>
+ * 每种支付类型一组指标：支付耗时直方图、工厂查找耗时直方图、成功/失败计数和在途支付数。
+ * 所有指标都在构造时按枚举预先创建，记录时只读 EnumMap，不加锁、不分配对象。
+ * </p>
+ */
+@Component
+public class PaymentMetrics {
+
+    private final Map<PaymentType, TypeMetrics> metrics = new EnumMap<>(PaymentType.class);
+    private final LongAdder unknownTypeLookups = new LongAdder(); // 无法解析支付类型的查找次数
+    private final AtomicLong firstSuccessNanos = new AtomicLong(); // 第一笔成功支付的完成时间，0 表示还没有
+    private final AtomicBoolean firstSuccessNotified = new AtomicBoolean();
+    private volatile Runnable firstSuccessListener;
+
+    public PaymentMetrics() {
+        for (PaymentType type : PaymentType.values()) {
+            metrics.put(type, new TypeMetrics(this));
+        }
+    }
+
+    /**
+     * 获取某个支付类型的指标
+     */
+    public TypeMetrics of(PaymentType type) {
+        return metrics.get(type);
+    }
+
+    /**
+     * 记录一次工厂查找的耗时
+     */
+    public void recordLookup(PaymentType type, long nanos) {
+        metrics.get(type).lookupLatency.record(nanos);
+    }
+
+    /**
+     * 记录一次无法解析支付类型的查找
+     */
+    public void recordUnknownTypeLookup() {
+        unknownTypeLookups.increment();
+    }
+
+    /**
+     * 注册第一笔成功支付的回调 (只调用一次，在完成该支付的线程上执行)；注册时已经有成功的支付则立即调用
+     */
+    public void onFirstSuccess(Runnable listener) {
+        firstSuccessListener = listener;
+        if (firstSuccessNanos.get() != 0) {
+            notifyFirstSuccess();
+        }
+    }
+
+    private void recordSuccess() {
+        // 第一笔之后只剩一次 volatile 读
+        if (firstSuccessNanos.get() == 0 && firstSuccessNanos.compareAndSet(0, System.nanoTime())) {
+            notifyFirstSuccess();
+        }
+    }
+
+    private void notifyFirstSuccess() {
+        Runnable listener = firstSuccessListener;
+        if (listener != null && firstSuccessNotified.compareAndSet(false, true)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 生成所有支付类型的指标快照，按支付类型编码输出
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<PaymentType, TypeMetrics> entry : metrics.entrySet()) {
+            result.put(entry.getKey().getCode(), entry.getValue().snapshot());
+        }
+        result.put("unknownTypeLookups", unknownTypeLookups.sum());
+        return result;
+    }
+
+    /**
+     * 单个支付类型的指标
+     */
+    public static class TypeMetrics {
+        private final PaymentMetrics owner;
+        private final LatencyHistogram payLatency = new LatencyHistogram();
+        private final LatencyHistogram lookupLatency = new LatencyHistogram();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder inFlight = new LongAdder(); // 在途支付数 (开始时 +1，结束时 -1)
+
+        TypeMetrics(PaymentMetrics owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * 支付开始时调用，返回开始时间 (纳秒)
+         */
+        public long onStart() {
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        /**
+         * 支付结束时调用
+         *
+         * @param startNanos onStart() 的返回值
+         * @param success    是否成功
+         */
+        public void onComplete(long startNanos, boolean success) {
+            payLatency.record(System.nanoTime() - startNanos);
+            if (success) {
+                successes.increment();
+                owner.recordSuccess();
+            } else {
+                failures.increment();
+            }
+            inFlight.decrement();
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(successes.sum(), failures.sum(), inFlight.sum(),
+                    payLatency.snapshot(), lookupLatency.snapshot());
+        }
+    }
+
+    /**
+     * 单个支付类型的指标快照 (耗时单位为纳秒)
+     */
+    public static class Snapshot {
+        private final long successes;
+        private final long failures;
+        private final long inFlight;
+        private final LatencyHistogram.Snapshot payLatency;
+        private final LatencyHistogram.Snapshot lookupLatency;
+
+        public Snapshot(long successes, long failures, long inFlight,
+                        LatencyHistogram.Snapshot payLatency, LatencyHistogram.Snapshot lookupLatency) {
+            this.successes = successes;
+            this.failures = failures;
+            this.inFlight = inFlight;
+            this.payLatency = payLatency;
+            this.lookupLatency = lookupLatency;
+        }
+
+        public long getSuccesses() { return successes; }
+        public long getFailures() { return failures; }
+        public long getInFlight() { return inFlight; }
+        public LatencyHistogram.Snapshot getPayLatency() { return payLatency; }
+        public LatencyHistogram.Snapshot getLookupLatency() { return lookupLatency; }
+    }
+}
@@ -0,0 +1,48 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/ratelimit/PaymentRateLimitConfig.java
+package com.example.designpattern.paymentsystem.ratelimit;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 支付限流配置
+ * <p>
+ * payment.rate-limit.permits-per-second / burst 是每个商户在每个支付类型上的默认限额，
+ * 可以按支付类型覆盖，例如 payment.rate-limit.alipay.permits-per-second=50。
+ * 运行时可通过 PUT /api/payments/rate-limits/{paymentType} 修改。
+ * 未携带商户编号的请求共用一个 anonymous 桶 (payment.rate-limit.anonymous-enabled，默认开启)，
+ * 每个支付类型最多保留 payment.rate-limit.max-buckets 个商户桶。
+ * </p>
+ */
+@Configuration
+public class PaymentRateLimitConfig {
+
+    private static final String PREFIX = "payment.rate-limit.";
+
+    @Bean(destroyMethod = "close")
+    public PaymentRateLimiter paymentRateLimiter(
+            Environment env,
+            @Value("${payment.rate-limit.enabled:true}") boolean enabled,
+            @Value("${payment.rate-limit.idle-eviction-seconds:300}") long idleEvictionSeconds,
+            @Value("${payment.rate-limit.anonymous-enabled:true}") boolean limitAnonymous,
+            @Value("${payment.rate-limit.max-buckets:100000}") int maxBuckets) {
+        Map<PaymentType, RateLimit> limits = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            limits.put(type, new RateLimit(
+                    setting(env, type, "permits-per-second", Double.class, 100d),
+                    setting(env, type, "burst", Integer.class, 200)));
+        }
+        return new PaymentRateLimiter(limits, enabled, idleEvictionSeconds * 1000L, limitAnonymous, maxBuckets);
+    }
+
+    private static <T> T setting(Environment env, PaymentType type, String key, Class<T> valueType, T defaultValue) {
+        T value = env.getProperty(PREFIX + type.getCode() + "." + key, valueType);
+        return value != null ? value : env.getProperty(PREFIX + key, valueType, defaultValue);
+    }
+}
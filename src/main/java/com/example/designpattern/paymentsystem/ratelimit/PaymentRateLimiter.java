@@ -0,0 +1,273 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/ratelimit/PaymentRateLimiter.java
+package com.example.designpattern.paymentsystem.ratelimit;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按商户和支付类型划分的令牌桶限流器
+ * <p>
+ * 每个 (商户, 支付类型) 一个令牌桶，令牌按需补充 (不需要定时任务)：
+ * 桶的全部状态就是一个 long —— "理论到达时间" TAT (即 GCRA 算法)。
+ * TAT 与当前时间之差表示桶里已用掉的令牌，一次请求只需一次 CAS 就同时完成补充和扣减，
+ * 没有全局锁；不同商户的桶互不影响，每个支付类型的桶放在各自的 ConcurrentHashMap 中 (内部分段)。
+ * </p>
+ * <p>
+ * 限流参数按支付类型配置，保存在 volatile 字段中，运行时修改后下一次请求即生效，
+ * 桶的状态保持不变 (超出新容量的部分按新容量计算)。
+ * 长时间未使用的桶 (已经补满) 由后台线程定期清理；每个支付类型的桶数量另有上限，
+ * 达到上限后新出现的商户共用一个溢出桶，客户端无法靠不断更换商户编号绕过限流，也不会撑爆内存。
+ * </p>
+ * <p>
+ * 未携带商户编号的请求共用 {@link #ANONYMOUS_MERCHANT} 的桶 (默认)，省略请求头绕不过限流；
+ * 只有在网关已经按调用方限流等场景下才应关闭 limitAnonymous，此时这类请求不限流。
+ * </p>
+ */
+public class PaymentRateLimiter implements Closeable {
+
+    /**
+     * 请求未携带商户编号时使用的商户编号
+     */
+    public static final String ANONYMOUS_MERCHANT = "anonymous";
+
+    /**
+     * 桶数量达到上限后，新出现的商户共用的桶
+     */
+    static final String OVERFLOW_MERCHANT = "overflow";
+
+    private final Map<PaymentType, TypeLimiter> limiters = new EnumMap<>(PaymentType.class);
+    private final long idleNanos;
+    private final boolean limitAnonymous;
+    private final int maxBuckets;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean enabled;
+
+    /**
+     * @param limits             每个支付类型的限流参数
+     * @param enabled            是否启用限流
+     * @param idleEvictionMillis 桶空闲多久 (毫秒) 后被清理
+     * @param limitAnonymous     是否限流未携带商户编号的请求
+     * @param maxBuckets         每个支付类型最多保留的商户桶数量
+     */
+    public PaymentRateLimiter(Map<PaymentType, RateLimit> limits, boolean enabled, long idleEvictionMillis,
+                              boolean limitAnonymous, int maxBuckets) {
+        if (idleEvictionMillis <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("idleEvictionMillis 和 maxBuckets 必须大于 0");
+        }
+        for (PaymentType type : PaymentType.values()) {
+            RateLimit limit = limits.get(type);
+            if (limit == null) {
+                throw new IllegalArgumentException("缺少支付类型 " + type + " 的限流参数");
+            }
+            limiters.put(type, new TypeLimiter(limit));
+        }
+        this.enabled = enabled;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+        this.limitAnonymous = limitAnonymous;
+        this.maxBuckets = maxBuckets;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payment-rate-limiter-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(idleEvictionMillis, TimeUnit.MINUTES.toMillis(1));
+        evictor.scheduleWithFixedDelay(this::evictIdleBuckets, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 尝试为一次请求取得一个令牌
+     *
+     * @param merchantId 商户编号，为 null 时视为 {@link #ANONYMOUS_MERCHANT} (关闭 limitAnonymous 时不限流)
+     * @return 0 表示放行；大于 0 表示被限流，值为至少需要等待的纳秒数
+     */
+    public long tryAcquire(String merchantId, PaymentType type) {
+        if (!enabled) {
+            return 0;
+        }
+        return tryAcquire(merchantId, type, System.nanoTime());
+    }
+
+    long tryAcquire(String merchantId, PaymentType type, long now) {
+        if (merchantId == null && !limitAnonymous) {
+            return 0;
+        }
+        TypeLimiter limiter = limiters.get(type);
+        Bucket bucket = bucketFor(limiter, merchantId, now);
+        RateLimit limit = limiter.limit;
+        long interval = limit.emissionIntervalNanos();
+        long tolerance = limit.toleranceNanos();
+        while (true) {
+            long tat = bucket.get();
+            if (tat > now + tolerance) {
+                // 欠下的令牌超过当前的桶容量 (限额刚被调大)：截断为空桶并写回，此后按新速率补充，
+                // 之前按慢速率欠下的等待时间不再生效
+                bucket.compareAndSet(tat, now + tolerance);
+                continue;
+            }
+            long newTat = Math.max(tat, now) + interval;
+            long excess = newTat - now - tolerance;
+            if (excess > 0) {
+                limiter.rejected.increment();
+                return excess;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                limiter.admitted.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 为 permits 个请求 (例如批量支付中同一支付类型的条目) 尽可能多地取得令牌
+     *
+     * @return 取得的令牌数 (0~permits)，超出部分应被拒绝；未启用限流时返回 permits
+     */
+    public int acquireUpTo(String merchantId, PaymentType type, int permits) {
+        if (!enabled) {
+            return permits;
+        }
+        return acquireUpTo(merchantId, type, permits, System.nanoTime());
+    }
+
+    int acquireUpTo(String merchantId, PaymentType type, int permits, long now) {
+        if (permits <= 0 || (merchantId == null && !limitAnonymous)) {
+            return Math.max(0, permits);
+        }
+        TypeLimiter limiter = limiters.get(type);
+        Bucket bucket = bucketFor(limiter, merchantId, now);
+        RateLimit limit = limiter.limit;
+        long interval = limit.emissionIntervalNanos();
+        long tolerance = limit.toleranceNanos();
+        while (true) {
+            long tat = bucket.get();
+            if (tat > now + tolerance) {
+                bucket.compareAndSet(tat, now + tolerance); // 同 tryAcquire：截断为空桶
+                continue;
+            }
+            long start = Math.max(tat, now);
+            // 桶里剩余的令牌数：每个令牌让 TAT 前进 interval，TAT 不能超过 now + tolerance
+            int granted = (int) Math.min(permits, (now + tolerance - start) / interval);
+            if (granted == 0 || bucket.compareAndSet(tat, start + granted * interval)) {
+                limiter.admitted.add(granted);
+                limiter.rejected.add(permits - granted);
+                return granted;
+            }
+        }
+    }
+
+    private Bucket bucketFor(TypeLimiter limiter, String merchantId, long now) {
+        String key = merchantId != null ? merchantId : ANONYMOUS_MERCHANT;
+        Bucket bucket = limiter.buckets.get(key);
+        if (bucket == null) {
+            if (limiter.buckets.size() >= maxBuckets) {
+                // 桶数量已达上限 (size 是近似值，并发时可能略微超出)：新商户共用溢出桶
+                limiter.overflowed.increment();
+                key = OVERFLOW_MERCHANT;
+            }
+            bucket = limiter.buckets.computeIfAbsent(key, k -> new Bucket(now)); // 新桶是满的
+        }
+        return bucket;
+    }
+
+    /**
+     * 运行时修改某个支付类型的限流参数，下一次请求即生效
+     */
+    public void setLimit(PaymentType type, RateLimit limit) {
+        if (limit == null) {
+            throw new IllegalArgumentException("限流参数不能为空");
+        }
+        limiters.get(type).limit = limit;
+        System.out.println("支付限流: " + type + " 的限流参数修改为 " + limit);
+    }
+
+    public RateLimit getLimit(PaymentType type) {
+        return limiters.get(type).limit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        System.out.println("支付限流: " + (enabled ? "已启用" : "已关闭"));
+    }
+
+    /**
+     * 清理空闲的桶：TAT 早于 now - idle，说明桶早已补满且在这段时间内没有请求
+     */
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (TypeLimiter limiter : limiters.values()) {
+            Iterator<Bucket> it = limiter.buckets.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().get() > idleNanos) {
+                    // 与并发请求竞争时，最坏情况是该商户得到一个新的满桶，多放行一次请求
+                    it.remove();
+                    limiter.evicted.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 各支付类型的限流参数、桶数量和放行/拒绝计数，按支付类型编码输出
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("limitAnonymous", limitAnonymous);
+        result.put("maxBuckets", maxBuckets);
+        for (Map.Entry<PaymentType, TypeLimiter> entry : limiters.entrySet()) {
+            TypeLimiter limiter = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("permitsPerSecond", limiter.limit.getPermitsPerSecond());
+            stats.put("burst", limiter.limit.getBurst());
+            stats.put("buckets", limiter.buckets.size());
+            stats.put("admitted", limiter.admitted.sum());
+            stats.put("rejected", limiter.rejected.sum());
+            stats.put("evicted", limiter.evicted.sum());
+            stats.put("overflowed", limiter.overflowed.sum());
+            result.put(entry.getKey().getCode(), stats);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private static final class TypeLimiter {
+        private volatile RateLimit limit;
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder evicted = new LongAdder();
+        private final LongAdder overflowed = new LongAdder(); // 因桶数量达到上限而使用溢出桶的请求
+
+        private TypeLimiter(RateLimit limit) {
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * 令牌桶：值为理论到达时间 (TAT，System.nanoTime 时间轴)。继承 AtomicLong，每个桶只有一个对象
+     */
+    private static final class Bucket extends AtomicLong {
+        private Bucket(long tat) {
+            super(tat);
+        }
+    }
+}
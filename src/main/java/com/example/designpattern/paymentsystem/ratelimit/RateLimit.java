@@ -0,0 +1,46 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/ratelimit/RateLimit.java
+package com.example.designpattern.paymentsystem.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流参数 (不可变)：每秒补充的令牌数和桶容量 (允许的突发请求数)
+ */
+public final class RateLimit {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long emissionIntervalNanos; // 补充一个令牌所需的时间
+    private final long toleranceNanos;        // 桶容量换算成时间：emissionInterval * burst
+
+    public RateLimit(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond 和 burst 必须大于 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.emissionIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = emissionIntervalNanos * burst;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    long emissionIntervalNanos() {
+        return emissionIntervalNanos;
+    }
+
+    long toleranceNanos() {
+        return toleranceNanos;
+    }
+
+    @Override
+    public String toString() {
+        return permitsPerSecond + "/s, burst " + burst;
+    }
+}
@@ -0,0 +1,51 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/reactive/ReactivePaymentService.java
+package com.example.designpattern.paymentsystem.reactive;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * PaymentService 的响应式适配器
+ * <p>
+ * 把 {@link PaymentService#payAsync(Money)} 返回的 CompletableFuture 适配为 Mono：
+ * 订阅时才发起支付，渠道调用在支付执行器中完成，事件循环线程只负责发起调用和写回响应。
+ * 客户端断开 (取消订阅) 不会取消已经发出的支付，支付结果照常写入支付日志和指标。
+ * </p>
+ * <p>
+ * payAsync 在调用方线程上只做舱壁/熔断判断和追加 STARTED 日志这类内存操作；
+ * 如果调用方线程上可能有阻塞 I/O (例如支付日志使用 FSYNC_PER_WRITE)，
+ * 可以传入 offloadScheduler，让 payAsync 在该调度器上调用。
+ * </p>
+ */
+public class ReactivePaymentService {
+
+    private final PaymentService delegate;
+    private final Scheduler offloadScheduler; // 为 null 时直接在订阅线程上调用 payAsync
+
+    public ReactivePaymentService(PaymentService delegate, Scheduler offloadScheduler) {
+        this.delegate = delegate;
+        this.offloadScheduler = offloadScheduler;
+    }
+
+    /**
+     * 执行支付，支付成功时 Mono 正常结束，失败时以原始异常 (已去掉 CompletionException 包装) 结束
+     */
+    public Mono<Void> pay(Money amount) {
+        Mono<Void> payment = Mono.fromFuture(() -> delegate.payAsync(amount), true);
+        return offloadScheduler != null ? payment.subscribeOn(offloadScheduler) : payment;
+    }
+
+    public PaymentType getServiceType() {
+        return delegate.getServiceType();
+    }
+
+    /**
+     * 被适配的支付服务
+     */
+    public PaymentService getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,69 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/reactive/ReactivePaymentServiceFactory.java
+package com.example.designpattern.paymentsystem.reactive;
+
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.journal.DurabilityMode;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式支付服务工厂：在 {@link PaymentServiceFactoryImpl} 返回的支付服务外面套上 {@link ReactivePaymentService}
+ * <p>
+ * 查找仍然经过 PaymentServiceFactoryImpl (查找耗时、未知类型等指标照常记录)，
+ * 每个支付类型的适配器只创建一次，之后按枚举序号直接取出。
+ * </p>
+ * <p>
+ * 支付日志使用 FSYNC_PER_WRITE 时，追加 STARTED 记录会在调用方线程上 fsync，
+ * 此时 payAsync 改在 boundedElastic 调度器上调用，避免阻塞事件循环线程。
+ * </p>
+ */
+@Component
+public class ReactivePaymentServiceFactory {
+
+    private final PaymentServiceFactoryImpl paymentServiceFactory;
+    private final Scheduler offloadScheduler;
+    // 按 PaymentType 序号缓存的适配器；并发初始化时可能重复创建，但适配器不可变，任一个都可以用
+    private final ReactivePaymentService[] adapters = new ReactivePaymentService[PaymentType.values().length];
+
+    @Autowired
+    public ReactivePaymentServiceFactory(PaymentServiceFactoryImpl paymentServiceFactory, ObjectProvider<PaymentJournal> paymentJournal) {
+        this.paymentServiceFactory = paymentServiceFactory;
+        PaymentJournal journal = paymentJournal.getIfAvailable();
+        this.offloadScheduler = journal != null && journal.getMode() == DurabilityMode.FSYNC_PER_WRITE
+                ? Schedulers.boundedElastic() : null;
+    }
+
+    /**
+     * 根据支付类型获取响应式支付服务
+     *
+     * @throws IllegalArgumentException 如果找不到对应类型的支付服务
+     */
+    public ReactivePaymentService getPaymentService(PaymentType paymentType) {
+        return adapt(paymentServiceFactory.getPaymentService(paymentType));
+    }
+
+    /**
+     * 根据支付类型的字符串代码获取响应式支付服务
+     *
+     * @throws IllegalArgumentException 如果找不到对应类型的支付服务或类型代码无效
+     */
+    public ReactivePaymentService getPaymentService(String paymentTypeCode) {
+        return adapt(paymentServiceFactory.getPaymentService(paymentTypeCode));
+    }
+
+    private ReactivePaymentService adapt(PaymentService service) {
+        int ordinal = service.getServiceType().ordinal();
+        ReactivePaymentService adapter = adapters[ordinal];
+        if (adapter == null || adapter.getDelegate() != service) {
+            adapter = new ReactivePaymentService(service, offloadScheduler);
+            adapters[ordinal] = adapter;
+        }
+        return adapter;
+    }
+}
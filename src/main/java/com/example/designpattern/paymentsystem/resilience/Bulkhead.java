@@ -0,0 +1,70 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/resilience/Bulkhead.java
+package com.example.designpattern.paymentsystem.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 舱壁：限制某个支付类型同时在途的支付数
+ * <p>
+ * 所有支付类型共用同一个支付执行器，某个渠道变慢时，它的调用会占满执行器的线程和队列，
+ * 拖累其他支付类型。每个支付类型一个舱壁，名额用完时立即拒绝 (不排队等待)，
+ * 慢渠道最多只能占用自己的名额。
+ * </p>
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent 必须大于 0");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 尝试占用一个名额，名额已满时返回 false
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * 归还名额，必须与成功的 {@link #tryAcquire()} 一一对应
+     */
+    public void release() {
+        permits.release();
+    }
+
+    public Snapshot snapshot() {
+        int available = permits.availablePermits();
+        return new Snapshot(maxConcurrent, maxConcurrent - available, rejected.sum());
+    }
+
+    /**
+     * 舱壁状态快照
+     */
+    public static class Snapshot {
+        private final int maxConcurrent;
+        private final int inUse;
+        private final long rejected;
+
+        public Snapshot(int maxConcurrent, int inUse, long rejected) {
+            this.maxConcurrent = maxConcurrent;
+            this.inUse = inUse;
+            this.rejected = rejected;
+        }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public int getInUse() { return inUse; }
+        public long getRejected() { return rejected; }
+    }
+}
@@ -0,0 +1,303 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/resilience/CircuitBreaker.java
+package com.example.designpattern.paymentsystem.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 熔断器 (基于最近 N 次调用的滑动窗口)
+ * <p>
+ * 状态机：
+ * <ul>
+ *     <li>CLOSED：正常放行，记录最近 windowSize 次调用的结果。调用数达到 minimumCalls 后，
+ *         失败率或慢调用率超过阈值即转为 OPEN；</li>
+ *     <li>OPEN：直接拒绝所有调用 (快速失败)，经过 openWait 后的第一次调用把状态转为 HALF_OPEN；</li>
+ *     <li>HALF_OPEN：只放行 halfOpenCalls 次试探调用，其余拒绝。试探调用全部结束后，
+ *         失败率和慢调用率都不超过阈值则转为 CLOSED (清空窗口)，否则重新转为 OPEN。</li>
+ * </ul>
+ * </p>
+ * <p>
+ * CLOSED 状态下的放行判断只读一个 volatile 字段；记录结果和状态转换在 synchronized 中完成。
+ * 每次状态转换都会递增 epoch，{@link #tryAcquirePermission()} 返回放行时的 epoch，
+ * 在旧状态下放行、在新状态下才结束的调用 (例如打开前发出的慢调用) 不会计入新状态的统计。
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * 不放行时 {@link #tryAcquirePermission()} 的返回值
+     */
+    public static final int NOT_PERMITTED = -1;
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED,   // 关闭：正常放行
+        OPEN,     // 打开：全部拒绝
+        HALF_OPEN // 半开：只放行少量试探调用
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;  // 百分比
+    private final long slowCallThresholdNanos;
+    private final float slowCallRateThreshold; // 百分比
+    private final long openWaitNanos;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile int epoch; // 每次状态转换递增 (只在 synchronized 中修改)
+    private volatile long lastTransitionMillis = System.currentTimeMillis();
+    private volatile long openedAtNanos;
+
+    // CLOSED 状态的滑动窗口 (环形数组，每个元素是 FAILED | SLOW 标志位)
+    private final byte[] window;
+    private int windowHead;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    // HALF_OPEN 状态的试探调用统计
+    private volatile int halfOpenPermits; // 只在 synchronized 中修改，volatile 供 isAcceptingCalls 读取
+    private int halfOpenCompleted;
+    private int halfOpenFailures;
+    private int halfOpenSlowCalls;
+
+    private final LongAdder notPermittedCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    /**
+     * @param name                  名称 (用于日志)
+     * @param windowSize            滑动窗口大小 (最近多少次调用)
+     * @param minimumCalls          计算失败率之前至少需要的调用数
+     * @param failureRateThreshold  失败率阈值 (百分比，0-100]
+     * @param slowCallThresholdMillis 超过该耗时 (毫秒) 的调用视为慢调用
+     * @param slowCallRateThreshold 慢调用率阈值 (百分比，0-100]
+     * @param openWaitMillis        打开后等待多久 (毫秒) 进入半开状态
+     * @param halfOpenCalls         半开状态下放行的试探调用数
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, float failureRateThreshold,
+                          long slowCallThresholdMillis, float slowCallRateThreshold,
+                          long openWaitMillis, int halfOpenCalls) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenCalls <= 0 || slowCallThresholdMillis <= 0 || openWaitMillis < 0) {
+            throw new IllegalArgumentException("熔断器 " + name + " 的窗口大小、最少调用数、试探调用数和慢调用阈值必须大于 0");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100 || slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+            throw new IllegalArgumentException("熔断器 " + name + " 的失败率和慢调用率阈值必须在 (0, 100] 之间");
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMillis);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openWaitNanos = TimeUnit.MILLISECONDS.toNanos(openWaitMillis);
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * 判断是否放行一次调用
+     *
+     * @return 放行时返回当前 epoch (传给 {@link #onResult})，拒绝时返回 {@link #NOT_PERMITTED}
+     */
+    public int tryAcquirePermission() {
+        int currentEpoch = epoch;
+        if (state == State.CLOSED) {
+            return currentEpoch; // 快路径：不加锁
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openWaitNanos) {
+                    notPermittedCalls.increment();
+                    return NOT_PERMITTED;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    notPermittedCalls.increment();
+                    return NOT_PERMITTED;
+                }
+                halfOpenPermits--;
+            }
+            return epoch;
+        }
+    }
+
+    /**
+     * 当前是否会放行调用 (只读判断，不改变状态，也不占用半开状态的试探名额)
+     * <p>
+     * 负载均衡据此跳过不健康的支付渠道；打开状态等待期已过时返回 true，
+     * 以便下一次调用触发半开试探，渠道恢复后重新加入轮转。
+     * </p>
+     */
+    public boolean isAcceptingCalls() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return halfOpenPermits > 0;
+            default:
+                return System.nanoTime() - openedAtNanos >= openWaitNanos;
+        }
+    }
+
+    /**
+     * 记录一次已放行调用的结果
+     *
+     * @param permission    {@link #tryAcquirePermission()} 的返回值
+     * @param durationNanos 调用耗时
+     * @param success       调用是否成功
+     */
+    public void onResult(int permission, long durationNanos, boolean success) {
+        byte outcome = 0;
+        if (!success) {
+            outcome |= FAILED;
+            failedCalls.increment();
+        }
+        if (durationNanos >= slowCallThresholdNanos) {
+            outcome |= SLOW;
+            slowCalls.increment();
+        }
+        synchronized (this) {
+            if (permission != epoch) {
+                return; // 在之前的状态下放行的调用，不影响当前状态
+            }
+            if (state == State.CLOSED) {
+                recordInWindow(outcome);
+                if (windowCalls >= minimumCalls && exceedsThresholds(windowFailures, windowSlowCalls, windowCalls)) {
+                    transitionTo(State.OPEN);
+                }
+            } else if (state == State.HALF_OPEN) {
+                halfOpenCompleted++;
+                if ((outcome & FAILED) != 0) {
+                    halfOpenFailures++;
+                }
+                if ((outcome & SLOW) != 0) {
+                    halfOpenSlowCalls++;
+                }
+                if (halfOpenCompleted >= halfOpenCalls) {
+                    transitionTo(exceedsThresholds(halfOpenFailures, halfOpenSlowCalls, halfOpenCompleted) ? State.OPEN : State.CLOSED);
+                }
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取状态快照
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(state, rate(windowFailures, windowCalls), rate(windowSlowCalls, windowCalls), windowCalls,
+                notPermittedCalls.sum(), failedCalls.sum(), slowCalls.sum(), timesOpened.sum(), lastTransitionMillis);
+    }
+
+    private void recordInWindow(byte outcome) {
+        if (windowCalls == windowSize) {
+            // 窗口已满，先移出最早的结果
+            byte evicted = window[windowHead];
+            if ((evicted & FAILED) != 0) {
+                windowFailures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                windowSlowCalls--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowHead] = outcome;
+        if ((outcome & FAILED) != 0) {
+            windowFailures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            windowSlowCalls++;
+        }
+        windowHead = windowHead + 1 == windowSize ? 0 : windowHead + 1;
+    }
+
+    private boolean exceedsThresholds(int failures, int slow, int calls) {
+        return rate(failures, calls) >= failureRateThreshold || rate(slow, calls) >= slowCallRateThreshold;
+    }
+
+    private static float rate(int count, int calls) {
+        return calls == 0 ? 0f : count * 100f / calls;
+    }
+
+    /**
+     * 状态转换 (调用方需持有锁)
+     */
+    private void transitionTo(State target) {
+        State previous = state;
+        epoch++;
+        if (target == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            timesOpened.increment();
+        } else if (target == State.HALF_OPEN) {
+            halfOpenPermits = halfOpenCalls;
+            halfOpenCompleted = 0;
+            halfOpenFailures = 0;
+            halfOpenSlowCalls = 0;
+        } else {
+            windowHead = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+            windowSlowCalls = 0;
+        }
+        state = target;
+        lastTransitionMillis = System.currentTimeMillis();
+        System.out.println("熔断器 " + name + ": " + previous + " -> " + target);
+    }
+
+    /**
+     * 熔断器状态快照 (比例为百分比，只统计当前窗口)
+     */
+    public static class Snapshot {
+        private final State state;
+        private final float failureRate;
+        private final float slowCallRate;
+        private final int bufferedCalls;
+        private final long notPermittedCalls;
+        private final long failedCalls;
+        private final long slowCalls;
+        private final long timesOpened;
+        private final long lastTransitionMillis;
+
+        public Snapshot(State state, float failureRate, float slowCallRate, int bufferedCalls, long notPermittedCalls,
+                        long failedCalls, long slowCalls, long timesOpened, long lastTransitionMillis) {
+            this.state = state;
+            this.failureRate = failureRate;
+            this.slowCallRate = slowCallRate;
+            this.bufferedCalls = bufferedCalls;
+            this.notPermittedCalls = notPermittedCalls;
+            this.failedCalls = failedCalls;
+            this.slowCalls = slowCalls;
+            this.timesOpened = timesOpened;
+            this.lastTransitionMillis = lastTransitionMillis;
+        }
+
+        public State getState() { return state; }
+        public float getFailureRate() { return failureRate; }
+        public float getSlowCallRate() { return slowCallRate; }
+        public int getBufferedCalls() { return bufferedCalls; }
+        public long getNotPermittedCalls() { return notPermittedCalls; }
+        public long getFailedCalls() { return failedCalls; }
+        public long getSlowCalls() { return slowCalls; }
+        public long getTimesOpened() { return timesOpened; }
+        public long getLastTransitionMillis() { return lastTransitionMillis; }
+    }
+}
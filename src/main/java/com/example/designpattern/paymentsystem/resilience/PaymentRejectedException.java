@@ -0,0 +1,37 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/resilience/PaymentRejectedException.java
+package com.example.designpattern.paymentsystem.resilience;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+
+/**
+ * 支付在调用支付渠道之前就被拒绝 (快速失败)：熔断器处于打开状态，或该支付类型的并发已满。
+ * 支付渠道没有被调用，客户端可以稍后重试。
+ */
+public class PaymentRejectedException extends RuntimeException {
+
+    /**
+     * 拒绝原因
+     */
+    public enum Reason {
+        CIRCUIT_OPEN,  // 熔断器打开 (或半开状态下试探名额已用完)
+        BULKHEAD_FULL  // 该支付类型的并发数已达上限
+    }
+
+    private final PaymentType paymentType;
+    private final Reason reason;
+
+    public PaymentRejectedException(PaymentType paymentType, Reason reason) {
+        super(paymentType.getDescription() + (reason == Reason.CIRCUIT_OPEN ? " 暂时不可用 (熔断中)" : " 繁忙 (并发已满)"),
+                null, false, false); // 快速失败路径不需要堆栈
+        this.paymentType = paymentType;
+        this.reason = reason;
+    }
+
+    public PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
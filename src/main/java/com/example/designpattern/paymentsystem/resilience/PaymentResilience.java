@@ -0,0 +1,89 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/resilience/PaymentResilience.java
+package com.example.designpattern.paymentsystem.resilience;
+
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每个支付渠道 (支付服务 Bean) 一个舱壁和一个熔断器
+ * <p>
+ * 同一支付类型可能有多个渠道 (例如多条银行卡收单通道)，各自独立熔断，
+ * 负载均衡会跳过熔断中的渠道。
+ * </p>
+ * <p>
+ * 参数从 payment.resilience.* 读取，可以按渠道 (Bean 名称) 或支付类型覆盖，例如
+ * payment.resilience.alipay.bulkhead.max-concurrent=32 对所有支付宝渠道生效，
+ * payment.resilience.alipayService.bulkhead.max-concurrent=32 只对名为 alipayService 的渠道生效，
+ * 未覆盖的项使用 payment.resilience.bulkhead.max-concurrent 等全局值。
+ * </p>
+ */
+@Component
+public class PaymentResilience {
+
+    private static final String PREFIX = "payment.resilience.";
+
+    private final Environment env;
+    // 支付类型 -> 渠道名称 -> 舱壁和熔断器 (只在启动时由工厂注册，之后只读)
+    private final Map<PaymentType, Map<String, ResilientPaymentService>> providers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PaymentResilience(Environment env) {
+        this.env = env;
+    }
+
+    /**
+     * 为支付渠道创建舱壁和熔断器，并装饰该渠道的支付服务
+     *
+     * @param providerName 渠道名称 (支付服务的 Bean 名称)
+     * @param service      渠道的支付服务
+     */
+    public ResilientPaymentService decorate(String providerName, PaymentService service) {
+        PaymentType type = service.getServiceType();
+        Bulkhead bulkhead = new Bulkhead(setting(providerName, type, "bulkhead.max-concurrent", Integer.class, 16));
+        CircuitBreaker circuitBreaker = new CircuitBreaker(providerName,
+                setting(providerName, type, "circuit-breaker.window-size", Integer.class, 100),
+                setting(providerName, type, "circuit-breaker.minimum-calls", Integer.class, 20),
+                setting(providerName, type, "circuit-breaker.failure-rate-threshold", Float.class, 50f),
+                setting(providerName, type, "circuit-breaker.slow-call-threshold-ms", Long.class, 2000L),
+                setting(providerName, type, "circuit-breaker.slow-call-rate-threshold", Float.class, 80f),
+                setting(providerName, type, "circuit-breaker.open-wait-ms", Long.class, 10_000L),
+                setting(providerName, type, "circuit-breaker.half-open-calls", Integer.class, 5));
+        ResilientPaymentService decorated = new ResilientPaymentService(service, bulkhead, circuitBreaker);
+        providers.computeIfAbsent(type, t -> Collections.synchronizedMap(new LinkedHashMap<>())).put(providerName, decorated);
+        return decorated;
+    }
+
+    /**
+     * 所有渠道的舱壁和熔断器状态，按支付类型编码和渠道名称输出
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (PaymentType type : PaymentType.values()) {
+            Map<String, Object> byProvider = new LinkedHashMap<>();
+            providers.getOrDefault(type, Map.of()).forEach((name, service) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("circuitBreaker", service.getCircuitBreaker().snapshot());
+                entry.put("bulkhead", service.getBulkhead().snapshot());
+                byProvider.put(name, entry);
+            });
+            result.put(type.getCode(), byProvider);
+        }
+        return result;
+    }
+
+    private <T> T setting(String providerName, PaymentType type, String key, Class<T> valueType, T defaultValue) {
+        T value = env.getProperty(PREFIX + providerName + "." + key, valueType);
+        if (value == null) {
+            value = env.getProperty(PREFIX + type.getCode() + "." + key, valueType);
+        }
+        return value != null ? value : env.getProperty(PREFIX + key, valueType, defaultValue);
+    }
+}
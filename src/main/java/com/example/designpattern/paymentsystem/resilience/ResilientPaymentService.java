@@ -0,0 +1,107 @@
+// 文件路径: src/main/java/com/example/designpattern/paymentsystem/resilience/ResilientPaymentService.java
+package com.example.designpattern.paymentsystem.resilience;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 带舱壁和熔断器的 PaymentService 装饰器
+ * <p>
+ * 调用支付渠道前先占用舱壁名额，再询问熔断器；任何一个拒绝都立即抛出
+ * {@link PaymentRejectedException}，不会占用支付执行器。
+ * 异步支付的名额从提交一直占用到支付结束 (包括在执行器队列中等待的时间)，
+ * 因此慢渠道在执行器中的排队数也受舱壁限制。
+ * </p>
+ * <p>
+ * 参数错误 (IllegalArgumentException) 是调用方的问题，不计为支付渠道的失败。
+ * </p>
+ */
+public class ResilientPaymentService implements PaymentService {
+
+    private final PaymentService delegate;
+    private final PaymentType type;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public ResilientPaymentService(PaymentService delegate, Bulkhead bulkhead, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.type = delegate.getServiceType();
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void pay(Money amount) {
+        int permission = acquire();
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            delegate.pay(amount);
+        } catch (RuntimeException | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            complete(permission, start, error);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> payAsync(Money amount) {
+        int permission = acquire();
+        long start = System.nanoTime();
+        CompletableFuture<Void> result;
+        try {
+            result = delegate.payAsync(amount);
+        } catch (RuntimeException e) {
+            complete(permission, start, e); // 例如支付执行器已满拒绝了任务
+            throw e;
+        }
+        return result.whenComplete((ignored, error) -> complete(permission, start, error));
+    }
+
+    @Override
+    public PaymentType getServiceType() {
+        return type;
+    }
+
+    /**
+     * 熔断器当前是否会放行调用，负载均衡据此跳过不健康的支付渠道
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isAcceptingCalls();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    private int acquire() {
+        if (!bulkhead.tryAcquire()) {
+            throw new PaymentRejectedException(type, PaymentRejectedException.Reason.BULKHEAD_FULL);
+        }
+        int permission = circuitBreaker.tryAcquirePermission();
+        if (permission == CircuitBreaker.NOT_PERMITTED) {
+            bulkhead.release();
+            throw new PaymentRejectedException(type, PaymentRejectedException.Reason.CIRCUIT_OPEN);
+        }
+        return permission;
+    }
+
+    private void complete(int permission, long start, Throwable error) {
+        bulkhead.release();
+        circuitBreaker.onResult(permission, System.nanoTime() - start, !isProviderFailure(error));
+    }
+
+    private static boolean isProviderFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause != null && !(cause instanceof IllegalArgumentException);
+    }
+}
@@ -0,0 +1,19 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonappconfig/ConfigChangeListener.java
+package com.example.designpattern.singletonappconfig;
+
+/**
+ * 配置变更监听器 (观察者)
+ * <p>
+ * 新快照发布之后在配置监听线程上按版本顺序回调；回调抛出的异常只会被记录，不影响其他监听器和后续的重新加载。
+ * 回调应尽快返回，耗时的处理请交给其他线程。
+ * </p>
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    /**
+     * @param previous 旧的配置快照
+     * @param current  刚发布的配置快照
+     */
+    void onChange(ConfigSnapshot previous, ConfigSnapshot current);
+}
@@ -0,0 +1,53 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonappconfig/ConfigSnapshot.java
+package com.example.designpattern.singletonappconfig;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 某一时刻的完整配置 (不可变)
+ * <p>
+ * 每次重新加载都会创建一个新的快照，整体替换旧的快照，不会修改已发布的快照；
+ * 因此持有同一个快照读取多个配置项时，读到的一定是同一个版本的值。
+ * </p>
+ */
+public final class ConfigSnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String source;
+    private final Map<String, String> values;
+
+    ConfigSnapshot(long version, Instant loadedAt, String source, Map<String, String> values) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.source = source;
+        this.values = Map.copyOf(values);
+    }
+
+    public Optional<String> get(String key) {
+        return Optional.ofNullable(values.get(key));
+    }
+
+    /**
+     * 与另一个快照相比新增、删除或值发生变化的配置项
+     */
+    public Set<String> changedKeys(ConfigSnapshot previous) {
+        Set<String> changed = new HashSet<>();
+        values.forEach((key, value) -> {
+            if (!value.equals(previous.values.get(key))) {
+                changed.add(key);
+            }
+        });
+        previous.values.keySet().stream().filter(key -> !values.containsKey(key)).forEach(changed::add);
+        return changed;
+    }
+
+    public long getVersion() { return version; }
+    public Instant getLoadedAt() { return loadedAt; }
+    public String getSource() { return source; }
+    public Map<String, String> getValues() { return values; }
+}
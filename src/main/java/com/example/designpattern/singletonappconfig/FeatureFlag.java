@@ -0,0 +1,76 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonappconfig/FeatureFlag.java
+package com.example.designpattern.singletonappconfig;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 一个功能开关的句柄，通过 {@link FeatureFlags#flag(String)} 获取，建议保存在字段中重复使用
+ * <p>
+ * 判断时只读一次 volatile 引用、调用预先编译好的判断逻辑并累加计数器，不解析字符串，也不分配对象。
+ * 判断次数按线程分段计数，每段独占一个缓存行，自增是普通的读和写 (opaque)，没有 CAS 或加锁指令；
+ * 两个线程落在同一段上同时自增时可能丢失计数，因此次数是近似值，只用于找出热点开关。
+ * 配置变化后 {@link FeatureFlags} 会替换句柄中的判断逻辑，持有句柄的代码无需重新获取。
+ * </p>
+ */
+public final class FeatureFlag {
+
+    /**
+     * 编译后的判断逻辑
+     */
+    interface Evaluator {
+        boolean evaluate(String merchantId);
+    }
+
+    private final String name;
+    private volatile Evaluator evaluator;
+    private volatile String definition; // 便于排查的配置描述，例如 "rollout 25.00% + 白名单 3 个商户"
+    private static final int STRIPES = 16;
+    private static final int PADDING = 8; // 8 个 long = 64 字节，每段计数器独占一个缓存行
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] evaluations = new long[STRIPES * PADDING];
+
+    FeatureFlag(String name, Evaluator evaluator, String definition) {
+        this.name = name;
+        this.evaluator = evaluator;
+        this.definition = definition;
+    }
+
+    /**
+     * 不区分商户的判断：只有开关打开且没有配置灰度比例 (或比例为 100%) 时为 true
+     */
+    public boolean isEnabled() {
+        return isEnabled(null);
+    }
+
+    /**
+     * 判断开关对某个商户是否打开
+     *
+     * @param merchantId 商户编号，为 null 时按不区分商户处理
+     */
+    public boolean isEnabled(String merchantId) {
+        int slot = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+        COUNTS.setOpaque(evaluations, slot, (long) COUNTS.getOpaque(evaluations, slot) + 1);
+        return evaluator.evaluate(merchantId);
+    }
+
+    void update(Evaluator evaluator, String definition) {
+        this.definition = definition;
+        this.evaluator = evaluator;
+    }
+
+    public String getName() { return name; }
+    public String getDefinition() { return definition; }
+
+    /**
+     * 判断次数 (近似值)
+     */
+    public long getEvaluations() {
+        long sum = 0;
+        for (int slot = 0; slot < evaluations.length; slot += PADDING) {
+            sum += (long) COUNTS.getOpaque(evaluations, slot);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,181 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonappconfig/FeatureFlags.java
+package com.example.designpattern.singletonappconfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 {@link ManualAppConfigManager} 的功能开关
+ * <p>
+ * 配置项 (name 可以包含点号)：
+ * <ul>
+ *     <li>feature.&lt;name&gt;.enabled —— 总开关，不是 true 时对所有商户关闭；</li>
+ *     <li>feature.&lt;name&gt;.rollout-percent —— 灰度比例 (0~100，最多两位小数)，不配置时对所有商户打开；</li>
+ *     <li>feature.&lt;name&gt;.allow-merchants —— 逗号分隔的商户白名单，总开关打开时这些商户不受灰度比例限制。</li>
+ * </ul>
+ * 灰度按商户编号和开关名称做一致性哈希，把商户稳定地分到 10000 个桶中的一个：同一商户每次判断的结果相同，
+ * 调高比例时已经打开的商户保持打开；不同开关的哈希加了不同的盐，灰度到的商户互不相关。
+ * </p>
+ * <p>
+ * 每次配置变化时，把所有开关重新编译为判断逻辑并替换到各自的 {@link FeatureFlag} 句柄中；
+ * 判断时不再读取、解析配置。配置不合法的开关按关闭处理。
+ * </p>
+ */
+public class FeatureFlags {
+
+    private static final String PREFIX = "feature.";
+    private static final String ENABLED = ".enabled";
+    private static final String ROLLOUT_PERCENT = ".rollout-percent";
+    private static final String ALLOW_MERCHANTS = ".allow-merchants";
+    private static final int BUCKETS = 10_000; // 灰度比例的精度为 0.01%
+
+    private static final FeatureFlag.Evaluator OFF = merchantId -> false;
+    private static final FeatureFlag.Evaluator ON = merchantId -> true;
+
+    private final Map<String, FeatureFlag> flags = new ConcurrentHashMap<>();
+    private final Object compileLock = new Object(); // 编译与新建句柄互斥，避免新句柄拿到旧的判断逻辑
+    private Map<String, Compiled> compiled = Map.of(); // 只在 compileLock 内访问
+
+    FeatureFlags(ManualAppConfigManager configManager) {
+        configManager.addChangeListener((previous, current) -> compile(current));
+        compile(configManager.getSnapshot());
+    }
+
+    /**
+     * 获取功能开关的句柄 (配置中没有的开关也会返回句柄，在出现配置之前按关闭处理)
+     */
+    public FeatureFlag flag(String name) {
+        FeatureFlag flag = flags.get(name);
+        if (flag != null) {
+            return flag;
+        }
+        synchronized (compileLock) {
+            return flags.computeIfAbsent(name, key -> {
+                Compiled definition = compiled.getOrDefault(key, Compiled.UNDEFINED);
+                return new FeatureFlag(key, definition.evaluator, definition.description);
+            });
+        }
+    }
+
+    /**
+     * 所有开关的判断次数，按判断次数从多到少排列
+     */
+    public Map<String, Object> stats() {
+        List<FeatureFlag> sorted = new ArrayList<>(flags.values());
+        sorted.sort(Comparator.comparingLong(FeatureFlag::getEvaluations).reversed());
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (FeatureFlag flag : sorted) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("definition", flag.getDefinition());
+            stats.put("evaluations", flag.getEvaluations());
+            result.put(flag.getName(), stats);
+        }
+        return result;
+    }
+
+    private void compile(ConfigSnapshot snapshot) {
+        Map<String, Map<String, String>> byName = new HashMap<>();
+        snapshot.getValues().forEach((key, value) -> {
+            for (String suffix : new String[]{ENABLED, ROLLOUT_PERCENT, ALLOW_MERCHANTS}) {
+                if (key.startsWith(PREFIX) && key.endsWith(suffix) && key.length() > PREFIX.length() + suffix.length()) {
+                    String name = key.substring(PREFIX.length(), key.length() - suffix.length());
+                    byName.computeIfAbsent(name, n -> new HashMap<>()).put(suffix, value.trim());
+                }
+            }
+        });
+        Map<String, Compiled> result = new HashMap<>();
+        byName.forEach((name, settings) -> result.put(name, compile(name, settings)));
+
+        synchronized (compileLock) {
+            compiled = result;
+            flags.forEach((name, flag) -> {
+                Compiled definition = result.getOrDefault(name, Compiled.UNDEFINED);
+                flag.update(definition.evaluator, definition.description);
+            });
+        }
+    }
+
+    private static Compiled compile(String name, Map<String, String> settings) {
+        if (!"true".equalsIgnoreCase(settings.get(ENABLED))) {
+            return new Compiled(OFF, "关闭");
+        }
+        Set<String> allowList = parseAllowList(settings.get(ALLOW_MERCHANTS));
+        String percentValue = settings.get(ROLLOUT_PERCENT);
+        if (percentValue == null) {
+            return new Compiled(ON, "打开");
+        }
+        double percent;
+        try {
+            percent = Double.parseDouble(percentValue);
+        } catch (NumberFormatException e) {
+            percent = Double.NaN;
+        }
+        // 先检查范围再取整：NaN、Infinity 和超大的数都按配置错误处理
+        if (!(percent >= 0 && percent <= 100)) {
+            System.err.println("功能开关: " + PREFIX + name + ROLLOUT_PERCENT + " 不是 0~100 之间的数字 (" + percentValue + ")，按关闭处理");
+            return new Compiled(OFF, "配置错误，关闭");
+        }
+        int threshold = (int) Math.round(percent * (BUCKETS / 100));
+        String description = String.format("灰度 %.2f%%", threshold * 100.0 / BUCKETS)
+                + (allowList.isEmpty() ? "" : " + 白名单 " + allowList.size() + " 个商户");
+        if (threshold == BUCKETS) {
+            return new Compiled(ON, description);
+        }
+        int salt = mix(name.hashCode());
+        int limit = threshold;
+        if (allowList.isEmpty()) {
+            return new Compiled(merchantId -> merchantId != null && bucket(salt, merchantId) < limit, description);
+        }
+        return new Compiled(merchantId -> merchantId != null
+                && (bucket(salt, merchantId) < limit || allowList.contains(merchantId)), description);
+    }
+
+    private static Set<String> parseAllowList(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(merchantId -> !merchantId.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 商户在某个开关下的桶号 (0 ~ 9999)；String.hashCode 由规范定义且缓存在字符串中，各个 JVM 上结果一致
+     */
+    static int bucket(int salt, String merchantId) {
+        return Integer.remainderUnsigned(mix(merchantId.hashCode() ^ salt), BUCKETS);
+    }
+
+    /**
+     * MurmurHash3 的 fmix32，让相近的 hashCode (例如 merchant-1、merchant-2) 均匀分散
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Compiled {
+        static final Compiled UNDEFINED = new Compiled(OFF, "未配置");
+
+        final FeatureFlag.Evaluator evaluator;
+        final String description;
+
+        Compiled(FeatureFlag.Evaluator evaluator, String description) {
+            this.evaluator = evaluator;
+            this.description = description;
+        }
+    }
+}
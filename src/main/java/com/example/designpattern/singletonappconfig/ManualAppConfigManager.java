@@ -1,26 +1,99 @@
 // 文件路径: src/main/java/com/example/designpattern/singletonappconfig/ManualAppConfigManager.java
 package com.example.designpattern.singletonappconfig;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 手动实现的单例应用配置管理器 (使用静态内部类方式)
  * 注意：这主要用于演示目的，在Spring项目中通常不推荐这样做。
+ * <p>
+ * 配置从 properties 文件加载 (系统属性 app.config.file，默认 ./config/app-config.properties，不存在时使用内置默认值)，
+ * 并由一个守护线程通过 WatchService 监听文件所在目录，文件变化后自动重新加载，无需重新部署。
+ * </p>
+ * <p>
+ * 全部配置保存在一个不可变的 {@link ConfigSnapshot} 中，通过唯一的 volatile 引用发布：
+ * 重新加载时先完整构建新快照，再一次性替换引用。读取 (getConfiguration) 只是一次 volatile 读加一次 Map 查找，
+ * 不加锁，也不会读到只更新了一部分的配置。只有重新加载 (写) 之间互斥。
+ * </p>
+ * <p>
+ * 写配置文件时建议先写临时文件再原子重命名；直接覆盖写入时，监听线程可能在写入中途读到不完整的文件，
+ * 虽然写完后的事件会再次加载出完整的配置，但中间可能短暂发布一个不完整的版本。
+ * </p>
  */
-public class ManualAppConfigManager {
+public class ManualAppConfigManager implements AutoCloseable {
 
-    private final Map<String, String> configurations = new HashMap<>();
+    /**
+     * 指定配置文件路径的系统属性
+     */
+    public static final String CONFIG_FILE_PROPERTY = "app.config.file";
+    private static final String DEFAULT_CONFIG_FILE = "config/app-config.properties";
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "apiKey", "your_manual_api_key_12345",
+            "theme", "dark",
+            "feature.x.enabled", "true");
+    /**
+     * 编辑器保存文件时通常连续触发多个事件，收到事件后等这么久没有新事件再加载，把它们合并为一次
+     */
+    static final long DEBOUNCE_MILLIS = 20;
+
+    private final Path file;
+    private volatile ConfigSnapshot snapshot; // 唯一的共享可变状态，读者只读这个引用
+    private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object reloadLock = new Object(); // 只在重新加载之间互斥，读者从不获取
+    private final WatchService watchService; // 配置文件所在目录不存在时为 null (不监听)
+    private final FeatureFlags featureFlags;
+    private final FeatureFlag featureX;
 
     // 1. 私有化构造函数
     private ManualAppConfigManager() {
-        // 模拟加载配置的过程
-        System.out.println("手动单例 ManualAppConfigManager: 正在加载配置...");
-        configurations.put("apiKey", "your_manual_api_key_12345");
-        configurations.put("theme", "dark");
-        configurations.put("feature.x.enabled", "true");
-        System.out.println("手动单例 ManualAppConfigManager: 配置加载完毕。");
+        this(Paths.get(System.getProperty(CONFIG_FILE_PROPERTY, DEFAULT_CONFIG_FILE)));
+    }
+
+    /**
+     * 从指定文件加载并开始监听 (测试和基准测试使用，应用中请使用 {@link #getInstance()})
+     */
+    ManualAppConfigManager(Path file) {
+        this.file = file.toAbsolutePath().normalize();
+        System.out.println("手动单例 ManualAppConfigManager: 正在从 " + this.file + " 加载配置...");
+        Map<String, String> values;
+        String source;
+        try {
+            values = read(this.file);
+            source = this.file.toString();
+        } catch (NoSuchFileException e) {
+            values = DEFAULTS;
+            source = "内置默认值";
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("无法加载配置文件 " + this.file + ": " + e.getMessage(), e);
+        }
+        snapshot = new ConfigSnapshot(1, Instant.now(), source, values);
+        System.out.println("手动单例 ManualAppConfigManager: 配置加载完毕 (" + source + ")。");
+        // 功能开关最先注册监听器，其他监听器收到变更通知时开关已经是新配置
+        featureFlags = new FeatureFlags(this);
+        featureX = featureFlags.flag("x");
+        watchService = startWatching();
     }
 
     // 2. 定义一个私有的静态内部类来持有单例实例
@@ -33,24 +106,172 @@ public class ManualAppConfigManager {
         return SingletonHolder.INSTANCE;
     }
 
-    // 提供获取配置的方法
+    // 提供获取配置的方法 (不加锁)
     public Optional<String> getConfiguration(String key) {
-        return Optional.ofNullable(configurations.get(key));
+        return snapshot.get(key);
+    }
+
+    /**
+     * 当前的完整配置快照；需要同时读取多个相关配置项时使用，保证读到的是同一个版本
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public boolean isFeatureXEnabled() {
-        return Boolean.parseBoolean(getConfiguration("feature.x.enabled").orElse("false"));
+        return featureX.isEnabled();
+    }
+
+    /**
+     * 基于当前配置的功能开关 (支持按商户灰度)
+     */
+    public FeatureFlags getFeatureFlags() {
+        return featureFlags;
+    }
+
+    /**
+     * 注册配置变更监听器
+     */
+    public void addChangeListener(ConfigChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ConfigChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 立即重新读取配置文件，内容有变化时发布新快照并通知监听器
+     * <p>
+     * 文件不存在或格式错误时保留当前配置。
+     * </p>
+     *
+     * @return 是否发布了新快照
+     */
+    public boolean reload() {
+        Map<String, String> values;
+        try {
+            values = read(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("手动单例 ManualAppConfigManager: 重新加载 " + file + " 失败，保留当前配置: " + e);
+            return false;
+        }
+        return publish(values, file.toString());
+    }
+
+    /**
+     * 以给定的配置发布新快照 (与当前配置相同时不发布)，并按版本顺序通知监听器
+     */
+    boolean publish(Map<String, String> values, String source) {
+        synchronized (reloadLock) {
+            ConfigSnapshot previous = snapshot;
+            if (previous.getValues().equals(values)) {
+                return false;
+            }
+            ConfigSnapshot current = new ConfigSnapshot(previous.getVersion() + 1, Instant.now(), source, values);
+            snapshot = current; // 新快照在这里一次性对所有读者可见
+            for (ConfigChangeListener listener : listeners) {
+                try {
+                    listener.onChange(previous, current);
+                } catch (RuntimeException e) {
+                    System.err.println("手动单例 ManualAppConfigManager: 配置变更监听器出错: " + e);
+                }
+            }
+            return true;
+        }
+    }
+
+    private static Map<String, String> read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, properties.getProperty(key));
+        }
+        return values;
+    }
+
+    /**
+     * 监听配置文件所在的目录 (WatchService 只能监听目录)，只处理与配置文件同名的事件
+     */
+    private WatchService startWatching() {
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            System.err.println("手动单例 ManualAppConfigManager: 目录 " + directory + " 不存在，不监听配置文件变化");
+            return null;
+        }
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法监听配置目录 " + directory, e);
+        }
+        Thread watcher = new Thread(() -> watch(service), "app-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return service;
+    }
+
+    private void watch(WatchService service) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                if (!isConfigFileEvent(service.take(), fileName)) {
+                    continue;
+                }
+                // 合并短时间内的连续事件
+                WatchKey next;
+                while ((next = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigFileEvent(next, fileName);
+                }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() 之后正常退出
+        }
+    }
+
+    private static boolean isConfigFileEvent(WatchKey key, Path fileName) {
+        boolean matched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // OVERFLOW 表示丢失了事件，保守起见也重新加载
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                matched = true;
+            }
+        }
+        key.reset();
+        return matched;
+    }
+
+    /**
+     * 停止监听配置文件 (单例随进程存在，通常不需要调用)
+     */
+    @Override
+    public void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                System.err.println("手动单例 ManualAppConfigManager: 关闭配置监听失败: " + e);
+            }
+        }
     }
 
     // 方便演示的打印所有配置方法
     public void printAllConfigurations() {
-        System.out.println("--- 手动单例配置项 ---");
-        configurations.forEach((key, value) -> System.out.println(key + " = " + value));
+        ConfigSnapshot current = snapshot;
+        System.out.println("--- 手动单例配置项 (版本 " + current.getVersion() + "，来源 " + current.getSource() + ") ---");
+        new TreeMap<>(current.getValues()).forEach((key, value) -> System.out.println(key + " = " + value));
         System.out.println("----------------------");
     }
 
     // 这是一个示例，可以放在一个main方法或者其他测试代码中
- public static void main(String[] args) {
+ public static void main(String[] args) throws InterruptedException {
      ManualAppConfigManager configManager = ManualAppConfigManager.getInstance();
      configManager.printAllConfigurations();
 
@@ -59,5 +280,11 @@ public class ManualAppConfigManager {
 
      ManualAppConfigManager anotherRef = ManualAppConfigManager.getInstance();
      System.out.println("configManager 和 anotherRef 是同一个实例吗? " + (configManager == anotherRef)); // true
+
+     // 修改配置文件后会自动重新加载，这里打印每次变更的配置项
+     configManager.addChangeListener((previous, current) ->
+             System.out.println("配置已更新到版本 " + current.getVersion() + "，变化的配置项: " + current.changedKeys(previous)));
+     System.out.println("修改 " + configManager.file + " 试试看 (60 秒后退出)...");
+     TimeUnit.SECONDS.sleep(60);
  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonpattern/Lazy.java
+package com.example.designpattern.singletonpattern;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 可复用的延迟初始化容器，取代为每个组件复制一遍 {@link SingletonDCL}
+ * <pre>
+ * private static final Lazy&lt;ExpensiveClient&gt; CLIENT = Lazy.of(ExpensiveClient::new);
+ * ...
+ * CLIENT.get().call();
+ * </pre>
+ * <p>
+ * 与 DCL 相同的两次检查，但用 VarHandle 的 acquire/release 语义代替 volatile：
+ * 初始化完成后用 setRelease 发布实例 (保证构造函数中的写入先于引用可见)，读取用 getAcquire，
+ * 不加锁，在 x86 上与普通字段读取一样便宜。只有实例尚未创建时才进入锁。
+ * </p>
+ * <p>
+ * 初始化抛出异常时不缓存任何结果，异常原样抛给调用方，下一次 get() 重新初始化；
+ * 同时在等待锁的线程也会依次重试，不会拿到半初始化的对象。初始化过程中同一线程再次调用 get()
+ * (循环依赖) 抛出 IllegalStateException，而不是无限递归。初始化结果不能为 null。
+ * </p>
+ *
+ * @param <T> 实例类型
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object lock = new Object();
+    private Supplier<? extends T> initializer; // 初始化成功后置为 null，释放它引用的对象；只在持有锁时访问
+    private Thread initializingThread;         // 正在执行初始化的线程，用于发现循环依赖；只在持有锁时访问
+    @SuppressWarnings("unused")
+    private T value;                           // 只通过 VALUE 访问
+
+    private Lazy(Supplier<? extends T> initializer) {
+        this.initializer = Objects.requireNonNull(initializer, "initializer");
+    }
+
+    public static <T> Lazy<T> of(Supplier<? extends T> initializer) {
+        return new Lazy<>(initializer);
+    }
+
+    /**
+     * 返回实例，第一次调用时创建
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        T current = (T) VALUE.getAcquire(this);
+        return current != null ? current : initialize();
+    }
+
+    /**
+     * 是否已经创建了实例 (不会触发创建)
+     */
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T initialize() {
+        synchronized (lock) {
+            T current = (T) VALUE.getAcquire(this);
+            if (current != null) {
+                return current; // 等锁期间已被其他线程创建
+            }
+            if (initializingThread == Thread.currentThread()) {
+                throw new IllegalStateException("初始化过程中再次访问了自身 (循环依赖)");
+            }
+            initializingThread = Thread.currentThread();
+            try {
+                T created = Objects.requireNonNull(initializer.get(), "初始化结果不能为 null");
+                initializer = null;
+                VALUE.setRelease(this, created);
+                return created;
+            } finally {
+                initializingThread = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isInitialized() ? "Lazy[" + get() + "]" : "Lazy[未初始化]";
+    }
+}
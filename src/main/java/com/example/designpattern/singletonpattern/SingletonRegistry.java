@@ -0,0 +1,59 @@
+// 文件路径: src/main/java/com/example/designpattern/singletonpattern/SingletonRegistry.java
+package com.example.designpattern.singletonpattern;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按类型登记的单例注册表
+ * <p>
+ * 先用 {@link #register(Class, Supplier)} 登记创建方式，第一次 {@link #get(Class)} 时才创建实例，之后一直返回同一个实例。
+ * 每个类型对应一个 {@link Lazy}，也就是每个类型一把锁：一个组件初始化很慢时只阻塞获取该组件的线程，
+ * 组件的创建方式中还可以通过注册表获取它依赖的其他组件。实例创建之后 get() 只是一次
+ * ConcurrentHashMap 查找加一次 acquire 读，不加锁。
+ * </p>
+ * <p>
+ * 没有直接用 ConcurrentHashMap.computeIfAbsent 创建实例：它在创建期间锁住的是整个哈希桶，
+ * 同一个桶中的其他类型也要等待，并且在创建方式中再访问同一个 Map 可能抛出 IllegalStateException 或死锁。
+ * </p>
+ * <p>
+ * 创建抛出异常时异常原样抛给调用方，不缓存结果，下一次 get() 会重新创建；循环依赖抛出 IllegalStateException。
+ * </p>
+ */
+public class SingletonRegistry {
+
+    private final Map<Class<?>, Lazy<?>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 登记一个类型的创建方式
+     *
+     * @throws IllegalStateException 该类型已经登记过
+     */
+    public <T> void register(Class<T> type, Supplier<? extends T> factory) {
+        if (entries.putIfAbsent(type, Lazy.of(factory)) != null) {
+            throw new IllegalStateException("类型 " + type.getName() + " 已经登记过");
+        }
+    }
+
+    /**
+     * 获取某个类型的单例，第一次获取时创建
+     *
+     * @throws IllegalArgumentException 该类型没有登记
+     */
+    public <T> T get(Class<T> type) {
+        Lazy<?> lazy = entries.get(type);
+        if (lazy == null) {
+            throw new IllegalArgumentException("类型 " + type.getName() + " 没有登记");
+        }
+        return type.cast(lazy.get());
+    }
+
+    /**
+     * 某个类型的单例是否已经创建 (不会触发创建)
+     */
+    public boolean isInitialized(Class<?> type) {
+        Lazy<?> lazy = entries.get(type);
+        return lazy != null && lazy.isInitialized();
+    }
+}
@@ -0,0 +1,191 @@
+// 文件路径: src/main/java/com/example/designpattern/startup/StartupTimingReport.java
+package com.example.designpattern.startup;
+
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动耗时报告
+ * <p>
+ * {@link com.example.designpattern.DesignPatternApplication} 使用 {@link BufferingApplicationStartup} 记录启动步骤，
+ * 应用就绪时按阶段汇总输出：JVM 启动到 main、Spring Boot 准备环境和上下文、上下文刷新
+ * (其中的配置类解析与组件扫描、Web 服务器创建、Bean 创建、Web 服务器启动)，以及就绪时刻。
+ * 输出后清空缓冲的启动步骤，不再占用内存。
+ * </p>
+ * <p>
+ * 之后第一笔支付成功时再输出一行 (JVM 启动后多久、就绪后多久)。
+ * 延迟初始化 (fast-start profile) 会把 Bean 创建从启动阶段推迟到第一个请求，
+ * 这一行反映的才是扩容后新实例真正可用的时间。
+ * </p>
+ */
+@Component
+public class StartupTimingReport implements SmartLifecycle {
+
+    /**
+     * 缓冲的启动步骤数上限，超出后的步骤不再记录 (本应用启动时约 2000 个步骤)
+     */
+    public static final int TIMELINE_CAPACITY = 8192;
+    private static final int SLOWEST_BEANS = 5;
+
+    private final BufferingApplicationStartup applicationStartup; // 未使用 BufferingApplicationStartup 启动时 (例如测试) 为 null
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile Instant lifecycleStartedAt; // 所有 Bean 创建完成、开始启动 Web 服务器等生命周期组件的时刻
+    private volatile Instant webServerStartedAt;
+    private volatile Instant readyAt;
+
+    public StartupTimingReport(ConfigurableApplicationContext context, PaymentMetrics paymentMetrics) {
+        this.applicationStartup = context.getApplicationStartup() instanceof BufferingApplicationStartup buffering ? buffering : null;
+        paymentMetrics.onFirstSuccess(this::reportFirstPayment);
+    }
+
+    /**
+     * 最先启动的生命周期组件，用于区分 Bean 创建与 Web 服务器启动
+     */
+    @Override
+    public void start() {
+        lifecycleStartedAt = Instant.now();
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public boolean isRunning() {
+        return lifecycleStartedAt != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        webServerStartedAt = Instant.now();
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyAt = Instant.now();
+        if (applicationStartup == null) {
+            System.out.printf("启动耗时: 就绪于 JVM 启动后 %d ms (Spring Boot %d ms)%n", uptime(readyAt), event.getTimeTaken().toMillis());
+            return;
+        }
+        StartupTimeline timeline = applicationStartup.drainBufferedTimeline();
+        System.out.println(format(timeline.getStartTime(), timeline.getEvents()));
+    }
+
+    private String format(Instant mainStartedAt, List<StartupTimeline.TimelineEvent> events) {
+        Map<Long, StartupTimeline.TimelineEvent> byId = new HashMap<>();
+        StartupTimeline.TimelineEvent refresh = null;
+        StartupTimeline.TimelineEvent webServerCreate = null;
+        long configParseMillis = 0;
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            byId.put(step.getId(), event);
+            switch (step.getName()) {
+                case "spring.context.refresh" -> refresh = event;
+                case "spring.boot.webserver.create" -> webServerCreate = event;
+                case "spring.context.config-classes.parse" -> configParseMillis += event.getDuration().toMillis();
+                default -> { }
+            }
+        }
+
+        // Bean 创建：只累加生命周期启动之前、最外层的创建步骤 (嵌套创建的依赖已包含在内)；
+        // 每个 Bean 的独占耗时 = 自身耗时 - 其依赖的创建耗时
+        Map<Long, Long> exclusiveNanos = new HashMap<>();
+        long beanNanos = 0;
+        int beans = 0;
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            if (!"spring.beans.instantiate".equals(step.getName())) {
+                continue;
+            }
+            long nanos = event.getDuration().toNanos();
+            exclusiveNanos.merge(step.getId(), nanos, Long::sum);
+            StartupTimeline.TimelineEvent parent = step.getParentId() != null ? byId.get(step.getParentId()) : null;
+            if (parent != null && "spring.beans.instantiate".equals(parent.getStartupStep().getName())) {
+                exclusiveNanos.merge(parent.getStartupStep().getId(), -nanos, Long::sum);
+            }
+            // Web 服务器工厂计入 Web 服务器创建，Web 服务器启动时才创建的 Filter 等计入 Web 服务器启动
+            boolean beforeLifecycle = lifecycleStartedAt == null || event.getEndTime().isBefore(lifecycleStartedAt);
+            if (beforeLifecycle) {
+                beans++;
+                if (parent == null || (parent != webServerCreate && !"spring.beans.instantiate".equals(parent.getStartupStep().getName()))) {
+                    beanNanos += nanos;
+                }
+            }
+        }
+        List<Map.Entry<Long, Long>> slowest = new ArrayList<>(exclusiveNanos.entrySet());
+        slowest.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+
+        StringBuilder report = new StringBuilder("启动耗时 (括号内为阶段结束时 JVM 已运行的毫秒数):\n");
+        line(report, "JVM 启动 → main", uptime(mainStartedAt), uptime(mainStartedAt));
+        if (refresh != null) {
+            line(report, "准备环境与上下文", Duration.between(mainStartedAt, refresh.getStartTime()).toMillis(), uptime(refresh.getStartTime()));
+            line(report, "上下文刷新", refresh.getDuration().toMillis(), uptime(refresh.getEndTime()));
+            line(report, "  配置类解析与组件扫描", configParseMillis, -1);
+            if (webServerCreate != null) {
+                line(report, "  Web 服务器创建", webServerCreate.getDuration().toMillis(), uptime(webServerCreate.getEndTime()));
+            }
+            line(report, "  Bean 创建 (" + beans + " 个)", beanNanos / 1_000_000, -1);
+            if (lifecycleStartedAt != null && webServerStartedAt != null) {
+                line(report, "  Web 服务器启动", Duration.between(lifecycleStartedAt, webServerStartedAt).toMillis(), uptime(webServerStartedAt));
+            }
+            line(report, "刷新后到就绪 (runner、事件)", Duration.between(refresh.getEndTime(), readyAt).toMillis(), uptime(readyAt));
+        } else {
+            line(report, "main → 就绪", Duration.between(mainStartedAt, readyAt).toMillis(), uptime(readyAt));
+        }
+        report.append("  最慢的 Bean (不含依赖):");
+        for (int i = 0; i < Math.min(SLOWEST_BEANS, slowest.size()); i++) {
+            StartupStep step = byId.get(slowest.get(i).getKey()).getStartupStep();
+            report.append(i == 0 ? " " : ", ").append(beanName(step)).append(' ').append(slowest.get(i).getValue() / 1_000_000).append(" ms");
+        }
+        return report.toString();
+    }
+
+    /**
+     * 阶段名称放在行尾：中文按两个字符宽度显示，放在前面无法对齐
+     */
+    private static void line(StringBuilder report, String phase, long millis, long uptimeMillis) {
+        report.append(String.format("  %6d ms %8s  %s%n", millis, uptimeMillis >= 0 ? "(" + uptimeMillis + ")" : "", phase));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    private void reportFirstPayment() {
+        Instant now = Instant.now();
+        Instant ready = readyAt;
+        System.out.printf("启动耗时: 首笔成功支付于 JVM 启动后 %d ms%s%n", uptime(now),
+                ready != null ? " (就绪后 " + Duration.between(ready, now).toMillis() + " ms)" : "");
+    }
+
+    private long uptime(Instant instant) {
+        return instant.toEpochMilli() - jvmStartMillis;
+    }
+}
@@ -0,0 +1,90 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/FrequencySketch.java
+package com.example.designpattern.userprofile;
+
+/**
+ * 估算 long 键近期访问频率的 count-min sketch (TinyLFU 的频率过滤器)
+ * <p>
+ * 每个 long 存 16 个 4 位计数器 (最大 15)，一个键对应 4 个计数器，频率取其中的最小值，
+ * 哈希冲突只会让估算偏大。累计增加 sampleSize 次后所有计数器减半 (老化)，
+ * 让过去很热、现在不再访问的键逐渐失去优势。每个计数器只占半个字节，
+ * 不需要为每个出现过的键保存条目，被淘汰或从未进入缓存的键的频率也能记住。
+ * </p>
+ * <p>
+ * 非线程安全，由使用方负责同步。
+ * </p>
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777777777777777L; // 每个 4 位计数器右移一位后清掉借入的高位
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * 按预计的条目数调整大小 (只增不减，调整后频率从零开始)
+     */
+    void ensureCapacity(int maximumEntries) {
+        int length = Integer.highestOneBit(Math.max(16, maximumEntries) - 1) << 1;
+        if (length <= table.length) {
+            return;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * length;
+        additions = 0;
+    }
+
+    /**
+     * 键的估算频率 (0~15)
+     */
+    int frequency(long key) {
+        long hash = LongHash.spread(key);
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            long slot = indexOf(hash, i);
+            int shift = (int) (slot >>> 32);
+            frequency = Math.min(frequency, (int) (table[(int) slot] >>> shift) & 15);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问；达到采样数时整体减半
+     */
+    void increment(long key) {
+        long hash = LongHash.spread(key);
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            long slot = indexOf(hash, i);
+            int index = (int) slot;
+            int shift = (int) (slot >>> 32);
+            if (((table[index] >>> shift) & 15) != 15) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    /**
+     * 第 i 个计数器的位置：低 32 位为 table 下标，高 32 位为计数器在 long 中的位移
+     */
+    private long indexOf(long hash, int i) {
+        long h = (hash + i) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        int index = (int) (h >>> 32) & tableMask;
+        int shift = ((int) h & 15) << 2;
+        return ((long) shift << 32) | index;
+    }
+}
@@ -0,0 +1,23 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/LongHash.java
+package com.example.designpattern.userprofile;
+
+/**
+ * long 键的哈希函数 (userprofile 包内的开放寻址表、缓存分段和频率估算共用)
+ */
+final class LongHash {
+
+    private LongHash() {
+    }
+
+    /**
+     * MurmurHash3 的 fmix64，连续的 userId 也能均匀分布到所有位上
+     */
+    static long spread(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,83 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/LongIntIndex.java
+package com.example.designpattern.userprofile;
+
+/**
+ * long → 非负 int 的开放寻址哈希表 (线性探测)，键不装箱，每个条目只占 12 字节
+ * <p>
+ * 值存为 value + 1，0 表示空槽，因此任意 long 都可以作为键。负载因子不超过 0.5。
+ * 只支持插入和查找，非线程安全。
+ * </p>
+ */
+final class LongIntIndex {
+
+    private long[] keys = new long[1024];
+    private int[] values = new int[1024]; // value + 1，0 表示空槽
+    private int mask = 1023;
+    private int size;
+
+    /**
+     * @return 键对应的值，不存在时返回 -1
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == 0) {
+                return -1;
+            }
+            if (keys[slot] == key) {
+                return value - 1;
+            }
+        }
+    }
+
+    /**
+     * 插入或覆盖
+     */
+    void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value 不能为负数: " + value);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int slot = slot(key);
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bytes() {
+        return MemoryLayout.array(keys.length, 8) + MemoryLayout.array(values.length, 4);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) LongHash.spread(key) & mask;
+    }
+}
@@ -0,0 +1,97 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/MappedUserProfileFile.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 通过内存映射按下标随机读取 {@link UserProfileBinaryWriter} 写出的文件 (格式见 {@link UserProfileBinaryFormat})
+ * <p>
+ * 打开时只读取 trailer 和字典；{@link #get(int)} 从偏移量表找到记录位置后直接在映射内存 (页缓存) 上解码，
+ * 没有 read 系统调用，也不需要把文件读进堆。只使用绝对位置读取，可以被多个线程同时调用。
+ * 单个 MappedByteBuffer 最多映射 2 GB，更大的文件需要拆分写入。
+ * </p>
+ */
+public class MappedUserProfileFile implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final List<String> dictionary;
+    private final int offsetsPosition;
+    private final int size;
+
+    private MappedUserProfileFile(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        if (limit < UserProfileBinaryFormat.HEADER_SIZE + 4 + UserProfileBinaryFormat.TRAILER_SIZE
+                || buffer.getInt(0) != UserProfileBinaryFormat.MAGIC
+                || buffer.getInt(limit - 4) != UserProfileBinaryFormat.MAGIC) {
+            throw new IOException("不是完整的 UserProfile 二进制文件 (写入器是否已关闭?)");
+        }
+        if (buffer.get(4) != UserProfileBinaryFormat.VERSION) {
+            throw new IOException("不支持的 UserProfile 二进制格式版本: " + buffer.get(4));
+        }
+        int trailer = limit - UserProfileBinaryFormat.TRAILER_SIZE;
+        long dictionaryPosition = buffer.getLong(trailer);
+        long offsetsPosition = buffer.getLong(trailer + 8);
+        this.size = buffer.getInt(trailer + 16);
+        if (dictionaryPosition > offsetsPosition || offsetsPosition + 8L * size != trailer) {
+            throw new IOException("UserProfile 二进制文件的 trailer 已损坏");
+        }
+        this.offsetsPosition = (int) offsetsPosition;
+        this.dictionary = UserProfileBinaryFormat.readDictionary(buffer, (int) dictionaryPosition);
+    }
+
+    /**
+     * @throws IOException 文件不完整、格式不对或超过 2 GB 时
+     */
+    public static MappedUserProfileFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("文件超过 2 GB，无法整体映射: " + file);
+            }
+            return new MappedUserProfileFile(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 记录数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 解码第 index 条记录 (从 0 开始)
+     *
+     * @throws IndexOutOfBoundsException index 越界时
+     */
+    public UserProfileDto get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("记录下标越界: " + index + "，记录数 " + size);
+        }
+        int offset = (int) buffer.getLong(offsetsPosition + index * 8);
+        return new UserProfileBinaryFormat.Decoder(dictionary, false).decode(buffer, offset);
+    }
+
+    /**
+     * 关闭文件；映射的内存在 MappedByteBuffer 被回收时才释放
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
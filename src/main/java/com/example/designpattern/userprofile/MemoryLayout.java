@@ -0,0 +1,94 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/MemoryLayout.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按 64 位 HotSpot 默认布局 (压缩指针、12 字节对象头、8 字节对齐) 估算对象占用的堆大小
+ * <p>
+ * 只用于比较列式存储与对象表示的内存占用，不追求精确：字符串按各自独立的对象计算 (从数据库或 JSON 加载时通常如此)，
+ * -128~127 的 Long/Integer 按共享的缓存实例计算，ArrayList 按没有多余容量计算。实测的保留堆见 UserProfileStoreBenchmark。
+ * </p>
+ */
+final class MemoryLayout {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private MemoryLayout() {
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long array(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    static long string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return align(HEADER + REFERENCE + 4 + 1 + 1) + array(value.length(), latin1 ? 1 : 2); // String: value、hash、coder、hashIsZero
+    }
+
+    /**
+     * 一个 UserProfileDto 及其引用的所有对象 (包括集合和其中的字符串) 的估算大小
+     */
+    static long userProfile(UserProfileDto profile) {
+        long bytes = align(HEADER + 9 * REFERENCE + 1); // 9 个引用字段 + boolean
+        bytes += boxed(profile.getUserId());
+        bytes += boxed(profile.getAge());
+        bytes += string(profile.getUsername()) + string(profile.getEmail()) + string(profile.getFullName())
+                + string(profile.getAvatarUrl()) + string(profile.getPreferredLanguage());
+        bytes += hashSet(profile.getRoles()) + arrayList(profile.getInterests());
+        return bytes;
+    }
+
+    private static long boxed(Number value) {
+        if (value == null || (value.longValue() >= -128 && value.longValue() <= 127)) {
+            return 0;
+        }
+        return align(HEADER + 8);
+    }
+
+    /**
+     * HashSet 内部是一个 HashMap：每个元素一个 Node (hash、key、value、next)，桶数组按 0.75 的负载因子取 2 的幂
+     */
+    private static long hashSet(Set<String> set) {
+        if (set == null) {
+            return 0;
+        }
+        int buckets = 16;
+        while (set.size() > buckets * 0.75f) {
+            buckets <<= 1;
+        }
+        long bytes = align(HEADER + REFERENCE)                          // HashSet
+                + align(HEADER + 4 * REFERENCE + 4 * 4)                 // HashMap
+                + array(buckets, REFERENCE)
+                + (long) set.size() * align(HEADER + 4 + 3 * REFERENCE); // Node
+        return bytes + strings(set);
+    }
+
+    private static long arrayList(List<String> list) {
+        if (list == null) {
+            return 0;
+        }
+        return align(HEADER + 4 + 4 + REFERENCE) + array(list.size(), REFERENCE) + strings(list);
+    }
+
+    private static long strings(Collection<String> values) {
+        long bytes = 0;
+        for (String value : values) {
+            bytes += string(value);
+        }
+        return bytes;
+    }
+}
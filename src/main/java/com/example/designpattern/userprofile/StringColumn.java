@@ -0,0 +1,79 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/StringColumn.java
+package com.example.designpattern.userprofile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 字符串列：所有值的 UTF-8 字节连续存放在一个 byte[] 中，另用 int[] 记录每行的起始位置
+ * <p>
+ * 每个值只占字节本身加 4 字节偏移量，没有 String 对象头和单独的 byte[] 对象头 (每个值省下约 40 字节)。
+ * 读取时才解码为 String。null 用负的偏移量表示。非线程安全，由 {@link UserProfileStore} 负责同步。
+ * </p>
+ */
+final class StringColumn {
+
+    private byte[] bytes = new byte[1024];
+    private int[] starts = new int[16]; // starts[i] 为第 i 行的起始位置，null 时为 -(起始位置 + 1)
+    private int size;
+    private int used;
+
+    void add(String value) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(16, starts.length + (starts.length >> 1)));
+        }
+        if (value == null) {
+            starts[size++] = -(used + 1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (used + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(used + encoded.length, bytes.length + (bytes.length >> 1)));
+        }
+        System.arraycopy(encoded, 0, bytes, used, encoded.length);
+        starts[size++] = used;
+        used += encoded.length;
+    }
+
+    String get(int row) {
+        int start = starts[row];
+        if (start < 0) {
+            return null;
+        }
+        return new String(bytes, start, end(row) - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 第 row 行的值是否等于 value 的 UTF-8 编码 (不解码，直接比较字节)
+     */
+    boolean equalsAt(int row, byte[] value) {
+        int start = starts[row];
+        if (start < 0) {
+            return false;
+        }
+        return Arrays.equals(bytes, start, end(row), value, 0, value.length);
+    }
+
+    private int end(int row) {
+        if (row + 1 < size) {
+            int next = starts[row + 1];
+            return next < 0 ? -next - 1 : next;
+        }
+        return used;
+    }
+
+    /**
+     * 占用的堆字节数 (按数组容量计算)
+     */
+    long bytes() {
+        return MemoryLayout.array(bytes.length, 1) + MemoryLayout.array(starts.length, 4);
+    }
+
+    /**
+     * 释放多余的数组容量 (加载完成后调用)
+     */
+    void trim() {
+        bytes = Arrays.copyOf(bytes, used);
+        starts = Arrays.copyOf(starts, size);
+    }
+}
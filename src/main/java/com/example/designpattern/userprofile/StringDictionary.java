@@ -0,0 +1,69 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/StringDictionary.java
+package com.example.designpattern.userprofile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字典编码：把取值种类很少的字符串 (语言、角色、兴趣) 映射为从 0 开始的连续编号，每种取值只保存一份
+ * <p>
+ * 非线程安全，由使用方负责同步。
+ * </p>
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * 返回 value 的编号，第一次出现时分配新编号
+     */
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * 返回 value 的编号，不存在时返回 -1 (不分配新编号)
+     */
+    int find(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * 删除编号 size 及之后的条目 (回滚编码失败的记录新加入的条目)
+     */
+    void truncate(int size) {
+        while (values.size() > size) {
+            codes.remove(values.remove(values.size() - 1));
+        }
+    }
+
+    /**
+     * 估算占用的堆字节数 (每种取值一个字符串，加上 HashMap 和 ArrayList 的开销)
+     */
+    long bytes() {
+        long bytes = MemoryLayout.array(values.size(), 4) + MemoryLayout.array(Integer.highestOneBit(Math.max(1, values.size())) * 2, 4)
+                + (long) values.size() * (32 + 16); // HashMap.Node + Integer
+        for (String value : values) {
+            bytes += MemoryLayout.string(value);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,325 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/UserProfileBinaryFormat.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * UserProfileDto 的紧凑二进制格式 (由 {@link UserProfileBinaryWriter} 写入，
+ * {@link UserProfileBinaryReader} 顺序读取，{@link MappedUserProfileFile} 按下标随机读取)
+ * <p>
+ * 文件结构 (大端序)：
+ * <pre>
+ * header   int magic "UPB1"、byte version
+ * record*  int length (负载长度，0 表示记录结束)、负载：
+ *            byte    flags       bit0 isActive、bit1 有 userId、bit2 有 age、bit3 有 roles、bit4 有 interests
+ *            varlong userId      zigzag 编码
+ *            string  username、email、fullName、avatarUrl
+ *            varint  age         zigzag 编码
+ *            ref     preferredLanguage
+ *            varint  roles 个数，ref*
+ *            varint  interests 个数，ref*
+ * footer   varint 字典条目数，string*    (按编号排列的全部字典条目)
+ *          long*  每条记录 length 字段的文件偏移量
+ * trailer  long 字典位置、long 偏移量表位置、int 记录数、int magic "UPB1"
+ * </pre>
+ * string 为 varint(UTF-8 字节数 + 1) 加 UTF-8 字节，0 表示 null。
+ * ref 是字典引用：0 表示 null；1 表示新条目，后面紧跟它的 string，编号为已有条目数；n ≥ 2 表示编号 n - 2。
+ * 取值种类很少的语言、角色、兴趣因此每次出现只占 1~2 字节，字典条目第一次出现时内联定义，
+ * 顺序读取不需要先读 footer；随机读取时遇到内联定义直接使用其中的字符串。
+ * </p>
+ */
+final class UserProfileBinaryFormat {
+
+    static final int MAGIC = 0x55504231; // "UPB1"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+    static final int TRAILER_SIZE = 24;
+    static final int MAX_VARINT_SIZE = 10;
+
+    private static final int ACTIVE = 1;
+    private static final int HAS_USER_ID = 1 << 1;
+    private static final int HAS_AGE = 1 << 2;
+    private static final int HAS_ROLES = 1 << 3;
+    private static final int HAS_INTERESTS = 1 << 4;
+    private static final int NULL_REF = 0;
+    private static final int NEW_ENTRY_REF = 1;
+
+    private UserProfileBinaryFormat() {
+    }
+
+    /**
+     * 一条记录 (含 length 字段) 编码后大小的上限，写入前用它确保缓冲区有足够的空间
+     */
+    static int maxRecordSize(UserProfileDto profile) {
+        int size = 4 + 1 + MAX_VARINT_SIZE * 5;
+        size += maxStringSize(profile.getUsername()) + maxStringSize(profile.getEmail())
+                + maxStringSize(profile.getFullName()) + maxStringSize(profile.getAvatarUrl())
+                + maxStringSize(profile.getPreferredLanguage());
+        if (profile.getRoles() != null) {
+            for (String role : profile.getRoles()) {
+                size += MAX_VARINT_SIZE + maxStringSize(role);
+            }
+        }
+        if (profile.getInterests() != null) {
+            for (String interest : profile.getInterests()) {
+                size += MAX_VARINT_SIZE + maxStringSize(interest);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 在 buffer 的当前位置写入一条记录 (调用前需确保剩余空间不小于 {@link #maxRecordSize})
+     */
+    static void encode(ByteBuffer buffer, UserProfileDto profile, StringDictionary dictionary) {
+        int lengthPosition = buffer.position();
+        buffer.putInt(0); // 长度占位
+        int flags = (profile.isActive() ? ACTIVE : 0)
+                | (profile.getUserId() != null ? HAS_USER_ID : 0)
+                | (profile.getAge() != null ? HAS_AGE : 0)
+                | (profile.getRoles() != null ? HAS_ROLES : 0)
+                | (profile.getInterests() != null ? HAS_INTERESTS : 0);
+        buffer.put((byte) flags);
+        if (profile.getUserId() != null) {
+            putVarLong(buffer, zigzag(profile.getUserId()));
+        }
+        putString(buffer, profile.getUsername());
+        putString(buffer, profile.getEmail());
+        putString(buffer, profile.getFullName());
+        putString(buffer, profile.getAvatarUrl());
+        if (profile.getAge() != null) {
+            putVarLong(buffer, zigzag(profile.getAge()));
+        }
+        putRef(buffer, profile.getPreferredLanguage(), dictionary);
+        if (profile.getRoles() != null) {
+            putVarLong(buffer, profile.getRoles().size());
+            for (String role : profile.getRoles()) {
+                putRef(buffer, role, dictionary);
+            }
+        }
+        if (profile.getInterests() != null) {
+            putVarLong(buffer, profile.getInterests().size());
+            for (String interest : profile.getInterests()) {
+                putRef(buffer, interest, dictionary);
+            }
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private static void putRef(ByteBuffer buffer, String value, StringDictionary dictionary) {
+        if (value == null) {
+            buffer.put((byte) NULL_REF);
+            return;
+        }
+        int code = dictionary.find(value);
+        if (code >= 0) {
+            putVarLong(buffer, code + 2L);
+        } else {
+            buffer.put((byte) NEW_ENTRY_REF);
+            putString(buffer, value);
+            dictionary.encode(value);
+        }
+    }
+
+    static int maxStringSize(String value) {
+        return value == null ? 1 : MAX_VARINT_SIZE + value.length() * 3; // 一个 char 的 UTF-8 编码最多 3 字节 (代理对为 2 个 char 4 字节)
+    }
+
+    /**
+     * 直接把 UTF-8 编码写入 buffer，不经过 String.getBytes 的中间数组
+     *
+     * @throws IllegalArgumentException 字符串包含不成对的代理字符 (无法无损编码)
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        int length = value.length();
+        int utf8Length = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                utf8Length += 1;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 4;
+                i++;
+            } else {
+                throw new IllegalArgumentException("字符串包含不成对的代理字符: 下标 " + i);
+            }
+        }
+        putVarLong(buffer, utf8Length + 1L);
+        if (utf8Length == length) { // 纯 ASCII
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 记录解码器：只使用绝对位置读取，不改变 buffer 的 position，多个解码器可以同时读同一个 buffer
+     * <p>
+     * 非线程安全 (复用 scratch 数组和读取位置)。
+     * </p>
+     */
+    static final class Decoder {
+
+        private final List<String> dictionary; // 按编号排列的字典条目
+        private final boolean learn;           // 顺序读取时遇到内联定义要加入字典；随机读取时字典已完整
+        private byte[] scratch = new byte[64]; // 堆外 buffer 的字符串先复制到这里再创建 String
+        private ByteBuffer buffer;
+        private int position;
+
+        Decoder(List<String> dictionary, boolean learn) {
+            this.dictionary = dictionary;
+            this.learn = learn;
+        }
+
+        /**
+         * 解码 offset 处的记录 (offset 指向 length 字段)
+         */
+        UserProfileDto decode(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.position = offset + 4;
+            int flags = buffer.get(position++);
+            UserProfileDto.UserProfileDtoBuilder builder = UserProfileDto.builder();
+            if ((flags & HAS_USER_ID) != 0) {
+                builder.userId(unzigzag(varLong()));
+            }
+            builder.username(string())
+                    .email(string())
+                    .fullName(string())
+                    .avatarUrl(string());
+            if ((flags & HAS_AGE) != 0) {
+                builder.age((int) unzigzag(varLong()));
+            }
+            builder.isActive((flags & ACTIVE) != 0)
+                    .preferredLanguage(ref());
+            if ((flags & HAS_ROLES) != 0) {
+                int count = (int) varLong();
+                Set<String> roles = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    roles.add(ref());
+                }
+                builder.roles(roles);
+            }
+            if ((flags & HAS_INTERESTS) != 0) {
+                int count = (int) varLong();
+                List<String> interests = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    interests.add(ref());
+                }
+                builder.interests(interests);
+            }
+            this.buffer = null;
+            return builder.build();
+        }
+
+        private String ref() {
+            long ref = varLong();
+            if (ref == NULL_REF) {
+                return null;
+            }
+            if (ref == NEW_ENTRY_REF) {
+                String value = string();
+                if (learn) {
+                    dictionary.add(value);
+                }
+                return value;
+            }
+            return dictionary.get((int) (ref - 2));
+        }
+
+        private String string() {
+            int length = (int) varLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value;
+            if (buffer.hasArray()) {
+                value = new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+            } else {
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(position, scratch, 0, length);
+                value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            position += length;
+            return value;
+        }
+
+        private long varLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取 footer 中的字典 (从 position 开始)
+     */
+    static List<String> readDictionary(ByteBuffer buffer, int position) {
+        Decoder decoder = new Decoder(new ArrayList<>(), false);
+        decoder.buffer = buffer;
+        decoder.position = position;
+        int count = (int) decoder.varLong();
+        List<String> dictionary = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dictionary.add(decoder.string());
+        }
+        return dictionary;
+    }
+}
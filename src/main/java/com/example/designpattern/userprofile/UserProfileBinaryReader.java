@@ -0,0 +1,103 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/UserProfileBinaryReader.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * 顺序读取 {@link UserProfileBinaryWriter} 写出的记录 (格式见 {@link UserProfileBinaryFormat})
+ * <p>
+ * channel 中的数据分块读入一个堆外 ByteBuffer，每条记录凭长度前缀确认完整后直接在缓冲区里解码，
+ * 字典在读到内联定义时逐步建立，不需要先读文件末尾的 footer，因此也可以读取管道或网络连接。
+ * 同一种语言、角色、兴趣在所有解码出的对象之间共享同一个 String 实例。
+ * </p>
+ * <p>
+ * 非线程安全。
+ * </p>
+ */
+public class UserProfileBinaryReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final UserProfileBinaryFormat.Decoder decoder = new UserProfileBinaryFormat.Decoder(new ArrayList<>(), true);
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private boolean finished;
+
+    /**
+     * 从 channel 的当前位置读取 (close 时一并关闭 channel)
+     *
+     * @throws IOException 数据不是 UserProfile 二进制格式时
+     */
+    public UserProfileBinaryReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        ensure(UserProfileBinaryFormat.HEADER_SIZE);
+        int magic = buffer.getInt();
+        byte version = buffer.get();
+        if (magic != UserProfileBinaryFormat.MAGIC || version != UserProfileBinaryFormat.VERSION) {
+            throw new IOException("不是 UserProfile 二进制数据或版本不支持: magic=" + Integer.toHexString(magic) + ", version=" + version);
+        }
+    }
+
+    public static UserProfileBinaryReader open(Path file) throws IOException {
+        return new UserProfileBinaryReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录，全部读完时返回 null
+     * @throws EOFException 数据在记录中间截断时
+     */
+    public UserProfileDto read() throws IOException {
+        if (finished) {
+            return null;
+        }
+        ensure(4);
+        int length = buffer.getInt(buffer.position());
+        if (length == 0) {
+            finished = true;
+            return null;
+        }
+        ensure(4 + length);
+        UserProfileDto profile = decoder.decode(buffer, buffer.position());
+        buffer.position(buffer.position() + 4 + length);
+        return profile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 确保缓冲区中至少有 bytes 字节未读数据：把未读部分移到开头后继续从 channel 读取，记录比缓冲区还大时换一个更大的缓冲区
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes - 1) << 1);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("UserProfile 二进制数据不完整: 需要 " + bytes + " 字节，只剩 " + buffer.position() + " 字节");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,148 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/UserProfileBinaryWriter.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 把 UserProfileDto 流式写成二进制格式 (格式见 {@link UserProfileBinaryFormat})
+ * <p>
+ * 字段直接编码进一个堆外 ByteBuffer (字符串逐字符写 UTF-8，不创建中间 byte[] 或 String)，
+ * 缓冲区写满后整块交给 channel；对 FileChannel 而言这是一次从堆外内存到页缓存的拷贝。
+ * 写入的记录数只受磁盘限制，内存中只保留字典和每条记录 8 字节的偏移量。
+ * {@link #close()} 时写出 footer 和 trailer，之后才能用 {@link MappedUserProfileFile} 随机读取。
+ * </p>
+ * <p>
+ * 非线程安全。
+ * </p>
+ */
+public class UserProfileBinaryWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final StringDictionary dictionary = new StringDictionary();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long flushed;                     // 已交给 channel 的字节数
+    private long[] offsets = new long[1024];  // 每条记录的文件偏移量
+    private int count;
+    private boolean closed;
+
+    /**
+     * 写入 channel 的当前位置 (close 时一并关闭 channel)
+     */
+    public UserProfileBinaryWriter(WritableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.putInt(UserProfileBinaryFormat.MAGIC);
+        buffer.put(UserProfileBinaryFormat.VERSION);
+    }
+
+    /**
+     * 创建 (或覆盖) 文件并写入
+     */
+    public static UserProfileBinaryWriter create(Path file) throws IOException {
+        return new UserProfileBinaryWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @throws IllegalArgumentException 字符串包含不成对的代理字符时
+     */
+    public void write(UserProfileDto profile) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("写入器已关闭");
+        }
+        ensure(UserProfileBinaryFormat.maxRecordSize(profile));
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        long offset = flushed + buffer.position();
+        int mark = buffer.position();
+        int dictionarySize = dictionary.size();
+        try {
+            UserProfileBinaryFormat.encode(buffer, profile, dictionary);
+        } catch (IllegalArgumentException e) {
+            buffer.position(mark); // 丢弃写了一半的记录，连同它内联定义的字典条目
+            dictionary.truncate(dictionarySize);
+            throw e;
+        }
+        offsets[count++] = offset;
+    }
+
+    /**
+     * 已写入的记录数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 写出结束标记、footer 和 trailer，刷出缓冲区并关闭 channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            ensure(4);
+            buffer.putInt(0); // 结束标记
+
+            long dictionaryPosition = flushed + buffer.position();
+            ensure(UserProfileBinaryFormat.MAX_VARINT_SIZE);
+            UserProfileBinaryFormat.putVarLong(buffer, dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                String value = dictionary.decode(code);
+                ensure(UserProfileBinaryFormat.maxStringSize(value));
+                UserProfileBinaryFormat.putString(buffer, value);
+            }
+
+            long offsetsPosition = flushed + buffer.position();
+            for (int i = 0; i < count; i++) {
+                ensure(8);
+                buffer.putLong(offsets[i]);
+            }
+
+            ensure(UserProfileBinaryFormat.TRAILER_SIZE);
+            buffer.putLong(dictionaryPosition);
+            buffer.putLong(offsetsPosition);
+            buffer.putInt(count);
+            buffer.putInt(UserProfileBinaryFormat.MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * 确保缓冲区至少还有 bytes 字节空间：先刷出已有内容，单条记录比缓冲区还大时换一个更大的缓冲区
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        flush();
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes - 1) << 1);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,584 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/UserProfileCache.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * 以 long userId 为键的用户资料缓存 (W-TinyLFU 淘汰、按估算字节数限制容量、提前刷新)
+ * <p>
+ * 缓存被切分为若干段 (stripe)，每段一把锁、一个以 long 为键的开放寻址哈希表 (键不装箱) 和一个
+ * {@link FrequencySketch}。段内按 W-TinyLFU 组织条目：
+ * <ul>
+ *     <li>新条目先进入只占 1% 容量的窗口 (LRU)，吸收突发的新键；</li>
+ *     <li>窗口溢出的条目要进入主区，必须比为它腾出空间而要淘汰的主区条目 (最久未访问的) 估算频率更高，否则被丢弃，
+ *         因此一次性扫描的大量冷键冲不掉热键；</li>
+ *     <li>主区分为试用区和保护区 (80%)，试用区的条目再次被访问时晋升到保护区。</li>
+ * </ul>
+ * 容量按 {@link MemoryLayout#userProfile} 估算的字节数计算，大对象占用更多容量；单个条目超过一段的主区容量时不缓存。
+ * </p>
+ * <p>
+ * 命中的条目加载时间超过 refreshAfter 时照常返回旧值，同时在 refreshExecutor 上重新加载，
+ * 热键不会因为过期而出现一次同步加载的延迟。未命中时在调用线程上同步加载 (在锁外执行)，
+ * 同一个键并发未命中时可能重复加载，先完成的结果被缓存。loader 返回 null 表示用户不存在，不缓存。
+ * 刷新期间条目被 {@link #put} 替换时丢弃刷新结果 (刷新读到的可能是修改之前的资料)。
+ * </p>
+ */
+public class UserProfileCache {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final LongFunction<UserProfileDto> loader;
+    private final Executor refreshExecutor;
+    private final long refreshAfterNanos; // 0 表示不刷新
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder(); // 超过一段主区容量而未缓存的条目
+
+    /**
+     * @param maximumWeight      最大容量 (估算的字节数)
+     * @param stripes            分段数量 (会向上取整为 2 的幂)
+     * @param refreshAfterMillis 条目加载多久之后在命中时提前刷新 (毫秒)，0 表示不刷新
+     * @param loader             按 userId 加载用户资料，返回 null 表示用户不存在
+     * @param refreshExecutor    执行提前刷新的线程池
+     */
+    public UserProfileCache(long maximumWeight, int stripes, long refreshAfterMillis,
+                            LongFunction<UserProfileDto> loader, Executor refreshExecutor) {
+        if (maximumWeight <= 0 || stripes <= 0 || refreshAfterMillis < 0) {
+            throw new IllegalArgumentException("maximumWeight、stripes 必须大于 0，refreshAfterMillis 不能为负数");
+        }
+        int stripeCount = Math.max(1, Integer.highestOneBit(stripes - 1) << 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(Math.max(1, maximumWeight / stripeCount));
+        }
+        this.stripeMask = stripeCount - 1;
+        this.loader = loader;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshAfterNanos = TimeUnit.MILLISECONDS.toNanos(refreshAfterMillis);
+    }
+
+    /**
+     * 获取用户资料，未命中时同步加载
+     *
+     * @return 用户资料，用户不存在时返回 null
+     */
+    public UserProfileDto get(long userId) {
+        UserProfileDto value = getIfPresent(userId);
+        if (value != null) {
+            return value;
+        }
+        UserProfileDto loaded;
+        try {
+            loaded = loader.apply(userId);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        }
+        if (loaded == null) {
+            return null;
+        }
+        long hash = LongHash.spread(userId);
+        return stripeFor(hash).putIfAbsent(userId, hash, loaded);
+    }
+
+    /**
+     * 获取已缓存的用户资料，不加载
+     */
+    public UserProfileDto getIfPresent(long userId) {
+        long hash = LongHash.spread(userId);
+        Stripe stripe = stripeFor(hash);
+        Node refresh = null;
+        int writes = 0;
+        UserProfileDto value = null;
+        stripe.lock.lock();
+        try {
+            stripe.sketch.increment(userId);
+            Node node = stripe.find(userId, hash);
+            if (node != null) {
+                stripe.onHit(node);
+                value = node.value;
+                if (refreshAfterNanos > 0 && !node.refreshing && System.nanoTime() - node.loadedNanos >= refreshAfterNanos) {
+                    node.refreshing = true;
+                    refresh = node;
+                    writes = node.writes;
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (refresh != null) {
+            scheduleRefresh(stripe, refresh, writes);
+        }
+        return value;
+    }
+
+    /**
+     * 放入或替换用户资料 (例如资料被修改后)
+     */
+    public void put(long userId, UserProfileDto profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("用户资料不能为空");
+        }
+        long hash = LongHash.spread(userId);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.find(userId, hash);
+            if (node != null) {
+                stripe.replace(node, profile);
+            } else {
+                stripe.insert(userId, hash, profile);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 移除用户资料
+     */
+    public void invalidate(long userId) {
+        long hash = LongHash.spread(userId);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock.lock();
+        try {
+            Node node = stripe.find(userId, hash);
+            if (node != null) {
+                stripe.remove(node);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前缓存的条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 当前缓存条目的估算字节数之和
+     */
+    public long weight() {
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                weight += stripe.windowWeight + stripe.probationWeight + stripe.protectedWeight;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 获取统计信息快照
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), loadFailures.sum(), refreshes.sum(), refreshFailures.sum(),
+                evictions.sum(), rejections.sum(), size(), weight());
+    }
+
+    private void scheduleRefresh(Stripe stripe, Node node, int writes) {
+        try {
+            refreshExecutor.execute(() -> refresh(stripe, node, writes));
+        } catch (RejectedExecutionException e) {
+            stripe.lock.lock();
+            try {
+                node.refreshing = false; // 下次命中时再试
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @param writes 发起刷新时条目的写入次数，刷新期间条目被替换过 (次数变化) 时丢弃刷新结果
+     */
+    private void refresh(Stripe stripe, Node node, int writes) {
+        UserProfileDto value = null;
+        RuntimeException failure = null;
+        try {
+            value = loader.apply(node.key);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        stripe.lock.lock();
+        try {
+            node.refreshing = false;
+            // 刷新期间可能已被淘汰、删除，或被 put 写入了更新的资料
+            if (failure == null && stripe.find(node.key, node.hash) == node && node.writes == writes) {
+                if (value == null) {
+                    stripe.remove(node);
+                } else {
+                    stripe.replace(node, value);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (failure != null) {
+            refreshFailures.increment();
+            System.err.println("用户资料缓存: 刷新 userId=" + node.key + " 失败，继续使用旧值: " + failure);
+        } else {
+            refreshes.increment();
+        }
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 32) & stripeMask]; // 高位选段，低位用于段内哈希表
+    }
+
+    /**
+     * 一段缓存：以下所有字段和方法都由 lock 保护
+     */
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final FrequencySketch sketch = new FrequencySketch();
+        private final long windowMaximum;
+        private final long mainMaximum;
+        private final long protectedMaximum;
+
+        private Node[] table = new Node[16]; // 线性探测，键不装箱
+        private int size;
+
+        // 三个带哨兵的循环双向链表，头部 (sentinel.next) 为最近访问的条目
+        private final Node window = Node.sentinel();
+        private final Node probation = Node.sentinel();
+        private final Node protectedQueue = Node.sentinel();
+        private long windowWeight;
+        private long probationWeight;
+        private long protectedWeight;
+
+        private Stripe(long maximumWeight) {
+            this.windowMaximum = Math.max(1, maximumWeight / 100);
+            this.mainMaximum = Math.max(1, maximumWeight - windowMaximum);
+            this.protectedMaximum = mainMaximum * 8 / 10;
+            sketch.ensureCapacity(64);
+        }
+
+        private Node find(long key, long hash) {
+            int mask = table.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                Node node = table[slot];
+                if (node == null || node.key == key) {
+                    return node;
+                }
+            }
+        }
+
+        private UserProfileDto putIfAbsent(long key, long hash, UserProfileDto value) {
+            lock.lock();
+            try {
+                Node existing = find(key, hash);
+                if (existing != null) {
+                    return existing.value; // 并发加载的另一个线程已经放入
+                }
+                insert(key, hash, value);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void insert(long key, long hash, UserProfileDto value) {
+            long weight = MemoryLayout.userProfile(value);
+            if (weight > mainMaximum) {
+                rejections.increment();
+                return;
+            }
+            Node node = new Node(key, hash, value, weight, refreshAfterNanos > 0 ? System.nanoTime() : 0);
+            if ((size + 1) * 2 > table.length) {
+                resize();
+            }
+            int mask = table.length - 1;
+            int slot = (int) hash & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = node;
+            size++;
+            sketch.ensureCapacity(size);
+
+            node.queue = WINDOW;
+            linkFirst(window, node);
+            windowWeight += weight;
+            evict();
+        }
+
+        private void replace(Node node, UserProfileDto value) {
+            long weight = MemoryLayout.userProfile(value);
+            if (weight > mainMaximum) {
+                remove(node);
+                rejections.increment();
+                return;
+            }
+            addWeight(node, weight - node.weight);
+            node.weight = weight;
+            node.value = value;
+            node.writes++;
+            node.loadedNanos = refreshAfterNanos > 0 ? System.nanoTime() : 0;
+            evict();
+        }
+
+        private void onHit(Node node) {
+            if (node.queue == PROBATION) {
+                unlink(node);
+                probationWeight -= node.weight;
+                node.queue = PROTECTED;
+                linkFirst(protectedQueue, node);
+                protectedWeight += node.weight;
+                // 保护区超出容量时，最久未访问的条目降回试用区
+                while (protectedWeight > protectedMaximum) {
+                    Node demoted = protectedQueue.prev;
+                    unlink(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    linkFirst(probation, demoted);
+                    probationWeight += demoted.weight;
+                }
+            } else {
+                unlink(node);
+                linkFirst(node.queue == WINDOW ? window : protectedQueue, node);
+            }
+        }
+
+        /**
+         * 窗口溢出的条目逐个尝试进入主区 (TinyLFU 准入)，最后确保总容量不超限
+         */
+        private void evict() {
+            while (windowWeight > windowMaximum) {
+                Node candidate = window.prev;
+                unlink(candidate);
+                windowWeight -= candidate.weight;
+                if (admit(candidate)) {
+                    candidate.queue = PROBATION;
+                    linkFirst(probation, candidate);
+                    probationWeight += candidate.weight;
+                } else {
+                    removeFromTable(candidate);
+                    evictions.increment();
+                }
+            }
+            // 替换为更大的值时主区可能超限
+            while (probationWeight + protectedWeight > mainMaximum) {
+                evictions.increment();
+                remove(probation.prev != probation ? probation.prev : protectedQueue.prev);
+            }
+        }
+
+        /**
+         * 主区放得下 candidate，或者 candidate 比为它腾出空间要淘汰的每个条目都更常被访问时淘汰它们并返回 true
+         */
+        private boolean admit(Node candidate) {
+            long needed = probationWeight + protectedWeight + candidate.weight - mainMaximum;
+            if (needed <= 0) {
+                return true;
+            }
+            int candidateFrequency = sketch.frequency(candidate.key);
+            long freed = 0;
+            Node victim = probation.prev;
+            Node last = null;
+            while (freed < needed) {
+                if (victim == probation) {
+                    victim = protectedQueue.prev; // 试用区不够时继续从保护区的尾部找
+                }
+                if (sketch.frequency(victim.key) >= candidateFrequency) {
+                    return false;
+                }
+                freed += victim.weight;
+                last = victim;
+                victim = victim.prev;
+            }
+            // 从尾部依次淘汰到 last 为止
+            for (boolean done = false; !done; ) {
+                Node tail = probation.prev != probation ? probation.prev : protectedQueue.prev;
+                done = tail == last;
+                remove(tail);
+                evictions.increment();
+            }
+            return true;
+        }
+
+        private void remove(Node node) {
+            unlink(node);
+            addWeight(node, -node.weight);
+            removeFromTable(node);
+        }
+
+        private void addWeight(Node node, long delta) {
+            if (node.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (node.queue == PROBATION) {
+                probationWeight += delta;
+            } else {
+                protectedWeight += delta;
+            }
+        }
+
+        /**
+         * 从哈希表中删除并把后面同一探测链上的条目前移 (不使用墓碑)
+         */
+        private void removeFromTable(Node node) {
+            int mask = table.length - 1;
+            int slot = (int) node.hash & mask;
+            while (table[slot] != node) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = null;
+            size--;
+            for (int next = (slot + 1) & mask; table[next] != null; next = (next + 1) & mask) {
+                int home = (int) table[next].hash & mask;
+                // home 不在 (slot, next] 区间内时，next 上的条目可以前移到 slot
+                boolean movable = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+                if (movable) {
+                    table[slot] = table[next];
+                    table[next] = null;
+                    slot = next;
+                }
+            }
+        }
+
+        private void resize() {
+            Node[] old = table;
+            table = new Node[old.length * 2];
+            int mask = table.length - 1;
+            for (Node node : old) {
+                if (node != null) {
+                    int slot = (int) node.hash & mask;
+                    while (table[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = node;
+                }
+            }
+        }
+
+        private void linkFirst(Node sentinel, Node node) {
+            node.prev = sentinel;
+            node.next = sentinel.next;
+            sentinel.next.prev = node;
+            sentinel.next = node;
+        }
+
+        private void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    private static final class Node {
+        private final long key;
+        private final long hash;
+        private UserProfileDto value;
+        private long weight;
+        private long loadedNanos;
+        private boolean refreshing;
+        private int writes; // 值被替换的次数，用来识别过时的刷新结果
+        private int queue;
+        private Node prev;
+        private Node next;
+
+        private Node(long key, long hash, UserProfileDto value, long weight, long loadedNanos) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.weight = weight;
+            this.loadedNanos = loadedNanos;
+        }
+
+        private static Node sentinel() {
+            Node sentinel = new Node(0, 0, null, 0, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+    }
+
+    /**
+     * 用户资料缓存统计信息
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long loadFailures;
+        private final long refreshes;
+        private final long refreshFailures;
+        private final long evictions;
+        private final long rejections;
+        private final int size;
+        private final long weight;
+
+        public Stats(long hits, long misses, long loadFailures, long refreshes, long refreshFailures,
+                     long evictions, long rejections, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.loadFailures = loadFailures;
+            this.refreshes = refreshes;
+            this.refreshFailures = refreshFailures;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getLoadFailures() { return loadFailures; }
+        public long getRefreshes() { return refreshes; }
+        public long getRefreshFailures() { return refreshFailures; }
+        public long getEvictions() { return evictions; }
+        public long getRejections() { return rejections; }
+        public int getSize() { return size; }
+        public long getWeight() { return weight; }
+
+        /**
+         * 命中率 (没有请求时为 0)
+         */
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("命中率 %.2f%% (命中 %d，未命中 %d)，淘汰 %d，刷新 %d，%d 个条目 / %d 字节",
+                    getHitRate() * 100, hits, misses, evictions, refreshes, size, weight);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+// 文件路径: src/main/java/com/example/designpattern/userprofile/UserProfileStore.java
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 列式存储的海量用户资料
+ * <p>
+ * 每个 {@link UserProfileDto} 连同装箱的 Long/Integer、角色 HashSet、兴趣 ArrayList 和各个字符串，约占 1 KB 堆内存。
+ * 这里把所有用户按列保存，一个用户对应每一列中的同一行：
+ * <ul>
+ *     <li>userId、age 存放在 long[]、int[] 中，不装箱；</li>
+ *     <li>username、email、fullName、avatarUrl 的 UTF-8 字节连续存放 (见 {@link StringColumn})；</li>
+ *     <li>preferredLanguage 和兴趣用字典编码，每行只存编号；</li>
+ *     <li>角色用字典编码后存为每行一个 64 位位图 (最多 64 种角色)；isActive 存为位图。</li>
+ * </ul>
+ * {@link #get(int)} / {@link #findByUserId(long)} 按需把一行组装为 UserProfileDto；
+ * {@link #countActiveByLanguage(String)} 等扫描只读取相关的列，不创建任何对象。
+ * {@link #stats()} 给出每个用户占用的字节数，以及同样的数据用对象表示时的估算值。
+ * </p>
+ * <p>
+ * 先单线程 {@link #add(UserProfileDto)} 加载全部数据 (可选再调用 {@link #trim()} 释放多余容量)，
+ * 加载完成后可以被多个线程同时读取；加载与读取不能同时进行。
+ * </p>
+ */
+public class UserProfileStore {
+
+    /**
+     * 角色种类的上限 (每行的角色位图是一个 long)
+     */
+    public static final int MAX_ROLES = 64;
+    private static final int NO_AGE = Integer.MIN_VALUE;
+    private static final short NO_LANGUAGE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private short[] languages = new short[INITIAL_CAPACITY];
+    private long[] roles = new long[INITIAL_CAPACITY];
+    private long[] active = new long[INITIAL_CAPACITY / 64]; // 第 i 行对应第 i / 64 个 long 的第 i % 64 位
+    private int[] interestStarts = new int[INITIAL_CAPACITY]; // 第 i 行的兴趣编号在 interestCodes 中的起始位置
+    private int[] interestCodes = new int[INITIAL_CAPACITY];
+    private int interestCount;
+    private final BitSet nullRoles = new BitSet();      // roles 为 null 的行 (与空集合区分)
+    private final BitSet nullInterests = new BitSet();  // interests 为 null 的行
+    private final StringColumn usernames = new StringColumn();
+    private final StringColumn emails = new StringColumn();
+    private final StringColumn fullNames = new StringColumn();
+    private final StringColumn avatarUrls = new StringColumn();
+    private final StringDictionary languageDictionary = new StringDictionary();
+    private final StringDictionary roleDictionary = new StringDictionary();
+    private final StringDictionary interestDictionary = new StringDictionary();
+    private final LongIntIndex rowsByUserId = new LongIntIndex();
+    private int size;
+    private long objectBytes; // 同样的数据用 UserProfileDto 表示时的估算大小
+
+    /**
+     * 追加一个用户
+     *
+     * @return 行号
+     * @throws IllegalArgumentException userId 为 null 或重复，或角色种类超过 {@link #MAX_ROLES}
+     */
+    public int add(UserProfileDto profile) {
+        Long userId = profile.getUserId();
+        if (userId == null) {
+            throw new IllegalArgumentException("userId 不能为空");
+        }
+        if (rowsByUserId.get(userId) >= 0) {
+            throw new IllegalArgumentException("userId " + userId + " 已存在");
+        }
+        long roleBits = encodeRoles(profile.getRoles());
+        int row = size;
+        ensureCapacity(row + 1);
+
+        userIds[row] = userId;
+        ages[row] = profile.getAge() != null ? profile.getAge() : NO_AGE;
+        String language = profile.getPreferredLanguage();
+        languages[row] = language != null ? (short) encodeLanguage(language) : NO_LANGUAGE;
+        roles[row] = roleBits;
+        if (profile.getRoles() == null) {
+            nullRoles.set(row);
+        }
+        if (profile.isActive()) {
+            active[row >>> 6] |= 1L << row;
+        }
+        addInterests(row, profile.getInterests());
+        usernames.add(profile.getUsername());
+        emails.add(profile.getEmail());
+        fullNames.add(profile.getFullName());
+        avatarUrls.add(profile.getAvatarUrl());
+        rowsByUserId.put(userId, row);
+        objectBytes += MemoryLayout.userProfile(profile);
+        size++;
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 把第 row 行组装为 UserProfileDto (每次调用都创建新对象)
+     */
+    public UserProfileDto get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("行号 " + row + " 超出范围 [0, " + size + ")");
+        }
+        return UserProfileDto.builder()
+                .userId(userIds[row])
+                .username(usernames.get(row))
+                .email(emails.get(row))
+                .fullName(fullNames.get(row))
+                .age(ages[row] != NO_AGE ? ages[row] : null)
+                .avatarUrl(avatarUrls.get(row))
+                .isActive(isActive(row))
+                .preferredLanguage(languages[row] != NO_LANGUAGE ? languageDictionary.decode(languages[row]) : null)
+                .roles(decodeRoles(row))
+                .interests(decodeInterests(row))
+                .build();
+    }
+
+    /**
+     * 按 userId 查找并组装为 UserProfileDto，不存在时返回 null
+     */
+    public UserProfileDto findByUserId(long userId) {
+        int row = rowsByUserId.get(userId);
+        return row >= 0 ? get(row) : null;
+    }
+
+    /**
+     * userId 所在的行号，不存在时返回 -1
+     */
+    public int rowOf(long userId) {
+        return rowsByUserId.get(userId);
+    }
+
+    public long getUserId(int row) {
+        return userIds[row];
+    }
+
+    public boolean isActive(int row) {
+        return (active[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * 偏好语言为 language 的激活用户数
+     * <p>
+     * 按 64 行一组遍历激活位图，只对激活的行比较语言编号 (short)，不解码字符串。
+     * </p>
+     */
+    public int countActiveByLanguage(String language) {
+        int code = languageDictionary.find(language);
+        if (code < 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int word = 0, words = (size + 63) >>> 6; word < words; word++) {
+            long bits = active[word];
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (languages[row] == code) {
+                    count++;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 偏好语言为 language 的激活用户的行号
+     */
+    public int[] findActiveByLanguage(String language) {
+        int code = languageDictionary.find(language);
+        if (code < 0) {
+            return new int[0];
+        }
+        int[] rows = new int[16];
+        int found = 0;
+        for (int word = 0, words = (size + 63) >>> 6; word < words; word++) {
+            long bits = active[word];
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (languages[row] == code) {
+                    if (found == rows.length) {
+                        rows = Arrays.copyOf(rows, found * 2);
+                    }
+                    rows[found++] = row;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+
+    /**
+     * 拥有角色 role 的用户数 (只读取角色位图列)
+     */
+    public int countByRole(String role) {
+        int code = roleDictionary.find(role);
+        if (code < 0) {
+            return 0;
+        }
+        long mask = 1L << code;
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if ((roles[row] & mask) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 用户名等于 username 的第一行，不存在时返回 -1 (直接比较 UTF-8 字节，不解码)
+     */
+    public int findByUsername(String username) {
+        byte[] encoded = username.getBytes(StandardCharsets.UTF_8);
+        for (int row = 0; row < size; row++) {
+            if (usernames.equalsAt(row, encoded)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 加载完成后释放各列多余的数组容量
+     */
+    public void trim() {
+        userIds = Arrays.copyOf(userIds, size);
+        ages = Arrays.copyOf(ages, size);
+        languages = Arrays.copyOf(languages, size);
+        roles = Arrays.copyOf(roles, size);
+        active = Arrays.copyOf(active, (size + 63) >>> 6);
+        interestStarts = Arrays.copyOf(interestStarts, size);
+        interestCodes = Arrays.copyOf(interestCodes, interestCount);
+        usernames.trim();
+        emails.trim();
+        fullNames.trim();
+        avatarUrls.trim();
+    }
+
+    /**
+     * 内存占用统计
+     */
+    public Stats stats() {
+        long columnBytes = MemoryLayout.array(userIds.length, 8) + MemoryLayout.array(ages.length, 4)
+                + MemoryLayout.array(languages.length, 2) + MemoryLayout.array(roles.length, 8)
+                + MemoryLayout.array(active.length, 8) + MemoryLayout.array(interestStarts.length, 4)
+                + MemoryLayout.array(interestCodes.length, 4)
+                + (nullRoles.size() + nullInterests.size()) / 8
+                + usernames.bytes() + emails.bytes() + fullNames.bytes() + avatarUrls.bytes()
+                + languageDictionary.bytes() + roleDictionary.bytes() + interestDictionary.bytes()
+                + rowsByUserId.bytes();
+        return new Stats(size, columnBytes, objectBytes);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= userIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, userIds.length + (userIds.length >> 1));
+        userIds = Arrays.copyOf(userIds, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        languages = Arrays.copyOf(languages, newCapacity);
+        roles = Arrays.copyOf(roles, newCapacity);
+        active = Arrays.copyOf(active, (newCapacity + 63) >>> 6);
+        interestStarts = Arrays.copyOf(interestStarts, newCapacity);
+    }
+
+    private int encodeLanguage(String language) {
+        int code = languageDictionary.encode(language);
+        if (code > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("语言种类超过 " + Short.MAX_VALUE);
+        }
+        return code;
+    }
+
+    private long encodeRoles(Set<String> roleNames) {
+        if (roleNames == null) {
+            return 0;
+        }
+        long bits = 0;
+        for (String role : roleNames) {
+            int code = roleDictionary.find(role);
+            if (code < 0) {
+                if (roleDictionary.size() >= MAX_ROLES) {
+                    throw new IllegalArgumentException("角色种类超过 " + MAX_ROLES + "，无法添加角色 " + role);
+                }
+                code = roleDictionary.encode(role);
+            }
+            bits |= 1L << code;
+        }
+        return bits;
+    }
+
+    private Set<String> decodeRoles(int row) {
+        if (nullRoles.get(row)) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (long bits = roles[row]; bits != 0; bits &= bits - 1) {
+            result.add(roleDictionary.decode(Long.numberOfTrailingZeros(bits)));
+        }
+        return result;
+    }
+
+    private void addInterests(int row, List<String> interests) {
+        interestStarts[row] = interestCount;
+        if (interests == null) {
+            nullInterests.set(row);
+            return;
+        }
+        if (interestCount + interests.size() > interestCodes.length) {
+            interestCodes = Arrays.copyOf(interestCodes,
+                    Math.max(interestCount + interests.size(), interestCodes.length + (interestCodes.length >> 1)));
+        }
+        for (String interest : interests) {
+            interestCodes[interestCount++] = interestDictionary.encode(interest);
+        }
+    }
+
+    private List<String> decodeInterests(int row) {
+        if (nullInterests.get(row)) {
+            return null;
+        }
+        int end = row + 1 < size ? interestStarts[row + 1] : interestCount;
+        List<String> result = new ArrayList<>(end - interestStarts[row]);
+        for (int i = interestStarts[row]; i < end; i++) {
+            result.add(interestDictionary.decode(interestCodes[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 内存占用统计
+     */
+    public static class Stats {
+        private final int profiles;
+        private final long columnBytes;
+        private final long objectBytes;
+
+        public Stats(int profiles, long columnBytes, long objectBytes) {
+            this.profiles = profiles;
+            this.columnBytes = columnBytes;
+            this.objectBytes = objectBytes;
+        }
+
+        public int getProfiles() { return profiles; }
+        public long getColumnBytes() { return columnBytes; }
+        public long getObjectBytes() { return objectBytes; }
+
+        /**
+         * 列式存储中每个用户占用的字节数
+         */
+        public double getBytesPerProfile() {
+            return profiles == 0 ? 0 : (double) columnBytes / profiles;
+        }
+
+        /**
+         * 用 UserProfileDto 对象表示时每个用户的估算字节数
+         */
+        public double getObjectBytesPerProfile() {
+            return profiles == 0 ? 0 : (double) objectBytes / profiles;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d 个用户，列式存储 %.1f 字节/用户，对象表示约 %.1f 字节/用户 (%.1f 倍)",
+                    profiles, getBytesPerProfile(), getObjectBytesPerProfile(),
+                    columnBytes == 0 ? 0 : (double) objectBytes / columnBytes);
+        }
+    }
+}
@@ -1,11 +1,25 @@
 package com.example.designpattern;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
 
 @SpringBootTest
 class DesignPatternApplicationTests {
 
+    @TempDir
+    static Path journalDir;
+
+    // 支付日志写到临时目录，测试不在工作目录下留下 data/payment-journal
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("payment.journal.dir", () -> journalDir.toString());
+    }
+
     @Test
     void contextLoads() {
     }
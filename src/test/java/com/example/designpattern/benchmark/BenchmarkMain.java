@@ -0,0 +1,108 @@
+package com.example.designpattern.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.regex.Pattern;
+
+/**
+ * JMH 基准测试入口
+ * <p>
+ * 用法: ./mvnw -Pbenchmark test-compile exec:exec [-Dbenchmark.include=正则]
+ * </p>
+ * <p>
+ * 匹配到的基准依次以 1、N、2N 个线程运行 (N 为可用 CPU 数，可用 -Dbenchmark.threads=1,4,8 覆盖)，
+ * 每种线程数的结果写入 target/jmh/result-threads-&lt;线程数&gt;.json，便于在版本之间对比。
+ * 用 @Threads 声明了固定线程数的基准 (例如独占文件锁的启动恢复基准) 只在线程数相同的那一轮运行。
+ * </p>
+ * <p>
+ * -Dbenchmark.params=records=1000000,10000000;recovery=CHECKPOINT 可覆盖基准的 @Param 取值。
+ * </p>
+ * <p>
+ * 始终启用 GC profiler，结果中的 gc.alloc.rate.norm 为每次操作分配的字节数。
+ * </p>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        File outputDir = new File("target/jmh");
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("无法创建目录: " + outputDir);
+        }
+
+        SortedSet<BenchmarkListEntry> benchmarks = BenchmarkList.defaultList().find(
+                OutputFormatFactory.createFormatInstance(System.out, VerboseMode.SILENT),
+                Collections.singletonList(include), Collections.emptyList());
+        for (int threads : threadCounts()) {
+            List<String> excluded = new ArrayList<>();
+            for (BenchmarkListEntry benchmark : benchmarks) {
+                if (benchmark.getThreads().hasValue() && benchmark.getThreads().get() != threads) {
+                    excluded.add(Pattern.quote(benchmark.getUsername()) + "$");
+                }
+            }
+            if (excluded.size() == benchmarks.size()) {
+                continue;
+            }
+            String resultFile = new File(outputDir, "result-threads-" + threads + ".json").getPath();
+            System.out.println("=== 运行基准 " + include + "，线程数 " + threads + "，结果写入 " + resultFile);
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile);
+            excluded.forEach(options::exclude);
+            addParams(options);
+            new Runner(options.build()).run();
+        }
+    }
+
+    /**
+     * 解析 -Dbenchmark.params=名称=值1,值2;名称=值
+     */
+    private static void addParams(ChainedOptionsBuilder options) {
+        String configured = System.getProperty("benchmark.params");
+        if (configured == null || configured.isBlank()) {
+            return;
+        }
+        for (String param : configured.split(";")) {
+            int eq = param.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("benchmark.params 格式应为 名称=值1,值2;名称=值: " + configured);
+            }
+            options.param(param.substring(0, eq).trim(), param.substring(eq + 1).trim().split("\\s*,\\s*"));
+        }
+    }
+
+    private static Set<Integer> threadCounts() {
+        Set<Integer> counts = new LinkedHashSet<>();
+        String configured = System.getProperty("benchmark.threads");
+        if (configured != null && !configured.isBlank()) {
+            for (String value : configured.split(",")) {
+                counts.add(Integer.parseInt(value.trim()));
+            }
+            return counts;
+        }
+        int cpus = Runtime.getRuntime().availableProcessors();
+        counts.add(1);
+        counts.add(cpus);
+        counts.add(cpus * 2);
+        return counts;
+    }
+}
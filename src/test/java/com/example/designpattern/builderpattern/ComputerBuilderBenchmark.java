@@ -0,0 +1,153 @@
+package com.example.designpattern.builderpattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大批量构建 Computer 的吞吐和保留堆大小
+ * <ul>
+ *     <li>verbose：原来的用法，每个 SKU new Builder(cpu, ram)，每一步打印一行 (输出到空流，真实 stdout 只会更慢)；</li>
+ *     <li>quiet：{@link Computer#builder()}，同一个建造者反复 reset() / build()，不打印；</li>
+ *     <li>interned：{@link Computer#builder(ComputerInterner)}，配置相同的 SKU 共享同一个实例。</li>
+ * </ul>
+ * SKU 的配置从 5 种 CPU × 4 种内存 × 5 种存储 × 4 种显卡 × 3 种系统 × 2 种蓝牙 (共 2400 种) 中随机组合。
+ * <p>
+ * build 测量单个 SKU 的构建耗时；catalog 构建 100 万个 SKU 并全部保留，
+ * 每轮结束后打印这些 SKU 在 Full GC 之后实际保留的堆大小。
+ * </p>
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Thread)
+public class ComputerBuilderBenchmark {
+
+    private static final String[] CPUS = {"Intel i3-12100", "Intel i5-12400", "Intel i7-13700K", "Intel i9-13900K", "AMD Ryzen 9 7950X"};
+    private static final String[] RAMS = {"8GB DDR4", "16GB DDR4", "32GB DDR5", "64GB DDR5"};
+    private static final String[] STORAGES = {"256GB SSD", "512GB NVMe SSD", "1TB NVMe SSD", "2TB NVMe SSD + 4TB HDD", "4TB HDD"};
+    private static final String[] GRAPHICS_CARDS = {null, "NVIDIA GeForce RTX 4060", "NVIDIA GeForce RTX 4090", "AMD Radeon RX 7900 XTX"};
+    private static final String[] OPERATING_SYSTEMS = {"Linux (Default)", "Windows 11 Home", "Windows 11 Pro"};
+    private static final int SKU_COUNT = 1 << 20;
+    private static final int CATALOG_SIZE = 1_000_000;
+
+    @Param({"verbose", "quiet", "interned"})
+    public String mode;
+
+    /**
+     * 每个 SKU 的配置下标，按 CPU、内存、存储、显卡、系统、蓝牙的顺序打包在一个 int 中
+     */
+    private final int[] skus = new int[SKU_COUNT];
+    private PrintStream originalOut;
+    private Computer.Builder builder;
+    private ComputerInterner interner;
+    private Computer[] catalog;
+    private long baselineHeap;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SKU_COUNT; i++) {
+            skus[i] = random.nextInt(CPUS.length)
+                    | random.nextInt(RAMS.length) << 4
+                    | random.nextInt(STORAGES.length) << 8
+                    | random.nextInt(GRAPHICS_CARDS.length) << 12
+                    | random.nextInt(OPERATING_SYSTEMS.length) << 16
+                    | random.nextInt(2) << 20;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newCache() {
+        // 每轮一个新的缓存，catalog 的保留堆包含缓存本身
+        interner = new ComputerInterner(100_000, 16);
+        builder = "interned".equals(mode) ? Computer.builder(interner) : Computer.builder();
+        baselineHeap = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Computer build() {
+        return build(skus[next++ & (SKU_COUNT - 1)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public Computer[] catalog() {
+        catalog = new Computer[CATALOG_SIZE];
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            catalog[i] = build(skus[i]);
+        }
+        return catalog;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRetainedHeap() {
+        if (catalog != null) {
+            long retained = usedHeapAfterGc() - baselineHeap;
+            originalOut.printf("%n%s: %d 个 SKU 保留堆 %.1f MB (%d 个不同的实例)%n", mode, CATALOG_SIZE,
+                    retained / (1024.0 * 1024.0), "interned".equals(mode) ? interner.size() : CATALOG_SIZE);
+            catalog = null;
+        }
+    }
+
+    private Computer build(int sku) {
+        String cpu = CPUS[sku & 0xF];
+        String ram = RAMS[sku >>> 4 & 0xF];
+        String storage = STORAGES[sku >>> 8 & 0xF];
+        String graphicsCard = GRAPHICS_CARDS[sku >>> 12 & 0xF];
+        String operatingSystem = OPERATING_SYSTEMS[sku >>> 16 & 0xF];
+        boolean bluetooth = (sku >>> 20 & 1) != 0;
+        if ("verbose".equals(mode)) {
+            return new Computer.Builder(cpu, ram)
+                    .storage(storage)
+                    .graphicsCard(graphicsCard)
+                    .operatingSystem(operatingSystem)
+                    .bluetoothEnabled(bluetooth)
+                    .build();
+        }
+        return builder.reset()
+                .cpu(cpu)
+                .ram(ram)
+                .storage(storage)
+                .graphicsCard(graphicsCard)
+                .operatingSystem(operatingSystem)
+                .bluetoothEnabled(bluetooth)
+                .build();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
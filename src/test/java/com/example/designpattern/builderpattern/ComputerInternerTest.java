@@ -0,0 +1,58 @@
+package com.example.designpattern.builderpattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ComputerInternerTest {
+
+    @Test
+    void reusableBuilderKeepsParametersUntilReset() {
+        Computer.Builder builder = Computer.builder().cpu("i5").ram("16GB").storage("512GB SSD");
+        Computer first = builder.build();
+        Computer second = builder.graphicsCard("RTX 4060").build();
+
+        assertNull(first.getGraphicsCard()); // 已构建的实例不受建造者后续修改的影响
+        assertEquals("512GB SSD", second.getStorage());
+        assertNotEquals(first, second);
+
+        builder.reset();
+        assertThrows(IllegalArgumentException.class, builder::build);
+        Computer defaults = builder.cpu("i5").ram("16GB").build();
+        assertEquals("Linux (Default)", defaults.getOperatingSystem());
+        assertNull(defaults.getStorage());
+    }
+
+    @Test
+    void identicalConfigurationsShareOneInstance() {
+        ComputerInterner interner = new ComputerInterner(1024, 4);
+        Computer.Builder builder = Computer.builder(interner);
+        Computer first = builder.cpu("i9").ram("64GB").bluetoothEnabled(true).build();
+        Computer second = builder.reset().cpu(new String("i9")).ram("64GB").bluetoothEnabled(true).build();
+        Computer other = builder.bluetoothEnabled(false).build();
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, interner.size());
+        assertEquals(1, interner.getHitCount());
+        assertEquals(2, interner.getMissCount());
+    }
+
+    @Test
+    void fullStripeReturnsUnsharedInstances() {
+        ComputerInterner interner = new ComputerInterner(1, 1);
+        Computer.Builder builder = Computer.builder(interner).cpu("i3").ram("8GB");
+        Computer cached = builder.build();
+        Computer uncached = builder.ram("4GB").build();
+
+        assertSame(cached, builder.ram("8GB").build());
+        assertNotSame(uncached, builder.ram("4GB").build());
+        assertEquals(1, interner.size());
+        assertEquals(2, interner.getRejectedCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.designpattern.controller;
+
+import com.example.designpattern.loadtest.PaymentTarget;
+import com.example.designpattern.paymentsystem.PaymentExecutorConfig;
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyCache;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不经过网络、直接调用 {@link PaymentController} 的压测目标
+ * <p>
+ * 请求体按 HTTP 模式相同的方式解码，支付在默认配置的支付线程池上异步执行，
+ * 舱壁和熔断器使用默认参数，限流开启但不会触发，不记录支付日志。
+ * 用来把控制器和支付服务本身的延迟与 HTTP 栈、网络的开销区分开。
+ * </p>
+ */
+public final class InProcessPaymentTarget implements PaymentTarget {
+
+    private final ThreadPoolTaskExecutor paymentExecutor;
+    private final PaymentController controller;
+    private final Duration timeout;
+    private final PrintStream originalOut;
+
+    public InProcessPaymentTarget(Duration timeout) {
+        this.timeout = timeout;
+        // 各支付服务实现会打印到控制台，压测期间丢弃这些输出
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        paymentExecutor = (ThreadPoolTaskExecutor) new PaymentExecutorConfig()
+                .paymentExecutor(new StandardEnvironment(), 8, 32, 1000, -1);
+        paymentExecutor.initialize();
+        PaymentMetrics metrics = new PaymentMetrics();
+        PaymentResilience resilience = new PaymentResilience(new StandardEnvironment());
+        controller = new PaymentController(PaymentFixtures.newFactory(metrics, resilience, paymentExecutor), paymentExecutor,
+                10_000, new IdempotencyCache<>(10_000, 16, 60_000, response -> true), metrics, resilience,
+                PaymentFixtures.newRateLimiter(new RateLimit(1e9, 1_000_000)),
+                new StaticListableBeanFactory().getBeanProvider(PaymentJournal.class));
+    }
+
+    @Override
+    public CompletableFuture<Integer> send(PaymentType type, byte[] body) {
+        PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+        try {
+            PaymentRequestHttpMessageConverter.decode(body, body.length, request);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(400);
+        }
+        return controller.processPayment(request, null, "loadtest")
+                .thenApply(response -> response.getStatusCode().value())
+                .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String describe() {
+        return "in-process PaymentController";
+    }
+
+    @Override
+    public void close() {
+        paymentExecutor.shutdown();
+        System.setOut(originalOut);
+    }
+}
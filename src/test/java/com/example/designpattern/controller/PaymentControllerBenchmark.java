@@ -0,0 +1,80 @@
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyCache;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 控制器基准：进程内完整调用 /pay 流程，以及 PaymentRequest 的 JSON 绑定
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentControllerBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.50");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] requestJson = "{\"paymentType\":\"alipay\",\"amount\":100.50}".getBytes(StandardCharsets.UTF_8);
+    private PaymentController controller;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        // 各支付服务实现会打印到控制台，测量时丢弃这些输出，避免测到的是控制台 I/O
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        PaymentMetrics metrics = new PaymentMetrics();
+        PaymentResilience resilience = new PaymentResilience(new StandardEnvironment());
+        controller = new PaymentController(PaymentFixtures.newFactory(metrics, resilience), PaymentFixtures.DIRECT_EXECUTOR, 10_000,
+                new IdempotencyCache<>(10_000, 16, 60_000, response -> true), metrics, resilience,
+                PaymentFixtures.newRateLimiter(new RateLimit(1e9, 1_000_000)), // 限流开启但不会触发，只测开销
+                new StaticListableBeanFactory().getBeanProvider(PaymentJournal.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> processPayment() {
+        PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+        request.setPaymentType("alipay");
+        request.setAmount(AMOUNT);
+        return controller.processPayment(request, null, "merchant-1").join();
+    }
+
+    @Benchmark
+    public PaymentController.PaymentRequest bindJson() throws IOException {
+        return objectMapper.readValue(requestJson, PaymentController.PaymentRequest.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.idempotency.IdempotencyCache;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentControllerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchLargerThanTheBurstIsThrottledPerItem() {
+        try (PaymentRateLimiter limiter = PaymentFixtures.newRateLimiter(new RateLimit(1, 10))) {
+            PaymentMetrics metrics = new PaymentMetrics();
+            PaymentController controller = new PaymentController(PaymentFixtures.newFactory(metrics), Runnable::run,
+                    10_000, new IdempotencyCache<>(100, 1, 60_000, response -> true), metrics,
+                    new PaymentResilience(new StandardEnvironment()), limiter,
+                    new StaticListableBeanFactory().getBeanProvider(PaymentJournal.class));
+            List<PaymentController.PaymentRequest> requests = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                requests.add(request(i % 5 == 4 ? "card_pay" : "alipay"));
+            }
+
+            List<PaymentController.PaymentResult> results =
+                    (List<PaymentController.PaymentResult>) controller.processBatchPayment(requests, "m1").getBody();
+
+            // 支付宝 20 条只有桶里的 10 个令牌：前 10 条成功，后 10 条 429；银行卡 5 条在自己的桶里全部成功
+            int alipaySucceeded = 0;
+            for (PaymentController.PaymentResult result : results) {
+                if (result.getPaymentType().equals("card_pay")) {
+                    assertTrue(result.isSuccess(), result.getMessage());
+                } else if (result.isSuccess()) {
+                    alipaySucceeded++;
+                    assertNull(result.getStatus());
+                } else {
+                    assertEquals(429, result.getStatus());
+                    assertTrue(result.getIndex() > 11, "靠后的条目被限流: " + result.getIndex());
+                }
+            }
+            assertEquals(10, alipaySucceeded);
+            // 整批用完了令牌，之后同一商户的单笔支付也被限流
+            assertTrue(limiter.tryAcquire("m1", PaymentType.ALIPAY) > 0);
+        }
+    }
+
+    private static PaymentController.PaymentRequest request(String type) {
+        PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+        request.setPaymentType(type);
+        request.setAmount(new BigDecimal("1.00"));
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.designpattern.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付请求解码基准：Jackson 通用绑定 vs PaymentRequestHttpMessageConverter
+ * <p>
+ * BenchmarkMain 会启用 GC profiler，结果中的 gc.alloc.rate.norm 即每个请求分配的字节数。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentRequestDecodingBenchmark {
+
+    private final byte[] body = "{\"paymentType\":\"wechat_pay\",\"amount\":100.50}".getBytes(StandardCharsets.UTF_8);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentRequestHttpMessageConverter converter = new PaymentRequestHttpMessageConverter();
+    private final PaymentController.PaymentRequest reusable = new PaymentController.PaymentRequest();
+    private final ResettableInputMessage inputMessage = new ResettableInputMessage(body);
+
+    @Benchmark
+    public PaymentController.PaymentRequest jackson() throws IOException {
+        return objectMapper.readValue(body, PaymentController.PaymentRequest.class);
+    }
+
+    /**
+     * 只测量字节扫描本身
+     */
+    @Benchmark
+    public PaymentController.PaymentRequest converterDecode() {
+        PaymentRequestHttpMessageConverter.decode(body, body.length, reusable);
+        return reusable;
+    }
+
+    /**
+     * 经过 HttpMessageConverter.read 的完整读取路径 (含按线程复用的缓冲区)
+     */
+    @Benchmark
+    public PaymentController.PaymentRequest converterRead() throws IOException {
+        inputMessage.reset();
+        return converter.read(PaymentController.PaymentRequest.class, inputMessage);
+    }
+
+    /**
+     * 可重复读取的请求体，避免每次迭代创建新的输入流干扰分配统计
+     */
+    private static final class ResettableInputMessage implements HttpInputMessage {
+        private final ByteArrayInputStream body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private ResettableInputMessage(byte[] body) {
+            this.body = new ByteArrayInputStream(body);
+        }
+
+        void reset() {
+            body.reset();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
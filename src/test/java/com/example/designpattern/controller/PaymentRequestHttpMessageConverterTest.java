@@ -0,0 +1,111 @@
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaymentRequestHttpMessageConverterTest {
+
+    private static PaymentController.PaymentRequest decode(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        PaymentController.PaymentRequest request = new PaymentController.PaymentRequest();
+        PaymentRequestHttpMessageConverter.decode(bytes, bytes.length, request);
+        return request;
+    }
+
+    @Test
+    void resolvesPaymentTypeAndFixedPointAmount() {
+        PaymentController.PaymentRequest request = decode(" {\"paymentType\" : \"WeChat_Pay\", \"amount\": 100.50 } ");
+
+        assertSame(PaymentType.WECHAT_PAY, request.resolvedPaymentType());
+        assertEquals("wechat_pay", request.getPaymentType());
+        assertEquals(new BigDecimal("100.50"), request.getAmount());
+    }
+
+    @Test
+    void acceptsQuotedAmountsUnknownFieldsAndSlowPathNumbers() {
+        PaymentController.PaymentRequest request = decode(
+                "{\"memo\":{\"tags\":[\"a\",\"}\"]},\"amount\":\"-0.05\",\"paymentType\":\"card_pay\",\"extra\":true}");
+        assertSame(PaymentType.CARD_PAY, request.resolvedPaymentType());
+        assertEquals(new BigDecimal("-0.05"), request.getAmount());
+
+        assertEquals(new BigDecimal("1.5E+3"), decode("{\"amount\":1.5e3}").getAmount());
+        assertEquals(new BigDecimal("12345678901234567890.12"), decode("{\"amount\":12345678901234567890.12}").getAmount());
+    }
+
+    @Test
+    void convertsAmountAndCurrencyToMoney() {
+        assertEquals(Money.ofMinor(10050, Money.CNY), decode("{\"amount\":100.5}").toMoney());
+        assertEquals(Money.ofMinor(10050, Money.CNY), decode("{\"amount\":100.50,\"currency\":\"CNY\"}").toMoney());
+        assertEquals(Money.ofMinor(1500, Currency.getInstance("JPY")),
+                decode("{\"amount\":\"1500\",\"currency\":\"JPY\"}").toMoney());
+        assertEquals(Money.ofMinor(150000, Money.CNY), decode("{\"amount\":1.5e3}").toMoney());
+        // 多余的小数位全是 0 时，无论有多少位都能转换
+        assertEquals(Money.ofMinor(100, Money.CNY), decode("{\"amount\":1.0000000000000000000}").toMoney());
+        assertEquals(Money.ofMinor(0, Money.CNY), decode("{\"amount\":0.0000000000000000000000}").toMoney());
+        assertEquals(Money.ofMinor(100, Money.CNY), decode("{\"amount\":\"1.0000000000000000000\"}").toMoney());
+        assertEquals(Money.ofMinor(105, Money.CNY), decode("{\"amount\":1.0500000000000000000000}").toMoney());
+        assertEquals(Money.ofMinor(1, Money.CNY), Money.fromFixedPoint(100_000_000_000_000_000L, 19, Money.CNY)); // 0.01
+
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":1.005}").toMoney());
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":1,\"currency\":\"XYZ\"}").toMoney());
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"paymentType\":\"alipay\"}").toMoney());
+    }
+
+    @Test
+    void keepsUnknownOrEmptyTypeCodesForErrorMessages() {
+        PaymentController.PaymentRequest unknown = decode("{\"paymentType\":\"pay\\u0070al\"}");
+        assertNull(unknown.resolvedPaymentType());
+        assertEquals("paypal", unknown.getPaymentType());
+        assertNull(unknown.getAmount());
+
+        assertEquals("", decode("{\"paymentType\":\"\",\"amount\":null}").getPaymentType());
+        assertNull(decode("{}").getPaymentType());
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":.}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"paymentType\":\"alipay\""));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":1} trailing"));
+        assertThrows(IllegalArgumentException.class, () -> decode("[1]"));
+        // 与 Jackson 一致：JSON 数字不能带正号，小数点两边都要有数字，整数部分不能有前导 0
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":+1}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":.5}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":1.}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":1.e5}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":007}"));
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"amount\":-01.5}"));
+        assertEquals(new BigDecimal("7"), decode("{\"amount\":\"007\"}").getAmount()); // 字符串按 BigDecimal 的规则解析
+        assertEquals(new BigDecimal("-0.5"), decode("{\"amount\":-0.5}").getAmount());
+    }
+
+    @Test
+    void acceptsBodiesUpToTheSizeLimit() throws IOException {
+        PaymentRequestHttpMessageConverter converter = new PaymentRequestHttpMessageConverter();
+        String prefix = "{\"paymentType\":\"alipay\",\"amount\":1,\"memo\":\"";
+        String suffix = "\"}";
+        String exact = prefix + "x".repeat(PaymentRequestHttpMessageConverter.MAX_BODY_SIZE - prefix.length() - suffix.length()) + suffix;
+
+        PaymentController.PaymentRequest request = converter.read(PaymentController.PaymentRequest.class,
+                new MockHttpInputMessage(exact.getBytes(StandardCharsets.UTF_8)));
+        assertSame(PaymentType.ALIPAY, request.resolvedPaymentType());
+
+        byte[] tooLarge = (exact + " ").getBytes(StandardCharsets.UTF_8);
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> converter.read(PaymentController.PaymentRequest.class, new MockHttpInputMessage(tooLarge)));
+    }
+}
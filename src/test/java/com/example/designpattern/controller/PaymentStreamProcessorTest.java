@@ -0,0 +1,184 @@
+package com.example.designpattern.controller;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentServiceFactoryImpl;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentStreamProcessorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PaymentRateLimiter unlimited = PaymentFixtures.newRateLimiter(new RateLimit(1_000_000, 1_000_000));
+    private final ExecutorService gateway = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() {
+        gateway.shutdownNow();
+    }
+
+    @Test
+    void reportsEachLineIndependently() throws IOException {
+        String input = "{\"paymentType\":\"alipay\",\"amount\":100.50}\n"
+                + "\n"
+                + "{\"paymentType\":\"alipay\",\n"
+                + "{\"paymentType\":\"paypal\",\"amount\":1}\r\n"
+                + "{\"paymentType\":\"card_pay\",\"amount\":1.005}\n"
+                + "{\"amount\":1}\n"
+                + "{\"paymentType\":\"wechat_pay\",\"amount\":2,\"currency\":\"USD\"}"; // 最后一行没有换行符
+        PaymentStreamProcessor processor = new PaymentStreamProcessor(
+                PaymentFixtures.newFactory(new PaymentMetrics()), unlimited, objectMapper, 4);
+
+        List<JsonNode> results = process(processor, input);
+
+        assertEquals(List.of(0, 2, 3, 4, 5, 6), results.stream().map(r -> r.get("index").asInt()).collect(Collectors.toList()));
+        assertTrue(results.get(0).get("success").asBoolean());
+        assertTrue(results.get(1).get("message").asText().contains("JSON 格式错误"));
+        assertTrue(results.get(2).get("message").asText().contains("paypal"));
+        assertEquals("card_pay", results.get(3).get("paymentType").asText());
+        assertFalse(results.get(3).get("success").asBoolean());
+        assertTrue(results.get(4).get("message").asText().contains("paymentType"));
+        assertEquals("微信支付 支付 2.00 USD 成功！", results.get(5).get("message").asText());
+    }
+
+    @Test
+    void boundsPaymentsInFlightAndStopsReadingWhenWindowIsFull() throws IOException {
+        int window = 4;
+        int lines = 200;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        PaymentService slowGateway = new PaymentService() {
+            @Override
+            public void pay(Money amount) {
+            }
+
+            @Override
+            public CompletableFuture<Void> payAsync(Money amount) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return CompletableFuture.runAsync(() -> {
+                    sleep(1);
+                    inFlight.decrementAndGet();
+                    completed.incrementAndGet();
+                }, gateway);
+            }
+
+            @Override
+            public PaymentType getServiceType() {
+                return PaymentType.ALIPAY;
+            }
+        };
+        PaymentServiceFactoryImpl factory = new PaymentServiceFactoryImpl(Map.of("slowAlipay", slowGateway),
+                new StaticListableBeanFactory().getBeanProvider(PaymentJournal.class), new PaymentMetrics(),
+                new PaymentResilience(new StandardEnvironment()), new StandardEnvironment());
+        factory.initServiceCache();
+        PaymentStreamProcessor processor = new PaymentStreamProcessor(factory, unlimited, objectMapper, window);
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            input.append("{\"paymentType\":\"alipay\",\"amount\":1}\n");
+        }
+        // 一次只交出一个字节，记录每次读取时已读的行数与已完成的支付数之差
+        AtomicInteger linesRead = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        InputStream slowReader = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, Math.min(len, 1));
+                if (n > 0 && b[off] == '\n') {
+                    maxAhead.accumulateAndGet(linesRead.incrementAndGet() - completed.get(), Math::max);
+                }
+                return n;
+            }
+        };
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(lines, processor.process(slowReader, output, "merchant-1"));
+
+        List<JsonNode> results = parse(output);
+        assertEquals(lines, results.size());
+        assertTrue(results.stream().allMatch(r -> r.get("success").asBoolean()));
+        assertTrue(maxInFlight.get() <= window, "在途支付数超过窗口: " + maxInFlight.get());
+        // 读完一行后才会等待窗口，因此已读未完成的行最多比窗口多一行
+        assertTrue(maxAhead.get() <= window + 1, "读取领先已完成的支付过多: " + maxAhead.get());
+    }
+
+    @Test
+    void waitsForTokensInsteadOfFailingRateLimitedLines() throws IOException {
+        int lines = 12;
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            input.append("{\"paymentType\":\"alipay\",\"amount\":1}\n");
+        }
+        try (PaymentRateLimiter limiter = PaymentFixtures.newRateLimiter(new RateLimit(200, 2))) {
+            PaymentStreamProcessor processor = new PaymentStreamProcessor(
+                    PaymentFixtures.newFactory(new PaymentMetrics()), limiter, objectMapper, 4);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            assertEquals(lines, processor.process(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)),
+                    output, "merchant-1"));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            List<JsonNode> results = parse(output);
+            assertEquals(lines, results.size());
+            assertTrue(results.stream().allMatch(r -> r.get("success").asBoolean()));
+            // 突发 2 条之后每 5ms 补充一个令牌，剩下的 10 条至少要等 45ms
+            assertTrue(elapsedMillis >= 45, "没有等待令牌: " + elapsedMillis + "ms");
+        }
+    }
+
+    private List<JsonNode> process(PaymentStreamProcessor processor, String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        processor.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, null);
+        return parse(output);
+    }
+
+    private List<JsonNode> parse(ByteArrayOutputStream output) throws IOException {
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : lines) {
+            results.add(objectMapper.readTree(line));
+        }
+        results.sort(Comparator.comparingInt(r -> r.get("index").asInt()));
+        return results;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
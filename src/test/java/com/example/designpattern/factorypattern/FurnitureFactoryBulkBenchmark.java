@@ -0,0 +1,87 @@
+package com.example.designpattern.factorypattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量创建 count 把椅子：逐个 new (原来的工厂实现) 与批量/并行 API、享元的对比
+ * <ul>
+ *     <li>loopAllocating：循环调用每次 new ModernChair() 的工厂；</li>
+ *     <li>loopFlyweight：循环调用返回共享实例的 ModernFurnitureFactory；</li>
+ *     <li>bulk / bulkParallel：createChairs(count, parallel)，并行版本使用 fork/join 公共池；</li>
+ *     <li>bulkParallelAllocating：每次 new 的工厂走并行批量 API (有实例状态的产品只能这样)；</li>
+ *     <li>streamParallel：chairs(count).parallel() 经 FurnitureSpliterator 拆分后收集到数组。</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FurnitureFactoryBulkBenchmark {
+
+    @Param("200000")
+    public int count;
+
+    private final FurnitureFactory allocating = new FurnitureFactory() {
+        @Override
+        public Chair createChair() {
+            return new ModernChair();
+        }
+
+        @Override
+        public Sofa createSofa() {
+            return new ModernSofa();
+        }
+    };
+    private final FurnitureFactory flyweight = new ModernFurnitureFactory();
+
+    @Benchmark
+    public Chair[] loopAllocating() {
+        Chair[] chairs = new Chair[count];
+        for (int i = 0; i < count; i++) {
+            chairs[i] = allocating.createChair();
+        }
+        return chairs;
+    }
+
+    @Benchmark
+    public Chair[] loopFlyweight() {
+        Chair[] chairs = new Chair[count];
+        for (int i = 0; i < count; i++) {
+            chairs[i] = flyweight.createChair();
+        }
+        return chairs;
+    }
+
+    @Benchmark
+    public Chair[] bulk() {
+        return flyweight.createChairs(count, false);
+    }
+
+    @Benchmark
+    public Chair[] bulkParallel() {
+        return flyweight.createChairs(count, true);
+    }
+
+    @Benchmark
+    public Chair[] bulkParallelAllocating() {
+        return allocating.createChairs(count, true);
+    }
+
+    @Benchmark
+    public Chair[] streamParallel() {
+        return flyweight.chairs(count).parallel().toArray(Chair[]::new);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.designpattern.factorypattern;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FurnitureFactoryBulkTest {
+
+    @Test
+    void statelessProductsAreSharedFlyweights() {
+        FurnitureFactory modern = new ModernFurnitureFactory();
+        FurnitureFactory victorian = new VictorianFurnitureFactory();
+        assertSame(modern.createChair(), modern.createChair());
+        assertSame(victorian.createSofa(), victorian.createSofa());
+
+        Chair[] chairs = modern.createChairs(10_000, true);
+        assertTrue(Arrays.stream(chairs).allMatch(chair -> chair == ModernChair.INSTANCE));
+        Sofa[] sofas = victorian.sofas(10_000).parallel().toArray(Sofa[]::new);
+        assertEquals(10_000, sofas.length);
+        assertTrue(Arrays.stream(sofas).allMatch(sofa -> sofa == VictorianSofa.INSTANCE));
+    }
+
+    @Test
+    void bulkCreationCallsTheFactoryMethodOncePerItemInParallel() {
+        AtomicInteger created = new AtomicInteger();
+        FurnitureFactory counting = new FurnitureFactory() { // 有状态产品的工厂：每次都创建新实例
+            @Override
+            public Chair createChair() {
+                created.incrementAndGet();
+                return new ModernChair();
+            }
+
+            @Override
+            public Sofa createSofa() {
+                created.incrementAndGet();
+                return new ModernSofa();
+            }
+        };
+
+        Chair[] chairs = counting.createChairs(5_000, true);
+        assertEquals(5_000, Arrays.stream(chairs).distinct().count());
+        assertEquals(3_000, counting.sofas(3_000).parallel().distinct().count());
+        assertEquals(0, counting.createSofas(0, false).length);
+        assertEquals(8_000, created.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.designpattern.loadtest;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+import io.netty.channel.ChannelOption;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过本地 HTTP 调用 /api/payments/pay (Reactor Netty 客户端，非阻塞)
+ * <p>
+ * 连接池满时请求在池中排队，排队时间同样计入从计划发送时间开始的延迟。
+ * </p>
+ */
+final class HttpPaymentTarget implements PaymentTarget {
+
+    private static final String MERCHANT_ID = "loadtest";
+
+    private final String url;
+    private final ConnectionProvider provider;
+    private final HttpClient client;
+
+    HttpPaymentTarget(String url, int maxConnections, Duration timeout) {
+        this.url = url;
+        this.provider = ConnectionProvider.builder("payment-open-loop")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(timeout)
+                .build();
+        this.client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeout.toMillis())
+                .responseTimeout(timeout)
+                .headers(headers -> headers
+                        .set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .set("X-Merchant-Id", MERCHANT_ID));
+    }
+
+    @Override
+    public CompletableFuture<Integer> send(PaymentType type, byte[] body) {
+        return client.post()
+                .uri(url)
+                .send(ByteBufFlux.fromInbound(Mono.just(body)))
+                .responseSingle((response, content) -> content.then(Mono.just(response.status().code())))
+                .toFuture();
+    }
+
+    @Override
+    public String describe() {
+        return url;
+    }
+
+    @Override
+    public void close() {
+        provider.disposeLater().block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.designpattern.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 开环压测的到达率曲线，由若干阶段组成，每个阶段内到达率从 fromRate 线性变化到 toRate (次/秒)
+ * <p>
+ * 支持的写法 (总时长由调用方给出)：
+ * <ul>
+ *     <li>constant:500 —— 恒定每秒 500 次；</li>
+ *     <li>ramp:100-1000 —— 从每秒 100 次线性爬升到 1000 次；</li>
+ *     <li>step:100+100x5 —— 从每秒 100 次开始分 5 个阶梯，每阶梯增加 100 次，总时长平均分给各阶梯。</li>
+ * </ul>
+ * 第 k 个请求的计划发送时间由到达数对时间的积分直接解出，与之前的请求何时完成无关，
+ * 因此发送节奏不会被慢响应拖慢 (不会产生 coordinated omission)，也不会累积舍入误差。
+ * </p>
+ */
+final class LoadProfile {
+
+    private static final Pattern CONSTANT = Pattern.compile("constant:(\\d+(?:\\.\\d+)?)");
+    private static final Pattern RAMP = Pattern.compile("ramp:(\\d+(?:\\.\\d+)?)-(\\d+(?:\\.\\d+)?)");
+    private static final Pattern STEP = Pattern.compile("step:(\\d+(?:\\.\\d+)?)\\+(\\d+(?:\\.\\d+)?)x(\\d+)");
+
+    /**
+     * 一个阶段：[startNanos, startNanos + durationNanos) 内到达率从 fromRate 线性变化到 toRate
+     */
+    static final class Phase {
+        private final String name;
+        private final boolean warmup;
+        private final long startNanos;
+        private final long durationNanos;
+        private final double fromRate;
+        private final double toRate;
+        private final long firstArrival; // 该阶段第一个请求的序号
+        private final long arrivals;     // 该阶段的请求数
+
+        Phase(String name, boolean warmup, long startNanos, long durationNanos, double fromRate, double toRate, long firstArrival) {
+            this.name = name;
+            this.warmup = warmup;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.fromRate = fromRate;
+            this.toRate = toRate;
+            this.firstArrival = firstArrival;
+            this.arrivals = (long) Math.floor(arrivalsBefore(durationNanos));
+        }
+
+        /**
+         * 阶段开始后 elapsedNanos 内的累计到达数 (积分)
+         */
+        private double arrivalsBefore(long elapsedNanos) {
+            double t = elapsedNanos / 1e9;
+            double seconds = durationNanos / 1e9;
+            return fromRate * t + (toRate - fromRate) * t * t / (2 * seconds);
+        }
+
+        /**
+         * 阶段内第 k 个请求 (从 0 开始) 的发送时间，相对阶段开始
+         */
+        private long offsetOf(long k) {
+            double seconds = durationNanos / 1e9;
+            double a = (toRate - fromRate) / (2 * seconds);
+            double t;
+            if (k == 0) {
+                t = 0;
+            } else if (Math.abs(a) < 1e-12) {
+                t = k / fromRate;
+            } else {
+                // a t^2 + fromRate t - k = 0 的正根，写成不会相减抵消的形式
+                t = 2 * k / (fromRate + Math.sqrt(fromRate * fromRate + 4 * a * k));
+            }
+            return (long) (t * 1e9);
+        }
+
+        String getName() { return name; }
+        boolean isWarmup() { return warmup; }
+        long getStartNanos() { return startNanos; }
+        long getDurationNanos() { return durationNanos; }
+        double getFromRate() { return fromRate; }
+        double getToRate() { return toRate; }
+        long getArrivals() { return arrivals; }
+    }
+
+    private final String spec;
+    private final List<Phase> phases;
+    private final long totalArrivals;
+
+    private LoadProfile(String spec, List<Phase> phases) {
+        this.spec = spec;
+        this.phases = Collections.unmodifiableList(phases);
+        Phase last = phases.get(phases.size() - 1);
+        this.totalArrivals = last.firstArrival + last.arrivals;
+    }
+
+    /**
+     * 解析到达率曲线
+     *
+     * @param spec 曲线写法，见类注释
+     * @param warmupSeconds 预热时长，预热阶段以曲线的起始到达率发送，结果不计入统计
+     * @param durationSeconds 统计阶段的总时长
+     * @throws IllegalArgumentException 写法无法识别或参数不合法时
+     */
+    static LoadProfile parse(String spec, long warmupSeconds, long durationSeconds) {
+        if (durationSeconds <= 0 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("压测时长必须为正数: warmup=" + warmupSeconds + "s, duration=" + durationSeconds + "s");
+        }
+        long duration = TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<double[]> rates = new ArrayList<>(); // 每个阶段的 {fromRate, toRate}
+        List<String> names = new ArrayList<>();
+        Matcher m;
+        if ((m = CONSTANT.matcher(spec)).matches()) {
+            double rate = Double.parseDouble(m.group(1));
+            rates.add(new double[]{rate, rate});
+            names.add("constant " + format(rate) + "/s");
+        } else if ((m = RAMP.matcher(spec)).matches()) {
+            double from = Double.parseDouble(m.group(1));
+            double to = Double.parseDouble(m.group(2));
+            rates.add(new double[]{from, to});
+            names.add("ramp " + format(from) + "-" + format(to) + "/s");
+        } else if ((m = STEP.matcher(spec)).matches()) {
+            double start = Double.parseDouble(m.group(1));
+            double increment = Double.parseDouble(m.group(2));
+            int steps = Integer.parseInt(m.group(3));
+            if (steps <= 0) {
+                throw new IllegalArgumentException("阶梯数必须为正数: " + spec);
+            }
+            for (int i = 0; i < steps; i++) {
+                double rate = start + i * increment;
+                rates.add(new double[]{rate, rate});
+                names.add("step " + (i + 1) + " " + format(rate) + "/s");
+            }
+        } else {
+            throw new IllegalArgumentException("无法识别的压测曲线: " + spec + " (可用 constant:500、ramp:100-1000、step:100+100x5)");
+        }
+        for (double[] rate : rates) {
+            if (rate[0] < 0 || rate[1] < 0 || rate[0] + rate[1] == 0) {
+                throw new IllegalArgumentException("到达率必须为正数: " + spec);
+            }
+        }
+
+        List<Phase> phases = new ArrayList<>();
+        long start = 0;
+        long arrivals = 0;
+        if (warmupSeconds > 0 && rates.get(0)[0] > 0) {
+            long warmup = TimeUnit.SECONDS.toNanos(warmupSeconds);
+            double rate = rates.get(0)[0];
+            Phase phase = new Phase("warmup " + format(rate) + "/s", true, start, warmup, rate, rate, arrivals);
+            phases.add(phase);
+            start += warmup;
+            arrivals += phase.arrivals;
+        }
+        long stepDuration = duration / rates.size();
+        for (int i = 0; i < rates.size(); i++) {
+            Phase phase = new Phase(names.get(i), false, start, stepDuration, rates.get(i)[0], rates.get(i)[1], arrivals);
+            phases.add(phase);
+            start += stepDuration;
+            arrivals += phase.arrivals;
+        }
+        return new LoadProfile(spec, phases);
+    }
+
+    /**
+     * 第 arrival 个请求 (从 0 开始) 所在阶段的下标，超出曲线时返回 -1
+     *
+     * @param hint 上一个请求所在阶段的下标，请求按顺序发送时从这里开始查找
+     */
+    int phaseOf(long arrival, int hint) {
+        for (int i = Math.max(hint, 0); i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            if (arrival < phase.firstArrival + phase.arrivals) {
+                return arrival >= phase.firstArrival ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 第 arrival 个请求相对压测开始的计划发送时间 (纳秒)
+     */
+    long offsetOf(long arrival, int phaseIndex) {
+        Phase phase = phases.get(phaseIndex);
+        return phase.startNanos + phase.offsetOf(arrival - phase.firstArrival);
+    }
+
+    String getSpec() { return spec; }
+    List<Phase> getPhases() { return phases; }
+    long getTotalArrivals() { return totalArrivals; }
+
+    private static String format(double rate) {
+        return rate == Math.rint(rate) ? Long.toString((long) rate) : Double.toString(rate);
+    }
+}
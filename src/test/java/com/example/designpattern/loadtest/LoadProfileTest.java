@@ -0,0 +1,69 @@
+package com.example.designpattern.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadProfileTest {
+
+    @Test
+    void constantRateSpacesArrivalsEvenly() {
+        LoadProfile profile = LoadProfile.parse("constant:200", 2, 10);
+
+        assertEquals(2, profile.getPhases().size());
+        assertTrue(profile.getPhases().get(0).isWarmup());
+        assertEquals(2_400, profile.getTotalArrivals());
+        assertEquals(0, profile.offsetOf(0, 0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), profile.offsetOf(1, 0));
+        // 第一个统计阶段从预热结束时开始
+        assertEquals(1, profile.phaseOf(400, 0));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), profile.offsetOf(400, 1));
+        assertEquals(-1, profile.phaseOf(2_400, 1));
+    }
+
+    @Test
+    void stepProfileSplitsDurationAcrossSteps() {
+        LoadProfile profile = LoadProfile.parse("step:100+100x5", 0, 50);
+
+        assertEquals(5, profile.getPhases().size());
+        assertEquals(100 * 10 + 200 * 10 + 300 * 10 + 400 * 10 + 500 * 10, profile.getTotalArrivals());
+        assertEquals(500, profile.getPhases().get(4).getToRate());
+        assertEquals(TimeUnit.SECONDS.toNanos(40), profile.getPhases().get(4).getStartNanos());
+        assertMonotonic(profile);
+    }
+
+    @Test
+    void rampFollowsIntegralOfRate() {
+        LoadProfile profile = LoadProfile.parse("ramp:0-1000", 5, 10);
+
+        // 起始到达率为 0 时没有预热阶段；0→1000/s 线性爬升 10 秒共 5000 个请求
+        assertEquals(1, profile.getPhases().size());
+        assertEquals(5_000, profile.getTotalArrivals());
+        // 前一半时间只到达四分之一的请求
+        assertEquals(TimeUnit.SECONDS.toNanos(5), profile.offsetOf(1_250, 0), TimeUnit.MICROSECONDS.toNanos(1));
+        assertMonotonic(profile);
+    }
+
+    @Test
+    void rejectsUnknownOrInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("burst:100", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant:0", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("step:100+100x0", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("constant:100", 0, 0));
+    }
+
+    private static void assertMonotonic(LoadProfile profile) {
+        long previous = -1;
+        int phase = 0;
+        for (long k = 0; k < profile.getTotalArrivals(); k++) {
+            phase = profile.phaseOf(k, phase);
+            long offset = profile.offsetOf(k, phase);
+            assertTrue(offset >= previous, "第 " + k + " 个请求的发送时间早于前一个");
+            previous = offset;
+        }
+    }
+}
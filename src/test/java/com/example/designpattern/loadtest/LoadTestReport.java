@@ -0,0 +1,173 @@
+package com.example.designpattern.loadtest;
+
+import com.example.designpattern.paymentsystem.metrics.LatencyHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 开环压测报告 (JSON)，可以与基线报告比较，作为回归门禁
+ * <p>
+ * 结构：
+ * <pre>
+ * {
+ *   "target": "...", "profile": "step:100+100x5", ...,
+ *   "phases": [ { "name": "step 1 100/s", "targetRate": 100, "achievedRate": 99.8, "types": { ... } }, ... ],
+ *   "overall": { "types": { "alipay": {
+ *       "count": 1000, "errors": 0, "statuses": { "200": 1000 },
+ *       "latencyMillis":     { "mean", "p50", "p90", "p99", "p999", "max" },   // 从计划发送时间算起 (已校正)
+ *       "serviceTimeMillis": { ... }                                           // 从实际发送时间算起 (未校正)
+ *   } } }
+ * }
+ * </pre>
+ * 两者的差距就是 coordinated omission：压测客户端或服务端卡顿时，实际发送时间晚于计划，
+ * 只看 serviceTimeMillis 会漏掉这段排队时间。门禁只看已校正的延迟。
+ * </p>
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    /**
+     * p99 的绝对变化小于该值 (毫秒) 时不视为回归，避免亚毫秒级的抖动触发门禁
+     */
+    static final double MIN_REGRESSION_MILLIS = 1.0;
+
+    private final ObjectNode root;
+
+    LoadTestReport(ObjectNode root) {
+        this.root = root;
+    }
+
+    static ObjectNode newObject() {
+        return MAPPER.createObjectNode();
+    }
+
+    /**
+     * 一个支付类型的统计结果
+     */
+    static ObjectNode typeNode(LatencyHistogram latency, LatencyHistogram serviceTime, Map<Integer, Long> statuses, long errors) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("count", latency.getCount());
+        node.put("errors", errors);
+        ObjectNode statusNode = node.putObject("statuses");
+        statuses.forEach((status, count) -> statusNode.put(Integer.toString(status), count));
+        node.set("latencyMillis", latencyNode(latency.snapshot()));
+        node.set("serviceTimeMillis", latencyNode(serviceTime.snapshot()));
+        return node;
+    }
+
+    private static ObjectNode latencyNode(LatencyHistogram.Snapshot snapshot) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("mean", millis(snapshot.getMean()));
+        node.put("p50", millis(snapshot.getP50()));
+        node.put("p90", millis(snapshot.getP90()));
+        node.put("p99", millis(snapshot.getP99()));
+        node.put("p999", millis(snapshot.getP999()));
+        node.put("max", millis(snapshot.getMax()));
+        return node;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0; // 保留到微秒
+    }
+
+    static LoadTestReport read(Path path) throws IOException {
+        return new LoadTestReport((ObjectNode) MAPPER.readTree(path.toFile()));
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        MAPPER.writeValue(path.toFile(), root);
+    }
+
+    ObjectNode getRoot() {
+        return root;
+    }
+
+    /**
+     * 与基线比较，返回所有不满足门禁的项 (为空表示通过)
+     * <ul>
+     *     <li>任一支付类型的错误率 (非 2xx 响应 + 连接错误/超时) 超过 maxErrorPercent；</li>
+     *     <li>基线中也有的支付类型，已校正的 p99 比基线高出 maxP99RegressionPercent 以上 (且至少高 {@link #MIN_REGRESSION_MILLIS} 毫秒)。</li>
+     * </ul>
+     *
+     * @param baseline 基线报告，为 null 时只检查错误率
+     */
+    List<String> check(LoadTestReport baseline, double maxP99RegressionPercent, double maxErrorPercent) {
+        List<String> violations = new ArrayList<>();
+        JsonNode types = root.path("overall").path("types");
+        JsonNode baselineTypes = baseline != null ? baseline.root.path("overall").path("types") : null;
+        for (Iterator<Map.Entry<String, JsonNode>> it = types.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            String type = entry.getKey();
+            JsonNode current = entry.getValue();
+
+            long count = current.path("count").asLong();
+            double errorPercent = count == 0 ? 0 : 100.0 * failures(current) / count;
+            if (errorPercent > maxErrorPercent) {
+                violations.add(String.format("%s 错误率 %.2f%% 超过上限 %.2f%%", type, errorPercent, maxErrorPercent));
+            }
+
+            JsonNode reference = baselineTypes != null ? baselineTypes.get(type) : null;
+            if (reference != null) {
+                double p99 = current.path("latencyMillis").path("p99").asDouble();
+                double baselineP99 = reference.path("latencyMillis").path("p99").asDouble();
+                if (p99 > baselineP99 * (1 + maxP99RegressionPercent / 100) && p99 - baselineP99 >= MIN_REGRESSION_MILLIS) {
+                    violations.add(String.format("%s p99 %.3fms 比基线 %.3fms 高 %.1f%% (上限 %.1f%%)",
+                            type, p99, baselineP99, (p99 / baselineP99 - 1) * 100, maxP99RegressionPercent));
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * 非 2xx 的响应数加上连接错误/超时数
+     */
+    private static long failures(JsonNode typeNode) {
+        long failures = typeNode.path("errors").asLong();
+        for (Iterator<Map.Entry<String, JsonNode>> it = typeNode.path("statuses").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> status = it.next();
+            if (!status.getKey().startsWith("2")) {
+                failures += status.getValue().asLong();
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 打印便于阅读的摘要：每个阶段、每个支付类型一行
+     */
+    void print(PrintStream out) {
+        out.printf("%-22s %-11s %8s %8s %7s %9s %9s %9s %9s %9s%n",
+                "阶段", "支付类型", "请求数", "达成/秒", "失败", "p50", "p99", "p99.9", "max", "p99(未校正)");
+        for (JsonNode phase : root.path("phases")) {
+            printTypes(out, phase.path("name").asText(), phase.path("achievedRate").asDouble(), phase.path("types"));
+        }
+        printTypes(out, "overall", root.path("overall").path("achievedRate").asDouble(), root.path("overall").path("types"));
+    }
+
+    private static void printTypes(PrintStream out, String phase, double achievedRate, JsonNode types) {
+        for (Iterator<Map.Entry<String, JsonNode>> it = types.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            JsonNode type = entry.getValue();
+            JsonNode latency = type.path("latencyMillis");
+            out.printf("%-22s %-11s %8d %8.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    phase, entry.getKey(), type.path("count").asLong(), achievedRate, failures(type),
+                    latency.path("p50").asDouble(), latency.path("p99").asDouble(), latency.path("p999").asDouble(),
+                    latency.path("max").asDouble(), type.path("serviceTimeMillis").path("p99").asDouble());
+        }
+    }
+}
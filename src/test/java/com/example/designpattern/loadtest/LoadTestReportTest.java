@@ -0,0 +1,55 @@
+package com.example.designpattern.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadTestReportTest {
+
+    @Test
+    void passesWithinThresholds() {
+        LoadTestReport baseline = report(10.0, 1000, 0, 0);
+        LoadTestReport current = report(11.5, 1000, 5, 0);
+
+        assertTrue(current.check(baseline, 20, 1).isEmpty());
+    }
+
+    @Test
+    void flagsP99RegressionAndErrorRate() {
+        LoadTestReport baseline = report(10.0, 1000, 0, 0);
+        LoadTestReport current = report(12.5, 1000, 8, 5);
+
+        List<String> violations = current.check(baseline, 20, 1);
+
+        assertEquals(2, violations.size());
+        assertTrue(violations.get(0).contains("错误率 1.30%"));
+        assertTrue(violations.get(1).contains("p99 12.500ms"));
+    }
+
+    @Test
+    void ignoresSubMillisecondRegressionAndMissingBaseline() {
+        LoadTestReport baseline = report(0.4, 1000, 0, 0);
+        LoadTestReport current = report(0.9, 1000, 0, 0);
+
+        assertTrue(current.check(baseline, 20, 1).isEmpty());
+        assertTrue(current.check(null, 20, 1).isEmpty());
+    }
+
+    private static LoadTestReport report(double p99, long count, long status503, long errors) {
+        ObjectNode root = LoadTestReport.newObject();
+        ObjectNode alipay = root.putObject("overall").putObject("types").putObject("alipay");
+        alipay.put("count", count);
+        alipay.put("errors", errors);
+        ObjectNode statuses = alipay.putObject("statuses");
+        statuses.put("200", count - status503 - errors);
+        if (status503 > 0) {
+            statuses.put("503", status503);
+        }
+        alipay.putObject("latencyMillis").put("p99", p99);
+        return new LoadTestReport(root);
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.designpattern.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.designpattern.controller.InProcessPaymentTarget;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.metrics.LatencyHistogram;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /api/payments/pay 的开环压测工具：按固定的到达率曲线发送请求，延迟按计划发送时间统计
+ * <p>
+ * 用法 (HTTP 模式需单独启动服务端)：
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.profile=step:100+100x5 -Dloadtest.duration-seconds=50
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.target=in-process -Dloadtest.profile=constant:2000
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.baseline=target/loadtest/baseline.json
+ * </pre>
+ * </p>
+ * <p>
+ * 与 {@link PaymentLoadGenerator} (闭环) 不同，这里第 k 个请求的计划发送时间只由 {@link LoadProfile} 决定：
+ * 服务端变慢时请求照常按计划发出，延迟从计划发送时间算到收到完整响应为止，
+ * 即使压测线程本身被 GC 或调度耽搁、晚于计划发送，耽搁的时间也计入延迟 (coordinated omission 校正)。
+ * 报告中同时给出从实际发送时间算起的 serviceTimeMillis，便于对比校正前后的差距。
+ * </p>
+ * <p>
+ * 结果按阶段 (预热、每个阶梯) 和支付类型分别统计，写入 JSON 报告；指定了基线报告时，
+ * 错误率或 p99 超出门禁时进程以退出码 1 结束，可以直接用在 CI 中。
+ * </p>
+ */
+public final class OpenLoopLoadGenerator {
+
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LoadProfile profile;
+    private final PaymentTarget target;
+    private final PaymentType[] mix;     // 按权重展开的支付类型序列，第 k 个请求使用 mix[k % mix.length]
+    private final byte[][] bodies;       // 按 PaymentType 序号索引的请求体
+    private final PhaseStats[] phaseStats;
+    private final PhaseStats overall = new PhaseStats();
+    private final AtomicLong outstanding = new AtomicLong();
+    private long maxSendLagNanos;        // 实际发送时间比计划晚的最大值，只由压测线程写
+
+    OpenLoopLoadGenerator(LoadProfile profile, PaymentTarget target, PaymentType[] mix) {
+        this.profile = profile;
+        this.target = target;
+        this.mix = mix;
+        this.bodies = new byte[PaymentType.values().length][];
+        for (PaymentType type : PaymentType.values()) {
+            bodies[type.ordinal()] = ("{\"paymentType\":\"" + type.getCode() + "\",\"amount\":100.50}").getBytes(StandardCharsets.UTF_8);
+        }
+        this.phaseStats = new PhaseStats[profile.getPhases().size()];
+        for (int i = 0; i < phaseStats.length; i++) {
+            phaseStats[i] = new PhaseStats();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        String profileSpec = System.getProperty("loadtest.profile", "constant:200");
+        long warmupSeconds = Long.getLong("loadtest.warmup-seconds", 10);
+        long durationSeconds = Long.getLong("loadtest.duration-seconds", 30);
+        String targetName = System.getProperty("loadtest.target", "http");
+        String url = System.getProperty("loadtest.url", "http://localhost:8080/api/payments/pay");
+        int connections = Integer.getInteger("loadtest.connections", 10_000);
+        Duration timeout = Duration.ofSeconds(Long.getLong("loadtest.timeout-seconds", 30));
+        PaymentType[] mix = parseMix(System.getProperty("loadtest.mix", "alipay:1,wechat_pay:1,card_pay:1"));
+        Path reportPath = Paths.get(System.getProperty("loadtest.report", "target/loadtest/report.json"));
+        String baselinePath = System.getProperty("loadtest.baseline", "");
+        double maxP99RegressionPercent = Double.parseDouble(System.getProperty("loadtest.max-p99-regression-percent", "20"));
+        double maxErrorPercent = Double.parseDouble(System.getProperty("loadtest.max-error-percent", "1"));
+
+        LoadProfile profile = LoadProfile.parse(profileSpec, warmupSeconds, durationSeconds);
+        PrintStream out = System.out; // 进程内模式会丢弃支付服务的控制台输出
+        out.printf("开环压测 %s (%s)：预热 %d 秒，统计 %d 秒，共 %d 个请求%n",
+                profileSpec, targetName, warmupSeconds, durationSeconds, profile.getTotalArrivals());
+
+        LoadTestReport report;
+        try (PaymentTarget target = "in-process".equals(targetName)
+                ? new InProcessPaymentTarget(timeout)
+                : new HttpPaymentTarget(url, connections, timeout)) {
+            report = new OpenLoopLoadGenerator(profile, target, mix).run(timeout);
+        }
+        report.write(reportPath);
+        report.print(out);
+        out.println("报告: " + reportPath.toAbsolutePath());
+
+        LoadTestReport baseline = baselinePath.isBlank() ? null : LoadTestReport.read(Paths.get(baselinePath));
+        List<String> violations = report.check(baseline, maxP99RegressionPercent, maxErrorPercent);
+        violations.forEach(violation -> out.println("门禁未通过: " + violation));
+        System.exit(violations.isEmpty() ? 0 : 1); // 连接池和事件循环线程不是守护线程
+    }
+
+    /**
+     * 按计划时间发出全部请求，等待所有请求完成 (或超时) 后生成报告
+     *
+     * @param timeout 单个请求的超时，也是发完之后等待剩余请求的上限
+     */
+    LoadTestReport run(Duration timeout) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        int phase = 0;
+        for (long k = 0; k < profile.getTotalArrivals(); k++) {
+            phase = profile.phaseOf(k, phase);
+            long intended = start + profile.offsetOf(k, phase);
+            waitUntil(intended);
+            maxSendLagNanos = Math.max(maxSendLagNanos, System.nanoTime() - intended);
+            send(mix[(int) (k % mix.length)], intended, phaseStats[phase], !profile.getPhases().get(phase).isWarmup());
+        }
+        long drainDeadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return buildReport(startedAt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void send(PaymentType type, long intended, PhaseStats phase, boolean measured) {
+        outstanding.incrementAndGet();
+        long sent = System.nanoTime();
+        CompletableFuture<Integer> response;
+        try {
+            response = target.send(type, bodies[type.ordinal()]);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((status, error) -> {
+            long now = System.nanoTime();
+            phase.record(type, now - intended, now - sent, status, error);
+            if (measured) {
+                overall.record(type, now - intended, now - sent, status, error);
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    /**
+     * 等到计划发送时间：离得远时 park，最后 100 微秒自旋；已经晚了则立即返回
+     */
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private LoadTestReport buildReport(Instant startedAt, long elapsedMillis) {
+        ObjectNode root = LoadTestReport.newObject();
+        root.put("target", target.describe());
+        root.put("profile", profile.getSpec());
+        root.put("startedAt", startedAt.toString());
+        root.put("elapsedMillis", elapsedMillis);
+        root.put("maxSendLagMillis", maxSendLagNanos / 1_000_000.0);
+        root.put("unfinished", outstanding.get());
+
+        ArrayNode phases = root.putArray("phases");
+        long measuredNanos = 0;
+        for (int i = 0; i < phaseStats.length; i++) {
+            LoadProfile.Phase phase = profile.getPhases().get(i);
+            ObjectNode node = phases.addObject();
+            node.put("name", phase.getName());
+            node.put("warmup", phase.isWarmup());
+            node.put("durationSeconds", phase.getDurationNanos() / 1e9);
+            node.put("targetRate", (phase.getFromRate() + phase.getToRate()) / 2);
+            node.put("achievedRate", phaseStats[i].count() / (phase.getDurationNanos() / 1e9));
+            node.set("types", phaseStats[i].toJson());
+            if (!phase.isWarmup()) {
+                measuredNanos += phase.getDurationNanos();
+            }
+        }
+        ObjectNode overallNode = root.putObject("overall");
+        overallNode.put("achievedRate", overall.count() / (measuredNanos / 1e9));
+        overallNode.set("types", overall.toJson());
+        return new LoadTestReport(root);
+    }
+
+    /**
+     * 解析支付类型权重，例如 alipay:2,card_pay:1，结果中每种类型按权重重复、交错排列
+     */
+    static PaymentType[] parseMix(String spec) {
+        Map<PaymentType, Integer> weights = new TreeMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("权重不能为负数: " + part);
+            }
+            weights.merge(PaymentType.fromCode(pair[0].trim()), weight, Integer::sum);
+        }
+        List<PaymentType> mix = new ArrayList<>();
+        int maxWeight = weights.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        for (int round = 0; round < maxWeight; round++) {
+            for (Map.Entry<PaymentType, Integer> entry : weights.entrySet()) {
+                if (round < entry.getValue()) {
+                    mix.add(entry.getKey());
+                }
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("支付类型权重不能全为 0: " + spec);
+        }
+        return mix.toArray(new PaymentType[0]);
+    }
+
+    /**
+     * 一个阶段内按支付类型划分的统计
+     */
+    private static final class PhaseStats {
+        private final TypeStats[] byType = new TypeStats[PaymentType.values().length];
+
+        PhaseStats() {
+            for (int i = 0; i < byType.length; i++) {
+                byType[i] = new TypeStats();
+            }
+        }
+
+        void record(PaymentType type, long latencyNanos, long serviceNanos, Integer status, Throwable error) {
+            TypeStats stats = byType[type.ordinal()];
+            stats.latency.record(latencyNanos);
+            stats.serviceTime.record(serviceNanos);
+            if (error != null || status == null) {
+                stats.errors.increment();
+            } else {
+                stats.statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+            }
+        }
+
+        long count() {
+            long count = 0;
+            for (TypeStats stats : byType) {
+                count += stats.latency.getCount();
+            }
+            return count;
+        }
+
+        ObjectNode toJson() {
+            ObjectNode types = LoadTestReport.newObject();
+            for (PaymentType type : PaymentType.values()) {
+                TypeStats stats = byType[type.ordinal()];
+                if (stats.latency.getCount() == 0) {
+                    continue;
+                }
+                Map<Integer, Long> statuses = new TreeMap<>();
+                stats.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+                types.set(type.getCode(), LoadTestReport.typeNode(stats.latency, stats.serviceTime, statuses, stats.errors.sum()));
+            }
+            return types;
+        }
+    }
+
+    private static final class TypeStats {
+        final LatencyHistogram latency = new LatencyHistogram();     // 从计划发送时间算起
+        final LatencyHistogram serviceTime = new LatencyHistogram(); // 从实际发送时间算起
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder errors = new LongAdder();
+    }
+}
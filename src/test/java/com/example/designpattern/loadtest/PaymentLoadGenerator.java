@@ -0,0 +1,134 @@
+package com.example.designpattern.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.designpattern.paymentsystem.metrics.LatencyHistogram;
+import io.netty.channel.ChannelOption;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * /api/payments/pay 的闭环压测客户端，用于对比 Servlet (Tomcat) 与 WebFlux (Reactor Netty) 两种 Web 栈
+ * <p>
+ * 用法 (服务端需单独启动，客户端与服务端各自一个 JVM，文件描述符上限需大于连接数)：
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.main=PaymentLoadGenerator -Dloadtest.connections=10000 -Dloadtest.duration-seconds=30
+ * </pre>
+ * 每个连接一个虚拟用户，收到上一个响应后立即发送下一个请求 (闭环)，
+ * 预热期之后的请求计入统计：吞吐量、各状态码数量、连接错误数，以及从发送到读完响应体的延迟分位值。
+ * 闭环模型下服务端变慢时客户端也会少发请求，延迟分位值偏乐观，只适合两种 Web 栈之间的相对比较。
+ * </p>
+ */
+public class PaymentLoadGenerator {
+
+    private static final String BODY = "{\"paymentType\":\"alipay\",\"amount\":100.50}";
+
+    private final HttpClient client;
+    private final String url;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile long measureStartNanos;
+
+    public PaymentLoadGenerator(String url, int connections) {
+        ConnectionProvider provider = ConnectionProvider.builder("payment-loadtest")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        this.client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 30_000)
+                .responseTimeout(Duration.ofSeconds(30))
+                .headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+        this.url = url;
+    }
+
+    public static void main(String[] args) {
+        String url = System.getProperty("loadtest.url", "http://localhost:8080/api/payments/pay");
+        int connections = Integer.getInteger("loadtest.connections", 10_000);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+        // 没有 Spring Boot 的日志配置时 logback 默认输出 DEBUG，Reactor Netty 每个请求都会打日志
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        System.out.printf("压测 %s: %d 个并发连接，预热 %d 秒，统计 %d 秒%n", url, connections, warmupSeconds, durationSeconds);
+        new PaymentLoadGenerator(url, connections).run(connections, warmupSeconds, durationSeconds);
+        System.exit(0); // 连接池和事件循环线程不是守护线程
+    }
+
+    void run(int connections, int warmupSeconds, int durationSeconds) {
+        long start = System.nanoTime();
+        measureStartNanos = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        Flux.range(0, connections)
+                .flatMap(user -> virtualUser(deadline), connections)
+                .blockLast();
+
+        report(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - measureStartNanos), durationSeconds);
+    }
+
+    /**
+     * 一个虚拟用户：在截止时间之前不断发送请求，每次等上一个响应读完
+     */
+    private Mono<Void> virtualUser(long deadline) {
+        return Mono.defer(this::sendOne).repeat(() -> System.nanoTime() < deadline).then();
+    }
+
+    private Mono<Void> sendOne() {
+        long start = System.nanoTime();
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        return client.post()
+                .uri(url)
+                .send(ByteBufFlux.fromString(Mono.just(BODY)))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .doOnNext(status -> {
+                    if (start >= measureStartNanos) {
+                        latency.record(System.nanoTime() - start);
+                        statusCounts.computeIfAbsent(status, code -> new LongAdder()).increment();
+                    }
+                })
+                .onErrorResume(error -> {
+                    if (start >= measureStartNanos) {
+                        errors.increment();
+                    }
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then();
+    }
+
+    private void report(long elapsedSeconds, int durationSeconds) {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        long seconds = Math.max(1, Math.min(elapsedSeconds, durationSeconds));
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, count) -> statuses.put(status, count.sum()));
+
+        System.out.printf("请求数: %d (%.0f 次/秒)，状态码: %s，连接错误: %d，最大在途请求: %d%n",
+                snapshot.getCount(), snapshot.getCount() / (double) seconds, statuses, errors.sum(), peakInFlight.get());
+        System.out.printf("延迟 (毫秒): mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                millis(snapshot.getMean()), millis(snapshot.getP50()), millis(snapshot.getP90()),
+                millis(snapshot.getP99()), millis(snapshot.getP999()), millis(snapshot.getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.designpattern.loadtest;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测对象：发送一笔 /pay 请求，返回 HTTP 状态码
+ * <p>
+ * send 必须是非阻塞的：开环压测在同一个线程上按计划时间依次发出请求，
+ * 如果 send 阻塞，后面的请求就会晚于计划时间发出。
+ * </p>
+ */
+public interface PaymentTarget extends AutoCloseable {
+
+    /**
+     * @param type 请求体中的支付类型 (用于按类型统计)
+     * @param body /pay 的 JSON 请求体
+     * @return 完成时给出 HTTP 状态码；连接失败、超时等以异常完成
+     */
+    CompletableFuture<Integer> send(PaymentType type, byte[] body);
+
+    /**
+     * 压测对象的描述，写入报告
+     */
+    String describe();
+
+    @Override
+    void close();
+}
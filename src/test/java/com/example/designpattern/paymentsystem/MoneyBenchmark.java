@@ -0,0 +1,67 @@
+package com.example.designpattern.paymentsystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money 与 BigDecimal 的对比基准：加法、格式化成功提示信息、由定点数构造
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    // 非 final，避免被 JIT 当作常量折叠
+    private BigDecimal bigDecimalAmount = new BigDecimal("100.50");
+    private BigDecimal bigDecimalFee = new BigDecimal("0.35");
+    private Money moneyAmount = Money.ofMinor(10050, Money.CNY);
+    private Money moneyFee = Money.ofMinor(35, Money.CNY);
+    private long unscaled = 1005;
+    private int scale = 1;
+
+    @Benchmark
+    public BigDecimal addBigDecimal() {
+        return bigDecimalAmount.add(bigDecimalFee);
+    }
+
+    @Benchmark
+    public Money addMoney() {
+        return moneyAmount.plus(moneyFee);
+    }
+
+    // 格式化时每次使用新的金额对象：BigDecimal 会缓存 toString 的结果，复用同一个对象会让对比失真
+    @Benchmark
+    public String formatBigDecimal() {
+        // 与原 PaymentController#successMessage 相同的字符串拼接
+        return PaymentType.ALIPAY.getDescription() + " 支付 " + BigDecimal.valueOf(unscaled, scale) + " 元成功！";
+    }
+
+    @Benchmark
+    public String formatMoney() {
+        // 与 PaymentController#successMessage 相同
+        return PaymentType.ALIPAY.getDescription() + " 支付 " + Money.ofMinor(unscaled, Money.CNY).toPlainString() + " 元成功！";
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointToBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale).setScale(2);
+    }
+
+    @Benchmark
+    public Money fixedPointToMoney() {
+        return Money.fromFixedPoint(unscaled, scale, Money.CNY);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.designpattern.paymentsystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void convertsFromBigDecimalAndFixedPoint() {
+        assertEquals(Money.ofMinor(10050, Money.CNY), Money.of(new BigDecimal("100.5"), Money.CNY));
+        assertEquals(Money.ofMinor(10050, Money.CNY), Money.fromFixedPoint(100500, 3, Money.CNY));
+        assertEquals(Money.ofMinor(-5, Money.CNY), Money.fromFixedPoint(-5, 2, Money.CNY));
+        assertEquals(new BigDecimal("100.50"), Money.ofMinor(10050, Money.CNY).toBigDecimal());
+
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1.005"), Money.CNY));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromFixedPoint(15, 1, JPY));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1E+30"), Money.CNY));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromFixedPoint(Long.MAX_VALUE, 0, Money.CNY));
+    }
+
+    @Test
+    void arithmeticIsExactAndChecksOverflowAndCurrency() {
+        Money a = Money.ofMinor(10050, Money.CNY);
+        assertEquals(Money.ofMinor(10100, Money.CNY), a.plus(Money.ofMinor(50, Money.CNY)));
+        assertEquals(Money.ofMinor(-50, Money.CNY), Money.ofMinor(10000, Money.CNY).minus(a));
+        assertEquals(Money.ofMinor(30150, Money.CNY), a.multiply(3));
+
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, Money.CNY).plus(Money.ofMinor(1, Money.CNY)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE, Money.CNY).negate());
+        assertThrows(IllegalArgumentException.class, () -> a.plus(Money.ofMinor(1, JPY)));
+    }
+
+    @Test
+    void formatsWithCurrencyFractionDigits() {
+        assertEquals("100.50", Money.ofMinor(10050, Money.CNY).toPlainString());
+        assertEquals("0.05", Money.ofMinor(5, Money.CNY).toPlainString());
+        assertEquals("-0.50", Money.ofMinor(-50, Money.CNY).toPlainString());
+        assertEquals("-12.30", Money.ofMinor(-1230, Money.CNY).toPlainString());
+        assertEquals("-92233720368547758.08", Money.ofMinor(Long.MIN_VALUE, Money.CNY).toPlainString());
+        assertEquals("1500 JPY", Money.ofMinor(1500, JPY).toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.designpattern.paymentsystem;
+
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付分发路径基准：支付类型编码解析与工厂查找
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentDispatchBenchmark {
+
+    // 最后一个是大小写不一致的编码，走 equalsIgnoreCase 的慢路径
+    @Param({"alipay", "wechat_pay", "card_pay", "Card_Pay"})
+    public String code;
+
+    private PaymentServiceFactoryImpl factory;
+    private PaymentType type;
+
+    @Setup
+    public void setUp() {
+        factory = PaymentFixtures.newFactory(new PaymentMetrics());
+        type = PaymentType.fromCode(code);
+    }
+
+    @Benchmark
+    public PaymentType fromCode() {
+        return PaymentType.fromCode(code);
+    }
+
+    @Benchmark
+    public PaymentService factoryLookupByType() {
+        return factory.getPaymentService(type);
+    }
+
+    @Benchmark
+    public PaymentService factoryLookupByCode() {
+        return factory.getPaymentService(code);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.designpattern.paymentsystem;
+
+import com.example.designpattern.paymentsystem.journal.PaymentJournal;
+import com.example.designpattern.paymentsystem.metrics.PaymentMetrics;
+import com.example.designpattern.paymentsystem.ratelimit.PaymentRateLimiter;
+import com.example.designpattern.paymentsystem.ratelimit.RateLimit;
+import com.example.designpattern.paymentsystem.resilience.PaymentResilience;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 在 Spring 容器之外组装支付服务工厂，供基准测试和进程内压测使用
+ */
+public final class PaymentFixtures {
+
+    /**
+     * 在调用线程上直接执行任务的执行器，避免线程切换干扰测量
+     */
+    public static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private PaymentFixtures() {
+    }
+
+    /**
+     * 创建包含三种支付服务、不记录支付日志的工厂 (舱壁和熔断器使用默认参数)
+     */
+    public static PaymentServiceFactoryImpl newFactory(PaymentMetrics metrics) {
+        return newFactory(metrics, new PaymentResilience(new StandardEnvironment()));
+    }
+
+    /**
+     * 创建包含三种支付服务、不记录支付日志的工厂，使用给定的舱壁和熔断器
+     */
+    public static PaymentServiceFactoryImpl newFactory(PaymentMetrics metrics, PaymentResilience resilience) {
+        return newFactory(metrics, resilience, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * 创建包含三种支付服务、不记录支付日志的工厂，payAsync 在给定的执行器上运行
+     */
+    public static PaymentServiceFactoryImpl newFactory(PaymentMetrics metrics, PaymentResilience resilience, Executor paymentExecutor) {
+        Map<String, PaymentService> services = new LinkedHashMap<>();
+        services.put("alipayService", new AlipayServiceImpl(paymentExecutor));
+        services.put("weChatPayService", new WeChatPayServiceImpl(paymentExecutor));
+        services.put("cardPayService", new CardPayServiceImpl(paymentExecutor));
+        PaymentServiceFactoryImpl factory = new PaymentServiceFactoryImpl(services,
+                new StaticListableBeanFactory().getBeanProvider(PaymentJournal.class), metrics, resilience,
+                new StandardEnvironment());
+        factory.initServiceCache();
+        return factory;
+    }
+
+    /**
+     * 创建所有支付类型使用同一限流参数的限流器 (空闲 5 分钟清理，未携带商户编号的请求共用 anonymous 桶，每个支付类型最多 1000 个桶)
+     */
+    public static PaymentRateLimiter newRateLimiter(RateLimit limit) {
+        Map<PaymentType, RateLimit> limits = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            limits.put(type, limit);
+        }
+        return new PaymentRateLimiter(limits, true, 300_000, true, 1000);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.designpattern.paymentsystem.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void duplicateWaitsForInFlightAttemptAndLaterDuplicateHitsCache() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, 4, 60_000, value -> true);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> gateway = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.getOrCompute("k1", () -> {
+            calls.incrementAndGet();
+            return gateway;
+        });
+        CompletableFuture<String> concurrent = cache.getOrCompute("k1", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("duplicate");
+        });
+        assertFalse(concurrent.isDone());
+
+        gateway.complete("ok");
+        assertEquals("ok", first.join());
+        assertEquals("ok", concurrent.join());
+        assertEquals("ok", cache.getOrCompute("k1", () -> CompletableFuture.completedFuture("again")).join());
+
+        assertEquals(1, calls.get());
+        IdempotencyCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getInFlightJoins());
+        assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    void failedOrUncacheableResultsAreRetried() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, 4, 60_000, value -> !value.equals("retry"));
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.getOrCompute("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("boom"));
+        });
+        cache.getOrCompute("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("retry");
+        });
+        cache.getOrCompute("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("done");
+        });
+
+        assertEquals(3, calls.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void sizeBoundEvictsOldestEntries() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(4, 1, 60_000, value -> true);
+        for (int i = 0; i < 10; i++) {
+            String key = "k" + i;
+            cache.getOrCompute(key, () -> CompletableFuture.completedFuture(key));
+        }
+
+        assertEquals(4, cache.size());
+        assertEquals(6, cache.stats().getEvictions());
+        assertTrue(cache.getOrCompute("k9", () -> CompletableFuture.completedFuture("new")).join().equals("k9"));
+    }
+
+    @Test
+    void keyIsBoundToTheFirstRequestFingerprint() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, 4, 60_000, value -> true);
+        assertEquals("paid 1.00", cache.getOrCompute("k", "alipay|1", () -> CompletableFuture.completedFuture("paid 1.00")).join());
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> cache.getOrCompute("k", "alipay|100", () -> CompletableFuture.completedFuture("paid 100.00")));
+        assertEquals("paid 1.00", cache.getOrCompute("k", "alipay|1", () -> CompletableFuture.completedFuture("again")).join());
+        assertEquals(1, cache.stats().getMismatches());
+    }
+
+    @Test
+    void inFlightEntriesAreNotEvicted() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(2, 1, 60_000, value -> true);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        cache.getOrCompute("slow", () -> {
+            calls.incrementAndGet();
+            return slow;
+        });
+        for (int i = 0; i < 5; i++) {
+            String key = "k" + i;
+            cache.getOrCompute(key, () -> CompletableFuture.completedFuture(key));
+        }
+
+        // 进行中的 slow 一直在缓存中，重复请求等待第一次的结果而不是再执行一次
+        CompletableFuture<String> duplicate = cache.getOrCompute("slow", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        });
+        slow.complete("first");
+        assertEquals("first", duplicate.join());
+        assertEquals(1, calls.get());
+        assertEquals(2, cache.size());
+    }
+}
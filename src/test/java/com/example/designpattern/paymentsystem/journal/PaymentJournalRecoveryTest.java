@@ -0,0 +1,187 @@
+package com.example.designpattern.paymentsystem.journal;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentJournalRecoveryTest {
+
+    private static final int SEGMENT_SIZE = JournalRecord.RECORD_SIZE * 8; // 很小的段，记录会跨越多个段文件
+    private static final Money AMOUNT = Money.ofMinor(10050, Money.CNY);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysOnlyRecordsAfterCheckpoint() throws IOException {
+        try (PaymentJournal journal = open()) {
+            for (int i = 1; i <= 10; i++) {
+                long paymentId = journal.nextPaymentId();
+                journal.append(paymentId, JournalRecord.Status.STARTED, PaymentType.ALIPAY, AMOUNT);
+                if (i <= 8) {
+                    journal.append(paymentId, JournalRecord.Status.SUCCEEDED, PaymentType.ALIPAY, AMOUNT);
+                } else if (i == 9) {
+                    journal.append(paymentId, JournalRecord.Status.FAILED, PaymentType.ALIPAY, AMOUNT);
+                }
+            }
+        } // 关闭时写检查点，支付 10 停在 STARTED
+        byte[] checkpointAfterFirstRun = Files.readAllBytes(directory.resolve(JournalCheckpoint.FILE_NAME));
+
+        try (PaymentJournal journal = open()) {
+            RecoveryReport report = journal.getRecoveryReport();
+            assertFalse(report.isFullScan());
+            assertEquals(0, report.getReplayedRecords());
+            assertEquals(19, report.getCheckpointSequence());
+            assertEquals(List.of(10L), inFlightIds(report));
+            assertEquals(8, report.getSucceededPayments());
+            assertEquals(1, report.getFailedPayments());
+
+            assertEquals(11, journal.nextPaymentId());
+            journal.append(11, JournalRecord.Status.STARTED, PaymentType.CARD_PAY, AMOUNT);
+            journal.append(11, JournalRecord.Status.SUCCEEDED, PaymentType.CARD_PAY, AMOUNT);
+            assertEquals(12, journal.nextPaymentId());
+            journal.append(12, JournalRecord.Status.STARTED, PaymentType.WECHAT_PAY, AMOUNT);
+        }
+
+        // 模拟在写下一个检查点之前崩溃：检查点还是第一次运行结束时的
+        Files.write(directory.resolve(JournalCheckpoint.FILE_NAME), checkpointAfterFirstRun);
+        try (PaymentJournal journal = open()) {
+            RecoveryReport report = journal.getRecoveryReport();
+            assertFalse(report.isFullScan());
+            assertEquals(3, report.getReplayedRecords());
+            assertEquals(22, report.getLastSequence());
+            assertEquals(List.of(10L, 12L), inFlightIds(report));
+            assertEquals(PaymentType.WECHAT_PAY.getCode(), report.getInFlightPayments().get(1).getPaymentType());
+            assertEquals(9, report.getSucceededPayments());
+            assertEquals(13, journal.nextPaymentId());
+
+            assertEquals(JournalRecord.Status.SUCCEEDED, journal.lookup(11).getStatus());
+            assertEquals(JournalRecord.Status.FAILED, journal.lookup(9).getStatus());
+            assertEquals(JournalRecord.Status.STARTED, journal.lookup(10).getStatus());
+            assertEquals(AMOUNT, journal.lookup(10).getAmount());
+            assertNull(journal.lookup(99));
+        }
+    }
+
+    @Test
+    void checkpointFlushesEverySegmentRolledSinceTheLastFlush() throws IOException {
+        byte[] checkpoint;
+        try (PaymentJournal journal = open()) {
+            for (int i = 1; i <= 10; i++) {
+                long paymentId = journal.nextPaymentId();
+                journal.append(paymentId, JournalRecord.Status.STARTED, PaymentType.ALIPAY, AMOUNT);
+                journal.append(paymentId, JournalRecord.Status.SUCCEEDED, PaymentType.ALIPAY, AMOUNT);
+            } // 每段 7 条记录，20 条记录分布在 3 个段中
+            assertEquals(0, journal.getFsyncCount()); // OS_BUFFERED 追加时不刷盘
+            journal.checkpoint();
+            assertEquals(3, journal.getFsyncCount()); // 两个已写满的段和当前段都在写检查点前刷盘
+            checkpoint = Files.readAllBytes(directory.resolve(JournalCheckpoint.FILE_NAME));
+
+            for (int i = 11; i <= 15; i++) {
+                long paymentId = journal.nextPaymentId();
+                journal.append(paymentId, JournalRecord.Status.STARTED, PaymentType.CARD_PAY, AMOUNT);
+                journal.append(paymentId, JournalRecord.Status.SUCCEEDED, PaymentType.CARD_PAY, AMOUNT);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(5, files.filter(file -> file.getFileName().toString().startsWith(PaymentJournal.SEGMENT_PREFIX)).count());
+        }
+
+        // 模拟在写下一个检查点之前崩溃：从第一个检查点开始跨段重放
+        Files.write(directory.resolve(JournalCheckpoint.FILE_NAME), checkpoint);
+        try (PaymentJournal journal = open()) {
+            RecoveryReport report = journal.getRecoveryReport();
+            assertFalse(report.isFullScan());
+            assertEquals(20, report.getCheckpointSequence());
+            assertEquals(10, report.getReplayedRecords());
+            assertEquals(30, report.getLastSequence());
+            assertEquals(List.of(), inFlightIds(report));
+            assertEquals(15, report.getSucceededPayments());
+            assertEquals(JournalRecord.Status.SUCCEEDED, journal.lookup(3).getStatus());
+            assertEquals(JournalRecord.Status.SUCCEEDED, journal.lookup(13).getStatus());
+            assertEquals(16, journal.nextPaymentId());
+        }
+    }
+
+    @Test
+    void rebuildsStateAndIndexWithoutCheckpoint() throws IOException {
+        try (PaymentJournal journal = open()) {
+            for (int i = 1; i <= 20; i++) {
+                long paymentId = journal.nextPaymentId();
+                journal.append(paymentId, JournalRecord.Status.STARTED, PaymentType.ALIPAY, AMOUNT);
+                if (i % 5 != 0) {
+                    journal.append(paymentId, JournalRecord.Status.SUCCEEDED, PaymentType.ALIPAY, AMOUNT);
+                }
+            }
+        }
+        Files.delete(directory.resolve(JournalCheckpoint.FILE_NAME));
+        Files.delete(directory.resolve("payment.index"));
+
+        try (PaymentJournal journal = open()) {
+            RecoveryReport report = journal.getRecoveryReport();
+            assertTrue(report.isFullScan());
+            assertEquals(36, report.getReplayedRecords());
+            assertEquals(List.of(5L, 10L, 15L, 20L), inFlightIds(report));
+            assertEquals(16, report.getSucceededPayments());
+            assertEquals(JournalRecord.Status.SUCCEEDED, journal.lookup(19).getStatus());
+            assertEquals(JournalRecord.Status.STARTED, journal.lookup(20).getStatus());
+            assertEquals(21, journal.nextPaymentId());
+        }
+    }
+
+    @Test
+    void recordsFailureWhenDelegateRejectsSynchronously() throws IOException {
+        try (PaymentJournal journal = open()) {
+            PaymentService rejecting = new PaymentService() {
+                @Override
+                public void pay(Money amount) {
+                    throw new StackOverflowError();
+                }
+
+                @Override
+                public CompletableFuture<Void> payAsync(Money amount) {
+                    throw new RejectedExecutionException("支付线程池已满");
+                }
+
+                @Override
+                public PaymentType getServiceType() {
+                    return PaymentType.ALIPAY;
+                }
+            };
+            JournalingPaymentService service = new JournalingPaymentService(rejecting, journal);
+            assertThrows(RejectedExecutionException.class, () -> service.payAsync(AMOUNT));
+            assertThrows(StackOverflowError.class, () -> service.pay(AMOUNT));
+        }
+
+        try (PaymentJournal journal = open()) {
+            RecoveryReport report = journal.getRecoveryReport();
+            assertEquals(List.of(), inFlightIds(report)); // 没有遗留的进行中记录
+            assertEquals(2, report.getFailedPayments());
+        }
+    }
+
+    private PaymentJournal open() throws IOException {
+        return PaymentJournal.open(directory, SEGMENT_SIZE, DurabilityMode.OS_BUFFERED, 0, 0);
+    }
+
+    private static List<Long> inFlightIds(RecoveryReport report) {
+        return report.getInFlightPayments().stream().map(RecoveryReport.InFlightPayment::getPaymentId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.designpattern.paymentsystem.loadbalance;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 负载均衡挑选渠道并记录耗时的开销 (渠道本身是空操作)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancedPaymentServiceBenchmark {
+
+    private static final Money AMOUNT = Money.ofMinor(10050, Money.CNY);
+
+    @Param({"1", "4"})
+    public int providers;
+
+    private LoadBalancedPaymentService balancer;
+
+    @Setup
+    public void setUp() {
+        PaymentService noop = new PaymentService() {
+            @Override
+            public void pay(Money amount) {
+            }
+
+            @Override
+            public CompletableFuture<Void> payAsync(Money amount) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public PaymentType getServiceType() {
+                return PaymentType.CARD_PAY;
+            }
+        };
+        List<PaymentProvider> list = new ArrayList<>();
+        for (int i = 0; i < providers; i++) {
+            list.add(new PaymentProvider("card-" + i, noop, i + 1, 10_000));
+        }
+        balancer = new LoadBalancedPaymentService(PaymentType.CARD_PAY, list);
+    }
+
+    @Benchmark
+    public void pay() {
+        balancer.pay(AMOUNT);
+    }
+}
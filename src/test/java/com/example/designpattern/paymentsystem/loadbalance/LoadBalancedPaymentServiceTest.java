@@ -0,0 +1,83 @@
+package com.example.designpattern.paymentsystem.loadbalance;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.resilience.Bulkhead;
+import com.example.designpattern.paymentsystem.resilience.CircuitBreaker;
+import com.example.designpattern.paymentsystem.resilience.ResilientPaymentService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadBalancedPaymentServiceTest {
+
+    private static final Money AMOUNT = Money.ofMinor(100, Money.CNY);
+
+    private static PaymentService card(boolean failing) {
+        return new PaymentService() {
+            @Override
+            public void pay(Money amount) {
+                if (failing) {
+                    throw new IllegalStateException("收单通道故障");
+                }
+            }
+
+            @Override
+            public CompletableFuture<Void> payAsync(Money amount) {
+                return CompletableFuture.runAsync(() -> pay(amount), Runnable::run);
+            }
+
+            @Override
+            public PaymentType getServiceType() {
+                return PaymentType.CARD_PAY;
+            }
+        };
+    }
+
+    private static ResilientPaymentService resilient(PaymentService service) {
+        return new ResilientPaymentService(service, new Bulkhead(16), new CircuitBreaker("test", 10, 2, 50, 1000, 100, 60_000, 1));
+    }
+
+    @Test
+    void dropsProviderWhileItsCircuitBreakerIsOpen() {
+        PaymentProvider healthy = new PaymentProvider("healthy", resilient(card(false)), 1, 10_000);
+        PaymentProvider broken = new PaymentProvider("broken", resilient(card(true)), 1, 10_000);
+        LoadBalancedPaymentService balancer = new LoadBalancedPaymentService(PaymentType.CARD_PAY, List.of(healthy, broken));
+
+        // 直接调用故障渠道，使其熔断
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> broken.getService().pay(AMOUNT));
+        }
+        assertTrue(!broken.isAvailable());
+
+        for (int i = 0; i < 100; i++) {
+            balancer.pay(AMOUNT);
+        }
+        assertEquals(100, healthy.snapshot().getPicks());
+        assertEquals(0, broken.snapshot().getPicks());
+    }
+
+    @Test
+    void prefersLowerLatencyAndHigherWeight() {
+        PaymentProvider fast = new PaymentProvider("fast", card(false), 1, 10_000);
+        PaymentProvider slow = new PaymentProvider("slow", card(false), 1, 10_000);
+        long now = System.nanoTime();
+        slow.onComplete(slow.onStart() - 50_000_000, true); // 一次 50ms 的调用
+        fast.onComplete(fast.onStart() - 1_000_000, true);  // 一次 1ms 的调用
+
+        LoadBalancedPaymentService balancer = new LoadBalancedPaymentService(PaymentType.CARD_PAY, List.of(fast, slow));
+        assertSame(fast, balancer.choose());
+
+        // 权重为 100 时，慢渠道的负载 (50ms / 100) 低于快渠道 (1ms / 1)
+        PaymentProvider heavy = new PaymentProvider("heavy", card(false), 100, 10_000);
+        heavy.onComplete(heavy.onStart() - 50_000_000, true);
+        assertTrue(heavy.cost(now) < fast.cost(now));
+    }
+}
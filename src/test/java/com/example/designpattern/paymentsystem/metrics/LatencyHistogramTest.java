@@ -0,0 +1,89 @@
+package com.example.designpattern.paymentsystem.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static final int BUCKET_COUNT = LatencyHistogram.indexOf(Long.MAX_VALUE) + 1;
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64; // 约 1.6%
+
+    @Test
+    void bucketsAreContiguousAndNarrowEnough() {
+        assertEquals(3712, BUCKET_COUNT);
+        for (int value = 0; value < 128; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value)); // 小于 128 的值每个值一个桶
+        }
+        long lowest = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long highest = LatencyHistogram.highestValueOf(i);
+            // 桶 i 恰好覆盖 [lowest, highest]，下一个值落在下一个桶
+            assertEquals(i, LatencyHistogram.indexOf(lowest), "桶 " + i + " 的下界");
+            assertEquals(i, LatencyHistogram.indexOf(highest), "桶 " + i + " 的上界");
+            if (i < BUCKET_COUNT - 1) {
+                assertEquals(i + 1, LatencyHistogram.indexOf(highest + 1), "桶 " + i + " 之后的值");
+            }
+            assertTrue(highest - lowest <= lowest * MAX_RELATIVE_ERROR, "桶 " + i + " 过宽: [" + lowest + ", " + highest + "]");
+            lowest = highest + 1;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(BUCKET_COUNT - 1));
+        assertEquals(LatencyHistogram.indexOf(1L << 40), LatencyHistogram.indexOf((1L << 40) + (1L << 34) - 1));
+    }
+
+    @Test
+    void emptySnapshotIsAllZeros() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMean());
+        assertEquals(0, snapshot.getP50());
+        assertEquals(0, snapshot.getP999());
+        assertEquals(0, snapshot.getMax());
+    }
+
+    @Test
+    void recordsExtremeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5); // 负值按 0 处理
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getP50());
+        assertEquals(Long.MAX_VALUE, snapshot.getP999());
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    void tailPercentilesStayWithinTheDocumentedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(7);
+        long[] values = new long[200_000];
+        for (int i = 0; i < values.length; i++) {
+            // 长尾分布：大多数在 1ms 左右，少数达到几百毫秒
+            values[i] = (long) (1_000_000 * Math.exp(random.nextGaussian() * 1.5));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertWithinError(exact(values, 50.0), snapshot.getP50());
+        assertWithinError(exact(values, 99.0), snapshot.getP99());
+        assertWithinError(exact(values, 99.9), snapshot.getP999());
+    }
+
+    private static long exact(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(sorted.length * percentile / 100.0) - 1];
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        // 分位值取桶的上界：不小于真实值，且最多大 1/64
+        assertTrue(actual >= expected && actual - expected <= expected * MAX_RELATIVE_ERROR,
+                "期望 " + expected + "，实际 " + actual);
+    }
+}
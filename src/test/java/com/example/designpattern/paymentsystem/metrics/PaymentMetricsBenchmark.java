@@ -0,0 +1,40 @@
+package com.example.designpattern.paymentsystem.metrics;
+
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标记录开销基准 (要求单次记录远低于 1 微秒)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentMetricsBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final PaymentMetrics.TypeMetrics typeMetrics = new PaymentMetrics().of(PaymentType.ALIPAY);
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    @Benchmark
+    public void paymentStartAndComplete() {
+        typeMetrics.onComplete(typeMetrics.onStart(), true);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.designpattern.paymentsystem.ratelimit;
+
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流判断的开销：所有线程争用同一个商户的桶 (CAS 竞争最激烈)，以及分散在 1 万个商户上
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentRateLimiterBenchmark {
+
+    private static final int MERCHANTS = 10_000;
+
+    private PaymentRateLimiter limiter;
+    private String[] merchantIds;
+
+    @Setup
+    public void setUp() {
+        limiter = PaymentFixtures.newRateLimiter(new RateLimit(1e9, 1_000_000)); // 限额足够大，测量的是放行路径
+        merchantIds = new String[MERCHANTS];
+        for (int i = 0; i < MERCHANTS; i++) {
+            merchantIds[i] = "merchant-" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        limiter.close();
+    }
+
+    @Benchmark
+    public long singleMerchant() {
+        return limiter.tryAcquire("merchant-0", PaymentType.ALIPAY);
+    }
+
+    @Benchmark
+    public long manyMerchants() {
+        return limiter.tryAcquire(merchantIds[ThreadLocalRandom.current().nextInt(MERCHANTS)], PaymentType.ALIPAY);
+    }
+}
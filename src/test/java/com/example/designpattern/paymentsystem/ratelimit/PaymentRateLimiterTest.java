@@ -0,0 +1,104 @@
+package com.example.designpattern.paymentsystem.ratelimit;
+
+import com.example.designpattern.paymentsystem.PaymentFixtures;
+import com.example.designpattern.paymentsystem.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsLazily() {
+        try (PaymentRateLimiter limiter = PaymentFixtures.newRateLimiter(new RateLimit(10, 3))) {
+            long now = 1_000 * SECOND;
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, limiter.tryAcquire("m1", PaymentType.ALIPAY, now));
+            }
+            long wait = limiter.tryAcquire("m1", PaymentType.ALIPAY, now);
+            assertEquals(SECOND / 10, wait); // 下一个令牌 100ms 后补充
+
+            // 其他商户、其他支付类型互不影响
+            assertEquals(0, limiter.tryAcquire("m2", PaymentType.ALIPAY, now));
+            assertEquals(0, limiter.tryAcquire("m1", PaymentType.CARD_PAY, now));
+
+            assertEquals(0, limiter.tryAcquire("m1", PaymentType.ALIPAY, now + wait));
+            assertTrue(limiter.tryAcquire("m1", PaymentType.ALIPAY, now + wait) > 0);
+        }
+    }
+
+    @Test
+    void appliesLimitChangesWithoutResettingBuckets() {
+        try (PaymentRateLimiter limiter = PaymentFixtures.newRateLimiter(new RateLimit(1, 1))) {
+            long now = 1_000 * SECOND;
+            assertEquals(0, limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now));
+            assertEquals(SECOND, limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now));
+
+            limiter.setLimit(PaymentType.WECHAT_PAY, new RateLimit(1, 5));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(0, limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now));
+            }
+            assertTrue(limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now) > 0);
+
+            // 调大速率后，按旧速率欠下的 5 秒等待时间不再生效
+            limiter.setLimit(PaymentType.WECHAT_PAY, new RateLimit(1000, 1));
+            long millisecond = SECOND / 1000;
+            assertEquals(millisecond, limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now)); // 视为空桶
+            assertEquals(0, limiter.tryAcquire("m1", PaymentType.WECHAT_PAY, now + millisecond));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void grantsBatchPermitsUpToTheTokensLeft() {
+        try (PaymentRateLimiter limiter = PaymentFixtures.newRateLimiter(new RateLimit(10, 5))) {
+            long now = 1_000 * SECOND;
+            assertEquals(5, limiter.acquireUpTo("m1", PaymentType.ALIPAY, 8, now)); // 8 条的批量只放行桶里的 5 个令牌
+            assertEquals(0, limiter.acquireUpTo("m1", PaymentType.ALIPAY, 8, now));
+            assertEquals(2, limiter.acquireUpTo("m1", PaymentType.ALIPAY, 8, now + SECOND / 5)); // 200ms 补充 2 个
+            assertTrue(limiter.tryAcquire("m1", PaymentType.ALIPAY, now + SECOND / 5) > 0);
+            assertEquals(3, limiter.acquireUpTo("m2", PaymentType.ALIPAY, 3, now));
+
+            Map<String, Object> stats = (Map<String, Object>) limiter.snapshot().get(PaymentType.ALIPAY.getCode());
+            assertEquals(10L, stats.get("admitted"));
+            assertEquals(18L, stats.get("rejected"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void limitsAnonymousCallersAndCapsTheNumberOfBuckets() {
+        Map<PaymentType, RateLimit> limits = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            limits.put(type, new RateLimit(1, 1));
+        }
+        long now = 1_000 * SECOND;
+        try (PaymentRateLimiter limiter = new PaymentRateLimiter(limits, true, 300_000, true, 3)) {
+            // 未携带商户编号的请求共用 anonymous 桶，省略请求头绕不过限流
+            assertEquals(0, limiter.tryAcquire(null, PaymentType.ALIPAY, now));
+            assertTrue(limiter.tryAcquire(null, PaymentType.ALIPAY, now) > 0);
+            assertEquals(0, limiter.acquireUpTo(null, PaymentType.ALIPAY, 5, now));
+
+            assertEquals(0, limiter.tryAcquire("m1", PaymentType.ALIPAY, now));
+            assertEquals(0, limiter.tryAcquire("m2", PaymentType.ALIPAY, now));
+            // 桶已满 3 个：新商户共用溢出桶，换一个商户编号不能再拿到新的令牌
+            assertEquals(0, limiter.tryAcquire("fresh-1", PaymentType.ALIPAY, now));
+            assertTrue(limiter.tryAcquire("fresh-2", PaymentType.ALIPAY, now) > 0);
+            Map<String, Object> stats = (Map<String, Object>) limiter.snapshot().get(PaymentType.ALIPAY.getCode());
+            assertEquals(2L, stats.get("overflowed"));
+        }
+        try (PaymentRateLimiter limiter = new PaymentRateLimiter(limits, true, 300_000, false, 3)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(0, limiter.tryAcquire(null, PaymentType.ALIPAY, now)); // 显式关闭后才不限流
+            }
+            assertEquals(5, limiter.acquireUpTo(null, PaymentType.ALIPAY, 5, now));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.designpattern.paymentsystem.reactive;
+
+import com.example.designpattern.paymentsystem.Money;
+import com.example.designpattern.paymentsystem.PaymentService;
+import com.example.designpattern.paymentsystem.PaymentType;
+import com.example.designpattern.paymentsystem.resilience.PaymentRejectedException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactivePaymentServiceTest {
+
+    private static final Money AMOUNT = Money.ofMinor(100, Money.CNY);
+
+    /**
+     * payAsync 返回由测试控制完成时机的 future
+     */
+    private static final class ControlledPaymentService implements PaymentService {
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        @Override
+        public void pay(Money amount) {
+            result.join();
+        }
+
+        @Override
+        public CompletableFuture<Void> payAsync(Money amount) {
+            calls.incrementAndGet();
+            return result;
+        }
+
+        @Override
+        public PaymentType getServiceType() {
+            return PaymentType.ALIPAY;
+        }
+    }
+
+    @Test
+    void paysOnlyWhenSubscribedAndCompletesWithFuture() {
+        ControlledPaymentService delegate = new ControlledPaymentService();
+        Mono<Void> payment = new ReactivePaymentService(delegate, null).pay(AMOUNT);
+        assertEquals(0, delegate.calls.get());
+
+        AtomicReference<Boolean> completed = new AtomicReference<>(false);
+        payment.subscribe(null, null, () -> completed.set(true));
+        assertEquals(1, delegate.calls.get());
+        assertFalse(completed.get());
+
+        delegate.result.complete(null);
+        assertTrue(completed.get());
+    }
+
+    @Test
+    void propagatesFailureWithoutCompletionWrapper() {
+        ControlledPaymentService delegate = new ControlledPaymentService();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        new ReactivePaymentService(delegate, null).pay(AMOUNT).subscribe(null, error::set);
+
+        PaymentRejectedException rejection = new PaymentRejectedException(PaymentType.ALIPAY, PaymentRejectedException.Reason.CIRCUIT_OPEN);
+        delegate.result.completeExceptionally(rejection);
+        assertSame(rejection, error.get());
+    }
+
+    @Test
+    void cancelDoesNotCancelPayment() {
+        ControlledPaymentService delegate = new ControlledPaymentService();
+        Disposable subscription = new ReactivePaymentService(delegate, null).pay(AMOUNT).subscribe();
+        subscription.dispose(); // 客户端断开
+        assertFalse(delegate.result.isCancelled());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.designpattern.paymentsystem.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void opensOnFailureRateAndRecoversThroughHalfOpen() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 100, 100, 20, 2);
+        for (int i = 0; i < 3; i++) {
+            breaker.onResult(breaker.tryAcquirePermission(), FAST, i == 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState()); // 未达到最少调用数
+        breaker.onResult(breaker.tryAcquirePermission(), FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState()); // 2/4 失败
+
+        assertEquals(CircuitBreaker.NOT_PERMITTED, breaker.tryAcquirePermission());
+        Thread.sleep(30);
+
+        int first = breaker.tryAcquirePermission();
+        int second = breaker.tryAcquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NOT_PERMITTED, breaker.tryAcquirePermission()); // 试探名额已用完
+        breaker.onResult(first, FAST, true);
+        breaker.onResult(second, FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.snapshot().getTimesOpened());
+        assertEquals(2, breaker.snapshot().getNotPermittedCalls());
+    }
+
+    @Test
+    void opensOnSlowCallRateAndIgnoresResultsFromPreviousState() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 100, 100, 50, 0, 1);
+        int stale = breaker.tryAcquirePermission();
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(breaker.tryAcquirePermission(), i < 2 ? SLOW : FAST, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        int trial = breaker.tryAcquirePermission(); // openWait 为 0，立即进入半开
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotEquals(CircuitBreaker.NOT_PERMITTED, trial);
+        breaker.onResult(stale, FAST, false); // 打开前发出的调用，不计入试探结果
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(trial, SLOW, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
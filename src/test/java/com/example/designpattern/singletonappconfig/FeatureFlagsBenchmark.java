@@ -0,0 +1,99 @@
+package com.example.designpattern.singletonappconfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 功能开关判断的开销 (gc.alloc.rate.norm 应为 0)：
+ * <ul>
+ *     <li>parseEveryCall：原来 isFeatureXEnabled 的做法，每次读取配置字符串并解析；</li>
+ *     <li>simpleFlag：编译后的总开关；</li>
+ *     <li>rollout / rolloutWithAllowList：按商户一致性哈希灰度 (商户编号的 hashCode 已缓存)。</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeatureFlagsBenchmark {
+
+    private static final int MERCHANTS = 1024;
+
+    private final String[] merchantIds = new String[MERCHANTS];
+    private ManualAppConfigManager manager;
+    private FeatureFlag simple;
+    private FeatureFlag rollout;
+    private FeatureFlag rolloutWithAllowList;
+    private PrintStream originalOut;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int i = 0; i < MERCHANTS; i++) {
+            merchantIds[i] = "merchant-" + i;
+            merchantIds[i].hashCode();
+        }
+        manager = new ManualAppConfigManager(Paths.get("target", "jmh", "no-such-config.properties"));
+        Map<String, String> values = new HashMap<>();
+        values.put("feature.x.enabled", "true");
+        values.put("feature.rollout.enabled", "true");
+        values.put("feature.rollout.rollout-percent", "30");
+        values.put("feature.allow.enabled", "true");
+        values.put("feature.allow.rollout-percent", "30");
+        values.put("feature.allow.allow-merchants", "merchant-1,merchant-2,merchant-3");
+        manager.publish(values, "benchmark");
+        simple = manager.getFeatureFlags().flag("x");
+        rollout = manager.getFeatureFlags().flag("rollout");
+        rolloutWithAllowList = manager.getFeatureFlags().flag("allow");
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+        System.setOut(originalOut);
+    }
+
+    private String nextMerchant() {
+        return merchantIds[next++ & (MERCHANTS - 1)];
+    }
+
+    @Benchmark
+    public boolean parseEveryCall() {
+        return Boolean.parseBoolean(manager.getConfiguration("feature.x.enabled").orElse("false"));
+    }
+
+    @Benchmark
+    public boolean simpleFlag() {
+        return simple.isEnabled();
+    }
+
+    @Benchmark
+    public boolean rollout() {
+        return rollout.isEnabled(nextMerchant());
+    }
+
+    @Benchmark
+    public boolean rolloutWithAllowList() {
+        return rolloutWithAllowList.isEnabled(nextMerchant());
+    }
+}
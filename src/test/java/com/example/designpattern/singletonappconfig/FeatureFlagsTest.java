@@ -0,0 +1,97 @@
+package com.example.designpattern.singletonappconfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeatureFlagsTest {
+
+    private static final int MERCHANTS = 100_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rolloutIsConsistentAndMonotonic() {
+        try (ManualAppConfigManager manager = newManager()) {
+            FeatureFlag flag = manager.getFeatureFlags().flag("new-checkout");
+            publish(manager, Map.of("feature.new-checkout.enabled", "true", "feature.new-checkout.rollout-percent", "10"));
+            boolean[] atTenPercent = new boolean[MERCHANTS];
+            int enabled = 0;
+            for (int i = 0; i < MERCHANTS; i++) {
+                atTenPercent[i] = flag.isEnabled("merchant-" + i);
+                assertEquals(atTenPercent[i], flag.isEnabled("merchant-" + i)); // 同一商户结果稳定
+                enabled += atTenPercent[i] ? 1 : 0;
+            }
+            assertEquals(10_000, enabled, 600);
+
+            publish(manager, Map.of("feature.new-checkout.enabled", "true", "feature.new-checkout.rollout-percent", "25.5"));
+            enabled = 0;
+            for (int i = 0; i < MERCHANTS; i++) {
+                boolean now = flag.isEnabled("merchant-" + i);
+                assertTrue(now || !atTenPercent[i], "调高比例后 merchant-" + i + " 被关闭了");
+                enabled += now ? 1 : 0;
+            }
+            assertEquals(25_500, enabled, 900);
+            assertEquals(3L * MERCHANTS, flag.getEvaluations());
+        }
+    }
+
+    @Test
+    void allowListAndMasterSwitch() {
+        try (ManualAppConfigManager manager = newManager()) {
+            FeatureFlags flags = manager.getFeatureFlags();
+            FeatureFlag flag = flags.flag("beta");
+            publish(manager, Map.of("feature.beta.enabled", "true", "feature.beta.rollout-percent", "0",
+                    "feature.beta.allow-merchants", " vip-1 , vip-2 "));
+            assertTrue(flag.isEnabled("vip-2"));
+            assertFalse(flag.isEnabled("merchant-1"));
+            assertFalse(flag.isEnabled()); // 不区分商户时只看灰度比例
+
+            publish(manager, Map.of("feature.beta.enabled", "false", "feature.beta.allow-merchants", "vip-1"));
+            assertFalse(flag.isEnabled("vip-1"));
+
+            publish(manager, Map.of("feature.beta.enabled", "true"));
+            assertTrue(flag.isEnabled());
+            assertEquals("打开", flag.getDefinition());
+            assertEquals(5, flag.getEvaluations());
+        }
+    }
+
+    @Test
+    void invalidOrMissingFlagsAreOff() {
+        try (ManualAppConfigManager manager = newManager()) {
+            publish(manager, Map.of("feature.a.enabled", "true", "feature.a.rollout-percent", "150",
+                    "feature.b.enabled", "true", "feature.b.rollout-percent", "ten",
+                    "feature.c.enabled", "true", "feature.c.rollout-percent", "1e9",
+                    "feature.d.enabled", "true", "feature.d.rollout-percent", "Infinity",
+                    "feature.e.enabled", "true", "feature.e.rollout-percent", "NaN"));
+            FeatureFlags flags = manager.getFeatureFlags();
+            for (String name : new String[]{"a", "b", "c", "d", "e"}) {
+                assertFalse(flags.flag(name).isEnabled("merchant-1"), name);
+                assertEquals("配置错误，关闭", flags.flag(name).getDefinition(), name);
+            }
+            assertFalse(flags.flag("missing").isEnabled());
+            assertEquals("未配置", flags.flag("missing").getDefinition());
+            // 新配置中没有 feature.x.* 时 x 关闭，再次出现后已有的句柄随之打开
+            assertFalse(manager.isFeatureXEnabled());
+            publish(manager, Map.of("feature.x.enabled", "true"));
+            assertTrue(manager.isFeatureXEnabled());
+        }
+    }
+
+    private ManualAppConfigManager newManager() {
+        return new ManualAppConfigManager(dir.resolve("missing.properties"));
+    }
+
+    private static void publish(ManualAppConfigManager manager, Map<String, String> values) {
+        manager.publish(new HashMap<>(values), "test");
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.designpattern.singletonappconfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 配置读取与重新加载的开销：
+ * <ul>
+ *     <li>read：没有写者时的读取；</li>
+ *     <li>snapshot / rwLock：3 个读线程读取的同时，1 个写线程不停地发布新配置 (每次 50 项)，
+ *         对比 volatile 快照替换与读写锁保护的 HashMap；</li>
+ *     <li>fileChangeToListener：原子替换配置文件到监听器收到新快照的延迟 (包括 WatchService 通知、
+ *         {@link ManualAppConfigManager#DEBOUNCE_MILLIS} 的事件合并等待、解析和发布)。</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManualAppConfigManagerBenchmark {
+
+    private static final int KEYS = 50;
+
+    private final String[] keys = new String[KEYS];
+    private final List<Map<String, String>> versions = new ArrayList<>(); // 交替发布的两个版本
+    private Path dir;
+    private Path file;
+    private ManualAppConfigManager manager;
+    private final RwLockConfig rwLockConfig = new RwLockConfig();
+    private final Semaphore reloaded = new Semaphore(0);
+    private PrintStream originalOut;
+    private int version;
+
+    @Setup
+    public void setUp() throws IOException {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "feature." + i + ".enabled";
+        }
+        for (int v = 0; v < 2; v++) {
+            Map<String, String> values = new HashMap<>();
+            for (String key : keys) {
+                values.put(key, Integer.toString(v));
+            }
+            versions.add(values);
+        }
+        dir = Files.createTempDirectory("app-config-bench");
+        file = dir.resolve("app-config.properties");
+        write(versions.get(0));
+        manager = new ManualAppConfigManager(file);
+        manager.addChangeListener((previous, current) -> reloaded.release());
+        rwLockConfig.replace(versions.get(0));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+        System.setOut(originalOut);
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    @Benchmark
+    public Optional<String> read() {
+        return manager.getConfiguration(randomKey());
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public Optional<String> snapshotRead() {
+        return manager.getConfiguration(randomKey());
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public boolean snapshotPublish() {
+        return manager.publish(versions.get(version++ & 1), "benchmark");
+    }
+
+    @Benchmark
+    @Group("rwLock")
+    @GroupThreads(3)
+    public Optional<String> rwLockRead() {
+        return rwLockConfig.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("rwLock")
+    @GroupThreads(1)
+    public void rwLockPublish() {
+        rwLockConfig.replace(versions.get(version++ & 1));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public void fileChangeToListener() throws IOException, InterruptedException {
+        write(versions.get(++version & 1));
+        if (!reloaded.tryAcquire(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("10 秒内没有重新加载配置文件");
+        }
+    }
+
+    /**
+     * 先写临时文件再原子重命名
+     */
+    private void write(Map<String, String> values) throws IOException {
+        StringBuilder content = new StringBuilder();
+        values.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        Path temp = Files.writeString(dir.resolve("app-config.properties.tmp"), content, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 对照组：读写锁保护的可变 HashMap，更新时逐项写入
+     */
+    private static final class RwLockConfig {
+        private final Map<String, String> values = new HashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Optional<String> get(String key) {
+            lock.readLock().lock();
+            try {
+                return Optional.ofNullable(values.get(key));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void replace(Map<String, String> newValues) {
+            lock.writeLock().lock();
+            try {
+                values.clear();
+                values.putAll(newValues);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
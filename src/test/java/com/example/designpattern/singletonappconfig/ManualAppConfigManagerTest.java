@@ -0,0 +1,111 @@
+package com.example.designpattern.singletonappconfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ManualAppConfigManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reloadsWhenFileChangesAndNotifiesListeners() throws Exception {
+        Path file = dir.resolve("app.properties");
+        write(file, "apiKey=old\nfeature.x.enabled=false\ntheme=dark\n");
+        try (ManualAppConfigManager manager = new ManualAppConfigManager(file)) {
+            assertEquals(Optional.of("old"), manager.getConfiguration("apiKey"));
+            assertFalse(manager.isFeatureXEnabled());
+            BlockingQueue<ConfigSnapshot[]> changes = new LinkedBlockingQueue<>();
+            manager.addChangeListener((previous, current) -> changes.add(new ConfigSnapshot[]{previous, current}));
+
+            write(file, "apiKey=new\nfeature.x.enabled=true\n");
+
+            ConfigSnapshot[] change = changes.poll(10, TimeUnit.SECONDS);
+            assertNotNull(change, "修改配置文件后没有收到变更通知");
+            assertEquals(1, change[0].getVersion());
+            assertEquals(2, change[1].getVersion());
+            assertEquals(Set.of("apiKey", "feature.x.enabled", "theme"), change[1].changedKeys(change[0]));
+            assertEquals(Optional.of("new"), manager.getConfiguration("apiKey"));
+            assertTrue(manager.isFeatureXEnabled());
+            assertEquals(Optional.empty(), manager.getConfiguration("theme"));
+        }
+    }
+
+    @Test
+    void keepsCurrentSnapshotWhenFileIsInvalidOrUnchanged() throws IOException {
+        Path file = dir.resolve("app.properties");
+        write(file, "apiKey=valid\n");
+        try (ManualAppConfigManager manager = new ManualAppConfigManager(file)) {
+            ConfigSnapshot before = manager.getSnapshot();
+
+            assertFalse(manager.reload()); // 内容没有变化
+            Files.writeString(file, "apiKey=\\uZZZZ\n", StandardCharsets.UTF_8); // 非法的 unicode 转义
+            assertFalse(manager.reload());
+            Files.delete(file);
+            assertFalse(manager.reload());
+
+            assertEquals(before, manager.getSnapshot());
+        }
+    }
+
+    @Test
+    void usesDefaultsWhenFileIsMissing() {
+        try (ManualAppConfigManager manager = new ManualAppConfigManager(dir.resolve("missing.properties"))) {
+            assertEquals("内置默认值", manager.getSnapshot().getSource());
+            assertTrue(manager.isFeatureXEnabled());
+        }
+    }
+
+    @Test
+    void readersNeverSeeHalfAppliedUpdates() throws InterruptedException {
+        try (ManualAppConfigManager manager = new ManualAppConfigManager(dir.resolve("missing.properties"))) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong inconsistent = new AtomicLong();
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    // 同一个快照中的两个配置项总是同一次更新写入的
+                    ConfigSnapshot snapshot = manager.getSnapshot();
+                    if (!snapshot.get("a").equals(snapshot.get("b"))) {
+                        inconsistent.incrementAndGet();
+                    }
+                }
+            });
+            manager.publish(Map.of("a", "0", "b", "0"), "test");
+            reader.start();
+            for (int i = 1; i <= 100_000; i++) {
+                manager.publish(Map.of("a", Integer.toString(i), "b", Integer.toString(i)), "test");
+            }
+            running.set(false);
+            reader.join();
+            assertEquals(0, inconsistent.get());
+            assertEquals(100_002, manager.getSnapshot().getVersion());
+        }
+    }
+
+    /**
+     * 先写临时文件再原子重命名，监听线程不会读到写了一半的文件
+     */
+    private static void write(Path file, String content) throws IOException {
+        Path temp = Files.writeString(file.resolveSibling(file.getFileName() + ".tmp"), content, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
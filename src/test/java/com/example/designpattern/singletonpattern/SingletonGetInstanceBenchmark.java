@@ -0,0 +1,109 @@
+package com.example.designpattern.singletonpattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实例创建之后 getInstance() 的稳态吞吐 (每个线程每微秒的调用次数)
+ * <p>
+ * 用 -Dbenchmark.threads=1,2,4,8,16,32,64 观察线程数增加时的变化：
+ * 同步方法每次调用都要获取同一把锁，线程越多争用越严重；其他写法在实例创建后只是一次 (volatile) 静态字段读取。
+ * LazySingletonUnsafe 不做任何同步，作为下限参考。
+ * </p>
+ * <p>
+ * lazy / registry 是可复用的 {@link Lazy} 和 {@link SingletonRegistry}，与手写的各种单例类对比。
+ * </p>
+ * <p>
+ * 所有实例在 Setup 中提前创建，这里不包含首次访问的开销 (见 {@link SingletonInitBenchmark})。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingletonGetInstanceBenchmark {
+
+    private static final Lazy<Object> LAZY = Lazy.of(Object::new);
+
+    private final SingletonRegistry registry = new SingletonRegistry();
+
+    @Setup
+    public void setUp() {
+        // 构造函数会打印一行，只在这里发生一次
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            LazySingletonUnsafe.getInstance();
+            LazySingletonSynchronizedMethod.getInstance();
+            LazySingletonSynchronizedBlock.getInstance();
+            SingletonDCL.getInstance();
+            SingletonStaticInnerClass.getInstance();
+            EagerSingleton.getInstance();
+            SingletonEnum.INSTANCE.hashCode();
+            LAZY.get();
+            registry.register(SingletonGetInstanceBenchmark.class, () -> this);
+            registry.get(SingletonGetInstanceBenchmark.class);
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Benchmark
+    public Object unsafeBaseline() {
+        return LazySingletonUnsafe.getInstance();
+    }
+
+    @Benchmark
+    public Object synchronizedMethod() {
+        return LazySingletonSynchronizedMethod.getInstance();
+    }
+
+    @Benchmark
+    public Object synchronizedBlock() {
+        return LazySingletonSynchronizedBlock.getInstance();
+    }
+
+    @Benchmark
+    public Object doubleCheckedLocking() {
+        return SingletonDCL.getInstance();
+    }
+
+    @Benchmark
+    public Object staticInnerClass() {
+        return SingletonStaticInnerClass.getInstance();
+    }
+
+    @Benchmark
+    public Object eager() {
+        return EagerSingleton.getInstance();
+    }
+
+    @Benchmark
+    public Object enumSingleton() {
+        return SingletonEnum.INSTANCE;
+    }
+
+    @Benchmark
+    public Object lazy() {
+        return LAZY.get();
+    }
+
+    @Benchmark
+    public Object registry() {
+        return registry.get(SingletonGetInstanceBenchmark.class);
+    }
+}
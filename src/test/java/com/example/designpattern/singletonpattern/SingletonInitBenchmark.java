@@ -0,0 +1,143 @@
+package com.example.designpattern.singletonpattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各种单例写法的一次性开销：类初始化和首次 getInstance()
+ * <p>
+ * 类初始化每个 JVM 只发生一次，无法在同一个类上重复测量。这里每次测量前用一个新的类加载器
+ * 重新定义 singletonpattern 包中的类 (字节码已提前读入内存)，得到一份从未初始化过的副本：
+ * <ul>
+ *     <li>classInit：只触发类初始化 (静态字段赋值)。饿汉式和枚举在这一步就创建了实例，懒汉式几乎为零；</li>
+ *     <li>firstAccess：在未初始化的类上第一次调用 getInstance() (枚举为读取 INSTANCE)，
+ *     包含类初始化、实例创建和第一次加锁；静态内部类写法还包含定义并初始化 SingletonHolder 类。</li>
+ * </ul>
+ * 以多个线程运行时 (-Dbenchmark.threads=1,4,16,64)，所有线程同时对同一份副本做首次访问，
+ * 反映启动时多个请求同时碰到未创建的单例时的等待时间。
+ * </p>
+ * <p>
+ * 调用通过反射进行，各写法的这部分开销相同。构造函数中的打印输出被丢弃。
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50)
+@Measurement(iterations = 500)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingletonInitBenchmark {
+
+    private static final String PACKAGE = SingletonInitBenchmark.class.getPackageName() + ".";
+
+    @Param({"LazySingletonUnsafe", "LazySingletonSynchronizedMethod", "LazySingletonSynchronizedBlock",
+            "SingletonDCL", "SingletonStaticInnerClass", "EagerSingleton", "SingletonEnum"})
+    public String idiom;
+
+    private PrintStream originalOut;
+    private Class<?> type;
+    private Callable<Object> accessor;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(originalOut);
+    }
+
+    /**
+     * 单次测量模式下每次调用就是一轮迭代，所有线程共享这一份新加载、未初始化的副本
+     */
+    @Setup(Level.Iteration)
+    public void loadFreshCopy() throws ReflectiveOperationException {
+        type = Class.forName(PACKAGE + idiom, false, new IsolatingClassLoader());
+        // 获取 Method / Field 不会触发类初始化
+        if (type.isEnum()) {
+            Field instance = type.getField("INSTANCE");
+            accessor = () -> instance.get(null);
+        } else {
+            Method getInstance = type.getMethod("getInstance");
+            accessor = () -> getInstance.invoke(null);
+        }
+    }
+
+    @Benchmark
+    public Class<?> classInit() throws ClassNotFoundException {
+        return Class.forName(type.getName(), true, type.getClassLoader());
+    }
+
+    @Benchmark
+    public Object firstAccess() throws Exception {
+        return accessor.call();
+    }
+
+    /**
+     * 自己定义 singletonpattern 包中的类 (包括内部类)，其余的类交给父加载器
+     */
+    static final class IsolatingClassLoader extends ClassLoader {
+
+        private static final Map<String, byte[]> BYTECODE = new ConcurrentHashMap<>();
+
+        IsolatingClassLoader() {
+            super(SingletonInitBenchmark.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            // 只隔离 singletonpattern 包本身的类，不包括子包 (JMH 生成的代码在 jmh_generated 子包中)
+            if (!name.startsWith(PACKAGE) || name.indexOf('.', PACKAGE.length()) >= 0) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    byte[] bytes = BYTECODE.computeIfAbsent(name, IsolatingClassLoader::read);
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        private static byte[] read(String name) {
+            String resource = name.replace('.', '/') + ".class";
+            try (InputStream in = SingletonInitBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalStateException("找不到类文件: " + resource);
+                }
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.designpattern.singletonpattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发压力测试 (jcstress 风格：同一个场景重复很多轮，统计每种结果出现的次数)
+ * <p>
+ * 每一轮先通过反射把单例的静态字段清空，然后让多个线程同时调用 getInstance()，记录这一轮创建了几个不同的实例。
+ * 构造函数中的打印被替换为一次短暂的休眠，相当于一个耗时的初始化，让检查与赋值之间的竞态窗口足够大，
+ * 单核机器上也能稳定复现。
+ * </p>
+ */
+class SingletonRaceTest {
+
+    private static final int THREADS = 4;
+    private static final int ROUNDS = 100;
+
+    private PrintStream originalOut;
+
+    @BeforeEach
+    void slowConstructors() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                pause();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                pause();
+            }
+        }));
+    }
+
+    @AfterEach
+    void restore() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    void unsafeLazySingletonCanCreateTwoInstances() throws Exception {
+        Map<Integer, Integer> outcomes = stress(LazySingletonUnsafe.class, LazySingletonUnsafe::getInstance);
+        originalOut.println("LazySingletonUnsafe 每轮创建的实例数 -> 轮数: " + outcomes);
+        assertTrue(outcomes.keySet().stream().anyMatch(instances -> instances > 1),
+                "没有观察到重复创建: " + outcomes);
+    }
+
+    @Test
+    void synchronizedIdiomsCreateExactlyOneInstance() throws Exception {
+        assertEquals(Map.of(1, ROUNDS),
+                stress(LazySingletonSynchronizedMethod.class, LazySingletonSynchronizedMethod::getInstance));
+        assertEquals(Map.of(1, ROUNDS),
+                stress(LazySingletonSynchronizedBlock.class, LazySingletonSynchronizedBlock::getInstance));
+        assertEquals(Map.of(1, ROUNDS), stress(SingletonDCL.class, SingletonDCL::getInstance));
+    }
+
+    /**
+     * @return 每轮创建的不同实例数 -> 出现的轮数
+     */
+    private static Map<Integer, Integer> stress(Class<?> type, Supplier<Object> getInstance) throws Exception {
+        Field instance = type.getDeclaredField("instance");
+        instance.setAccessible(true);
+        Map<Integer, Integer> outcomes = new TreeMap<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            instance.set(null, null);
+            Set<Object> seen = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        seen.add(getInstance.get());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                thread.start();
+            }
+            start.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS), "线程没有在 10 秒内完成");
+            outcomes.merge(seen.size(), 1, Integer::sum);
+        }
+        instance.set(null, null);
+        return outcomes;
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.designpattern.singletonpattern;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingletonRegistryTest {
+
+    static final class Component {
+    }
+
+    static final class Dependent {
+        final Component component;
+
+        Dependent(Component component) {
+            this.component = component;
+        }
+    }
+
+    @Test
+    void concurrentFirstAccessCreatesOneInstance() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch inFactory = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SingletonRegistry registry = new SingletonRegistry();
+        registry.register(Component.class, () -> {
+            created.incrementAndGet();
+            inFactory.countDown();
+            await(release);
+            return new Component();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Component>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> registry.get(Component.class)));
+            }
+            inFactory.await();
+            assertFalse(registry.isInitialized(Component.class));
+            release.countDown();
+            Component first = results.get(0).get();
+            for (Future<Component> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, created.get());
+        assertTrue(registry.isInitialized(Component.class));
+    }
+
+    @Test
+    void failedInitializationIsRetriedAndDependenciesResolve() {
+        AtomicInteger attempts = new AtomicInteger();
+        SingletonRegistry registry = new SingletonRegistry();
+        registry.register(Component.class, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("下游暂时不可用");
+            }
+            return new Component();
+        });
+        registry.register(Dependent.class, () -> new Dependent(registry.get(Component.class)));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> registry.get(Dependent.class));
+        assertEquals("下游暂时不可用", failure.getMessage());
+        assertFalse(registry.isInitialized(Dependent.class));
+
+        Dependent dependent = registry.get(Dependent.class);
+        assertSame(registry.get(Component.class), dependent.component);
+        assertEquals(2, attempts.get());
+        assertThrows(IllegalStateException.class, () -> registry.register(Component.class, Component::new));
+        assertThrows(IllegalArgumentException.class, () -> registry.get(String.class));
+    }
+
+    @Test
+    void cyclesAndNullResultsAreRejected() {
+        SingletonRegistry registry = new SingletonRegistry();
+        registry.register(Component.class, () -> {
+            registry.get(Component.class);
+            return new Component();
+        });
+        assertThrows(IllegalStateException.class, () -> registry.get(Component.class));
+
+        Lazy<String> lazy = Lazy.of(() -> null);
+        assertThrows(NullPointerException.class, lazy::get);
+        assertFalse(lazy.isInitialized());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
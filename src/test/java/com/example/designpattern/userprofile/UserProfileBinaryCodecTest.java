@@ -0,0 +1,127 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.designpattern.userprofile.UserProfileStoreTest.assertSameProfile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserProfileBinaryCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void streamingAndMappedReadsMatchTheOriginalProfiles() throws IOException {
+        List<UserProfileDto> profiles = UserProfileFixtures.profiles(20_000, 3);
+        Path file = directory.resolve("profiles.upb");
+        try (UserProfileBinaryWriter writer = UserProfileBinaryWriter.create(file)) {
+            for (UserProfileDto profile : profiles) {
+                writer.write(profile);
+            }
+            assertEquals(profiles.size(), writer.getCount());
+        }
+
+        List<UserProfileDto> decoded = new ArrayList<>();
+        try (UserProfileBinaryReader reader = UserProfileBinaryReader.open(file)) {
+            for (UserProfileDto profile = reader.read(); profile != null; profile = reader.read()) {
+                decoded.add(profile);
+            }
+            assertNull(reader.read());
+        }
+        assertEquals(profiles.size(), decoded.size());
+        for (int i = 0; i < profiles.size(); i++) {
+            assertSameProfile(profiles.get(i), decoded.get(i));
+        }
+        // 字典编码的取值在解码结果之间共享同一个实例
+        UserProfileDto first = decoded.stream().filter(p -> "en-US".equals(p.getPreferredLanguage())).findFirst().orElseThrow();
+        UserProfileDto last = decoded.stream().filter(p -> "en-US".equals(p.getPreferredLanguage())).reduce((a, b) -> b).orElseThrow();
+        assertSame(first.getPreferredLanguage(), last.getPreferredLanguage());
+
+        try (MappedUserProfileFile mapped = MappedUserProfileFile.open(file)) {
+            assertEquals(profiles.size(), mapped.size());
+            for (int i = profiles.size() - 1; i >= 0; i -= 7) {
+                assertSameProfile(profiles.get(i), mapped.get(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(profiles.size()));
+        }
+        assertTrue(Files.size(file) < profiles.size() * 100L, "平均每条记录应小于 100 字节: " + Files.size(file));
+    }
+
+    @Test
+    void nullsUnicodeAndRecordsLargerThanTheBufferRoundTrip() throws IOException {
+        char[] large = new char[100_000];
+        Arrays.fill(large, '长');
+        List<UserProfileDto> profiles = List.of(
+                UserProfileDto.builder().build(),
+                UserProfileDto.builder().userId(Long.MIN_VALUE).username("").age(-1).isActive(false)
+                        .roles(Set.of()).interests(List.of()).preferredLanguage(null).build(),
+                UserProfileDto.builder().userId(42L).username("张三😀").fullName("Ünïcödé ✓")
+                        .roles(Set.of("管理员", "USER")).interests(List.of("音乐", "音乐", "𝄞")).build(),
+                UserProfileDto.builder().userId(Long.MAX_VALUE).avatarUrl(new String(large)).build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserProfileBinaryWriter writer = new UserProfileBinaryWriter(Channels.newChannel(out))) {
+            for (UserProfileDto profile : profiles) {
+                writer.write(profile);
+            }
+        }
+        byte[] bytes = out.toByteArray();
+        try (UserProfileBinaryReader reader = new UserProfileBinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            for (UserProfileDto profile : profiles) {
+                assertSameProfile(profile, reader.read());
+            }
+            assertNull(reader.read());
+        }
+
+        Path file = Files.write(directory.resolve("edge.upb"), bytes);
+        try (MappedUserProfileFile mapped = MappedUserProfileFile.open(file)) {
+            for (int i = profiles.size() - 1; i >= 0; i--) {
+                assertSameProfile(profiles.get(i), mapped.get(i));
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnencodableProfilesAndTruncatedData() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserProfileBinaryWriter writer = new UserProfileBinaryWriter(Channels.newChannel(out))) {
+            writer.write(UserProfileFixtures.profile(0, 1));
+            // 新的兴趣 "Drums" 已内联进字典后才遇到不成对的代理字符：整条记录连同字典条目都要回滚
+            UserProfileDto broken = UserProfileDto.builder().userId(1L).interests(List.of("Drums", "\uD800")).build();
+            assertThrows(IllegalArgumentException.class, () -> writer.write(broken));
+            writer.write(UserProfileDto.builder().userId(2L).interests(List.of("Drums")).build());
+            assertEquals(2, writer.getCount());
+        }
+        byte[] bytes = out.toByteArray();
+        try (UserProfileBinaryReader reader = new UserProfileBinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            assertSameProfile(UserProfileFixtures.profile(0, 1), reader.read());
+            assertEquals(List.of("Drums"), reader.read().getInterests());
+            assertNull(reader.read());
+        }
+
+        byte[] truncated = Arrays.copyOf(bytes, 30);
+        UserProfileBinaryReader reader = new UserProfileBinaryReader(Channels.newChannel(new ByteArrayInputStream(truncated)));
+        assertThrows(EOFException.class, reader::read);
+        Path file = Files.write(directory.resolve("truncated.upb"), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MappedUserProfileFile.open(file));
+        assertThrows(IOException.class, () -> new UserProfileBinaryReader(Channels.newChannel(new ByteArrayInputStream(new byte[8]))));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * 按访问轨迹回放：UserProfileCache (W-TinyLFU) 与普通 LRU (LinkedHashMap，装箱的 Long 键) 的对比
+ * <ul>
+ *     <li>zipf：在 10 万个用户上按 Zipf 分布 (s = 0.99) 访问；</li>
+ *     <li>scan：每 2 万次 Zipf 访问之后插入一段 2 万个只访问一次的冷用户 (批处理任务顺序扫描)。</li>
+ * </ul>
+ * 两个缓存的容量都是全部用户估算大小的 2%。Setup 时用全新的缓存完整回放一遍轨迹并打印命中率，
+ * 之后的吞吐量测试继续循环回放同一条轨迹 (loader 只是数组查找，测量的是缓存本身的开销)。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserProfileCacheBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int TRACE_LENGTH = 2_000_000;
+    private static final int BLOCK = 20_000;
+
+    @Param({"zipf", "scan"})
+    public String workload;
+
+    private UserProfileDto[] profiles;
+    private long[] trace;
+    private UserProfileCache tinyLfu;
+    private LruCache lru;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        profiles = UserProfileFixtures.profiles(USERS, 1).toArray(new UserProfileDto[0]);
+        long totalWeight = 0;
+        for (UserProfileDto profile : profiles) {
+            totalWeight += MemoryLayout.userProfile(profile);
+        }
+        long maximumWeight = totalWeight / 50;
+        trace = trace(workload);
+        LongFunction<UserProfileDto> loader = userId -> profiles[(int) (userId % USERS)]; // 冷用户复用已有资料
+
+        tinyLfu = new UserProfileCache(maximumWeight, 4, 0, loader, Runnable::run);
+        lru = new LruCache(maximumWeight, loader);
+        for (long userId : trace) {
+            tinyLfu.get(userId);
+            lru.get(userId);
+        }
+        System.out.printf("%n%s: W-TinyLFU 命中率 %.2f%%，LRU 命中率 %.2f%% (容量 %d 字节，约 %d 个用户)%n",
+                workload, tinyLfu.stats().getHitRate() * 100, lru.getHitRate() * 100,
+                maximumWeight, tinyLfu.size());
+    }
+
+    @Benchmark
+    public UserProfileDto tinyLfu() {
+        return tinyLfu.get(nextUserId());
+    }
+
+    @Benchmark
+    public UserProfileDto lru() {
+        return lru.get(nextUserId());
+    }
+
+    private long nextUserId() {
+        long userId = trace[next];
+        next = next + 1 == trace.length ? 0 : next + 1;
+        return userId;
+    }
+
+    private static long[] trace(String workload) {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] cdf = new double[USERS];
+        double sum = 0;
+        for (int rank = 0; rank < USERS; rank++) {
+            sum += 1 / Math.pow(rank + 1, 0.99);
+            cdf[rank] = sum;
+        }
+        long[] trace = new long[TRACE_LENGTH];
+        long coldUserId = USERS;
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            boolean scanning = "scan".equals(workload) && (i / BLOCK) % 2 == 1;
+            if (scanning) {
+                trace[i] = coldUserId++;
+            } else {
+                int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                trace[i] = rank >= 0 ? rank : Math.min(-rank - 1, USERS - 1);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * 对照组：按访问顺序排列的 LinkedHashMap，整体加锁，按同样的估算字节数淘汰最久未访问的条目
+     */
+    static final class LruCache {
+        private final long maximumWeight;
+        private final LongFunction<UserProfileDto> loader;
+        private final LinkedHashMap<Long, UserProfileDto> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+        private long hits;
+        private long misses;
+
+        LruCache(long maximumWeight, LongFunction<UserProfileDto> loader) {
+            this.maximumWeight = maximumWeight;
+            this.loader = loader;
+        }
+
+        synchronized UserProfileDto get(long userId) {
+            UserProfileDto value = entries.get(userId);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+            value = loader.apply(userId);
+            entries.put(userId, value);
+            weight += MemoryLayout.userProfile(value);
+            Iterator<Map.Entry<Long, UserProfileDto>> it = entries.entrySet().iterator();
+            while (weight > maximumWeight) {
+                Map.Entry<Long, UserProfileDto> eldest = it.next();
+                weight -= MemoryLayout.userProfile(eldest.getValue());
+                it.remove();
+            }
+            return value;
+        }
+
+        synchronized double getHitRate() {
+            return (double) hits / (hits + misses);
+        }
+    }
+}
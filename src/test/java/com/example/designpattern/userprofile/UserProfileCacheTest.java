@@ -0,0 +1,134 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserProfileCacheTest {
+
+    private static final long PROFILE_WEIGHT = MemoryLayout.userProfile(UserProfileFixtures.profile(0, 1));
+
+    @Test
+    void loadsOnMissAndStaysWithinTheWeightLimit() {
+        AtomicInteger loads = new AtomicInteger();
+        UserProfileCache cache = new UserProfileCache(PROFILE_WEIGHT * 200, 4, 0, userId -> {
+            loads.incrementAndGet();
+            return userId < 0 ? null : UserProfileFixtures.profile((int) userId, 1);
+        }, Runnable::run);
+
+        UserProfileDto first = cache.get(7);
+        assertSame(first, cache.get(7));
+        assertNull(cache.get(-1));
+        assertNull(cache.getIfPresent(-1)); // 不存在的用户不缓存
+        assertEquals(2, loads.get());
+        cache.invalidate(7);
+        assertNull(cache.getIfPresent(7));
+
+        for (int i = 0; i < 5_000; i++) {
+            cache.get(i);
+        }
+        UserProfileCache.Stats stats = cache.stats();
+        assertTrue(stats.getWeight() <= PROFILE_WEIGHT * 200, stats.toString());
+        assertEquals(stats.getSize(), cache.size());
+        assertTrue(stats.getEvictions() > 4_000, stats.toString());
+        assertEquals(1, stats.getHits());
+
+        char[] large = new char[(int) PROFILE_WEIGHT * 100];
+        Arrays.fill(large, 'x');
+        cache.put(1, UserProfileDto.builder().userId(1L).avatarUrl(new String(large)).build());
+        assertNull(cache.getIfPresent(1)); // 超过一段的容量，不缓存
+        assertEquals(1, cache.stats().getRejections());
+    }
+
+    @Test
+    void frequentlyReadProfilesSurviveAScan() {
+        UserProfileCache cache = new UserProfileCache(PROFILE_WEIGHT * 100, 1, 0,
+                userId -> UserProfileFixtures.profile((int) userId, 1), Runnable::run);
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                cache.get(hot);
+            }
+        }
+        for (int cold = 1_000; cold < 21_000; cold++) {
+            cache.get(cold); // 每个冷键只访问一次
+        }
+        int survivors = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            survivors += cache.getIfPresent(hot) != null ? 1 : 0;
+        }
+        assertTrue(survivors >= 45, "扫描后仍在缓存中的热键: " + survivors);
+    }
+
+    @Test
+    void refreshesAheadAndKeepsTheOldValueWhenReloadFails() throws InterruptedException {
+        AtomicInteger version = new AtomicInteger();
+        AtomicInteger failNext = new AtomicInteger();
+        UserProfileCache cache = new UserProfileCache(PROFILE_WEIGHT * 100, 1, 50, userId -> {
+            if (failNext.getAndSet(0) == 1) {
+                throw new IllegalStateException("数据库不可用");
+            }
+            return UserProfileDto.builder().userId(userId).fullName("v" + version.incrementAndGet()).build();
+        }, Runnable::run);
+
+        assertEquals("v1", cache.get(42).getFullName());
+        Thread.sleep(60);
+        assertEquals("v1", cache.get(42).getFullName()); // 返回旧值，同时提前刷新
+        assertEquals("v2", cache.getIfPresent(42).getFullName());
+
+        Thread.sleep(60);
+        failNext.set(1);
+        assertEquals("v2", cache.get(42).getFullName());
+        assertEquals("v2", cache.getIfPresent(42).getFullName()); // 仍然过期，下次命中时重试刷新
+        assertEquals("v3", cache.getIfPresent(42).getFullName());
+        UserProfileCache.Stats stats = cache.stats();
+        assertEquals(2, stats.getRefreshes());
+        assertEquals(1, stats.getRefreshFailures());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void dropsARefreshThatRacedWithAPut() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        AtomicReference<Thread> refresher = new AtomicReference<>();
+        UserProfileCache cache = new UserProfileCache(PROFILE_WEIGHT * 100, 1, 50, userId -> {
+            if (loads.incrementAndGet() == 2) { // 第二次加载是刷新：读到旧资料后卡住
+                refreshStarted.countDown();
+                try {
+                    releaseRefresh.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return UserProfileDto.builder().userId(userId).fullName("stale").build();
+            }
+            return UserProfileDto.builder().userId(userId).fullName("v1").build();
+        }, task -> {
+            Thread thread = new Thread(task);
+            refresher.set(thread);
+            thread.start();
+        });
+
+        assertEquals("v1", cache.get(42).getFullName());
+        Thread.sleep(60);
+        assertEquals("v1", cache.get(42).getFullName()); // 触发刷新
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+
+        cache.put(42, UserProfileDto.builder().userId(42L).fullName("edited").build());
+        releaseRefresh.countDown();
+        refresher.get().join(5_000);
+
+        assertEquals("edited", cache.getIfPresent(42).getFullName()); // 过时的刷新结果被丢弃
+        assertEquals(2, loads.get());
+    }
+}
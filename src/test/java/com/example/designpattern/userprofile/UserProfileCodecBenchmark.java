@@ -0,0 +1,159 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量导出/导入用户资料：Jackson (JSON 数组，逐条流式读写) 与二进制格式的对比
+ * <ul>
+ *     <li>encode*：把 profiles 个用户写入文件；</li>
+ *     <li>decode*：从文件读回全部用户；</li>
+ *     <li>mappedGet：通过内存映射按下标随机读取一条记录 (纳秒)。</li>
+ * </ul>
+ * 两种格式都读写同一目录下的真实文件 (通常在页缓存中)，Setup 时打印两种文件的大小。
+ * UserProfileDto 只有 Lombok 生成的 builder，Jackson 通过 mixin 使用它反序列化。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserProfileCodecBenchmark {
+
+    @Param("100000")
+    public int profiles;
+
+    private List<UserProfileDto> batch;
+    private Path directory;
+    private Path jsonFile;
+    private Path binaryFile;
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private ObjectMapper objectMapper;
+    private MappedUserProfileFile mapped;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        batch = UserProfileFixtures.profiles(profiles, 1);
+        directory = Files.createTempDirectory("user-profile-codec");
+        jsonFile = directory.resolve("profiles.json");
+        binaryFile = directory.resolve("profiles.upb");
+        objectMapper = new ObjectMapper()
+                .addMixIn(UserProfileDto.class, UserProfileDtoMixin.class)
+                .addMixIn(UserProfileDto.UserProfileDtoBuilder.class, UserProfileDtoBuilderMixin.class);
+        jsonWriter = objectMapper.writerFor(UserProfileDto.class);
+        jsonReader = objectMapper.readerFor(UserProfileDto.class);
+
+        encodeJackson();
+        encodeBinary();
+        if (decodeJackson() != profiles || decodeBinary() != profiles) {
+            throw new IllegalStateException("解码的记录数不一致");
+        }
+        mapped = MappedUserProfileFile.open(binaryFile);
+        System.out.printf("%n%d 个用户: JSON %.1f 字节/用户，二进制 %.1f 字节/用户%n", profiles,
+                (double) Files.size(jsonFile) / profiles, (double) Files.size(binaryFile) / profiles);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mapped.close();
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long encodeJackson() throws IOException {
+        try (OutputStream out = Files.newOutputStream(jsonFile);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (UserProfileDto profile : batch) {
+                jsonWriter.writeValue(generator, profile);
+            }
+            generator.writeEndArray();
+        }
+        return Files.size(jsonFile);
+    }
+
+    @Benchmark
+    public int encodeBinary() throws IOException {
+        try (UserProfileBinaryWriter writer = UserProfileBinaryWriter.create(binaryFile)) {
+            for (UserProfileDto profile : batch) {
+                writer.write(profile);
+            }
+            return writer.getCount();
+        }
+    }
+
+    @Benchmark
+    public int decodeJackson() throws IOException {
+        int count = 0;
+        try (InputStream in = Files.newInputStream(jsonFile);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.nextToken(); // START_ARRAY
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                jsonReader.readValue(parser, UserProfileDto.class);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int decodeBinary() throws IOException {
+        int count = 0;
+        try (UserProfileBinaryReader reader = UserProfileBinaryReader.open(binaryFile)) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UserProfileDto mappedGet() {
+        next = (next + 7919) % profiles; // 跳跃访问，避免顺序预取
+        return mapped.get(next);
+    }
+
+    @JsonDeserialize(builder = UserProfileDto.UserProfileDtoBuilder.class)
+    abstract static class UserProfileDtoMixin {
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    abstract static class UserProfileDtoBuilderMixin {
+        @JsonProperty("active")
+        abstract UserProfileDto.UserProfileDtoBuilder isActive(boolean isActive);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 生成测试和基准测试用的用户资料
+ * <p>
+ * 每个字符串都是独立的对象 (与从数据库或 JSON 加载的数据一样)，语言、角色和兴趣的取值种类很少且分布不均匀。
+ * </p>
+ */
+public final class UserProfileFixtures {
+
+    public static final String[] LANGUAGES = {"zh-CN", "zh-CN", "zh-CN", "en-US", "en-US", "ja-JP", "ko-KR", "fr-FR"};
+    public static final String[] ROLES = {"USER", "EDITOR", "ADMIN", "VIP", "SELLER"};
+    private static final String[] INTERESTS = {"Programming", "Photography", "Music", "Travel", "Cooking", "Reading",
+            "Gaming", "Hiking", "Movies", "Football", "Basketball", "Chess", "Painting", "Cycling", "Running",
+            "Yoga", "Fishing", "Gardening", "Investing", "History"};
+    private static final String[] FAMILY_NAMES = {"张", "王", "李", "赵", "Smith", "Johnson", "Tanaka", "Kim"};
+
+    private UserProfileFixtures() {
+    }
+
+    /**
+     * 第 index 个用户 (userId = 1000000 + index)，同样的 index 和 seed 总是生成同样的资料
+     */
+    public static UserProfileDto profile(int index, long seed) {
+        SplittableRandom random = new SplittableRandom(seed * 31 + index);
+        Set<String> roles = new HashSet<>();
+        roles.add(copy(ROLES[0]));
+        for (int i = 1; i < ROLES.length; i++) {
+            if (random.nextInt(4) == 0) {
+                roles.add(copy(ROLES[i]));
+            }
+        }
+        List<String> interests = new ArrayList<>();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            interests.add(copy(INTERESTS[random.nextInt(INTERESTS.length)]));
+        }
+        return UserProfileDto.builder()
+                .userId(1_000_000L + index)
+                .username("user_" + index)
+                .email("user_" + index + "@example.com")
+                .fullName(FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + " " + index)
+                .age(random.nextInt(20) == 0 ? null : 18 + random.nextInt(60))
+                .avatarUrl(random.nextBoolean() ? "https://example.com/avatars/" + index + ".png" : null)
+                .isActive(random.nextInt(5) != 0)
+                .preferredLanguage(copy(LANGUAGES[random.nextInt(LANGUAGES.length)]))
+                .roles(roles)
+                .interests(interests)
+                .build();
+    }
+
+    /**
+     * 内容相同但不共享底层数组的新字符串 (new String(String) 会共享字节数组)
+     */
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    public static List<UserProfileDto> profiles(int count, long seed) {
+        List<UserProfileDto> profiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            profiles.add(profile(i, seed));
+        }
+        return profiles;
+    }
+}
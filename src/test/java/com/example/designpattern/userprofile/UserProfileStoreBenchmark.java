@@ -0,0 +1,99 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列式存储与 List&lt;UserProfileDto&gt; 的对比
+ * <ul>
+ *     <li>Setup 时分别加载 profiles 个用户，打印 Full GC 后实测的保留堆 (每个用户的字节数) 和 stats() 的估算值；</li>
+ *     <li>scan*：统计偏好语言为 en-US 的激活用户数；</li>
+ *     <li>get*：按下标取一个用户 (列式存储需要组装 UserProfileDto)。</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class UserProfileStoreBenchmark {
+
+    @Param("1000000")
+    public int profiles;
+
+    private List<UserProfileDto> objects;
+    private UserProfileStore store;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long baseline = usedHeapAfterGc();
+        objects = UserProfileFixtures.profiles(profiles, 1);
+        long objectHeap = usedHeapAfterGc() - baseline;
+
+        store = new UserProfileStore();
+        objects.forEach(store::add);
+        store.trim();
+        long storeHeap = usedHeapAfterGc() - baseline - objectHeap;
+
+        System.out.printf("%n保留堆 (实测): 对象表示 %.1f 字节/用户，列式存储 %.1f 字节/用户%n",
+                (double) objectHeap / profiles, (double) storeHeap / profiles);
+        System.out.println("stats() 估算: " + store.stats());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scanObjects() {
+        long count = 0;
+        for (UserProfileDto profile : objects) {
+            if (profile.isActive() && "en-US".equals(profile.getPreferredLanguage())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int scanColumns() {
+        return store.countActiveByLanguage("en-US");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UserProfileDto getObject() {
+        return objects.get(nextRow());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public UserProfileDto getView() {
+        return store.get(nextRow());
+    }
+
+    private int nextRow() {
+        next = (next + 7919) % profiles; // 跳跃访问，避免顺序预取
+        return next;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.designpattern.userprofile;
+
+import com.example.designpattern.builderpattern.UserProfileDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserProfileStoreTest {
+
+    @Test
+    void viewsMatchTheOriginalProfiles() {
+        List<UserProfileDto> profiles = UserProfileFixtures.profiles(5_000, 7);
+        UserProfileStore store = new UserProfileStore();
+        profiles.forEach(store::add);
+        store.trim();
+
+        assertEquals(profiles.size(), store.size());
+        for (int row = 0; row < profiles.size(); row++) {
+            assertSameProfile(profiles.get(row), store.get(row));
+        }
+        UserProfileDto last = profiles.get(profiles.size() - 1);
+        assertSameProfile(last, store.findByUserId(last.getUserId()));
+        assertNull(store.findByUserId(42));
+        assertEquals(1234, store.findByUsername("user_1234"));
+    }
+
+    @Test
+    void nullsAndEmptyCollectionsAreKept() {
+        UserProfileStore store = new UserProfileStore();
+        UserProfileDto sparse = UserProfileDto.builder().userId(-1L).username("张三").preferredLanguage(null).build();
+        UserProfileDto empty = UserProfileDto.builder().userId(Long.MAX_VALUE).username("")
+                .roles(Set.of()).interests(List.of()).isActive(false).build();
+        store.add(sparse);
+        store.add(empty);
+
+        assertSameProfile(sparse, store.get(0));
+        assertSameProfile(empty, store.get(1));
+        assertThrows(IllegalArgumentException.class, () -> store.add(sparse));
+        assertThrows(IllegalArgumentException.class, () -> store.add(UserProfileDto.builder().build()));
+    }
+
+    @Test
+    void scansAgreeWithObjectFilteringAndUseLessMemory() {
+        List<UserProfileDto> profiles = UserProfileFixtures.profiles(3_000, 11);
+        UserProfileStore store = new UserProfileStore();
+        profiles.forEach(store::add);
+
+        int[] expected = IntStream.range(0, profiles.size())
+                .filter(row -> profiles.get(row).isActive() && "en-US".equals(profiles.get(row).getPreferredLanguage()))
+                .toArray();
+        assertArrayEquals(expected, store.findActiveByLanguage("en-US"));
+        assertEquals(expected.length, store.countActiveByLanguage("en-US"));
+        assertEquals(0, store.countActiveByLanguage("de-DE"));
+        assertEquals(profiles.stream().filter(p -> p.getRoles().contains("VIP")).count(), store.countByRole("VIP"));
+
+        UserProfileStore.Stats stats = store.stats();
+        assertTrue(stats.getBytesPerProfile() * 3 < stats.getObjectBytesPerProfile(), stats.toString());
+    }
+
+    static void assertSameProfile(UserProfileDto expected, UserProfileDto actual) {
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getFullName(), actual.getFullName());
+        assertEquals(expected.getAge(), actual.getAge());
+        assertEquals(expected.getAvatarUrl(), actual.getAvatarUrl());
+        assertEquals(expected.isActive(), actual.isActive());
+        assertEquals(expected.getPreferredLanguage(), actual.getPreferredLanguage());
+        assertEquals(expected.getRoles(), actual.getRoles());
+        assertEquals(expected.getInterests(), actual.getInterests());
+    }
+}